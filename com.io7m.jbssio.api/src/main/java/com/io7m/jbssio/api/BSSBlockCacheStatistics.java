@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * A snapshot of the statistics of a block cache.
+ *
+ * @param hits           The number of block lookups served from the cache
+ * @param misses         The number of block lookups that required a read
+ * @param evictions      The number of blocks evicted to stay within capacity
+ * @param blocksResident The number of blocks currently held
+ * @param octetsResident The number of octets of block data currently held
+ *
+ * @since 2.1.0
+ */
+
+public record BSSBlockCacheStatistics(
+  long hits,
+  long misses,
+  long evictions,
+  long blocksResident,
+  long octetsResident)
+{
+  /**
+   * @return The ratio of hits to total lookups, or {@code 0.0} if there
+   * have been no lookups
+   */
+
+  public double hitRatio()
+  {
+    final var total = this.hits + this.misses;
+    if (total == 0L) {
+      return 0.0;
+    }
+    return (double) this.hits / (double) total;
+  }
+}
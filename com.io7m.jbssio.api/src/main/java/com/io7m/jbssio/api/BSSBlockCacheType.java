@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.net.URI;
+
+/**
+ * A cache of fixed-size blocks of data, shared between any number of readers
+ * and safe for use from multiple threads. Blocks are keyed by the URI of the
+ * reader that loaded them and the index of the block, so readers that
+ * specify the same URI share cached blocks even if they were opened on
+ * different channels. Readers that share a cache must therefore only use
+ * the same URI for sources with identical, unchanging contents.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSBlockCacheType
+{
+  /**
+   * @return The size of a single block in octets
+   */
+
+  int blockSize();
+
+  /**
+   * @return The maximum number of octets of block data held by the cache
+   */
+
+  long capacity();
+
+  /**
+   * @return A snapshot of the cache statistics
+   */
+
+  BSSBlockCacheStatistics statistics();
+
+  /**
+   * Discard all blocks loaded from the given source.
+   *
+   * @param source The source URI
+   */
+
+  void invalidate(URI source);
+
+  /**
+   * Discard all blocks.
+   */
+
+  void clear();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * A snapshot of the statistics of a buffer pool.
+ *
+ * @param acquisitions   The number of buffers acquired
+ * @param allocations    The number of acquisitions that allocated a new buffer
+ * @param releases       The number of buffers released
+ * @param discards       The number of released buffers that were not retained
+ * @param octetsRetained The number of octets of idle buffers currently held
+ *
+ * @since 2.1.0
+ */
+
+public record BSSBufferPoolStatistics(
+  long acquisitions,
+  long allocations,
+  long releases,
+  long discards,
+  long octetsRetained)
+{
+
+}
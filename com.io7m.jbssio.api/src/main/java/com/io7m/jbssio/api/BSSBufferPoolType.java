@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A pool of direct byte buffers, safe for use from multiple threads.
+ * Readers and writers that are configured with a pool draw their staging
+ * and read-ahead buffers from it, and return them when closed.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSBufferPoolType
+{
+  /**
+   * @return The maximum number of octets of idle buffers retained by the pool
+   */
+
+  long capacity();
+
+  /**
+   * Acquire a buffer with at least {@code size} octets of capacity. The
+   * returned buffer has position {@code 0}, limit {@code size}, and
+   * big-endian byte order. Its contents are unspecified.
+   *
+   * @param size The required size
+   *
+   * @return A buffer
+   */
+
+  ByteBuffer acquire(int size);
+
+  /**
+   * Return a buffer to the pool. The buffer must have been obtained from
+   * {@link #acquire(int)} on this pool, and must not be used after it has
+   * been released. Buffers that would cause the pool to exceed its capacity
+   * are discarded.
+   *
+   * @param buffer The buffer
+   */
+
+  void release(ByteBuffer buffer);
+
+  /**
+   * @return A snapshot of the pool statistics
+   */
+
+  BSSBufferPoolStatistics statistics();
+}
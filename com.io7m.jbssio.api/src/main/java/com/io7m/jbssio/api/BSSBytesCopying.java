@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * Constants shared by the default implementations of the {@link
+ * java.nio.ByteBuffer} methods of {@link BSSReaderBytesType} and {@link
+ * BSSWriterBytesType}. This class is not part of the public API.
+ */
+
+final class BSSBytesCopying
+{
+  /**
+   * The size of the array through which the default implementations copy
+   * bytes.
+   */
+
+  static final int COPY_CHUNK_SIZE = 8192;
+
+  private BSSBytesCopying()
+  {
+
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.util.Objects;
+
+/**
+ * The parameters of a compressed reader or writer.
+ *
+ * @param format     The compression format
+ * @param level      The compression level for writers, in the range
+ *                   {@code [0, 9]}, or {@code -1} for the default level
+ * @param bufferSize The size of the buffer that holds compressed data
+ *
+ * @since 2.1.0
+ */
+
+public record BSSCompression(
+  BSSCompressionFormat format,
+  int level,
+  int bufferSize)
+{
+  /**
+   * The default compression level.
+   */
+
+  public static final int DEFAULT_LEVEL = -1;
+
+  /**
+   * The default size of the buffer that holds compressed data. Buffers of
+   * this size allow a compressed stream to be consumed with one system call
+   * and one inflate call per 64KiB of compressed data, rather than the
+   * several hundred required with the 512 octet buffers used by default by
+   * {@link java.util.zip.GZIPInputStream}.
+   */
+
+  public static final int DEFAULT_BUFFER_SIZE = 65536;
+
+  /**
+   * The parameters of a compressed reader or writer.
+   *
+   * @param format     The compression format
+   * @param level      The compression level for writers, in the range
+   *                   {@code [0, 9]}, or {@code -1} for the default level
+   * @param bufferSize The size of the buffer that holds compressed data
+   */
+
+  public BSSCompression
+  {
+    Objects.requireNonNull(format, "format");
+
+    if (level < DEFAULT_LEVEL || level > 9) {
+      throw new IllegalArgumentException(
+        "Compression level %d must be in the range [-1, 9]."
+          .formatted(Integer.valueOf(level)));
+    }
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException(
+        "Buffer size %d must be positive."
+          .formatted(Integer.valueOf(bufferSize)));
+    }
+  }
+
+  /**
+   * @return GZIP compression with the default level and buffer size
+   */
+
+  public static BSSCompression gzip()
+  {
+    return new BSSCompression(
+      BSSCompressionFormat.GZIP, DEFAULT_LEVEL, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @return ZLIB compression with the default level and buffer size
+   */
+
+  public static BSSCompression zlib()
+  {
+    return new BSSCompression(
+      BSSCompressionFormat.ZLIB, DEFAULT_LEVEL, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @return Raw DEFLATE compression with the default level and buffer size
+   */
+
+  public static BSSCompression deflate()
+  {
+    return new BSSCompression(
+      BSSCompressionFormat.DEFLATE, DEFAULT_LEVEL, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param newLevel The compression level
+   *
+   * @return These parameters with the given compression level
+   */
+
+  public BSSCompression withLevel(
+    final int newLevel)
+  {
+    return new BSSCompression(this.format, newLevel, this.bufferSize);
+  }
+
+  /**
+   * @param newBufferSize The buffer size
+   *
+   * @return These parameters with the given buffer size
+   */
+
+  public BSSCompression withBufferSize(
+    final int newBufferSize)
+  {
+    return new BSSCompression(this.format, this.level, newBufferSize);
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * The formats of compressed data supported by compressed readers and
+ * writers.
+ *
+ * @since 2.1.0
+ */
+
+public enum BSSCompressionFormat
+{
+  /**
+   * Raw DEFLATE data (RFC 1951), with no header or trailer.
+   */
+
+  DEFLATE,
+
+  /**
+   * DEFLATE data in the ZLIB format (RFC 1950), with a header and an
+   * Adler-32 trailer.
+   */
+
+  ZLIB,
+
+  /**
+   * DEFLATE data in the GZIP format (RFC 1952), with a header and a CRC-32
+   * trailer. Readers accept any number of concatenated members.
+   */
+
+  GZIP
+}
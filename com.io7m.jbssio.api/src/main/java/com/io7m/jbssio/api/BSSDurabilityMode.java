@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * The ways in which a durability policy decides when written data is
+ * forced to storage.
+ *
+ * @since 2.1.0
+ */
+
+public enum BSSDurabilityMode
+{
+  /**
+   * Data is never forced to storage by the writer.
+   */
+
+  NONE,
+
+  /**
+   * Data is forced to storage when the root writer is closed.
+   */
+
+  ON_CLOSE,
+
+  /**
+   * Data is forced to storage whenever a given number of octets have been
+   * written since the last force, and when the root writer is closed.
+   */
+
+  EVERY_OCTETS,
+
+  /**
+   * Data is forced to storage by the first write that occurs after a given
+   * interval has elapsed since the last force, and when the root writer is
+   * closed.
+   */
+
+  EVERY_INTERVAL,
+
+  /**
+   * Data is forced to storage whenever any writer sharing the channel is
+   * flushed, and when the root writer is closed. Writers that are flushed
+   * while a force is already in progress wait for, and share, the next
+   * force, so that any number of concurrent flushes result in at most two
+   * forces.
+   */
+
+  GROUP_COMMIT
+}
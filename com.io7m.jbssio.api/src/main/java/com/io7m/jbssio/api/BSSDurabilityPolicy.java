@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A durability policy for channel writers.
+ *
+ * @param mode     The durability mode
+ * @param octets   The number of octets written between forces, for
+ *                 {@link BSSDurabilityMode#EVERY_OCTETS}
+ * @param interval The minimum interval between forces, for
+ *                 {@link BSSDurabilityMode#EVERY_INTERVAL}
+ *
+ * @since 2.1.0
+ */
+
+public record BSSDurabilityPolicy(
+  BSSDurabilityMode mode,
+  long octets,
+  Duration interval)
+{
+  /**
+   * A durability policy for channel writers.
+   *
+   * @param mode     The durability mode
+   * @param octets   The number of octets written between forces, for
+   *                 {@link BSSDurabilityMode#EVERY_OCTETS}
+   * @param interval The minimum interval between forces, for
+   *                 {@link BSSDurabilityMode#EVERY_INTERVAL}
+   */
+
+  public BSSDurabilityPolicy
+  {
+    Objects.requireNonNull(mode, "mode");
+    Objects.requireNonNull(interval, "interval");
+
+    if (mode == BSSDurabilityMode.EVERY_OCTETS && octets <= 0L) {
+      throw new IllegalArgumentException(
+        "Octet count must be positive.");
+    }
+    if (mode == BSSDurabilityMode.EVERY_INTERVAL
+      && (interval.isNegative() || interval.isZero())) {
+      throw new IllegalArgumentException(
+        "Interval must be positive.");
+    }
+  }
+
+  /**
+   * @return A policy that never forces data to storage
+   */
+
+  public static BSSDurabilityPolicy none()
+  {
+    return new BSSDurabilityPolicy(
+      BSSDurabilityMode.NONE, 0L, Duration.ZERO);
+  }
+
+  /**
+   * @return A policy that forces data to storage on close
+   */
+
+  public static BSSDurabilityPolicy onClose()
+  {
+    return new BSSDurabilityPolicy(
+      BSSDurabilityMode.ON_CLOSE, 0L, Duration.ZERO);
+  }
+
+  /**
+   * @param octets The number of octets written between forces
+   *
+   * @return A policy that forces data to storage every {@code octets} octets
+   */
+
+  public static BSSDurabilityPolicy everyOctets(
+    final long octets)
+  {
+    return new BSSDurabilityPolicy(
+      BSSDurabilityMode.EVERY_OCTETS, octets, Duration.ZERO);
+  }
+
+  /**
+   * @param interval The minimum interval between forces
+   *
+   * @return A policy that forces data to storage at most once per interval
+   */
+
+  public static BSSDurabilityPolicy everyInterval(
+    final Duration interval)
+  {
+    return new BSSDurabilityPolicy(
+      BSSDurabilityMode.EVERY_INTERVAL, 0L, interval);
+  }
+
+  /**
+   * @return A policy that forces data to storage on flush, sharing forces
+   * between concurrent flushes
+   */
+
+  public static BSSDurabilityPolicy groupCommit()
+  {
+    return new BSSDurabilityPolicy(
+      BSSDurabilityMode.GROUP_COMMIT, 0L, Duration.ZERO);
+  }
+}
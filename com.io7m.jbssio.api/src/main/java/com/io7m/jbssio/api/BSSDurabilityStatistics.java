@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * A snapshot of the statistics of a durability policy.
+ *
+ * @param commits           The number of times that data was required to
+ *                          be durable, whether by policy, by a flush, or by
+ *                          a close
+ * @param forces            The number of forces issued to channels
+ * @param octetsForced      The number of octets made durable by forces
+ * @param forceNanosTotal   The total time spent in forces, in nanoseconds
+ * @param forceNanosMaximum The longest time spent in a single force, in
+ *                          nanoseconds
+ *
+ * @since 2.1.0
+ */
+
+public record BSSDurabilityStatistics(
+  long commits,
+  long forces,
+  long octetsForced,
+  long forceNanosTotal,
+  long forceNanosMaximum)
+{
+  /**
+   * @return The mean time spent in a single force, in nanoseconds, or
+   * {@code 0.0} if there have been no forces
+   */
+
+  public double forceNanosMean()
+  {
+    if (this.forces == 0L) {
+      return 0.0;
+    }
+    return (double) this.forceNanosTotal / (double) this.forces;
+  }
+
+  /**
+   * @return The mean number of commits satisfied by a single force, or
+   * {@code 0.0} if there have been no forces
+   */
+
+  public double commitsPerForce()
+  {
+    if (this.forces == 0L) {
+      return 0.0;
+    }
+    return (double) this.commits / (double) this.forces;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A copy-on-write overlay over an existing random access reader. Writes made
+ * through the overlay's writers are recorded in memory as a sorted set of
+ * extents and never reach the base. Readers created from the overlay see the
+ * base with the extents applied, and the patched data can be written out in
+ * full with {@link #writeTo(WritableByteChannel)}, which streams the
+ * unmodified regions of the base directly to the target and splices in the
+ * extents. The overlay is intended for applying small patches, such as
+ * header fields, to large files without rewriting them value by value.
+ *
+ * Writing beyond the end of the base extends the overlay; any gap between
+ * the end of the base and the written data reads as zeroes. Closing the
+ * overlay closes the base reader.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSOverlayType extends BSSCloseableType
+{
+  /**
+   * @return The URI of the overlay
+   */
+
+  URI uri();
+
+  /**
+   * @return The size of the base in octets
+   */
+
+  long baseSize();
+
+  /**
+   * @return The current size of the overlay in octets
+   */
+
+  long size();
+
+  /**
+   * @return The number of disjoint extents currently recorded
+   */
+
+  int extentCount();
+
+  /**
+   * Create a new writer that records writes in the overlay. Adjacent and
+   * overlapping writes are merged into single extents.
+   *
+   * @param name The name of the writer
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  BSSWriterRandomAccessType createWriter(
+    String name)
+    throws IOException;
+
+  /**
+   * Create a new reader that reads the base with the overlay's extents
+   * applied. The reader is bounded by the size of the overlay at the time
+   * the reader is created, but observes any later writes within that
+   * bound.
+   *
+   * @param name The name of the reader
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   */
+
+  BSSReaderRandomAccessType createReader(
+    String name)
+    throws IOException;
+
+  /**
+   * Write the full contents of the overlay, from offset zero to
+   * {@link #size()}, to the given channel. The channel is not closed.
+   *
+   * @param target The target channel
+   *
+   * @return The number of octets written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  long writeTo(
+    WritableByteChannel target)
+    throws IOException;
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A source of bytes that can be read by range, such as an object in a blob
+ * store read with ranged requests. Each call to
+ * {@link #read(long, int, ByteBuffer)} is assumed to be expensive
+ * regardless of its length, and so readers built on range sources cache
+ * the data they read and combine adjacent ranges into single requests.
+ *
+ * Implementations must be safe to call from multiple threads at once.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSRangeSourceType extends Closeable
+{
+  /**
+   * @return The size of the source in octets
+   *
+   * @throws IOException On I/O errors
+   */
+
+  long size()
+    throws IOException;
+
+  /**
+   * Read exactly {@code length} octets starting at {@code offset} into the
+   * given buffer, starting at the buffer's position. On return, the
+   * buffer's position has advanced by {@code length}.
+   *
+   * @param offset The offset of the first octet
+   * @param length The number of octets
+   * @param target The target buffer
+   *
+   * @throws EOFException If the range extends beyond the end of the source
+   * @throws IOException  On I/O errors
+   */
+
+  void read(
+    long offset,
+    int length,
+    ByteBuffer target)
+    throws IOException;
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * A snapshot of the statistics of a read-ahead policy.
+ *
+ * @param reads            The number of reads requested
+ * @param hits             The number of reads served entirely from a window
+ * @param sequentialMisses The number of window misses judged sequential,
+ *                         each of which grew the window
+ * @param randomMisses     The number of window misses judged random, each
+ *                         of which shrank the window
+ * @param fills            The number of window fills issued to the channel
+ * @param directReads      The number of reads issued to the channel
+ *                         without filling a window
+ * @param octetsRequested  The number of octets requested by readers
+ * @param octetsFetched    The number of octets read from the channel
+ *
+ * @since 2.1.0
+ */
+
+public record BSSReadAheadStatistics(
+  long reads,
+  long hits,
+  long sequentialMisses,
+  long randomMisses,
+  long fills,
+  long directReads,
+  long octetsRequested,
+  long octetsFetched)
+{
+  /**
+   * @return The ratio of reads served entirely from a window to all reads,
+   * or {@code 0.0} if there have been no reads
+   */
+
+  public double hitRatio()
+  {
+    if (this.reads == 0L) {
+      return 0.0;
+    }
+    return (double) this.hits / (double) this.reads;
+  }
+
+  /**
+   * @return The ratio of octets fetched to octets requested, or {@code 0.0}
+   * if nothing has been requested
+   */
+
+  public double amplification()
+  {
+    if (this.octetsRequested == 0L) {
+      return 0.0;
+    }
+    return (double) this.octetsFetched / (double) this.octetsRequested;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+/**
+ * An adaptive read-ahead policy for channel readers. Each reader that uses
+ * the policy keeps its own read-ahead window. The window grows (doubling,
+ * up to {@link #windowMaximum()}) while reads proceed forwards through the
+ * source, and shrinks (halving, and switching off entirely below
+ * {@link #windowMinimum()}) when reads jump backwards or further forwards
+ * than the current window. Sequential scans therefore issue a small number
+ * of large reads, while random lookups read only the octets they need.
+ * Statistics are aggregated over all readers that use the policy.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSReadAheadType
+{
+  /**
+   * @return The smallest read-ahead window in octets
+   */
+
+  int windowMinimum();
+
+  /**
+   * @return The largest read-ahead window in octets
+   */
+
+  int windowMaximum();
+
+  /**
+   * @return A snapshot of the read-ahead statistics
+   */
+
+  BSSReadAheadStatistics statistics();
+}
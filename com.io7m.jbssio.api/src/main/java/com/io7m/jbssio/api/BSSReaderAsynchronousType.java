@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.api;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous reader. An asynchronous reader does not parse data
+ * itself; instead, it fetches regions of the underlying source into memory
+ * without blocking the calling thread, and yields ordinary random access
+ * readers over the fetched data. Parsing then proceeds synchronously over
+ * memory, and never blocks on I/O. Any number of fetches may be in flight
+ * at once, so that I/O for one region can overlap with parsing of another.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSReaderAsynchronousType extends BSSCloseableType
+{
+  /**
+   * @return The URI of the source
+   */
+
+  URI uri();
+
+  /**
+   * @return The name of the reader
+   */
+
+  String name();
+
+  /**
+   * Fetch {@code size} bytes starting at {@code offset} bytes from the start
+   * of the source. The returned future completes with a reader over the
+   * fetched bytes once they have all been read. The reader is bounded to the
+   * fetched bytes, and offsets within it are relative to the start of the
+   * fetched region; if the region extends beyond the end of the source, the
+   * reader is bounded to the bytes that were available. The future
+   * completes exceptionally with {@link java.io.IOException} on I/O errors,
+   * and with {@link java.nio.channels.ClosedChannelException} if this
+   * reader is closed.
+   *
+   * @param name   The name of the resulting reader
+   * @param offset The absolute offset of the region
+   * @param size   The size of the region
+   *
+   * @return A future reader over the fetched region
+   *
+   * @throws IllegalArgumentException If {@code offset} is negative, or
+   *                                  {@code size} is negative or larger
+   *                                  than {@link Integer#MAX_VALUE}
+   */
+
+  CompletableFuture<BSSReaderRandomAccessType> fetch(
+    String name,
+    long offset,
+    long size)
+    throws IllegalArgumentException;
+}
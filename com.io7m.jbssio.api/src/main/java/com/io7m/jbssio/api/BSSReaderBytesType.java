@@ -20,6 +20,7 @@ package com.io7m.jbssio.api;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Functions to read bytes.
@@ -116,4 +117,82 @@ public interface BSSReaderBytesType
     int offset,
     int length)
     throws IOException, EOFException;
+
+  /**
+   * Read bytes.
+   *
+   * The reader will not be allowed to read beyond the specified limit.
+   * Bytes are read into {@code buffer} starting at the buffer's current
+   * position, up to the buffer's limit. The buffer's position is advanced by
+   * the number of bytes read. The default implementation copies the bytes
+   * through a bounded array; implementations are expected to override it
+   * with a direct copy.
+   *
+   * @param buffer The buffer to which to copy bytes
+   *
+   * @return The number of bytes read
+   *
+   * @throws IOException  On I/O errors, or if an attempt is made to seek or read beyond the
+   *                      reader's limit
+   * @throws EOFException If EOF is reached
+   */
+
+  default int readBytes(
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    final var chunk =
+      new byte[Math.min(buffer.remaining(), BSSBytesCopying.COPY_CHUNK_SIZE)];
+    var total = 0;
+    while (buffer.hasRemaining()) {
+      final var wanted = Math.min(chunk.length, buffer.remaining());
+      final var count = this.readBytes(chunk, 0, wanted);
+      buffer.put(chunk, 0, count);
+      total += count;
+      if (count < wanted) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Read bytes.
+   *
+   * The reader will not be allowed to read beyond the specified limit.
+   * Bytes are read into {@code buffer} starting at the buffer's current
+   * position, up to the buffer's limit. The buffer's position is advanced by
+   * the number of bytes read. The default implementation copies the bytes
+   * through a bounded array; implementations are expected to override it
+   * with a direct copy.
+   *
+   * @param name   The name of the value to be used in diagnostic messages
+   * @param buffer The buffer to which to copy bytes
+   *
+   * @return The number of bytes read
+   *
+   * @throws IOException  On I/O errors, or if an attempt is made to seek or read beyond the
+   *                      reader's limit
+   * @throws EOFException If EOF is reached
+   */
+
+  default int readBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    final var chunk =
+      new byte[Math.min(buffer.remaining(), BSSBytesCopying.COPY_CHUNK_SIZE)];
+    var total = 0;
+    while (buffer.hasRemaining()) {
+      final var wanted = Math.min(chunk.length, buffer.remaining());
+      final var count = this.readBytes(name, chunk, 0, wanted);
+      buffer.put(chunk, 0, count);
+      total += count;
+      if (count < wanted) {
+        break;
+      }
+    }
+    return total;
+  }
 }
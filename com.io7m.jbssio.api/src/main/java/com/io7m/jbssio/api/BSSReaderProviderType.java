@@ -20,7 +20,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.OptionalLong;
 
 /**
@@ -145,6 +150,56 @@ public interface BSSReaderProviderType
     String name)
     throws IOException;
 
+  /**
+   * Create a new random access reader over a read-only memory mapping of
+   * the whole of the given file channel. The reader knows that its data is
+   * a file mapping, and so
+   * {@link BSSReaderRandomAccessType#prefetch(long, long)} loads the mapped
+   * pages in the background. Readers created from buffers with
+   * {@link #createReaderFromByteBuffer(URI, ByteBuffer, String)} cannot
+   * distinguish file mappings from other direct buffers, and do not
+   * prefetch. Closing the reader closes the channel.
+   *
+   * @param uri     The URI of the file
+   * @param channel The file channel
+   * @param name    The name of the initial reader
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors, or if the file is too large to be
+   *                     mapped into a single buffer
+   *
+   * @since 2.1.0
+   */
+
+  BSSReaderRandomAccessType createReaderFromFileMapped(
+    URI uri,
+    FileChannel channel,
+    String name)
+    throws IOException;
+
+  /**
+   * Create a new random access reader from the given byte buffer. The
+   * returned reader can later be retargeted at other buffers.
+   *
+   * @param uri    The URI of the stream
+   * @param buffer The buffer
+   * @param name   The name of the initial reader
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   *
+   * @see BSSReaderRebindableType
+   * @since 2.1.0
+   */
+
+  BSSReaderRebindableType createReaderFromByteBufferRebindable(
+    URI uri,
+    ByteBuffer buffer,
+    String name)
+    throws IOException;
+
   /**
    * Create a new random access reader from the given seekable byte channel.
    *
@@ -182,4 +237,325 @@ public interface BSSReaderProviderType
     String name,
     long size)
     throws IOException;
+
+  /**
+   * Create a new asynchronous reader from the given asynchronous file
+   * channel. Closing the reader closes the channel.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the reader
+   *
+   * @return A new reader
+   *
+   * @since 2.1.0
+   */
+
+  BSSReaderAsynchronousType createReaderFromAsynchronousChannel(
+    URI uri,
+    AsynchronousFileChannel channel,
+    String name);
+
+  /**
+   * Create a new block cache suitable for use with readers created by this
+   * provider.
+   *
+   * @param blockSize The size of a single block in octets
+   * @param capacity  The maximum number of octets of block data to hold
+   *
+   * @return A new block cache
+   *
+   * @see #createReaderFromChannelCached(URI, SeekableByteChannel, String, OptionalLong, BSSBlockCacheType)
+   * @since 2.1.0
+   */
+
+  BSSBlockCacheType createBlockCache(
+    int blockSize,
+    long capacity);
+
+  /**
+   * Create a new random access reader from the given seekable byte channel.
+   * Reads are served from the given block cache where possible, and the
+   * channel is only read when a block is not resident in the cache. The
+   * URI of the reader identifies the source within the cache.
+   *
+   * @param uri     The URI of the stream
+   * @param channel The channel
+   * @param name    The name of the initial reader
+   * @param size    A limit on the number of bytes that can be read
+   * @param cache   The block cache
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @see BSSBlockCacheType
+   * @since 2.1.0
+   */
+
+  BSSReaderRandomAccessType createReaderFromChannelCached(
+    URI uri,
+    SeekableByteChannel channel,
+    String name,
+    OptionalLong size,
+    BSSBlockCacheType cache)
+    throws IOException;
+
+  /**
+   * Create a new adaptive read-ahead policy suitable for use with readers
+   * created by this provider.
+   *
+   * @param windowMinimum The smallest read-ahead window in octets
+   * @param windowMaximum The largest read-ahead window in octets
+   *
+   * @return A new read-ahead policy
+   *
+   * @see #createReaderFromChannelReadAhead(URI, SeekableByteChannel, String, OptionalLong, BSSReadAheadType)
+   * @since 2.1.0
+   */
+
+  BSSReadAheadType createReadAhead(
+    int windowMinimum,
+    int windowMaximum);
+
+  /**
+   * Create a new random access reader from the given seekable byte channel.
+   * The reader, and every sub-reader created from it, reads ahead of the
+   * requested data according to the given adaptive policy.
+   *
+   * @param uri       The URI of the stream
+   * @param channel   The channel
+   * @param name      The name of the initial reader
+   * @param size      A limit on the number of bytes that can be read
+   * @param readAhead The read-ahead policy
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @see BSSReadAheadType
+   * @since 2.1.0
+   */
+
+  BSSReaderRandomAccessType createReaderFromChannelReadAhead(
+    URI uri,
+    SeekableByteChannel channel,
+    String name,
+    OptionalLong size,
+    BSSReadAheadType readAhead)
+    throws IOException;
+
+  /**
+   * Create a new sequential reader from the given readable byte channel. The
+   * channel is not required to be seekable, but must be in blocking mode;
+   * a {@link java.nio.channels.SelectableChannel} in non-blocking mode is
+   * rejected. Data is read from the channel into a reusable internal buffer.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the initial reader
+   *
+   * @return A new reader
+   *
+   * @throws IOException              On I/O errors
+   * @throws IllegalArgumentException If the channel is non-blocking
+   */
+
+  BSSReaderSequentialType createReaderFromReadableChannel(
+    URI uri,
+    ReadableByteChannel channel,
+    String name)
+    throws IOException;
+
+  /**
+   * Create a new sequential reader from the given readable byte channel. The
+   * channel is not required to be seekable, but must be in blocking mode;
+   * a {@link java.nio.channels.SelectableChannel} in non-blocking mode is
+   * rejected. Data is read from the channel into a reusable internal buffer.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the initial reader
+   * @param size    The maximum number of bytes that can be read
+   *
+   * @return A new reader
+   *
+   * @throws IOException              On I/O errors
+   * @throws IllegalArgumentException If the channel is non-blocking
+   */
+
+  BSSReaderSequentialType createReaderFromReadableChannelBounded(
+    URI uri,
+    ReadableByteChannel channel,
+    String name,
+    long size)
+    throws IOException;
+
+  /**
+   * Create a new sequential reader from the given readable byte channel. The
+   * channel is not required to be seekable, but must be in blocking mode;
+   * a {@link java.nio.channels.SelectableChannel} in non-blocking mode is
+   * rejected. Data is read from the channel into a reusable internal buffer.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the initial reader
+   * @param size    The maximum number of bytes that can be read
+   *
+   * @return A new reader
+   *
+   * @throws IOException              On I/O errors
+   * @throws IllegalArgumentException If the channel is non-blocking
+   */
+
+  default BSSReaderSequentialType createReaderFromReadableChannel(
+    final URI uri,
+    final ReadableByteChannel channel,
+    final String name,
+    final OptionalLong size)
+    throws IOException
+  {
+    if (size.isPresent()) {
+      return this.createReaderFromReadableChannelBounded(
+        uri,
+        channel,
+        name,
+        size.getAsLong());
+    }
+    return this.createReaderFromReadableChannel(uri, channel, name);
+  }
+
+  /**
+   * Create a new sequential reader that decompresses data read from the
+   * given stream. Compressed data is read from the stream into a buffer of
+   * {@link BSSCompression#bufferSize()} octets, and decompressed directly
+   * into the internal buffer of the reader. Decompressors are drawn from a
+   * pool shared by all readers, and are reset and returned to the pool when
+   * the reader is closed.
+   *
+   * @param uri         The URI of the stream
+   * @param stream      The stream
+   * @param name        The name of the initial reader
+   * @param compression The compression parameters
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSReaderSequentialType createReaderFromStreamCompressed(
+    URI uri,
+    InputStream stream,
+    String name,
+    BSSCompression compression)
+    throws IOException;
+
+  /**
+   * Create a new sequential reader that decompresses data read from the
+   * given readable byte channel. Compressed data is read from the channel
+   * into a direct buffer of {@link BSSCompression#bufferSize()} octets, and
+   * decompressed directly into the internal buffer of the reader, so that
+   * no data passes through the Java heap. Decompressors are drawn from a
+   * pool shared by all readers, and are reset and returned to the pool when
+   * the reader is closed. The channel must be in blocking mode; a
+   * {@link java.nio.channels.SelectableChannel} in non-blocking mode is
+   * rejected.
+   *
+   * @param uri         The URI of the channel
+   * @param channel     The channel
+   * @param name        The name of the initial reader
+   * @param compression The compression parameters
+   *
+   * @return A new reader
+   *
+   * @throws IOException              On I/O errors
+   * @throws IllegalArgumentException If the channel is non-blocking
+   * @since 2.1.0
+   */
+
+  BSSReaderSequentialType createReaderFromReadableChannelCompressed(
+    URI uri,
+    ReadableByteChannel channel,
+    String name,
+    BSSCompression compression)
+    throws IOException;
+
+  /**
+   * Create a new random access reader over the given segment files, which
+   * are presented as a single address space with the segments laid out end
+   * to end in the given order. The sizes of the segments are read when the
+   * reader is created, and the segments must not change size while the
+   * reader is open. Segment files are opened lazily when first read, and at
+   * most {@code openMaximum} of them are held open at any one time; the
+   * least recently read segment is closed when another must be opened.
+   * Reads that cross segment boundaries are permitted.
+   *
+   * @param uri         The URI of the segmented source
+   * @param segments    The segment files, in order
+   * @param name        The name of the initial reader
+   * @param openMaximum The maximum number of segment files held open
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSReaderRandomAccessType createReaderFromSegmentFiles(
+    URI uri,
+    List<Path> segments,
+    String name,
+    int openMaximum)
+    throws IOException;
+
+  /**
+   * Create a new random access reader over the given segment channels,
+   * which are presented as a single address space with the segments laid
+   * out end to end in the given order. The sizes of the segments are read
+   * when the reader is created, and the segments must not change size while
+   * the reader is open. Closing the reader closes the segment channels.
+   * Reads that cross segment boundaries are permitted.
+   *
+   * @param uri      The URI of the segmented source
+   * @param segments The segment channels, in order
+   * @param name     The name of the initial reader
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSReaderRandomAccessType createReaderFromSegmentChannels(
+    URI uri,
+    List<? extends SeekableByteChannel> segments,
+    String name)
+    throws IOException;
+
+  /**
+   * Create a new random access reader over the given range source, reading
+   * through the given block cache. Reads that cover several blocks that are
+   * not resident, and prefetches of several such blocks, are served with a
+   * single range request covering all of the missing blocks rather than one
+   * request per block. Closing the reader closes the source.
+   *
+   * @param uri    The URI of the source, which also identifies the source's
+   *               blocks in the cache
+   * @param source The range source
+   * @param name   The name of the initial reader
+   * @param cache  The block cache, which must have been created by this
+   *               provider
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @see #createBlockCache(int, long)
+   * @since 2.1.0
+   */
+
+  BSSReaderRandomAccessType createReaderFromRangeSource(
+    URI uri,
+    BSSRangeSourceType source,
+    String name,
+    BSSBlockCacheType cache)
+    throws IOException;
 }
@@ -65,4 +65,31 @@ public interface BSSReaderRandomAccessType extends BSSReaderType,
     long offset,
     long size)
     throws IOException;
+
+  /**
+   * Indicate that the {@code length} bytes starting at {@code offset} bytes
+   * from the start of the bounds of the current reader are likely to be read
+   * soon. Implementations may begin loading the data in the background so
+   * that it is resident by the time it is read; for example, readers backed
+   * by memory-mapped files may load the mapped pages, and readers backed by
+   * block caches may load the covered blocks. The method does not wait for
+   * any loading to complete, and does not change the offset of the reader.
+   * Ranges that extend beyond the bounds of the reader are clamped to those
+   * bounds. The default implementation does nothing.
+   *
+   * @param offset The relative offset
+   * @param length The number of bytes
+   *
+   * @throws IOException On I/O errors
+   *
+   * @since 2.1.0
+   */
+
+  default void prefetch(
+    final long offset,
+    final long length)
+    throws IOException
+  {
+
+  }
 }
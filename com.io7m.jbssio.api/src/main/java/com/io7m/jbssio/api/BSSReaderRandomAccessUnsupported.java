@@ -19,6 +19,7 @@ package com.io7m.jbssio.api;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
@@ -91,6 +92,21 @@ return false;
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public int readBytes(
+    final ByteBuffer buffer)
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int readBytes(
+    final String name,
+    final ByteBuffer buffer)
+  {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public float readF16BE()
   {
@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jbssio.api;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A random-access reader over a byte buffer that can be retargeted at a new
+ * buffer. Rebinding a reader allows a single reader instance to be used to
+ * parse many small messages without allocating a new reader for each one.
+ *
+ * @since 2.1.0
+ */
+
+public interface BSSReaderRebindableType extends BSSReaderRandomAccessType
+{
+  /**
+   * Retarget this reader at the given buffer. The reader is reset to its
+   * initial state: The current offset is set to zero, the bounds of the reader
+   * become those of the new buffer, and the reader is reopened if it was
+   * closed. Any sub readers created prior to the call are closed and cannot
+   * be used to read from the new buffer.
+   *
+   * Rebinding does not allocate, regardless of the capacity of the new
+   * buffer.
+   *
+   * @param buffer The new buffer
+   */
+
+  void rebind(ByteBuffer buffer);
+}
@@ -20,6 +20,7 @@ package com.io7m.jbssio.api;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Functions for writing bytes.
@@ -102,4 +103,64 @@ public interface BSSWriterBytesType
     int offset,
     int length)
     throws IOException;
+
+  /**
+   * Write bytes.
+   *
+   * The writer will not be allowed to writer beyond the specified limit.
+   * All bytes between the buffer's current position and its limit are
+   * written, and the buffer's position is advanced to its limit. The
+   * default implementation copies the bytes through a bounded array;
+   * implementations are expected to override it with a direct copy.
+   *
+   * @param name   The name of the value
+   * @param buffer The byte buffer value
+   *
+   * @throws IOException  On I/O errors, or if an attempt is made to seek or write beyond the
+   *                      writer's limit
+   * @throws EOFException If EOF is reached
+   */
+
+  default void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    final var chunk =
+      new byte[Math.min(buffer.remaining(), BSSBytesCopying.COPY_CHUNK_SIZE)];
+    while (buffer.hasRemaining()) {
+      final var count = Math.min(chunk.length, buffer.remaining());
+      buffer.get(chunk, 0, count);
+      this.writeBytes(name, chunk, 0, count);
+    }
+  }
+
+  /**
+   * Write bytes.
+   *
+   * The writer will not be allowed to writer beyond the specified limit.
+   * All bytes between the buffer's current position and its limit are
+   * written, and the buffer's position is advanced to its limit. The
+   * default implementation copies the bytes through a bounded array;
+   * implementations are expected to override it with a direct copy.
+   *
+   * @param buffer The byte buffer value
+   *
+   * @throws IOException  On I/O errors, or if an attempt is made to seek or write beyond the
+   *                      writer's limit
+   * @throws EOFException If EOF is reached
+   */
+
+  default void writeBytes(
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    final var chunk =
+      new byte[Math.min(buffer.remaining(), BSSBytesCopying.COPY_CHUNK_SIZE)];
+    while (buffer.hasRemaining()) {
+      final var count = Math.min(chunk.length, buffer.remaining());
+      buffer.get(chunk, 0, count);
+      this.writeBytes(chunk, 0, count);
+    }
+  }
 }
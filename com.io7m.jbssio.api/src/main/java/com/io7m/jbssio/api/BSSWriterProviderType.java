@@ -20,7 +20,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.OptionalLong;
 
 /**
@@ -182,4 +184,261 @@ public interface BSSWriterProviderType
     }
     return this.createWriterFromChannel(uri, channel, name);
   }
+
+  /**
+   * Create a new sequential writer from the given stream that writes to the
+   * stream from a background thread. Data is encoded into one of two buffers
+   * of {@code bufferSize} bytes while the other buffer is written to the
+   * stream, so that encoding overlaps with I/O. Errors raised by the stream
+   * are reported by the next write, flush, or close of the writer. Flushing
+   * or closing the writer waits for all buffered data to be written.
+   *
+   * @param uri        The URI of the stream
+   * @param stream     The stream
+   * @param name       The name of the initial writer
+   * @param size       The maximum number of bytes that can be written, if any
+   * @param bufferSize The size of each buffer
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSWriterSequentialType createWriterFromStreamWriteBehind(
+    URI uri,
+    OutputStream stream,
+    String name,
+    OptionalLong size,
+    int bufferSize)
+    throws IOException;
+
+  /**
+   * Create a new random access writer from the given channel that writes to
+   * the channel from a background thread. Data is encoded into one of two
+   * buffers of {@code bufferSize} bytes while the other buffer is written to
+   * the channel, so that encoding overlaps with I/O. Each buffer holds a
+   * contiguous run of data; writes that jump to a different position start
+   * a new run. Errors raised by the channel are reported by the next write,
+   * flush, or close of the writer or any of its sub-writers. Flushing or
+   * closing the writer waits for all buffered data to be written.
+   *
+   * @param uri        The URI of the channel
+   * @param channel    The channel
+   * @param name       The name of the initial writer
+   * @param size       The maximum number of bytes that can be written, if any
+   * @param bufferSize The size of each buffer
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSWriterRandomAccessType createWriterFromChannelWriteBehind(
+    URI uri,
+    SeekableByteChannel channel,
+    String name,
+    OptionalLong size,
+    int bufferSize)
+    throws IOException;
+
+  /**
+   * Create a new durability policy suitable for use with writers created by
+   * this provider.
+   *
+   * @param policy The policy parameters
+   *
+   * @return A new durability policy
+   *
+   * @see #createWriterFromChannelDurable(URI, FileChannel, String, OptionalLong, BSSDurabilityType)
+   * @since 2.1.0
+   */
+
+  BSSDurabilityType createDurability(
+    BSSDurabilityPolicy policy);
+
+  /**
+   * Create a new random access writer from the given file channel that
+   * forces the channel to storage as required by the given durability
+   * policy. The policy must have been created by this provider. Closing the
+   * writer forces the channel (unless the policy mode is
+   * {@link BSSDurabilityMode#NONE}) and then closes it. Forces write file
+   * content, and the metadata required to read it back, but not other file
+   * metadata such as modification times.
+   *
+   * @param uri        The URI of the channel
+   * @param channel    The channel
+   * @param name       The name of the initial writer
+   * @param size       The maximum number of bytes that can be written, if any
+   * @param durability The durability policy
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSWriterRandomAccessType createWriterFromChannelDurable(
+    URI uri,
+    FileChannel channel,
+    String name,
+    OptionalLong size,
+    BSSDurabilityType durability)
+    throws IOException;
+
+  /**
+   * Create a new sequential writer from the given writable byte channel. The
+   * channel is not required to be seekable. Data is encoded into an internal
+   * buffer and written to the channel when the buffer is full, when the
+   * writer is flushed, or when the writer is closed.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the initial writer
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  BSSWriterSequentialType createWriterFromWritableChannel(
+    URI uri,
+    WritableByteChannel channel,
+    String name)
+    throws IOException;
+
+  /**
+   * Create a new sequential writer from the given writable byte channel. The
+   * channel is not required to be seekable. Data is encoded into an internal
+   * buffer and written to the channel when the buffer is full, when the
+   * writer is flushed, or when the writer is closed.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the initial writer
+   * @param size    The maximum number of bytes that can be written
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  BSSWriterSequentialType createWriterFromWritableChannelBounded(
+    URI uri,
+    WritableByteChannel channel,
+    String name,
+    long size)
+    throws IOException;
+
+  /**
+   * Create a new sequential writer from the given writable byte channel. The
+   * channel is not required to be seekable. Data is encoded into an internal
+   * buffer and written to the channel when the buffer is full, when the
+   * writer is flushed, or when the writer is closed.
+   *
+   * @param uri     The URI of the channel
+   * @param channel The channel
+   * @param name    The name of the initial writer
+   * @param size    The maximum number of bytes that can be written
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default BSSWriterSequentialType createWriterFromWritableChannel(
+    final URI uri,
+    final WritableByteChannel channel,
+    final String name,
+    final OptionalLong size)
+    throws IOException
+  {
+    if (size.isPresent()) {
+      return this.createWriterFromWritableChannelBounded(
+        uri,
+        channel,
+        name,
+        size.getAsLong());
+    }
+    return this.createWriterFromWritableChannel(uri, channel, name);
+  }
+
+  /**
+   * Create a new sequential writer that compresses data written to the
+   * given stream. Data is compressed into a buffer of
+   * {@link BSSCompression#bufferSize()} octets that is written to the stream
+   * when full. Compressors are drawn from a pool shared by all writers, and
+   * are reset and returned to the pool when the writer is closed. The
+   * compressed data is completed, and the stream closed, when the writer is
+   * closed.
+   *
+   * @param uri         The URI of the stream
+   * @param stream      The stream
+   * @param name        The name of the initial writer
+   * @param compression The compression parameters
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSWriterSequentialType createWriterFromStreamCompressed(
+    URI uri,
+    OutputStream stream,
+    String name,
+    BSSCompression compression)
+    throws IOException;
+
+  /**
+   * Create a new sequential writer that compresses data written to the
+   * given writable byte channel. Data is compressed directly from the
+   * internal buffer of the writer into a direct buffer of
+   * {@link BSSCompression#bufferSize()} octets that is written to the
+   * channel when full, so that no data passes through the Java heap.
+   * Compressors are drawn from a pool shared by all writers, and are reset
+   * and returned to the pool when the writer is closed. The compressed data
+   * is completed, and the channel closed, when the writer is closed.
+   *
+   * @param uri         The URI of the channel
+   * @param channel     The channel
+   * @param name        The name of the initial writer
+   * @param compression The compression parameters
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSWriterSequentialType createWriterFromWritableChannelCompressed(
+    URI uri,
+    WritableByteChannel channel,
+    String name,
+    BSSCompression compression)
+    throws IOException;
+
+  /**
+   * Create a new copy-on-write overlay over the given base reader. The base
+   * must have a known size. The overlay takes ownership of the base: the
+   * position of the base is not preserved, and closing the overlay closes
+   * the base. If the base was created by the corresponding reader provider
+   * over a file channel, the unmodified regions of the base are copied with
+   * {@link FileChannel#transferTo(long, long, WritableByteChannel)} when the
+   * overlay is written out.
+   *
+   * @param uri  The URI of the overlay
+   * @param base The base reader
+   *
+   * @return A new overlay
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  BSSOverlayType createOverlay(
+    URI uri,
+    BSSReaderRandomAccessType base)
+    throws IOException;
 }
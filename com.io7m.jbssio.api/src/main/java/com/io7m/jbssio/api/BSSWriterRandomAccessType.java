@@ -37,4 +37,32 @@ public interface BSSWriterRandomAccessType extends BSSWriterType,
     long offset,
     long size)
     throws IOException;
+
+  /**
+   * Create a random access reader over exactly the data written so far by
+   * this writer: the range from the start of this writer to the furthest
+   * offset reached by a write made through this writer or any of its
+   * sub-writers. Any data buffered by the writer is flushed first. The
+   * reader shares the writer's underlying storage rather than copying it,
+   * and so observes later writes within the range, but the range itself is
+   * fixed when the reader is created. Closing the reader does not close the
+   * writer, and the reader cannot be used once the writer's underlying
+   * storage has been closed.
+   *
+   * The default implementation throws {@link UnsupportedOperationException}.
+   *
+   * @param name The name of the reader
+   *
+   * @return A new reader
+   *
+   * @throws IOException On I/O errors
+   * @since 2.1.0
+   */
+
+  default BSSReaderRandomAccessType asReader(
+    final String name)
+    throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
 }
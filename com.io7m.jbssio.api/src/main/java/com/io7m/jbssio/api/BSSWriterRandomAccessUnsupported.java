@@ -19,6 +19,7 @@ package com.io7m.jbssio.api;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.OptionalLong;
 import java.util.function.Function;
@@ -119,6 +120,22 @@ public final class BSSWriterRandomAccessUnsupported
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void writeBytes(final ByteBuffer buffer)
+    throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public void writeBytes(
     final byte[] buffer,
@@ -430,6 +447,13 @@ public final class BSSWriterRandomAccessUnsupported
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void flush()
+    throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public void close()
     throws IOException
@@ -443,6 +467,12 @@ public final class BSSWriterRandomAccessUnsupported
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public BSSReaderRandomAccessType asReader(final String name)
+  {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public <E extends Exception> E createException(
     final String message,
@@ -72,4 +72,16 @@ public interface BSSWriterType
     long size)
     throws IOException;
 
+  /**
+   * Write any data buffered by this writer to the underlying storage. Writers
+   * that do not buffer data implement this method as a no-op.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default void flush()
+    throws IOException
+  {
+
+  }
 }
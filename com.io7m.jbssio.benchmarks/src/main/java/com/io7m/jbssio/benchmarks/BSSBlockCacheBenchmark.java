@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.benchmarks;
+
+import com.io7m.jbssio.api.BSSBlockCacheType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Measure the throughput of random lookups into a hot region of a large
+ * file from several threads, with and without a shared block cache. The
+ * cache statistics (including the hit ratio) are printed at the end of each
+ * trial.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class BSSBlockCacheBenchmark
+{
+  private static final int FILE_SIZE = 16 * 1024 * 1024;
+  private static final int HOT_SIZE = 1024 * 1024;
+
+  private static final long CACHE_SIZE = 2L * HOT_SIZE;
+
+  private Path file;
+  private FileChannel channel;
+  private BSSBlockCacheType cache;
+  private BSSReaderRandomAccessType plainReader;
+  private BSSReaderRandomAccessType cachedReader;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BSSBlockCacheBenchmark()
+  {
+
+  }
+
+  /**
+   * Per-thread lookup state.
+   */
+
+  @State(Scope.Thread)
+  public static class Cursor
+  {
+    private final SplittableRandom random = new SplittableRandom(0x5eedL);
+
+    /**
+     * Construct a cursor.
+     */
+
+    public Cursor()
+    {
+
+    }
+
+    final long next()
+    {
+      return this.random.nextInt(HOT_SIZE / 8) * 8L;
+    }
+  }
+
+  /**
+   * Set up the readers.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws IOException
+  {
+    final var readers = new BSSReaders();
+
+    this.file = Files.createTempFile("jbssio-", ".bin");
+    Files.write(this.file, new byte[FILE_SIZE]);
+    this.channel = FileChannel.open(this.file, READ, DELETE_ON_CLOSE);
+
+    this.cache = readers.createBlockCache(4096, CACHE_SIZE);
+    this.cachedReader =
+      readers.createReaderFromChannelCached(
+        URI.create("urn:channel"),
+        this.channel,
+        "file",
+        OptionalLong.empty(),
+        this.cache);
+    this.plainReader =
+      readers.createReaderFromChannel(
+        URI.create("urn:channel"),
+        this.channel,
+        "file");
+  }
+
+  /**
+   * Close the readers.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws IOException
+  {
+    final var stats = this.cache.statistics();
+    if (stats.hits() + stats.misses() > 0L) {
+      System.out.printf(
+        "%n# Cache: hit ratio %.4f, %s%n", stats.hitRatio(), stats);
+    }
+    this.cachedReader.close();
+    this.plainReader.close();
+    this.channel.close();
+  }
+
+  private static long lookup(
+    final BSSReaderRandomAccessType reader,
+    final Cursor cursor)
+    throws IOException
+  {
+    try (var sub = reader.createSubReaderAtBounded(
+      "record", cursor.next(), 8L)) {
+      return sub.readS64BE();
+    }
+  }
+
+  /**
+   * Read one 64-bit value at a random offset within the hot region directly
+   * from the channel.
+   *
+   * @param cursor The cursor
+   *
+   * @return The value
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long plainRandomLookup(
+    final Cursor cursor)
+    throws IOException
+  {
+    return lookup(this.plainReader, cursor);
+  }
+
+  /**
+   * Read one 64-bit value at a random offset within the hot region through
+   * the block cache.
+   *
+   * @param cursor The cursor
+   *
+   * @return The value
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long cachedRandomLookup(
+    final Cursor cursor)
+    throws IOException
+  {
+    return lookup(this.cachedReader, cursor);
+  }
+}
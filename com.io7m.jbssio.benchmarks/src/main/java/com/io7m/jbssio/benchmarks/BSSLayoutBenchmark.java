@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.benchmarks;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.ext.layout.BSSLayout;
+import com.io7m.jbssio.ext.layout.BSSLayoutCodec;
+import com.io7m.jbssio.ext.layout.BSSLayoutColumns;
+import com.io7m.jbssio.ext.layout.BSSLayoutRecord;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.F32;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.U16;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.U32;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Compare decoding a table of fixed-size records with a compiled layout
+ * codec against decoding the same table with individual read calls.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BSSLayoutBenchmark
+{
+  private static final int RECORD_COUNT = 4096;
+
+  private BSSReaderRandomAccessType reader;
+  private BSSLayoutCodec codec;
+  private BSSLayoutRecord record;
+  private BSSLayoutColumns columns;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BSSLayoutBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the reader and codec.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws IOException
+  {
+    final var layout =
+      BSSLayout.builder("vertex")
+        .addField("x", F32, LITTLE_ENDIAN)
+        .addField("y", F32, LITTLE_ENDIAN)
+        .addField("z", F32, LITTLE_ENDIAN)
+        .addField("color", U32, LITTLE_ENDIAN)
+        .addField("u", U16, LITTLE_ENDIAN)
+        .addField("v", U16, LITTLE_ENDIAN)
+        .build();
+
+    this.codec = BSSLayoutCodec.create(layout);
+    this.record = layout.createRecord();
+    this.columns = layout.createColumns(RECORD_COUNT);
+    this.reader =
+      new BSSReaders().createReaderFromByteBuffer(
+        URI.create("urn:buffer"),
+        ByteBuffer.allocate(layout.size() * RECORD_COUNT),
+        "table");
+  }
+
+  /**
+   * Decode the table with the compiled codec.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void layoutCodec(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    this.reader.seekTo(0L);
+    for (int index = 0; index < RECORD_COUNT; ++index) {
+      this.codec.read(this.reader, this.record);
+      blackhole.consume(this.record.getFloat(0));
+      blackhole.consume(this.record.getInteger(3));
+    }
+  }
+
+  /**
+   * Decode the table into columns with the compiled codec.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void layoutColumns(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    this.reader.seekTo(0L);
+    this.codec.readColumns(this.reader, this.columns);
+    blackhole.consume(this.columns);
+  }
+
+  /**
+   * Decode the table with individual read calls.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void handWritten(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    this.reader.seekTo(0L);
+    for (int index = 0; index < RECORD_COUNT; ++index) {
+      final var x = this.reader.readF32LE("x");
+      this.reader.readF32LE("y");
+      this.reader.readF32LE("z");
+      final var color = this.reader.readU32LE("color");
+      this.reader.readU16LE("u");
+      this.reader.readU16LE("v");
+      blackhole.consume(x);
+      blackhole.consume(color);
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.benchmarks;
+
+import com.io7m.jbssio.api.BSSBlockCacheType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSRangeSourceSimulated;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time taken to read a region of a simulated remote source with
+ * a fixed latency per request through a block cache, starting from a cold
+ * cache each time. A single bulk read of the region is served with one
+ * coalesced range request, whereas reading the region one block at a time
+ * issues one request per block. The number of requests made of the source
+ * is printed at the end of each trial.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BSSRangeSourceBenchmark
+{
+  private static final int SOURCE_SIZE = 4 * 1024 * 1024;
+  private static final int BLOCK_SIZE = 4096;
+  private static final int REGION_SIZE = 256 * 1024;
+
+  private static final Duration LATENCY = Duration.ofMillis(1L);
+
+  private BSSRangeSourceSimulated source;
+  private BSSBlockCacheType cache;
+  private BSSReaderRandomAccessType reader;
+  private byte[] region;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BSSRangeSourceBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the reader.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws IOException
+  {
+    final var readers = new BSSReaders();
+
+    this.source =
+      BSSRangeSourceSimulated.create(
+        ByteBuffer.allocate(SOURCE_SIZE), LATENCY);
+    this.cache =
+      readers.createBlockCache(BLOCK_SIZE, SOURCE_SIZE);
+    this.reader =
+      readers.createReaderFromRangeSource(
+        URI.create("urn:remote"), this.source, "remote", this.cache);
+    this.region = new byte[REGION_SIZE];
+  }
+
+  /**
+   * Close the reader.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws IOException
+  {
+    System.out.printf(
+      "%n# Source: %d requests, %d octets%n",
+      Long.valueOf(this.source.requests()),
+      Long.valueOf(this.source.octets()));
+    this.reader.close();
+  }
+
+  /**
+   * Read the region with a single bulk read, which fetches all of the
+   * region's blocks with one request.
+   *
+   * @return The number of octets read
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public int coalescedRead()
+    throws IOException
+  {
+    this.cache.clear();
+    this.reader.seekTo(0L);
+    return this.reader.readBytes(this.region);
+  }
+
+  /**
+   * Read one 64-bit value from each block of the region, which fetches
+   * each block with a separate request.
+   *
+   * @return The sum of the values
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long perBlockRead()
+    throws IOException
+  {
+    this.cache.clear();
+
+    var sum = 0L;
+    for (long offset = 0L; offset < REGION_SIZE; offset += BLOCK_SIZE) {
+      this.reader.seekTo(offset);
+      sum += this.reader.readS64BE();
+    }
+    return sum;
+  }
+}
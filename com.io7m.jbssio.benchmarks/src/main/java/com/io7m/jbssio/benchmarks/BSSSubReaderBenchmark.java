@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.benchmarks;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Measure the throughput of sub-reader creation, as is typical when reading
+ * one record at a time out of a large table of fixed-size records.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BSSSubReaderBenchmark
+{
+  private static final int RECORD_SIZE = 16;
+  private static final int RECORD_COUNT = 4096;
+
+  private BSSReaders readers;
+  private Path file;
+  private FileChannel channel;
+  private BSSReaderRandomAccessType bufferReader;
+  private BSSReaderRandomAccessType channelReader;
+  private long record;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BSSSubReaderBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the readers.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws IOException
+  {
+    this.readers = new BSSReaders();
+
+    final var data = new byte[RECORD_SIZE * RECORD_COUNT];
+    this.bufferReader =
+      this.readers.createReaderFromByteBuffer(
+        URI.create("urn:buffer"),
+        ByteBuffer.wrap(data),
+        "table");
+
+    this.file = Files.createTempFile("jbssio-", ".bin");
+    Files.write(this.file, data);
+    this.channel = FileChannel.open(this.file, READ, DELETE_ON_CLOSE);
+    this.channelReader =
+      this.readers.createReaderFromChannel(
+        URI.create("urn:channel"),
+        this.channel,
+        "table");
+  }
+
+  /**
+   * Close the readers.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws IOException
+  {
+    this.bufferReader.close();
+    this.channelReader.close();
+    this.channel.close();
+  }
+
+  private long nextRecordOffset()
+  {
+    this.record = (this.record + 1L) % RECORD_COUNT;
+    return this.record * RECORD_SIZE;
+  }
+
+  /**
+   * Create a bounded sub-reader over a byte buffer reader and read one field.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void byteBufferSubReaderBounded(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var sub = this.bufferReader.createSubReaderAtBounded(
+      "record", this.nextRecordOffset(), RECORD_SIZE)) {
+      blackhole.consume(sub.readS32BE());
+    }
+  }
+
+  /**
+   * Create an unbounded sub-reader over a byte buffer reader.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void byteBufferSubReader(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var sub = this.bufferReader.createSubReaderAt(
+      "record", this.nextRecordOffset())) {
+      blackhole.consume(sub.offsetCurrentAbsolute());
+    }
+  }
+
+  /**
+   * Create a bounded sub-reader over a channel reader and read one field.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void channelSubReaderBounded(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var sub = this.channelReader.createSubReaderAtBounded(
+      "record", this.nextRecordOffset(), RECORD_SIZE)) {
+      blackhole.consume(sub.readS32BE());
+    }
+  }
+
+  /**
+   * Create a bounded sub-reader and request its path, forcing the path to be
+   * constructed.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void byteBufferSubReaderPath(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var sub = this.bufferReader.createSubReaderAtBounded(
+      "record", this.nextRecordOffset(), RECORD_SIZE)) {
+      blackhole.consume(sub.path());
+    }
+  }
+}
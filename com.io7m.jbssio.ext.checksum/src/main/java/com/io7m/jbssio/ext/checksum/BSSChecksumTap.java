@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * A tap that computes a checksum, such as {@link java.util.zip.CRC32C} or
+ * {@link java.util.zip.Adler32}, over the bytes of a region.
+ */
+
+public final class BSSChecksumTap extends BSSTap
+{
+  private final Checksum checksum;
+
+  private BSSChecksumTap(
+    final Checksum inChecksum,
+    final BSSTapRegion inRegion)
+  {
+    super(inRegion);
+    this.checksum = Objects.requireNonNull(inChecksum, "checksum");
+  }
+
+  /**
+   * Create a checksum tap. The checksum is not reset, so a checksum can be
+   * continued across several regions.
+   *
+   * @param checksum The checksum
+   * @param region   The region
+   *
+   * @return A checksum tap
+   */
+
+  public static BSSChecksumTap create(
+    final Checksum checksum,
+    final BSSTapRegion region)
+  {
+    return new BSSChecksumTap(checksum, region);
+  }
+
+  @Override
+  protected void update(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    this.checksum.update(data, offset, length);
+  }
+
+  /**
+   * @return The checksum of the bytes observed so far
+   */
+
+  public long value()
+  {
+    this.flush();
+    return this.checksum.getValue();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSChecksumTap %s %s]",
+      this.checksum.getClass().getSimpleName(),
+      this.region());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * A tap that computes a message digest, such as SHA-256, over the bytes of
+ * a region. Bytes reach the digest in the large batches accumulated by the
+ * tap, and bulk reads and writes larger than a batch are passed to the
+ * digest directly, so hashing proceeds at the speed of the digest rather
+ * than the speed of the individual reads and writes.
+ */
+
+public final class BSSDigestTap extends BSSTap
+{
+  private final MessageDigest digest;
+  private byte[] result;
+
+  private BSSDigestTap(
+    final MessageDigest inDigest,
+    final BSSTapRegion inRegion)
+  {
+    super(inRegion);
+    this.digest = Objects.requireNonNull(inDigest, "digest");
+  }
+
+  /**
+   * Create a digest tap. The digest is not reset, so any bytes already
+   * given to the digest are included in the result.
+   *
+   * @param digest The digest
+   * @param region The region
+   *
+   * @return A digest tap
+   */
+
+  public static BSSDigestTap create(
+    final MessageDigest digest,
+    final BSSTapRegion region)
+  {
+    return new BSSDigestTap(digest, region);
+  }
+
+  @Override
+  protected void update(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    if (this.result != null) {
+      throw new IllegalStateException(
+        "The digest has already been completed.");
+    }
+    this.digest.update(data, offset, length);
+  }
+
+  /**
+   * Complete the digest. The first call completes the digest over the bytes
+   * observed so far, and subsequent calls return the same value. Observing
+   * any further bytes of the region after the digest has been completed is
+   * an error.
+   *
+   * @return The digest of the bytes observed
+   */
+
+  public byte[] digest()
+  {
+    if (this.result == null) {
+      this.flush();
+      this.result = this.digest.digest();
+    }
+    return this.result.clone();
+  }
+
+  /**
+   * Complete the digest, as with {@link #digest()}.
+   *
+   * @return The digest of the bytes observed as a lowercase hexadecimal
+   * string
+   */
+
+  public String digestHex()
+  {
+    return HexFormat.of().formatHex(this.digest());
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSDigestTap %s %s]",
+      this.digest.getAlgorithm(),
+      this.region());
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSFallibleType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * A tap observes the bytes that pass through tapped readers and writers
+ * within a declared region, in order. Bytes are accumulated into a batch
+ * and delivered to {@link #update(byte[], int, int)} in large blocks, so
+ * the cost of observing a value does not depend on the size of the value.
+ *
+ * Every byte of the region is delivered exactly once. Bytes outside of the
+ * region, and bytes within the region that have already been delivered
+ * (because a reader seeked backwards and read them again, for example),
+ * are ignored. Accessing bytes within the region beyond the next expected
+ * byte (because a writer skipped forwards, for example) is an error, as
+ * the bytes in between would never be delivered.
+ *
+ * Taps are not thread-safe, and a tap shared between readers or writers
+ * must only be used from one thread at a time.
+ */
+
+public abstract class BSSTap
+{
+  private static final int BATCH_SIZE = 8192;
+
+  private final BSSTapRegion region;
+  private final long regionEnd;
+  private final byte[] batch;
+  private final byte[] scratch;
+  private int batchUsed;
+  private long next;
+
+  protected BSSTap(
+    final BSSTapRegion inRegion)
+  {
+    this.region =
+      Objects.requireNonNull(inRegion, "region");
+    this.regionEnd =
+      inRegion.end();
+    this.batch =
+      new byte[BATCH_SIZE];
+    this.scratch =
+      new byte[8];
+    this.next =
+      inRegion.offset();
+  }
+
+  /**
+   * Observe the given bytes.
+   *
+   * @param data   The bytes
+   * @param offset The offset of the first byte
+   * @param length The number of bytes
+   */
+
+  protected abstract void update(
+    byte[] data,
+    int offset,
+    int length);
+
+  /**
+   * @return The region observed by this tap
+   */
+
+  public final BSSTapRegion region()
+  {
+    return this.region;
+  }
+
+  /**
+   * @return The number of bytes of the region observed so far
+   */
+
+  public final long octets()
+  {
+    return this.next - this.region.offset();
+  }
+
+  /**
+   * @return {@code true} if the region is bounded and every byte of the
+   * region has been observed
+   */
+
+  public final boolean isComplete()
+  {
+    return this.region.size().isPresent() && this.next == this.regionEnd;
+  }
+
+  /**
+   * Deliver any batched bytes to {@link #update(byte[], int, int)}.
+   */
+
+  public final void flush()
+  {
+    if (this.batchUsed > 0) {
+      this.update(this.batch, 0, this.batchUsed);
+      this.batchUsed = 0;
+    }
+  }
+
+  /**
+   * @return {@code true} if any of the given range has yet to be observed
+   */
+
+  final boolean wants(
+    final long position,
+    final long length)
+  {
+    final var end = Math.min(position + length, this.regionEnd);
+    return Math.max(position, this.next) < end;
+  }
+
+  /**
+   * Observe the {@code size} bytes of an integer value at the given absolute
+   * position.
+   */
+
+  final void putValue(
+    final BSSFallibleType source,
+    final long position,
+    final int size,
+    final long bits,
+    final ByteOrder order)
+    throws IOException
+  {
+    if (order == ByteOrder.BIG_ENDIAN) {
+      for (int index = 0; index < size; ++index) {
+        this.scratch[index] = (byte) (bits >>> ((size - 1 - index) * 8));
+      }
+    } else {
+      for (int index = 0; index < size; ++index) {
+        this.scratch[index] = (byte) (bits >>> (index * 8));
+      }
+    }
+    this.put(source, position, this.scratch, 0, size);
+  }
+
+  /**
+   * Observe {@code length} bytes of the given array at the given absolute
+   * position.
+   */
+
+  final void put(
+    final BSSFallibleType source,
+    final long position,
+    final byte[] data,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final var start = this.startOf(source, position, length);
+    if (start < 0L) {
+      return;
+    }
+
+    final var end = Math.min(position + length, this.regionEnd);
+    final var count = (int) (end - start);
+    this.append(data, offset + (int) (start - position), count);
+    this.next = end;
+  }
+
+  /**
+   * Observe {@code length} bytes of the given buffer, starting at buffer
+   * index {@code index}, at the given absolute position. The position of the
+   * buffer is not changed.
+   */
+
+  final void put(
+    final BSSFallibleType source,
+    final long position,
+    final ByteBuffer data,
+    final int index,
+    final int length)
+    throws IOException
+  {
+    final var start = this.startOf(source, position, length);
+    if (start < 0L) {
+      return;
+    }
+
+    final var end = Math.min(position + length, this.regionEnd);
+    var from = index + (int) (start - position);
+    var remaining = (int) (end - start);
+
+    if (data.hasArray()) {
+      this.append(data.array(), data.arrayOffset() + from, remaining);
+    } else {
+      while (remaining > 0) {
+        if (this.batchUsed == this.batch.length) {
+          this.flush();
+        }
+        final var count =
+          Math.min(remaining, this.batch.length - this.batchUsed);
+        data.get(from, this.batch, this.batchUsed, count);
+        this.batchUsed += count;
+        from += count;
+        remaining -= count;
+      }
+    }
+    this.next = end;
+  }
+
+  /**
+   * Observe {@code length} copies of {@code value} at the given absolute
+   * position.
+   */
+
+  final void putFill(
+    final BSSFallibleType source,
+    final long position,
+    final long length,
+    final byte value)
+    throws IOException
+  {
+    var offset = position;
+    var remaining = length;
+    while (remaining > 0L) {
+      final var count = (int) Math.min(remaining, this.scratch.length);
+      for (int index = 0; index < count; ++index) {
+        this.scratch[index] = value;
+      }
+      this.put(source, offset, this.scratch, 0, count);
+      offset += count;
+      remaining -= count;
+    }
+  }
+
+  /**
+   * @return The absolute offset of the first byte of the given range that
+   * has yet to be observed, or {@code -1} if there are none
+   */
+
+  private long startOf(
+    final BSSFallibleType source,
+    final long position,
+    final long length)
+    throws IOException
+  {
+    final var start = Math.max(position, this.next);
+    final var end = Math.min(position + length, this.regionEnd);
+    if (start >= end) {
+      return -1L;
+    }
+    if (position > this.next) {
+      throw this.nonSequential(source, position);
+    }
+    return start;
+  }
+
+  private void append(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    if (length > this.batch.length - this.batchUsed) {
+      this.flush();
+    }
+    if (length >= this.batch.length) {
+      this.update(data, offset, length);
+      return;
+    }
+    System.arraycopy(data, offset, this.batch, this.batchUsed, length);
+    this.batchUsed += length;
+  }
+
+  private IOException nonSequential(
+    final BSSFallibleType source,
+    final long position)
+  {
+    final var attributes = new HashMap<String, String>(4);
+    attributes.put(
+      "Target Offset (Absolute)",
+      "0x" + Long.toUnsignedString(position, 16));
+    attributes.put(
+      "Expected Offset (Absolute)",
+      "0x" + Long.toUnsignedString(this.next, 16));
+    attributes.put(
+      "Region",
+      this.region.toString());
+    return source.createException(
+      "Non-sequential access within a tapped region.",
+      attributes,
+      IOException::new);
+  }
+}
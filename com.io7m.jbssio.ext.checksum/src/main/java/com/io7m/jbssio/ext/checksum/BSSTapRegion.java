@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSAddressableType;
+import com.io7m.jbssio.api.BSSSkippableType;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+/**
+ * A region of a source or target observed by a tap, expressed in absolute
+ * offsets.
+ *
+ * @param offset The absolute offset of the start of the region
+ * @param size   The size of the region, if the region is bounded
+ */
+
+public record BSSTapRegion(
+  long offset,
+  OptionalLong size)
+{
+  /**
+   * A region of a source or target observed by a tap, expressed in absolute
+   * offsets.
+   *
+   * @param offset The absolute offset of the start of the region
+   * @param size   The size of the region, if the region is bounded
+   */
+
+  public BSSTapRegion
+  {
+    Objects.requireNonNull(size, "size");
+
+    if (offset < 0L) {
+      throw new IllegalArgumentException(
+        "Offset %d must be non-negative.".formatted(Long.valueOf(offset)));
+    }
+    if (size.isPresent() && size.getAsLong() < 0L) {
+      throw new IllegalArgumentException(
+        "Size %d must be non-negative.".formatted(Long.valueOf(size.getAsLong())));
+    }
+  }
+
+  /**
+   * @param offset The absolute offset of the start of the region
+   * @param size   The size of the region
+   *
+   * @return A bounded region
+   */
+
+  public static BSSTapRegion of(
+    final long offset,
+    final long size)
+  {
+    return new BSSTapRegion(offset, OptionalLong.of(size));
+  }
+
+  /**
+   * @param offset The absolute offset of the start of the region
+   *
+   * @return A region with no upper bound
+   */
+
+  public static BSSTapRegion unbounded(
+    final long offset)
+  {
+    return new BSSTapRegion(offset, OptionalLong.empty());
+  }
+
+  /**
+   * @param source The source or target
+   * @param <T>    The type of source or target
+   *
+   * @return A region covering everything from the current offset of the given
+   * reader or writer to the end of its bounds
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static <T extends BSSAddressableType & BSSSkippableType>
+  BSSTapRegion remainingOf(
+    final T source)
+    throws IOException
+  {
+    return new BSSTapRegion(
+      source.offsetCurrentAbsolute(),
+      source.bytesRemaining());
+  }
+
+  /**
+   * @return The absolute offset of the end of the region (exclusive), or
+   * {@link Long#MAX_VALUE} if the region has no upper bound
+   */
+
+  public long end()
+  {
+    if (this.size.isPresent()) {
+      return this.offset + this.size.getAsLong();
+    }
+    return Long.MAX_VALUE;
+  }
+}
@@ -0,0 +1,632 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSReaderType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * The base class of tapped readers. Every value read is read from the
+ * delegate reader and then delivered to the tap as the exact bytes that
+ * were read; floating point values are read as their raw bit patterns so
+ * that no conversion can disturb the bytes. Skipping over bytes that the
+ * tap has yet to observe reads them instead, so that the tap observes them.
+ *
+ * @param <R> The type of delegate reader
+ */
+
+abstract class BSSTappedReader<R extends BSSReaderType>
+  implements BSSReaderType
+{
+  private static final int SKIP_SIZE = 4096;
+
+  private final R delegate;
+  private final BSSTap tap;
+
+  BSSTappedReader(
+    final R inDelegate,
+    final BSSTap inTap)
+  {
+    this.delegate = Objects.requireNonNull(inDelegate, "delegate");
+    this.tap = Objects.requireNonNull(inTap, "tap");
+  }
+
+  final R delegate()
+  {
+    return this.delegate;
+  }
+
+  final BSSTap tap()
+  {
+    return this.tap;
+  }
+
+  @Override
+  public final boolean isClosed()
+  {
+    return this.delegate.isClosed();
+  }
+
+  @Override
+  public final void close()
+    throws IOException
+  {
+    try {
+      this.delegate.close();
+    } finally {
+      this.tap.flush();
+    }
+  }
+
+  @Override
+  public final <E extends Exception> E createException(
+    final String message,
+    final Map<String, String> attributes,
+    final Function<String, E> constructor)
+  {
+    return this.delegate.createException(message, attributes, constructor);
+  }
+
+  @Override
+  public final long offsetCurrentAbsolute()
+  {
+    return this.delegate.offsetCurrentAbsolute();
+  }
+
+  @Override
+  public final long offsetCurrentRelative()
+  {
+    return this.delegate.offsetCurrentRelative();
+  }
+
+  @Override
+  public final URI uri()
+  {
+    return this.delegate.uri();
+  }
+
+  @Override
+  public final String path()
+  {
+    return this.delegate.path();
+  }
+
+  @Override
+  public final OptionalLong bytesRemaining()
+    throws IOException
+  {
+    return this.delegate.bytesRemaining();
+  }
+
+  @Override
+  public final void skip(
+    final long size)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    if (!this.tap.wants(position, size)) {
+      this.delegate.skip(size);
+      return;
+    }
+
+    final var buffer = new byte[(int) Math.min(size, SKIP_SIZE)];
+    var remaining = size;
+    while (remaining > 0L) {
+      final var count = (int) Math.min(remaining, buffer.length);
+      remaining -= this.readBytes(buffer, 0, count);
+    }
+  }
+
+  @Override
+  public final void align(
+    final int alignment)
+    throws IOException
+  {
+    this.checkNotClosed();
+
+    final var diff = this.offsetCurrentAbsolute() % (long) alignment;
+    if (diff == 0L) {
+      return;
+    }
+
+    this.skip((long) alignment - diff);
+  }
+
+  @Override
+  public final int readBytes(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var count = this.delegate.readBytes(buffer, offset, length);
+    this.tap.put(this, position, buffer, offset, count);
+    return count;
+  }
+
+  @Override
+  public final int readBytes(
+    final String name,
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var count = this.delegate.readBytes(name, buffer, offset, length);
+    this.tap.put(this, position, buffer, offset, count);
+    return count;
+  }
+
+  @Override
+  public final int readBytes(
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var index = buffer.position();
+    final var count = this.delegate.readBytes(buffer);
+    this.tap.put(this, position, buffer, index, count);
+    return count;
+  }
+
+  @Override
+  public final int readBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var index = buffer.position();
+    final var count = this.delegate.readBytes(name, buffer);
+    this.tap.put(this, position, buffer, index, count);
+    return count;
+  }
+
+  @Override
+  public final int readS8()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS8();
+    this.tap.putValue(this, position, 1, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readU8()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU8();
+    this.tap.putValue(this, position, 1, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readS16LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS16LE();
+    this.tap.putValue(this, position, 2, (long) value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readS16BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS16BE();
+    this.tap.putValue(this, position, 2, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS32LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS32LE();
+    this.tap.putValue(this, position, 4, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS32BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS32BE();
+    this.tap.putValue(this, position, 4, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS64LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS64LE();
+    this.tap.putValue(this, position, 8, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS64BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS64BE();
+    this.tap.putValue(this, position, 8, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readU16LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU16LE();
+    this.tap.putValue(this, position, 2, (long) value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readU16BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU16BE();
+    this.tap.putValue(this, position, 2, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU32LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU32LE();
+    this.tap.putValue(this, position, 4, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU32BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU32BE();
+    this.tap.putValue(this, position, 4, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU64LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU64LE();
+    this.tap.putValue(this, position, 8, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU64BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU64BE();
+    this.tap.putValue(this, position, 8, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readS8(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS8(name);
+    this.tap.putValue(this, position, 1, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readU8(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU8(name);
+    this.tap.putValue(this, position, 1, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readS16LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS16LE(name);
+    this.tap.putValue(this, position, 2, (long) value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readS16BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS16BE(name);
+    this.tap.putValue(this, position, 2, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS32LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS32LE(name);
+    this.tap.putValue(this, position, 4, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS32BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS32BE(name);
+    this.tap.putValue(this, position, 4, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS64LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS64LE(name);
+    this.tap.putValue(this, position, 8, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readS64BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readS64BE(name);
+    this.tap.putValue(this, position, 8, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readU16LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU16LE(name);
+    this.tap.putValue(this, position, 2, (long) value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final int readU16BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU16BE(name);
+    this.tap.putValue(this, position, 2, (long) value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU32LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU32LE(name);
+    this.tap.putValue(this, position, 4, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU32BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU32BE(name);
+    this.tap.putValue(this, position, 4, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU64LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU64LE(name);
+    this.tap.putValue(this, position, 8, value, LITTLE_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final long readU64BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var value = this.delegate.readU64BE(name);
+    this.tap.putValue(this, position, 8, value, BIG_ENDIAN);
+    return value;
+  }
+
+  @Override
+  public final float readF16BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU16BE();
+    this.tap.putValue(this, position, 2, (long) bits, BIG_ENDIAN);
+    return Binary16.unpackFloat((char) bits);
+  }
+
+  @Override
+  public final float readF16LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU16LE();
+    this.tap.putValue(this, position, 2, (long) bits, LITTLE_ENDIAN);
+    return Binary16.unpackFloat((char) bits);
+  }
+
+  @Override
+  public final float readF32BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU32BE();
+    this.tap.putValue(this, position, 4, bits, BIG_ENDIAN);
+    return Float.intBitsToFloat((int) bits);
+  }
+
+  @Override
+  public final float readF32LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU32LE();
+    this.tap.putValue(this, position, 4, bits, LITTLE_ENDIAN);
+    return Float.intBitsToFloat((int) bits);
+  }
+
+  @Override
+  public final double readD64BE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU64BE();
+    this.tap.putValue(this, position, 8, bits, BIG_ENDIAN);
+    return Double.longBitsToDouble(bits);
+  }
+
+  @Override
+  public final double readD64LE()
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU64LE();
+    this.tap.putValue(this, position, 8, bits, LITTLE_ENDIAN);
+    return Double.longBitsToDouble(bits);
+  }
+
+  @Override
+  public final float readF16BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU16BE(name);
+    this.tap.putValue(this, position, 2, (long) bits, BIG_ENDIAN);
+    return Binary16.unpackFloat((char) bits);
+  }
+
+  @Override
+  public final float readF16LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU16LE(name);
+    this.tap.putValue(this, position, 2, (long) bits, LITTLE_ENDIAN);
+    return Binary16.unpackFloat((char) bits);
+  }
+
+  @Override
+  public final float readF32BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU32BE(name);
+    this.tap.putValue(this, position, 4, bits, BIG_ENDIAN);
+    return Float.intBitsToFloat((int) bits);
+  }
+
+  @Override
+  public final float readF32LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU32LE(name);
+    this.tap.putValue(this, position, 4, bits, LITTLE_ENDIAN);
+    return Float.intBitsToFloat((int) bits);
+  }
+
+  @Override
+  public final double readD64BE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU64BE(name);
+    this.tap.putValue(this, position, 8, bits, BIG_ENDIAN);
+    return Double.longBitsToDouble(bits);
+  }
+
+  @Override
+  public final double readD64LE(
+    final String name)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var bits = this.delegate.readU64LE(name);
+    this.tap.putValue(this, position, 8, bits, LITTLE_ENDIAN);
+    return Double.longBitsToDouble(bits);
+  }
+}
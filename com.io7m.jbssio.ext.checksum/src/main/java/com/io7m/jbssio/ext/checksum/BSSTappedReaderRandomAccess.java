@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A tapped random access reader.
+ */
+
+final class BSSTappedReaderRandomAccess
+  extends BSSTappedReader<BSSReaderRandomAccessType>
+  implements BSSReaderRandomAccessType
+{
+  private final BSSTappedReaderRandomAccess parent;
+
+  BSSTappedReaderRandomAccess(
+    final BSSTappedReaderRandomAccess inParent,
+    final BSSReaderRandomAccessType inDelegate,
+    final BSSTap inTap)
+  {
+    super(inDelegate, inTap);
+    this.parent = inParent;
+  }
+
+  @Override
+  public Optional<BSSReaderRandomAccessType> parentReader()
+  {
+    if (this.parent != null) {
+      return Optional.of(this.parent);
+    }
+    return this.delegate().parentReader();
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createSubReaderAt(
+    final String name,
+    final long offset)
+    throws IOException
+  {
+    return new BSSTappedReaderRandomAccess(
+      this,
+      this.delegate().createSubReaderAt(name, offset),
+      this.tap()
+    );
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createSubReaderAtBounded(
+    final String name,
+    final long offset,
+    final long size)
+    throws IOException
+  {
+    return new BSSTappedReaderRandomAccess(
+      this,
+      this.delegate().createSubReaderAtBounded(name, offset, size),
+      this.tap()
+    );
+  }
+
+  @Override
+  public void prefetch(
+    final long offset,
+    final long length)
+    throws IOException
+  {
+    this.delegate().prefetch(offset, length);
+  }
+
+  @Override
+  public void seekTo(
+    final long position)
+    throws IOException
+  {
+    this.delegate().seekTo(position);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSTappedReaderRandomAccess %s %s]",
+      this.delegate(),
+      this.tap()
+    );
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSReaderSequentialType;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A tapped sequential reader.
+ */
+
+final class BSSTappedReaderSequential
+  extends BSSTappedReader<BSSReaderSequentialType>
+  implements BSSReaderSequentialType
+{
+  private final BSSTappedReaderSequential parent;
+
+  BSSTappedReaderSequential(
+    final BSSTappedReaderSequential inParent,
+    final BSSReaderSequentialType inDelegate,
+    final BSSTap inTap)
+  {
+    super(inDelegate, inTap);
+    this.parent = inParent;
+  }
+
+  @Override
+  public Optional<BSSReaderSequentialType> parentReader()
+  {
+    if (this.parent != null) {
+      return Optional.of(this.parent);
+    }
+    return this.delegate().parentReader();
+  }
+
+  @Override
+  public BSSReaderSequentialType createSubReader(
+    final String name)
+    throws IOException
+  {
+    return new BSSTappedReaderSequential(
+      this,
+      this.delegate().createSubReader(name),
+      this.tap()
+    );
+  }
+
+  @Override
+  public BSSReaderSequentialType createSubReaderBounded(
+    final String name,
+    final long size)
+    throws IOException
+  {
+    return new BSSTappedReaderSequential(
+      this,
+      this.delegate().createSubReaderBounded(name, size),
+      this.tap()
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSTappedReaderSequential %s %s]",
+      this.delegate(),
+      this.tap()
+    );
+  }
+}
@@ -0,0 +1,634 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSWriterType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * The base class of tapped writers. Every value is written to the delegate
+ * writer and then delivered to the tap as the exact bytes that were
+ * written. Skipping produces no bytes, and so skipping over bytes that the
+ * tap has yet to observe causes the next write within the tapped region to
+ * fail.
+ *
+ * @param <W> The type of delegate writer
+ */
+
+abstract class BSSTappedWriter<W extends BSSWriterType>
+  implements BSSWriterType
+{
+  private final W delegate;
+  private final BSSTap tap;
+
+  BSSTappedWriter(
+    final W inDelegate,
+    final BSSTap inTap)
+  {
+    this.delegate = Objects.requireNonNull(inDelegate, "delegate");
+    this.tap = Objects.requireNonNull(inTap, "tap");
+  }
+
+  final W delegate()
+  {
+    return this.delegate;
+  }
+
+  final BSSTap tap()
+  {
+    return this.tap;
+  }
+
+  @Override
+  public final boolean isClosed()
+  {
+    return this.delegate.isClosed();
+  }
+
+  @Override
+  public final void close()
+    throws IOException
+  {
+    try {
+      this.delegate.close();
+    } finally {
+      this.tap.flush();
+    }
+  }
+
+  @Override
+  public final <E extends Exception> E createException(
+    final String message,
+    final Map<String, String> attributes,
+    final Function<String, E> constructor)
+  {
+    return this.delegate.createException(message, attributes, constructor);
+  }
+
+  @Override
+  public final long offsetCurrentAbsolute()
+  {
+    return this.delegate.offsetCurrentAbsolute();
+  }
+
+  @Override
+  public final long offsetCurrentRelative()
+  {
+    return this.delegate.offsetCurrentRelative();
+  }
+
+  @Override
+  public final URI uri()
+  {
+    return this.delegate.uri();
+  }
+
+  @Override
+  public final String path()
+  {
+    return this.delegate.path();
+  }
+
+  @Override
+  public final OptionalLong bytesRemaining()
+    throws IOException
+  {
+    return this.delegate.bytesRemaining();
+  }
+
+  @Override
+  public final void skip(
+    final long size)
+    throws IOException
+  {
+    this.delegate.skip(size);
+  }
+
+  @Override
+  public final void align(
+    final int alignment)
+    throws IOException
+  {
+    this.delegate.align(alignment);
+  }
+
+  @Override
+  public final void flush()
+    throws IOException
+  {
+    this.delegate.flush();
+  }
+
+  @Override
+  public final void writeBytes(
+    final String name,
+    final byte[] buffer)
+    throws IOException
+  {
+    this.writeBytes(name, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public final void writeBytes(
+    final String name,
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeBytes(name, buffer, offset, length);
+    this.tap.put(this, position, buffer, offset, length);
+  }
+
+  @Override
+  public final void writeBytes(
+    final byte[] buffer)
+    throws IOException
+  {
+    this.writeBytes(buffer, 0, buffer.length);
+  }
+
+  @Override
+  public final void writeBytes(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeBytes(buffer, offset, length);
+    this.tap.put(this, position, buffer, offset, length);
+  }
+
+  @Override
+  public final void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var index = buffer.position();
+    final var length = buffer.remaining();
+    this.delegate.writeBytes(name, buffer);
+    this.tap.put(this, position, buffer, index, length);
+  }
+
+  @Override
+  public final void writeBytes(
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    final var index = buffer.position();
+    final var length = buffer.remaining();
+    this.delegate.writeBytes(buffer);
+    this.tap.put(this, position, buffer, index, length);
+  }
+
+  @Override
+  public final void writeS8(
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS8(b);
+    this.tap.putValue(this, position, 1, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU8(
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU8(b);
+    this.tap.putValue(this, position, 1, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS16LE(
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS16LE(b);
+    this.tap.putValue(this, position, 2, (long) b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeS16BE(
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS16BE(b);
+    this.tap.putValue(this, position, 2, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS32LE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS32LE(b);
+    this.tap.putValue(this, position, 4, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeS32BE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS32BE(b);
+    this.tap.putValue(this, position, 4, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS64LE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS64LE(b);
+    this.tap.putValue(this, position, 8, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeS64BE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS64BE(b);
+    this.tap.putValue(this, position, 8, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU16LE(
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU16LE(b);
+    this.tap.putValue(this, position, 2, (long) b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeU16BE(
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU16BE(b);
+    this.tap.putValue(this, position, 2, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU32LE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU32LE(b);
+    this.tap.putValue(this, position, 4, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeU32BE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU32BE(b);
+    this.tap.putValue(this, position, 4, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU64LE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU64LE(b);
+    this.tap.putValue(this, position, 8, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeU64BE(
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU64BE(b);
+    this.tap.putValue(this, position, 8, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS8(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS8(name, b);
+    this.tap.putValue(this, position, 1, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU8(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU8(name, b);
+    this.tap.putValue(this, position, 1, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS16LE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS16LE(name, b);
+    this.tap.putValue(this, position, 2, (long) b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeS16BE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS16BE(name, b);
+    this.tap.putValue(this, position, 2, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS32LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS32LE(name, b);
+    this.tap.putValue(this, position, 4, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeS32BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS32BE(name, b);
+    this.tap.putValue(this, position, 4, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeS64LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS64LE(name, b);
+    this.tap.putValue(this, position, 8, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeS64BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeS64BE(name, b);
+    this.tap.putValue(this, position, 8, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU16LE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU16LE(name, b);
+    this.tap.putValue(this, position, 2, (long) b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeU16BE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU16BE(name, b);
+    this.tap.putValue(this, position, 2, (long) b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU32LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU32LE(name, b);
+    this.tap.putValue(this, position, 4, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeU32BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU32BE(name, b);
+    this.tap.putValue(this, position, 4, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeU64LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU64LE(name, b);
+    this.tap.putValue(this, position, 8, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeU64BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeU64BE(name, b);
+    this.tap.putValue(this, position, 8, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF16BE(
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF16BE(b);
+    this.tap.putValue(this, position, 2, (long) Binary16.packDouble(b), BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF16LE(
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF16LE(b);
+    this.tap.putValue(this, position, 2, (long) Binary16.packDouble(b), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeF32BE(
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF32BE(b);
+    this.tap.putValue(this, position, 4, (long) Float.floatToRawIntBits((float) b), BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF32LE(
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF32LE(b);
+    this.tap.putValue(this, position, 4, (long) Float.floatToRawIntBits((float) b), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeF64BE(
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF64BE(b);
+    this.tap.putValue(this, position, 8, Double.doubleToRawLongBits(b), BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF64LE(
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF64LE(b);
+    this.tap.putValue(this, position, 8, Double.doubleToRawLongBits(b), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeF16BE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF16BE(name, b);
+    this.tap.putValue(this, position, 2, (long) Binary16.packDouble(b), BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF16LE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF16LE(name, b);
+    this.tap.putValue(this, position, 2, (long) Binary16.packDouble(b), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeF32BE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF32BE(name, b);
+    this.tap.putValue(this, position, 4, (long) Float.floatToRawIntBits((float) b), BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF32LE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF32LE(name, b);
+    this.tap.putValue(this, position, 4, (long) Float.floatToRawIntBits((float) b), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public final void writeF64BE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF64BE(name, b);
+    this.tap.putValue(this, position, 8, Double.doubleToRawLongBits(b), BIG_ENDIAN);
+  }
+
+  @Override
+  public final void writeF64LE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    final var position = this.delegate.offsetCurrentAbsolute();
+    this.delegate.writeF64LE(name, b);
+    this.tap.putValue(this, position, 8, Double.doubleToRawLongBits(b), LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+
+import java.io.IOException;
+
+/**
+ * A tapped random access writer.
+ */
+
+final class BSSTappedWriterRandomAccess
+  extends BSSTappedWriter<BSSWriterRandomAccessType>
+  implements BSSWriterRandomAccessType
+{
+  BSSTappedWriterRandomAccess(
+    final BSSWriterRandomAccessType inDelegate,
+    final BSSTap inTap)
+  {
+    super(inDelegate, inTap);
+  }
+
+  @Override
+  public BSSWriterRandomAccessType createSubWriterAt(
+    final String name,
+    final long offset)
+    throws IOException
+  {
+    return new BSSTappedWriterRandomAccess(
+      this.delegate().createSubWriterAt(name, offset),
+      this.tap()
+    );
+  }
+
+  @Override
+  public BSSWriterRandomAccessType createSubWriterAtBounded(
+    final String name,
+    final long offset,
+    final long size)
+    throws IOException
+  {
+    return new BSSTappedWriterRandomAccess(
+      this.delegate().createSubWriterAtBounded(name, offset, size),
+      this.tap()
+    );
+  }
+
+  @Override
+  public void seekTo(
+    final long position)
+    throws IOException
+  {
+    this.delegate().seekTo(position);
+  }
+
+  @Override
+  public BSSReaderRandomAccessType asReader(
+    final String name)
+    throws IOException
+  {
+    return this.delegate().asReader(name);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSTappedWriterRandomAccess %s %s]",
+      this.delegate(),
+      this.tap()
+    );
+  }
+}
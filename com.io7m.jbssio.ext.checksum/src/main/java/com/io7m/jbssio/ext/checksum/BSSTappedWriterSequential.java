@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSWriterSequentialType;
+
+import java.io.IOException;
+
+/**
+ * A tapped sequential writer.
+ */
+
+final class BSSTappedWriterSequential
+  extends BSSTappedWriter<BSSWriterSequentialType>
+  implements BSSWriterSequentialType
+{
+  BSSTappedWriterSequential(
+    final BSSWriterSequentialType inDelegate,
+    final BSSTap inTap)
+  {
+    super(inDelegate, inTap);
+  }
+
+  @Override
+  public BSSWriterSequentialType createSubWriterAt(
+    final String name,
+    final long offset)
+    throws IOException
+  {
+    return new BSSTappedWriterSequential(
+      this.delegate().createSubWriterAt(name, offset),
+      this.tap()
+    );
+  }
+
+  @Override
+  public BSSWriterSequentialType createSubWriterAtBounded(
+    final String name,
+    final long offset,
+    final long size)
+    throws IOException
+  {
+    return new BSSTappedWriterSequential(
+      this.delegate().createSubWriterAtBounded(name, offset, size),
+      this.tap()
+    );
+  }
+
+  @Override
+  public long padTo(
+    final long offset,
+    final byte value)
+    throws IOException
+  {
+    final var position = this.delegate().offsetCurrentAbsolute();
+    final var count = this.delegate().padTo(offset, value);
+    this.tap().putFill(this, position, count, value);
+    return count;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSTappedWriterSequential %s %s]",
+      this.delegate(),
+      this.tap()
+    );
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.checksum;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSReaderSequentialType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterSequentialType;
+
+import java.util.Objects;
+
+/**
+ * Functions to attach taps, such as {@link BSSChecksumTap} and
+ * {@link BSSDigestTap}, to readers and writers.
+ *
+ * A tapped reader or writer behaves exactly as the reader or writer it
+ * wraps, but delivers every byte that it reads or writes within the region
+ * of the tap to the tap. Sub readers and sub writers created from a tapped
+ * reader or writer are tapped with the same tap, so a structure parsed with
+ * nested sub readers is observed as a single run of bytes. Closing a tapped
+ * reader or writer flushes the tap.
+ */
+
+public final class BSSTaps
+{
+  private BSSTaps()
+  {
+
+  }
+
+  /**
+   * Attach a tap to the given reader.
+   *
+   * @param reader The reader
+   * @param tap    The tap
+   *
+   * @return A tapped reader
+   */
+
+  public static BSSReaderRandomAccessType readerRandomAccess(
+    final BSSReaderRandomAccessType reader,
+    final BSSTap tap)
+  {
+    return new BSSTappedReaderRandomAccess(
+      null,
+      Objects.requireNonNull(reader, "reader"),
+      Objects.requireNonNull(tap, "tap")
+    );
+  }
+
+  /**
+   * Attach a tap to the given reader.
+   *
+   * @param reader The reader
+   * @param tap    The tap
+   *
+   * @return A tapped reader
+   */
+
+  public static BSSReaderSequentialType readerSequential(
+    final BSSReaderSequentialType reader,
+    final BSSTap tap)
+  {
+    return new BSSTappedReaderSequential(
+      null,
+      Objects.requireNonNull(reader, "reader"),
+      Objects.requireNonNull(tap, "tap")
+    );
+  }
+
+  /**
+   * Attach a tap to the given writer.
+   *
+   * @param writer The writer
+   * @param tap    The tap
+   *
+   * @return A tapped writer
+   */
+
+  public static BSSWriterRandomAccessType writerRandomAccess(
+    final BSSWriterRandomAccessType writer,
+    final BSSTap tap)
+  {
+    return new BSSTappedWriterRandomAccess(
+      Objects.requireNonNull(writer, "writer"),
+      Objects.requireNonNull(tap, "tap")
+    );
+  }
+
+  /**
+   * Attach a tap to the given writer.
+   *
+   * @param writer The writer
+   * @param tap    The tap
+   *
+   * @return A tapped writer
+   */
+
+  public static BSSWriterSequentialType writerSequential(
+    final BSSWriterSequentialType writer,
+    final BSSTap tap)
+  {
+    return new BSSTappedWriterSequential(
+      Objects.requireNonNull(writer, "writer"),
+      Objects.requireNonNull(tap, "tap")
+    );
+  }
+}
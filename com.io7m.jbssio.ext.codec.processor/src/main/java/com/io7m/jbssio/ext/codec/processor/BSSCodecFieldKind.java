@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.codec.processor;
+
+import javax.lang.model.type.TypeKind;
+import java.util.Optional;
+import java.util.Set;
+
+import static javax.lang.model.type.TypeKind.BYTE;
+import static javax.lang.model.type.TypeKind.DOUBLE;
+import static javax.lang.model.type.TypeKind.FLOAT;
+import static javax.lang.model.type.TypeKind.INT;
+import static javax.lang.model.type.TypeKind.LONG;
+import static javax.lang.model.type.TypeKind.SHORT;
+
+/**
+ * The encoded kinds of record components, one per annotation in
+ * {@code BSSCodecFields}.
+ */
+
+enum BSSCodecFieldKind
+{
+  U8(1, false, true, Set.of(SHORT, INT, LONG)),
+  S8(1, false, true, Set.of(BYTE, SHORT, INT, LONG)),
+  U16BE(2, true, true, Set.of(INT, LONG)),
+  U16LE(2, false, true, Set.of(INT, LONG)),
+  S16BE(2, true, true, Set.of(SHORT, INT, LONG)),
+  S16LE(2, false, true, Set.of(SHORT, INT, LONG)),
+  U32BE(4, true, true, Set.of(LONG)),
+  U32LE(4, false, true, Set.of(LONG)),
+  S32BE(4, true, true, Set.of(INT, LONG)),
+  S32LE(4, false, true, Set.of(INT, LONG)),
+  U64BE(8, true, true, Set.of(LONG)),
+  U64LE(8, false, true, Set.of(LONG)),
+  S64BE(8, true, true, Set.of(LONG)),
+  S64LE(8, false, true, Set.of(LONG)),
+  F16BE(2, true, false, Set.of(FLOAT, DOUBLE)),
+  F16LE(2, false, false, Set.of(FLOAT, DOUBLE)),
+  F32BE(4, true, false, Set.of(FLOAT, DOUBLE)),
+  F32LE(4, false, false, Set.of(FLOAT, DOUBLE)),
+  F64BE(8, true, false, Set.of(DOUBLE)),
+  F64LE(8, false, false, Set.of(DOUBLE));
+
+  private final int size;
+  private final boolean bigEndian;
+  private final boolean integer;
+  private final Set<TypeKind> permittedTypes;
+
+  BSSCodecFieldKind(
+    final int inSize,
+    final boolean inBigEndian,
+    final boolean inInteger,
+    final Set<TypeKind> inPermittedTypes)
+  {
+    this.size = inSize;
+    this.bigEndian = inBigEndian;
+    this.integer = inInteger;
+    this.permittedTypes = inPermittedTypes;
+  }
+
+  /**
+   * Find the kind corresponding to the given annotation simple name.
+   *
+   * @param name The annotation name
+   *
+   * @return The kind, if any
+   */
+
+  static Optional<BSSCodecFieldKind> ofAnnotationName(
+    final String name)
+  {
+    for (final var kind : values()) {
+      if (kind.name().equals(name)) {
+        return Optional.of(kind);
+      }
+    }
+    return Optional.empty();
+  }
+
+  int size()
+  {
+    return this.size;
+  }
+
+  boolean isBigEndian()
+  {
+    return this.bigEndian;
+  }
+
+  boolean isInteger()
+  {
+    return this.integer;
+  }
+
+  boolean isUnsigned()
+  {
+    return this.name().charAt(0) == 'U';
+  }
+
+  boolean permits(
+    final TypeKind type)
+  {
+    return this.permittedTypes.contains(type);
+  }
+
+  Set<TypeKind> permittedTypes()
+  {
+    return this.permittedTypes;
+  }
+
+  /**
+   * @return The primitive array type used to view encoded values of this
+   * kind in a byte array
+   */
+
+  String viewArrayType()
+  {
+    return switch (this) {
+      case U8, S8 -> "byte[]";
+      case U16BE, U16LE, S16BE, S16LE, F16BE, F16LE -> "short[]";
+      case U32BE, U32LE, S32BE, S32LE -> "int[]";
+      case U64BE, U64LE, S64BE, S64LE -> "long[]";
+      case F32BE, F32LE -> "float[]";
+      case F64BE, F64LE -> "double[]";
+    };
+  }
+
+  /**
+   * @return The name of the var handle constant used to access values of
+   * this kind
+   */
+
+  String viewHandleName()
+  {
+    final var type = this.viewArrayType();
+    return "VH_%s_%s".formatted(
+      type.substring(0, type.length() - 2).toUpperCase(),
+      this.bigEndian ? "BE" : "LE");
+  }
+}
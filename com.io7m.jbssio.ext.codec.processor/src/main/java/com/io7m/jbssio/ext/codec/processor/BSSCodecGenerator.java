@@ -0,0 +1,302 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.codec.processor;
+
+import javax.lang.model.type.TypeKind;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * A generator of codec source code for a single record.
+ */
+
+final class BSSCodecGenerator
+{
+  private static final String SUPPORT =
+    "com.io7m.jbssio.ext.codec.BSSCodecSupport";
+
+  private final String packageName;
+  private final String recordName;
+  private final String recordDisplayName;
+  private final String codecName;
+  private final List<Component> components;
+
+  /**
+   * A record component.
+   *
+   * @param name The component name
+   * @param kind The encoded kind
+   * @param type The Java type
+   */
+
+  record Component(
+    String name,
+    BSSCodecFieldKind kind,
+    TypeKind type)
+  {
+    Component
+    {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(kind, "kind");
+      Objects.requireNonNull(type, "type");
+    }
+  }
+
+  BSSCodecGenerator(
+    final String inPackageName,
+    final String inRecordName,
+    final String inRecordDisplayName,
+    final String inCodecName,
+    final List<Component> inComponents)
+  {
+    this.packageName =
+      Objects.requireNonNull(inPackageName, "packageName");
+    this.recordName =
+      Objects.requireNonNull(inRecordName, "recordName");
+    this.recordDisplayName =
+      Objects.requireNonNull(inRecordDisplayName, "recordDisplayName");
+    this.codecName =
+      Objects.requireNonNull(inCodecName, "codecName");
+    this.components =
+      List.copyOf(Objects.requireNonNull(inComponents, "components"));
+  }
+
+  private static String typeName(
+    final TypeKind type)
+  {
+    return type.name().toLowerCase(Locale.ROOT);
+  }
+
+  private static String decodeExpression(
+    final BSSCodecFieldKind kind,
+    final int offset)
+  {
+    final var position = "offset + " + offset;
+    if (kind.size() == 1) {
+      if (kind.isUnsigned()) {
+        return "(data[%s] & 0xff)".formatted(position);
+      }
+      return "data[%s]".formatted(position);
+    }
+
+    final var get =
+      "%s.get(data, %s)".formatted(kind.viewHandleName(), position);
+
+    return switch (kind) {
+      case U16BE, U16LE -> "((short) %s & 0xffff)".formatted(get);
+      case S16BE, S16LE -> "(short) %s".formatted(get);
+      case U32BE, U32LE -> "Integer.toUnsignedLong((int) %s)".formatted(get);
+      case S32BE, S32LE -> "(int) %s".formatted(get);
+      case U64BE, U64LE, S64BE, S64LE -> "(long) %s".formatted(get);
+      case F16BE, F16LE -> "%s.unpackF16((short) %s)".formatted(SUPPORT, get);
+      case F32BE, F32LE -> "(float) %s".formatted(get);
+      case F64BE, F64LE -> "(double) %s".formatted(get);
+      case U8, S8 -> throw new IllegalStateException("Unreachable code.");
+    };
+  }
+
+  private static String encodeStatement(
+    final Component component,
+    final int offset)
+  {
+    final var kind = component.kind();
+    final var position = "offset + " + offset;
+    final var value = "value.%s()".formatted(component.name());
+    if (kind.size() == 1) {
+      return "data[%s] = (byte) %s;".formatted(position, value);
+    }
+
+    final var converted = switch (kind) {
+      case U16BE, U16LE, S16BE, S16LE -> "(short) " + value;
+      case U32BE, U32LE, S32BE, S32LE -> "(int) " + value;
+      case U64BE, U64LE, S64BE, S64LE -> "(long) " + value;
+      case F16BE, F16LE -> "%s.packF16((float) %s)".formatted(SUPPORT, value);
+      case F32BE, F32LE -> "(float) " + value;
+      case F64BE, F64LE -> "(double) " + value;
+      case U8, S8 -> throw new IllegalStateException("Unreachable code.");
+    };
+
+    return "%s.set(data, %s, %s);".formatted(
+      kind.viewHandleName(), position, converted);
+  }
+
+  /**
+   * @return The size in octets of encoded records
+   */
+
+  int size()
+  {
+    var size = 0;
+    for (final var component : this.components) {
+      size += component.kind().size();
+    }
+    return size;
+  }
+
+  /**
+   * Generate source code.
+   *
+   * @param out The output
+   */
+
+  void generate(
+    final PrintWriter out)
+  {
+    final var cName = this.codecName;
+    final var rName = this.recordName;
+
+    out.println("// Generated by com.io7m.jbssio.ext.codec.processor. Do not edit.");
+    out.println();
+    if (!this.packageName.isEmpty()) {
+      out.printf("package %s;%n", this.packageName);
+      out.println();
+    }
+
+    out.println("/**");
+    out.printf(" * A codec for {@link %s} values.%n", rName);
+    out.println(" */");
+    out.println();
+    out.printf(
+      "public final class %s%n  implements com.io7m.jbssio.ext.codec.BSSCodecType<%s>%n",
+      cName,
+      rName);
+    out.println("{");
+    out.println("  /**");
+    out.println("   * The codec instance.");
+    out.println("   */");
+    out.println();
+    out.printf(
+      "  public static final %s INSTANCE = new %s();%n", cName, cName);
+    out.println();
+    out.println("  /**");
+    out.println("   * The size in octets of an encoded value.");
+    out.println("   */");
+    out.println();
+    out.printf("  public static final int SIZE = %d;%n", this.size());
+    out.println();
+
+    this.generateHandles(out);
+    this.generateConstructor(out);
+    this.generateDecode(out);
+    this.generateEncode(out);
+    out.println("}");
+  }
+
+  private void generateHandles(
+    final PrintWriter out)
+  {
+    final var handles = new TreeSet<BSSCodecFieldKind>();
+    for (final var component : this.components) {
+      if (component.kind().size() > 1) {
+        handles.add(component.kind());
+      }
+    }
+
+    final var declared = new TreeSet<String>();
+    for (final var kind : handles) {
+      final var handleName = kind.viewHandleName();
+      if (declared.add(handleName)) {
+        out.printf(
+          "  private static final java.lang.invoke.VarHandle %s =%n", handleName);
+        out.printf(
+          "    java.lang.invoke.MethodHandles.byteArrayViewVarHandle(%s.class, java.nio.ByteOrder.%s);%n",
+          kind.viewArrayType(),
+          kind.isBigEndian() ? "BIG_ENDIAN" : "LITTLE_ENDIAN");
+        out.println();
+      }
+    }
+  }
+
+  private void generateConstructor(
+    final PrintWriter out)
+  {
+    out.printf("  private %s()%n", this.codecName);
+    out.println("  {");
+    out.println();
+    out.println("  }");
+    out.println();
+
+    out.println("  @Override");
+    out.println("  public String name()");
+    out.println("  {");
+    out.printf("    return \"%s\";%n", this.recordDisplayName);
+    out.println("  }");
+    out.println();
+
+    out.println("  @Override");
+    out.println("  public int size()");
+    out.println("  {");
+    out.println("    return SIZE;");
+    out.println("  }");
+    out.println();
+
+  }
+
+  private void generateDecode(
+    final PrintWriter out)
+  {
+    out.println("  @Override");
+    out.printf("  public %s decode(%n", this.recordName);
+    out.println("    final byte[] data,");
+    out.println("    final int offset)");
+    out.println("  {");
+    out.println("    java.util.Objects.checkFromIndexSize(offset, SIZE, data.length);");
+    out.printf("    return new %s(", this.recordName);
+
+    var offset = 0;
+    for (int index = 0; index < this.components.size(); ++index) {
+      final var component = this.components.get(index);
+      out.println();
+      out.printf(
+        "      (%s) (%s)",
+        typeName(component.type()),
+        decodeExpression(component.kind(), offset));
+      if (index + 1 < this.components.size()) {
+        out.print(',');
+      }
+      offset += component.kind().size();
+    }
+    out.println();
+    out.println("    );");
+    out.println("  }");
+    out.println();
+  }
+
+  private void generateEncode(
+    final PrintWriter out)
+  {
+    out.println("  @Override");
+    out.println("  public void encode(");
+    out.printf("    final %s value,%n", this.recordName);
+    out.println("    final byte[] data,");
+    out.println("    final int offset)");
+    out.println("  {");
+    out.println("    java.util.Objects.requireNonNull(value, \"value\");");
+    out.println("    java.util.Objects.checkFromIndexSize(offset, SIZE, data.length);");
+
+    var offset = 0;
+    for (final var component : this.components) {
+      out.printf("    %s%n", encodeStatement(component, offset));
+      offset += component.kind().size();
+    }
+    out.println("  }");
+  }
+}
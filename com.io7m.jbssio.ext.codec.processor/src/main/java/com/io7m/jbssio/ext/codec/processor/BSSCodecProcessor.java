@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.codec.processor;
+
+import com.io7m.jbssio.ext.codec.BSSCodec;
+import com.io7m.jbssio.ext.codec.BSSCodecFields;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An annotation processor that generates codecs for records annotated with
+ * {@link BSSCodec}.
+ */
+
+public final class BSSCodecProcessor extends AbstractProcessor
+{
+  private static final String FIELDS_NAME =
+    BSSCodecFields.class.getCanonicalName();
+
+  /**
+   * Construct a processor.
+   */
+
+  public BSSCodecProcessor()
+  {
+
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes()
+  {
+    return Set.of(BSSCodec.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion()
+  {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(
+    final Set<? extends TypeElement> annotations,
+    final RoundEnvironment roundEnvironment)
+  {
+    final var elements =
+      roundEnvironment.getElementsAnnotatedWith(BSSCodec.class);
+
+    for (final var element : elements) {
+      if (element.getKind() != ElementKind.RECORD) {
+        this.error(element, "Only records may be annotated with @BSSCodec.");
+        continue;
+      }
+      this.processRecord((TypeElement) element);
+    }
+    return true;
+  }
+
+  private void processRecord(
+    final TypeElement type)
+  {
+    if (!type.getTypeParameters().isEmpty()) {
+      this.error(type, "Records with @BSSCodec must not be generic.");
+      return;
+    }
+    if (type.getModifiers().contains(Modifier.PRIVATE)) {
+      this.error(type, "Records with @BSSCodec must not be private.");
+      return;
+    }
+
+    final var componentsOpt = this.collectComponents(type);
+    if (componentsOpt.isEmpty()) {
+      return;
+    }
+    final var components = componentsOpt.get();
+
+    final var packageElement =
+      this.processingEnv.getElementUtils().getPackageOf(type);
+    final var packageName =
+      packageElement.getQualifiedName().toString();
+    final var flatName =
+      flatName(type);
+    final var codecName =
+      flatName + "Codec";
+
+    final var generator =
+      new BSSCodecGenerator(
+        packageName,
+        type.getQualifiedName().toString(),
+        flatName,
+        codecName,
+        components
+      );
+
+    final String qualifiedCodecName;
+    if (packageName.isEmpty()) {
+      qualifiedCodecName = codecName;
+    } else {
+      qualifiedCodecName = packageName + "." + codecName;
+    }
+
+    try {
+      final var file =
+        this.processingEnv.getFiler()
+          .createSourceFile(qualifiedCodecName, type);
+      try (var writer = new PrintWriter(file.openWriter())) {
+        generator.generate(writer);
+      }
+    } catch (final IOException e) {
+      this.error(type, "Unable to write %s: %s".formatted(
+        qualifiedCodecName, e.getMessage()));
+    }
+  }
+
+  private Optional<List<BSSCodecGenerator.Component>> collectComponents(
+    final TypeElement type)
+  {
+    var failed = false;
+    final var components = new ArrayList<BSSCodecGenerator.Component>();
+    for (final RecordComponentElement component : type.getRecordComponents()) {
+      final var kindOpt = this.componentKind(component);
+      if (kindOpt.isEmpty()) {
+        failed = true;
+        continue;
+      }
+
+      final var kind = kindOpt.get();
+      final var typeKind = component.asType().getKind();
+      if (!kind.permits(typeKind)) {
+        this.error(
+          component,
+          "A %s component must have one of the types %s (found %s)."
+            .formatted(kind, kind.permittedTypes(), component.asType()));
+        failed = true;
+        continue;
+      }
+
+      components.add(new BSSCodecGenerator.Component(
+        component.getSimpleName().toString(),
+        kind,
+        typeKind
+      ));
+    }
+
+    if (failed) {
+      return Optional.empty();
+    }
+    return Optional.of(components);
+  }
+
+  private static String flatName(
+    final TypeElement type)
+  {
+    final var builder = new StringBuilder(64);
+    Element current = type;
+    while (!(current instanceof PackageElement)) {
+      if (!builder.isEmpty()) {
+        builder.insert(0, '_');
+      }
+      builder.insert(0, current.getSimpleName());
+      current = current.getEnclosingElement();
+    }
+    return builder.toString();
+  }
+
+  private Optional<BSSCodecFieldKind> componentKind(
+    final RecordComponentElement component)
+  {
+    BSSCodecFieldKind found = null;
+    for (final AnnotationMirror mirror : component.getAnnotationMirrors()) {
+      final var annotationType =
+        (TypeElement) mirror.getAnnotationType().asElement();
+      final var enclosing =
+        annotationType.getEnclosingElement();
+
+      if (!(enclosing instanceof TypeElement enclosingType)) {
+        continue;
+      }
+      if (!enclosingType.getQualifiedName().contentEquals(FIELDS_NAME)) {
+        continue;
+      }
+
+      final var kind =
+        BSSCodecFieldKind.ofAnnotationName(
+          annotationType.getSimpleName().toString());
+
+      if (kind.isEmpty()) {
+        continue;
+      }
+      if (found != null) {
+        this.error(
+          component,
+          "Record components must have exactly one field annotation.");
+        return Optional.empty();
+      }
+      found = kind.get();
+    }
+
+    if (found == null) {
+      this.error(
+        component,
+        "Record components must have exactly one field annotation.");
+      return Optional.empty();
+    }
+    return Optional.of(found);
+  }
+
+  private void error(
+    final Element element,
+    final String message)
+  {
+    this.processingEnv.getMessager()
+      .printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Annotations that declare the encoded type of each record component in
+ * a record annotated with {@link BSSCodec}.</p>
+ *
+ * <p>The Java type of an annotated component must be a primitive type that
+ * can represent every value of the encoded type: integer types for integer
+ * values, and floating point types for floating point values. For example,
+ * a {@link U32LE} component must be a {@code long}, an {@link S32LE}
+ * component may be an {@code int} or a {@code long}, and an {@link F32BE}
+ * component may be a {@code float} or a {@code double}. Unsigned 64-bit
+ * values are held in {@code long} components in two's complement form.</p>
+ */
+
+public final class BSSCodecFields
+{
+  private BSSCodecFields()
+  {
+
+  }
+
+  /**
+   * An unsigned 8-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U8
+  {
+
+  }
+
+  /**
+   * A signed 8-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S8
+  {
+
+  }
+
+  /**
+   * An unsigned big-endian 16-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U16BE
+  {
+
+  }
+
+  /**
+   * An unsigned little-endian 16-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U16LE
+  {
+
+  }
+
+  /**
+   * A signed big-endian 16-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S16BE
+  {
+
+  }
+
+  /**
+   * A signed little-endian 16-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S16LE
+  {
+
+  }
+
+  /**
+   * An unsigned big-endian 32-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U32BE
+  {
+
+  }
+
+  /**
+   * An unsigned little-endian 32-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U32LE
+  {
+
+  }
+
+  /**
+   * A signed big-endian 32-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S32BE
+  {
+
+  }
+
+  /**
+   * A signed little-endian 32-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S32LE
+  {
+
+  }
+
+  /**
+   * An unsigned big-endian 64-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U64BE
+  {
+
+  }
+
+  /**
+   * An unsigned little-endian 64-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface U64LE
+  {
+
+  }
+
+  /**
+   * A signed big-endian 64-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S64BE
+  {
+
+  }
+
+  /**
+   * A signed little-endian 64-bit integer.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface S64LE
+  {
+
+  }
+
+  /**
+   * A big-endian 16-bit IEEE754 floating point value.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface F16BE
+  {
+
+  }
+
+  /**
+   * A little-endian 16-bit IEEE754 floating point value.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface F16LE
+  {
+
+  }
+
+  /**
+   * A big-endian 32-bit IEEE754 floating point value.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface F32BE
+  {
+
+  }
+
+  /**
+   * A little-endian 32-bit IEEE754 floating point value.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface F32LE
+  {
+
+  }
+
+  /**
+   * A big-endian 64-bit IEEE754 floating point value.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface F64BE
+  {
+
+  }
+
+  /**
+   * A little-endian 64-bit IEEE754 floating point value.
+   */
+
+  @Documented
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.RECORD_COMPONENT)
+  public @interface F64LE
+  {
+
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.codec;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSReaderType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Functions used by generated codecs.
+ */
+
+public final class BSSCodecSupport
+{
+  private BSSCodecSupport()
+  {
+
+  }
+
+  /**
+   * Read exactly {@code data.length} octets into {@code data}.
+   *
+   * @param reader The reader
+   * @param name   The field name
+   * @param data   The output array
+   *
+   * @throws IOException On errors, or if the reader does not have enough
+   *                     data available
+   */
+
+  public static void readFully(
+    final BSSReaderType reader,
+    final String name,
+    final byte[] data)
+    throws IOException
+  {
+    Objects.requireNonNull(reader, "reader");
+    Objects.requireNonNull(data, "data");
+
+    var done = 0;
+    while (done < data.length) {
+      final var r = reader.readBytes(name, data, done, data.length - done);
+      if (r <= 0) {
+        throw reader.createException(
+          "Short read.",
+          Map.of(
+            "Field", String.valueOf(name),
+            "Size", Integer.toString(data.length),
+            "Received", Integer.toString(done)),
+          EOFException::new
+        );
+      }
+      done += r;
+    }
+  }
+
+  /**
+   * Unpack a 16-bit floating point value.
+   *
+   * @param bits The raw value
+   *
+   * @return The unpacked value
+   */
+
+  public static float unpackF16(
+    final short bits)
+  {
+    return Binary16.unpackFloat((char) bits);
+  }
+
+  /**
+   * Pack a 16-bit floating point value.
+   *
+   * @param value The value
+   *
+   * @return The raw value
+   */
+
+  public static short packF16(
+    final float value)
+  {
+    return (short) Binary16.packFloat(value);
+  }
+}
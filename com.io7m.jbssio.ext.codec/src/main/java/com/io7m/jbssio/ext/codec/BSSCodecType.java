@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.codec;
+
+import com.io7m.jbssio.api.BSSReaderType;
+import com.io7m.jbssio.api.BSSWriterType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>A codec for fixed-size values of type {@code T}.</p>
+ *
+ * <p>Implementations are typically generated at compile time from records
+ * annotated with {@link BSSCodec}. The default read and write methods
+ * transfer whole values (or arrays of values) with a single bulk operation
+ * on the underlying reader or writer, and therefore perform a single bounds
+ * check per operation, and then decode or encode fields directly from or to
+ * the transferred octets.</p>
+ *
+ * @param <T> The type of values
+ */
+
+public interface BSSCodecType<T>
+{
+  /**
+   * @return The name of the encoded type, used as the field name for I/O
+   * operations
+   */
+
+  String name();
+
+  /**
+   * @return The size in octets of an encoded value
+   */
+
+  int size();
+
+  /**
+   * Decode a value from the given array.
+   *
+   * @param data   The encoded data
+   * @param offset The offset of the value within {@code data}
+   *
+   * @return The value
+   */
+
+  T decode(
+    byte[] data,
+    int offset);
+
+  /**
+   * Encode a value to the given array.
+   *
+   * @param value  The value
+   * @param data   The output data
+   * @param offset The offset of the value within {@code data}
+   */
+
+  void encode(
+    T value,
+    byte[] data,
+    int offset);
+
+  /**
+   * Read a value.
+   *
+   * @param reader The reader
+   *
+   * @return The value
+   *
+   * @throws IOException On errors
+   */
+
+  default T read(
+    final BSSReaderType reader)
+    throws IOException
+  {
+    final var data = new byte[this.size()];
+    BSSCodecSupport.readFully(reader, this.name(), data);
+    return this.decode(data, 0);
+  }
+
+  /**
+   * Read {@code count} consecutive values.
+   *
+   * @param reader The reader
+   * @param count  The number of values
+   *
+   * @return The values
+   *
+   * @throws IOException On errors
+   */
+
+  default List<T> readArray(
+    final BSSReaderType reader,
+    final int count)
+    throws IOException
+  {
+    final var size = this.size();
+    final var data = new byte[Math.multiplyExact(size, count)];
+    BSSCodecSupport.readFully(reader, this.name(), data);
+
+    final var results = new ArrayList<T>(count);
+    for (int index = 0; index < count; ++index) {
+      results.add(this.decode(data, index * size));
+    }
+    return results;
+  }
+
+  /**
+   * Write a value.
+   *
+   * @param writer The writer
+   * @param value  The value
+   *
+   * @throws IOException On errors
+   */
+
+  default void write(
+    final BSSWriterType writer,
+    final T value)
+    throws IOException
+  {
+    final var data = new byte[this.size()];
+    this.encode(value, data, 0);
+    writer.writeBytes(this.name(), data);
+  }
+
+  /**
+   * Write consecutive values.
+   *
+   * @param writer The writer
+   * @param values The values
+   *
+   * @throws IOException On errors
+   */
+
+  default void writeArray(
+    final BSSWriterType writer,
+    final List<? extends T> values)
+    throws IOException
+  {
+    Objects.requireNonNull(values, "values");
+
+    final var size = this.size();
+    final var data = new byte[Math.multiplyExact(size, values.size())];
+    for (int index = 0; index < values.size(); ++index) {
+      this.encode(values.get(index), data, index * size);
+    }
+    writer.writeBytes(this.name(), data);
+  }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>A description of a fixed-size binary record: a sequence of typed,
+ * endian-annotated scalar fields at fixed offsets.</p>
+ *
+ * <p>Layouts are immutable and are created with {@link #builder(String)}.
+ * A layout is typically compiled once into a {@link BSSLayoutCodec} that
+ * can then decode and encode any number of records.</p>
+ */
+
+public final class BSSLayout
+{
+  private final String name;
+  private final List<BSSLayoutField> fields;
+  private final Map<String, BSSLayoutField> fieldsByName;
+  private final int size;
+
+  private BSSLayout(
+    final String inName,
+    final List<BSSLayoutField> inFields,
+    final Map<String, BSSLayoutField> inFieldsByName,
+    final int inSize)
+  {
+    this.name =
+      Objects.requireNonNull(inName, "name");
+    this.fields =
+      List.copyOf(Objects.requireNonNull(inFields, "fields"));
+    this.fieldsByName =
+      Map.copyOf(Objects.requireNonNull(inFieldsByName, "fieldsByName"));
+    this.size = inSize;
+  }
+
+  /**
+   * Start building a new layout.
+   *
+   * @param name The layout name, used as the field name for I/O operations
+   *
+   * @return A new layout builder
+   */
+
+  public static Builder builder(
+    final String name)
+  {
+    return new Builder(name);
+  }
+
+  /**
+   * @return The layout name
+   */
+
+  public String name()
+  {
+    return this.name;
+  }
+
+  /**
+   * @return The fields in the layout, in declaration order
+   */
+
+  public List<BSSLayoutField> fields()
+  {
+    return this.fields;
+  }
+
+  /**
+   * @return The size in octets of a record with this layout, including any
+   * padding
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Find the field with the given name.
+   *
+   * @param fieldName The field name
+   *
+   * @return The field, if one exists
+   */
+
+  public Optional<BSSLayoutField> field(
+    final String fieldName)
+  {
+    Objects.requireNonNull(fieldName, "fieldName");
+    return Optional.ofNullable(this.fieldsByName.get(fieldName));
+  }
+
+  /**
+   * Find the field with the given name.
+   *
+   * @param fieldName The field name
+   *
+   * @return The field
+   *
+   * @throws IllegalArgumentException If no field exists with the given name
+   */
+
+  public BSSLayoutField fieldOrFail(
+    final String fieldName)
+  {
+    return this.field(fieldName)
+      .orElseThrow(() -> new IllegalArgumentException(
+        "No field named '%s' in layout '%s'".formatted(fieldName, this.name)));
+  }
+
+  /**
+   * Create a new record with this layout. All fields are initially zero.
+   *
+   * @return A new record
+   */
+
+  public BSSLayoutRecord createRecord()
+  {
+    return new BSSLayoutRecord(this);
+  }
+
+  /**
+   * Create a new set of columns for {@code count} records with this layout.
+   * All values are initially zero.
+   *
+   * @param count The number of records
+   *
+   * @return A new set of columns
+   */
+
+  public BSSLayoutColumns createColumns(
+    final int count)
+  {
+    return new BSSLayoutColumns(this, count);
+  }
+
+  @Override
+  public String toString()
+  {
+    return new StringBuilder(64)
+      .append("[BSSLayout ")
+      .append(this.name)
+      .append(" size=")
+      .append(this.size)
+      .append(" fields=")
+      .append(this.fields.size())
+      .append(']')
+      .toString();
+  }
+
+  /**
+   * A mutable builder for layouts. Fields are placed at the current offset
+   * unless an explicit offset is given, and the current offset then moves
+   * past the end of the field.
+   */
+
+  public static final class Builder
+  {
+    private final String name;
+    private final ArrayList<BSSLayoutField> fields;
+    private final HashMap<String, BSSLayoutField> fieldsByName;
+    private int offsetCurrent;
+    private int alignment;
+    private int size;
+
+    private Builder(
+      final String inName)
+    {
+      this.name = Objects.requireNonNull(inName, "name");
+      this.fields = new ArrayList<>();
+      this.fieldsByName = new HashMap<>();
+      this.alignment = 1;
+    }
+
+    /**
+     * Add a field at the current offset.
+     *
+     * @param fieldName The field name
+     * @param kind      The field kind
+     * @param order     The byte order of the field
+     *
+     * @return this
+     */
+
+    public Builder addField(
+      final String fieldName,
+      final BSSLayoutFieldKind kind,
+      final ByteOrder order)
+    {
+      return this.addFieldAt(fieldName, kind, order, this.offsetCurrent);
+    }
+
+    /**
+     * Add a field at the given offset. The field must not overlap any
+     * existing field.
+     *
+     * @param fieldName The field name
+     * @param kind      The field kind
+     * @param order     The byte order of the field
+     * @param offset    The offset of the field from the start of the record
+     *
+     * @return this
+     */
+
+    public Builder addFieldAt(
+      final String fieldName,
+      final BSSLayoutFieldKind kind,
+      final ByteOrder order,
+      final int offset)
+    {
+      Objects.requireNonNull(fieldName, "fieldName");
+
+      if (this.fieldsByName.containsKey(fieldName)) {
+        throw new IllegalArgumentException(
+          "Layout '%s' already contains a field named '%s'"
+            .formatted(this.name, fieldName));
+      }
+
+      final var field =
+        new BSSLayoutField(fieldName, kind, order, offset, this.fields.size());
+
+      for (final var existing : this.fields) {
+        if (field.offset() < existing.offsetEnd()
+          && existing.offset() < field.offsetEnd()) {
+          throw new IllegalArgumentException(
+            "Field '%s' [%d, %d) overlaps field '%s' [%d, %d)".formatted(
+              fieldName,
+              Integer.valueOf(field.offset()),
+              Integer.valueOf(field.offsetEnd()),
+              existing.name(),
+              Integer.valueOf(existing.offset()),
+              Integer.valueOf(existing.offsetEnd())));
+        }
+      }
+
+      this.fields.add(field);
+      this.fieldsByName.put(fieldName, field);
+      this.offsetCurrent = field.offsetEnd();
+      this.size = Math.max(this.size, this.offsetCurrent);
+      return this;
+    }
+
+    /**
+     * Advance the current offset to the next multiple of {@code align}.
+     *
+     * @param align The alignment
+     *
+     * @return this
+     */
+
+    public Builder align(
+      final int align)
+    {
+      this.offsetCurrent = alignUp(this.offsetCurrent, align);
+      this.size = Math.max(this.size, this.offsetCurrent);
+      return this;
+    }
+
+    /**
+     * Skip {@code octets} octets of padding at the current offset.
+     *
+     * @param octets The number of octets
+     *
+     * @return this
+     */
+
+    public Builder skip(
+      final int octets)
+    {
+      if (octets < 0) {
+        throw new IllegalArgumentException(
+          "Skip size %d must be non-negative".formatted(
+            Integer.valueOf(octets)));
+      }
+      this.offsetCurrent = Math.addExact(this.offsetCurrent, octets);
+      this.size = Math.max(this.size, this.offsetCurrent);
+      return this;
+    }
+
+    /**
+     * Set the alignment of records. The size of the resulting layout is
+     * rounded up to a multiple of this value, so that records in a table
+     * of records each begin on an aligned offset.
+     *
+     * @param align The alignment
+     *
+     * @return this
+     */
+
+    public Builder setRecordAlignment(
+      final int align)
+    {
+      checkAlignment(align);
+      this.alignment = align;
+      return this;
+    }
+
+    /**
+     * @return A new immutable layout
+     */
+
+    public BSSLayout build()
+    {
+      return new BSSLayout(
+        this.name,
+        this.fields,
+        this.fieldsByName,
+        alignUp(this.size, this.alignment)
+      );
+    }
+
+    private static void checkAlignment(
+      final int align)
+    {
+      if (align <= 0) {
+        throw new IllegalArgumentException(
+          "Alignment %d must be positive".formatted(Integer.valueOf(align)));
+      }
+    }
+
+    private static int alignUp(
+      final int value,
+      final int align)
+    {
+      checkAlignment(align);
+      final var remainder = value % align;
+      if (remainder == 0) {
+        return value;
+      }
+      return Math.addExact(value, align - remainder);
+    }
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSReaderType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>A codec compiled from a layout.</p>
+ *
+ * <p>A codec decodes records by transferring the complete record from the
+ * underlying reader with a single bulk read (and therefore a single bounds
+ * check), and then extracting each field from the transferred octets with a
+ * method handle composed from byte array view var handles. The composed
+ * handle consists only of straight-line loads at constant offsets; there is
+ * no per-field dispatch on the field kind at run-time. The handle is bound
+ * to a hidden class specific to the layout so that the JIT compiler can
+ * inline it. Encoding is the exact inverse.</p>
+ *
+ * <p>Codecs are immutable and thread-safe, and are intended to be created
+ * once per layout. Records are not thread-safe.</p>
+ */
+
+public final class BSSLayoutCodec
+{
+  private static final int COLUMN_CHUNK_SIZE = 65536;
+
+  private final BSSLayout layout;
+  private final BSSLayoutTransferType transfer;
+  private final boolean padded;
+
+  private BSSLayoutCodec(
+    final BSSLayout inLayout,
+    final BSSLayoutTransferType inTransfer,
+    final boolean inPadded)
+  {
+    this.layout =
+      Objects.requireNonNull(inLayout, "layout");
+    this.transfer =
+      Objects.requireNonNull(inTransfer, "transfer");
+    this.padded = inPadded;
+  }
+
+  /**
+   * Compile a codec for the given layout.
+   *
+   * @param layout The layout
+   *
+   * @return A new codec
+   */
+
+  public static BSSLayoutCodec create(
+    final BSSLayout layout)
+  {
+    Objects.requireNonNull(layout, "layout");
+
+    var fieldSizes = 0;
+    for (final var field : layout.fields()) {
+      fieldSizes += field.kind().size();
+    }
+
+    return new BSSLayoutCodec(
+      layout,
+      BSSLayoutHandles.compile(layout),
+      fieldSizes != layout.size()
+    );
+  }
+
+  /**
+   * @return The layout of records handled by this codec
+   */
+
+  public BSSLayout layout()
+  {
+    return this.layout;
+  }
+
+  /**
+   * Read a record from the current position of the given reader.
+   *
+   * @param reader The reader
+   * @param record The output record
+   *
+   * @throws IOException On errors
+   */
+
+  public void read(
+    final BSSReaderType reader,
+    final BSSLayoutRecord record)
+    throws IOException
+  {
+    Objects.requireNonNull(reader, "reader");
+    this.checkRecord(record);
+
+    final var octets = record.octets();
+    this.readFully(reader, octets, octets.length);
+    this.transfer.decode(octets, record.values());
+  }
+
+  /**
+   * Read a table of {@code count} consecutive records from the current
+   * position of the given reader, decoding each field into its own column.
+   *
+   * @param reader The reader
+   * @param count  The number of records
+   *
+   * @return The decoded columns
+   *
+   * @throws IOException On errors
+   * @see #readColumns(BSSReaderType, BSSLayoutColumns)
+   */
+
+  public BSSLayoutColumns readColumns(
+    final BSSReaderType reader,
+    final int count)
+    throws IOException
+  {
+    final var columns = this.layout.createColumns(count);
+    this.readColumns(reader, columns);
+    return columns;
+  }
+
+  /**
+   * <p>Read a table of {@code columns.count()} consecutive records from the
+   * current position of the given reader, decoding each field into its own
+   * column.</p>
+   *
+   * <p>The size of the whole table is checked against the bounds of the
+   * reader once, before anything is read. Records are then transferred in
+   * large bulk reads, and each column is filled with a strided loop over
+   * the transferred octets.</p>
+   *
+   * @param reader  The reader
+   * @param columns The output columns
+   *
+   * @throws IOException On errors
+   */
+
+  public void readColumns(
+    final BSSReaderType reader,
+    final BSSLayoutColumns columns)
+    throws IOException
+  {
+    Objects.requireNonNull(reader, "reader");
+    Objects.requireNonNull(columns, "columns");
+
+    if (columns.layout() != this.layout) {
+      throw new IllegalArgumentException(
+        "Columns layout '%s' does not match codec layout '%s'".formatted(
+          columns.layout().name(), this.layout.name()));
+    }
+
+    final var count = columns.count();
+    final var size = this.layout.size();
+    if (count == 0 || size == 0) {
+      return;
+    }
+
+    final var total = Math.multiplyExact((long) count, (long) size);
+    final var remaining = reader.bytesRemaining();
+    if (remaining.isPresent() && remaining.getAsLong() < total) {
+      throw reader.createException(
+        "Out of bounds.",
+        Map.of(
+          "Layout", this.layout.name(),
+          "Record Count", Integer.toString(count),
+          "Table Size", Long.toString(total),
+          "Bytes Remaining", Long.toString(remaining.getAsLong())),
+        IOException::new
+      );
+    }
+
+    final var chunkRecords =
+      Math.min(count, Math.max(1, COLUMN_CHUNK_SIZE / size));
+    final var chunk =
+      new byte[chunkRecords * size];
+    final var buffer =
+      ByteBuffer.wrap(chunk);
+
+    final var fields = this.layout.fields();
+    var base = 0;
+    while (base < count) {
+      final var records = Math.min(chunkRecords, count - base);
+      this.readFully(reader, chunk, records * size);
+
+      for (final var field : fields) {
+        buffer.order(field.order());
+        BSSLayoutColumnDecoder.decode(
+          buffer, records, size, field, columns.column(field.index()), base);
+      }
+      base += records;
+    }
+  }
+
+  /**
+   * Read a record from the given absolute offset of the given reader. The
+   * reader is left positioned at the end of the record.
+   *
+   * @param reader The reader
+   * @param offset The offset of the record
+   * @param record The output record
+   *
+   * @throws IOException On errors
+   */
+
+  public void readAt(
+    final BSSReaderRandomAccessType reader,
+    final long offset,
+    final BSSLayoutRecord record)
+    throws IOException
+  {
+    Objects.requireNonNull(reader, "reader");
+    reader.seekTo(offset);
+    this.read(reader, record);
+  }
+
+  /**
+   * Write a record to the current position of the given writer. Any
+   * padding within the record is written as zero octets.
+   *
+   * @param writer The writer
+   * @param record The input record
+   *
+   * @throws IOException On errors
+   */
+
+  public void write(
+    final BSSWriterType writer,
+    final BSSLayoutRecord record)
+    throws IOException
+  {
+    Objects.requireNonNull(writer, "writer");
+    this.checkRecord(record);
+
+    final var octets = record.octets();
+    if (this.padded) {
+      Arrays.fill(octets, (byte) 0);
+    }
+    this.transfer.encode(octets, record.values());
+    writer.writeBytes(this.layout.name(), octets, 0, octets.length);
+  }
+
+  /**
+   * Write a record to the given absolute offset of the given writer. The
+   * writer is left positioned at the end of the record.
+   *
+   * @param writer The writer
+   * @param offset The offset of the record
+   * @param record The input record
+   *
+   * @throws IOException On errors
+   */
+
+  public void writeAt(
+    final BSSWriterRandomAccessType writer,
+    final long offset,
+    final BSSLayoutRecord record)
+    throws IOException
+  {
+    Objects.requireNonNull(writer, "writer");
+    writer.seekTo(offset);
+    this.write(writer, record);
+  }
+
+  private void readFully(
+    final BSSReaderType reader,
+    final byte[] octets,
+    final int size)
+    throws IOException
+  {
+    var done = 0;
+    while (done < size) {
+      final var r =
+        reader.readBytes(this.layout.name(), octets, done, size - done);
+      if (r <= 0) {
+        throw reader.createException(
+          "Short read.",
+          Map.of(
+            "Layout", this.layout.name(),
+            "Size", Integer.toString(size),
+            "Received", Integer.toString(done)),
+          EOFException::new
+        );
+      }
+      done += r;
+    }
+  }
+
+  private void checkRecord(
+    final BSSLayoutRecord record)
+  {
+    Objects.requireNonNull(record, "record");
+    if (record.layout() != this.layout) {
+      throw new IllegalArgumentException(
+        "Record layout '%s' does not match codec layout '%s'".formatted(
+          record.layout().name(), this.layout.name()));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return new StringBuilder(64)
+      .append("[BSSLayoutCodec ")
+      .append(this.layout.name())
+      .append(']')
+      .toString();
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import com.io7m.ieee754b16.Binary16;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Functions to decode columns of a table of records with strided loads.
+ */
+
+final class BSSLayoutColumnDecoder
+{
+  private BSSLayoutColumnDecoder()
+  {
+
+  }
+
+  /**
+   * Decode one field of {@code records} consecutive records held in
+   * {@code data} into {@code column}, starting at index {@code base} of the
+   * column. The byte order of {@code data} must already be set to the byte
+   * order of the field.
+   *
+   * @param data    The encoded records
+   * @param records The number of records in {@code data}
+   * @param stride  The size of a record
+   * @param field   The field
+   * @param column  The output column
+   * @param base    The index of the first record in the column
+   */
+
+  static void decode(
+    final ByteBuffer data,
+    final int records,
+    final int stride,
+    final BSSLayoutField field,
+    final Object column,
+    final int base)
+  {
+    final var offset = field.offset();
+    switch (field.kind()) {
+      case U8, S8, U16, S16, S32 -> decodeInts(
+        data, records, stride, offset, field.kind(), (int[]) column, base);
+      case U32, U64, S64 -> decodeLongs(
+        data, records, stride, offset, field.kind(), (long[]) column, base);
+      case F16, F32 -> decodeFloats(
+        data, records, stride, offset, field.kind(), (float[]) column, base);
+      case F64 -> {
+        final var c = (double[]) column;
+        for (int index = 0; index < records; ++index) {
+          c[base + index] = data.getDouble(index * stride + offset);
+        }
+      }
+    }
+  }
+
+  private static void decodeInts(
+    final ByteBuffer data,
+    final int records,
+    final int stride,
+    final int offset,
+    final BSSLayoutFieldKind kind,
+    final int[] c,
+    final int base)
+  {
+    switch (kind) {
+      case U8 -> {
+        for (int index = 0; index < records; ++index) {
+          c[base + index] = data.get(index * stride + offset) & 0xff;
+        }
+      }
+      case S8 -> {
+        for (int index = 0; index < records; ++index) {
+          c[base + index] = data.get(index * stride + offset);
+        }
+      }
+      case U16 -> {
+        for (int index = 0; index < records; ++index) {
+          c[base + index] = data.getShort(index * stride + offset) & 0xffff;
+        }
+      }
+      case S16 -> {
+        for (int index = 0; index < records; ++index) {
+          c[base + index] = data.getShort(index * stride + offset);
+        }
+      }
+      default -> {
+        for (int index = 0; index < records; ++index) {
+          c[base + index] = data.getInt(index * stride + offset);
+        }
+      }
+    }
+  }
+
+  private static void decodeLongs(
+    final ByteBuffer data,
+    final int records,
+    final int stride,
+    final int offset,
+    final BSSLayoutFieldKind kind,
+    final long[] c,
+    final int base)
+  {
+    if (kind == BSSLayoutFieldKind.U32) {
+      for (int index = 0; index < records; ++index) {
+        c[base + index] =
+          Integer.toUnsignedLong(data.getInt(index * stride + offset));
+      }
+    } else {
+      for (int index = 0; index < records; ++index) {
+        c[base + index] = data.getLong(index * stride + offset);
+      }
+    }
+  }
+
+  private static void decodeFloats(
+    final ByteBuffer data,
+    final int records,
+    final int stride,
+    final int offset,
+    final BSSLayoutFieldKind kind,
+    final float[] c,
+    final int base)
+  {
+    if (kind == BSSLayoutFieldKind.F16) {
+      for (int index = 0; index < records; ++index) {
+        c[base + index] =
+          Binary16.unpackFloat(data.getChar(index * stride + offset));
+      }
+    } else {
+      for (int index = 0; index < records; ++index) {
+        c[base + index] = data.getFloat(index * stride + offset);
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import java.util.Objects;
+
+/**
+ * <p>A table of records with a given layout, held in struct-of-arrays form:
+ * one primitive array per field, each of the type given by
+ * {@link BSSLayoutFieldKind#columnType()}.</p>
+ *
+ * <p>Columns are filled by
+ * {@link BSSLayoutCodec#readColumns(com.io7m.jbssio.api.BSSReaderType, BSSLayoutColumns)}.
+ * The arrays returned by the accessor methods are the live arrays held by
+ * this object, and are not copied.</p>
+ */
+
+public final class BSSLayoutColumns
+{
+  private final BSSLayout layout;
+  private final Object[] columns;
+  private final int count;
+
+  BSSLayoutColumns(
+    final BSSLayout inLayout,
+    final int inCount)
+  {
+    this.layout = Objects.requireNonNull(inLayout, "layout");
+
+    if (inCount < 0) {
+      throw new IllegalArgumentException(
+        "Record count %d must be non-negative".formatted(
+          Integer.valueOf(inCount)));
+    }
+
+    this.count = inCount;
+    final var fields = inLayout.fields();
+    this.columns = new Object[fields.size()];
+    for (final var field : fields) {
+      this.columns[field.index()] = switch (field.kind()) {
+        case U8, S8, U16, S16, S32 -> new int[inCount];
+        case U32, U64, S64 -> new long[inCount];
+        case F16, F32 -> new float[inCount];
+        case F64 -> new double[inCount];
+      };
+    }
+  }
+
+  /**
+   * @return The layout of the records
+   */
+
+  public BSSLayout layout()
+  {
+    return this.layout;
+  }
+
+  /**
+   * @return The number of records
+   */
+
+  public int count()
+  {
+    return this.count;
+  }
+
+  Object column(
+    final int index)
+  {
+    return this.columns[index];
+  }
+
+  /**
+   * @param name The field name
+   *
+   * @return The {@code int[]} column for the named field
+   *
+   * @throws IllegalArgumentException If the column is not of this type
+   */
+
+  public int[] intColumn(
+    final String name)
+  {
+    return (int[]) this.columnOfType(name, int[].class);
+  }
+
+  /**
+   * @param name The field name
+   *
+   * @return The {@code long[]} column for the named field
+   *
+   * @throws IllegalArgumentException If the column is not of this type
+   */
+
+  public long[] longColumn(
+    final String name)
+  {
+    return (long[]) this.columnOfType(name, long[].class);
+  }
+
+  /**
+   * @param name The field name
+   *
+   * @return The {@code float[]} column for the named field
+   *
+   * @throws IllegalArgumentException If the column is not of this type
+   */
+
+  public float[] floatColumn(
+    final String name)
+  {
+    return (float[]) this.columnOfType(name, float[].class);
+  }
+
+  /**
+   * @param name The field name
+   *
+   * @return The {@code double[]} column for the named field
+   *
+   * @throws IllegalArgumentException If the column is not of this type
+   */
+
+  public double[] doubleColumn(
+    final String name)
+  {
+    return (double[]) this.columnOfType(name, double[].class);
+  }
+
+  private Object columnOfType(
+    final String name,
+    final Class<?> type)
+  {
+    final var field = this.layout.fieldOrFail(name);
+    final var columnType = field.kind().columnType();
+    if (columnType != type) {
+      throw new IllegalArgumentException(
+        "Field '%s' of kind %s is held in a %s column".formatted(
+          name, field.kind(), columnType.getSimpleName()));
+    }
+    return this.columns[field.index()];
+  }
+
+  @Override
+  public String toString()
+  {
+    return new StringBuilder(64)
+      .append("[BSSLayoutColumns ")
+      .append(this.layout.name())
+      .append(" count=")
+      .append(this.count)
+      .append(']')
+      .toString();
+  }
+}
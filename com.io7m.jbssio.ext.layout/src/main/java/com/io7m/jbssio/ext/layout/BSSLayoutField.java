@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A field within a layout.
+ *
+ * @param name   The field name
+ * @param kind   The field kind
+ * @param order  The byte order of the field
+ * @param offset The offset in octets of the field from the start of the
+ *               record
+ * @param index  The index of the field within the layout
+ */
+
+public record BSSLayoutField(
+  String name,
+  BSSLayoutFieldKind kind,
+  ByteOrder order,
+  int offset,
+  int index)
+{
+  /**
+   * A field within a layout.
+   *
+   * @param name   The field name
+   * @param kind   The field kind
+   * @param order  The byte order of the field
+   * @param offset The offset in octets of the field from the start of the
+   *               record
+   * @param index  The index of the field within the layout
+   */
+
+  public BSSLayoutField
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(kind, "kind");
+    Objects.requireNonNull(order, "order");
+
+    if (offset < 0) {
+      throw new IllegalArgumentException(
+        "Field offset %d must be non-negative".formatted(
+          Integer.valueOf(offset)));
+    }
+  }
+
+  /**
+   * @return The offset of the octet immediately following the field
+   */
+
+  public int offsetEnd()
+  {
+    return this.offset + this.kind.size();
+  }
+}
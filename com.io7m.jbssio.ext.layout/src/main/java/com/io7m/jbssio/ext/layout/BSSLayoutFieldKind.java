@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+/**
+ * The kinds of scalar fields that can appear in a layout.
+ */
+
+public enum BSSLayoutFieldKind
+{
+  /**
+   * An unsigned 8-bit integer.
+   */
+
+  U8(1, false),
+
+  /**
+   * A signed 8-bit integer.
+   */
+
+  S8(1, false),
+
+  /**
+   * An unsigned 16-bit integer.
+   */
+
+  U16(2, false),
+
+  /**
+   * A signed 16-bit integer.
+   */
+
+  S16(2, false),
+
+  /**
+   * An unsigned 32-bit integer.
+   */
+
+  U32(4, false),
+
+  /**
+   * A signed 32-bit integer.
+   */
+
+  S32(4, false),
+
+  /**
+   * An unsigned 64-bit integer.
+   */
+
+  U64(8, false),
+
+  /**
+   * A signed 64-bit integer.
+   */
+
+  S64(8, false),
+
+  /**
+   * A 16-bit IEEE754 floating point value.
+   */
+
+  F16(2, true),
+
+  /**
+   * A 32-bit IEEE754 floating point value.
+   */
+
+  F32(4, true),
+
+  /**
+   * A 64-bit IEEE754 floating point value.
+   */
+
+  F64(8, true);
+
+  private final int size;
+  private final boolean floatingPoint;
+
+  BSSLayoutFieldKind(
+    final int inSize,
+    final boolean inFloatingPoint)
+  {
+    this.size = inSize;
+    this.floatingPoint = inFloatingPoint;
+  }
+
+  /**
+   * @return The size in octets of values of this kind
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return {@code true} if values of this kind are floating point values
+   */
+
+  public boolean isFloatingPoint()
+  {
+    return this.floatingPoint;
+  }
+
+  /**
+   * The type of the primitive array used to hold a column of values of this
+   * kind: the narrowest of {@code int[]}, {@code long[]}, {@code float[]} or
+   * {@code double[]} that can represent every value.
+   *
+   * @return The column array type
+   *
+   * @see BSSLayoutColumns
+   */
+
+  public Class<?> columnType()
+  {
+    return switch (this) {
+      case U8, S8, U16, S16, S32 -> int[].class;
+      case U32, U64, S64 -> long[].class;
+      case F16, F32 -> float[].class;
+      case F64 -> double[].class;
+    };
+  }
+}
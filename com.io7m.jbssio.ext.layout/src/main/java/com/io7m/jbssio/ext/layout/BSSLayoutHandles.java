@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import com.io7m.ieee754b16.Binary16;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Functions to compose the method handles used by layout codecs. Every
+ * composed handle has the type {@code (byte[], long[])void}; the byte array
+ * holds the encoded record and the long array holds one value per field,
+ * with floating point values stored as raw {@code double} bits.
+ */
+
+final class BSSLayoutHandles
+{
+  private static final MethodType CODEC_TYPE =
+    methodType(void.class, byte[].class, long[].class);
+
+  private static final MethodHandle BYTE_TO_UNSIGNED;
+  private static final MethodHandle SHORT_TO_UNSIGNED;
+  private static final MethodHandle INT_TO_UNSIGNED;
+  private static final MethodHandle DOUBLE_TO_BITS;
+  private static final MethodHandle BITS_TO_DOUBLE;
+  private static final MethodHandle F16_UNPACK;
+  private static final MethodHandle F16_PACK;
+
+  static {
+    final var lookup = MethodHandles.lookup();
+    try {
+      BYTE_TO_UNSIGNED = lookup.findStatic(
+        Byte.class, "toUnsignedLong", methodType(long.class, byte.class));
+      SHORT_TO_UNSIGNED = lookup.findStatic(
+        Short.class, "toUnsignedLong", methodType(long.class, short.class));
+      INT_TO_UNSIGNED = lookup.findStatic(
+        Integer.class, "toUnsignedLong", methodType(long.class, int.class));
+      DOUBLE_TO_BITS = lookup.findStatic(
+        Double.class, "doubleToRawLongBits", methodType(long.class, double.class));
+      BITS_TO_DOUBLE = lookup.findStatic(
+        Double.class, "longBitsToDouble", methodType(double.class, long.class));
+      F16_UNPACK = lookup.findStatic(
+        Binary16.class, "unpackDouble", methodType(double.class, char.class));
+      F16_PACK = lookup.findStatic(
+        Binary16.class, "packDouble", methodType(char.class, double.class));
+    } catch (final NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final byte[] TEMPLATE;
+
+  static {
+    try (var stream =
+           BSSLayoutTemplate.class.getResourceAsStream(
+             "BSSLayoutTemplate.class")) {
+      if (stream == null) {
+        throw new IllegalStateException("Missing layout template class.");
+      }
+      TEMPLATE = stream.readAllBytes();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private BSSLayoutHandles()
+  {
+
+  }
+
+  /**
+   * Compile the given layout. The decoder and encoder handles are bound to
+   * a new hidden class defined from {@link BSSLayoutTemplate}.
+   *
+   * @param layout The layout
+   *
+   * @return The compiled transfer functions
+   */
+
+  static BSSLayoutTransferType compile(
+    final BSSLayout layout)
+  {
+    final var handles =
+      List.of(decoder(layout), encoder(layout));
+
+    try {
+      final var hidden =
+        MethodHandles.lookup()
+          .defineHiddenClassWithClassData(TEMPLATE, handles, true);
+
+      return (BSSLayoutTransferType) hidden.findConstructor(
+          hidden.lookupClass(), methodType(void.class))
+        .invoke();
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Compose a decoder for the given layout.
+   *
+   * @param layout The layout
+   *
+   * @return A handle of type {@code (byte[], long[])void}
+   */
+
+  static MethodHandle decoder(
+    final BSSLayout layout)
+  {
+    return sequence(layout, true);
+  }
+
+  /**
+   * Compose an encoder for the given layout.
+   *
+   * @param layout The layout
+   *
+   * @return A handle of type {@code (byte[], long[])void}
+   */
+
+  static MethodHandle encoder(
+    final BSSLayout layout)
+  {
+    return sequence(layout, false);
+  }
+
+  private static MethodHandle sequence(
+    final BSSLayout layout,
+    final boolean decode)
+  {
+    /*
+     * foldArguments() executes the combiner before the target, so the
+     * fields are folded in reverse to produce handles that access
+     * fields in declaration order.
+     */
+
+    final var fields = layout.fields();
+    var result = MethodHandles.empty(CODEC_TYPE);
+    for (int index = fields.size() - 1; index >= 0; --index) {
+      final var field = fields.get(index);
+      final MethodHandle handle;
+      if (decode) {
+        handle = decodeField(field);
+      } else {
+        handle = encodeField(field);
+      }
+      result = MethodHandles.foldArguments(result, handle);
+    }
+    return result;
+  }
+
+  private static MethodHandle decodeField(
+    final BSSLayoutField field)
+  {
+    final var load =
+      MethodHandles.insertArguments(
+        accessor(field, VarHandle.AccessMode.GET), 1, field.offset());
+
+    final var value =
+      MethodHandles.filterReturnValue(load, toLong(field.kind()));
+
+    final var store =
+      MethodHandles.insertArguments(
+        MethodHandles.arrayElementSetter(long[].class), 1, field.index());
+
+    final var storeValue =
+      MethodHandles.filterArguments(store, 1, value);
+
+    return MethodHandles.permuteArguments(storeValue, CODEC_TYPE, 1, 0);
+  }
+
+  private static MethodHandle encodeField(
+    final BSSLayoutField field)
+  {
+    final var load =
+      MethodHandles.insertArguments(
+        MethodHandles.arrayElementGetter(long[].class), 1, field.index());
+
+    final var value =
+      MethodHandles.filterReturnValue(load, fromLong(field.kind()));
+
+    final var store =
+      MethodHandles.insertArguments(
+        accessor(field, VarHandle.AccessMode.SET), 1, field.offset());
+
+    return MethodHandles.filterArguments(store, 1, value);
+  }
+
+  /**
+   * @return A handle that converts the raw field value to a long
+   */
+
+  private static MethodHandle toLong(
+    final BSSLayoutFieldKind kind)
+  {
+    return switch (kind) {
+      case U8 -> BYTE_TO_UNSIGNED;
+      case U16 -> SHORT_TO_UNSIGNED;
+      case U32 -> INT_TO_UNSIGNED;
+      case S8 -> MethodHandles.identity(long.class)
+        .asType(methodType(long.class, byte.class));
+      case S16 -> MethodHandles.identity(long.class)
+        .asType(methodType(long.class, short.class));
+      case S32 -> MethodHandles.identity(long.class)
+        .asType(methodType(long.class, int.class));
+      case U64, S64 -> MethodHandles.identity(long.class);
+      case F16 -> MethodHandles.explicitCastArguments(
+        MethodHandles.filterReturnValue(F16_UNPACK, DOUBLE_TO_BITS),
+        methodType(long.class, short.class));
+      case F32 -> DOUBLE_TO_BITS.asType(methodType(long.class, float.class));
+      case F64 -> DOUBLE_TO_BITS;
+    };
+  }
+
+  /**
+   * @return A handle that converts a long to the raw field value
+   */
+
+  private static MethodHandle fromLong(
+    final BSSLayoutFieldKind kind)
+  {
+    return switch (kind) {
+      case U8, S8 -> MethodHandles.explicitCastArguments(
+        MethodHandles.identity(long.class), methodType(byte.class, long.class));
+      case U16, S16 -> MethodHandles.explicitCastArguments(
+        MethodHandles.identity(long.class), methodType(short.class, long.class));
+      case U32, S32 -> MethodHandles.explicitCastArguments(
+        MethodHandles.identity(long.class), methodType(int.class, long.class));
+      case U64, S64 -> MethodHandles.identity(long.class);
+      case F16 -> MethodHandles.explicitCastArguments(
+        MethodHandles.filterReturnValue(BITS_TO_DOUBLE, F16_PACK),
+        methodType(short.class, long.class));
+      case F32 -> MethodHandles.explicitCastArguments(
+        BITS_TO_DOUBLE, methodType(float.class, long.class));
+      case F64 -> BITS_TO_DOUBLE;
+    };
+  }
+
+  /**
+   * @return A handle of type {@code (byte[], int)T} or
+   * {@code (byte[], int, T)void} that accesses the raw field value at an
+   * offset
+   */
+
+  private static MethodHandle accessor(
+    final BSSLayoutField field,
+    final VarHandle.AccessMode mode)
+  {
+    final var kind = field.kind();
+    if (kind.size() == 1) {
+      if (mode == VarHandle.AccessMode.GET) {
+        return MethodHandles.arrayElementGetter(byte[].class);
+      }
+      return MethodHandles.arrayElementSetter(byte[].class);
+    }
+
+    final Class<?> view = switch (kind) {
+      case U16, S16, F16 -> short[].class;
+      case U32, S32 -> int[].class;
+      case U64, S64 -> long[].class;
+      case F32 -> float[].class;
+      case F64 -> double[].class;
+      case U8, S8 -> throw new IllegalStateException("Unreachable code.");
+    };
+
+    final ByteOrder order = field.order();
+    return MethodHandles.byteArrayViewVarHandle(view, order)
+      .toMethodHandle(mode);
+  }
+}
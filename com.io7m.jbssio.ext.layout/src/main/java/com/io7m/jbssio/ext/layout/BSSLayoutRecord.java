@@ -0,0 +1,229 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>A mutable record with a given layout.</p>
+ *
+ * <p>Records are intended to be reused: a single record can be passed
+ * repeatedly to {@link BSSLayoutCodec#read(com.io7m.jbssio.api.BSSReaderType, BSSLayoutRecord)}
+ * to decode a sequence of records without allocating. Records are not
+ * thread-safe.</p>
+ *
+ * <p>Integer fields are exposed as {@code long} values, and floating point
+ * fields are exposed as {@code double} values. Unsigned 64-bit values are
+ * returned in two's complement form, and should be interpreted with the
+ * unsigned methods of {@link Long}.</p>
+ */
+
+public final class BSSLayoutRecord
+{
+  private final BSSLayout layout;
+  private final long[] values;
+  private final byte[] octets;
+
+  BSSLayoutRecord(
+    final BSSLayout inLayout)
+  {
+    this.layout = Objects.requireNonNull(inLayout, "layout");
+    this.values = new long[inLayout.fields().size()];
+    this.octets = new byte[inLayout.size()];
+  }
+
+  /**
+   * @return The record layout
+   */
+
+  public BSSLayout layout()
+  {
+    return this.layout;
+  }
+
+  long[] values()
+  {
+    return this.values;
+  }
+
+  byte[] octets()
+  {
+    return this.octets;
+  }
+
+  /**
+   * Get the value of the integer field at the given index.
+   *
+   * @param index The field index
+   *
+   * @return The value
+   */
+
+  public long getInteger(
+    final int index)
+  {
+    this.checkKind(index, false);
+    return this.values[index];
+  }
+
+  /**
+   * Get the value of the named integer field.
+   *
+   * @param name The field name
+   *
+   * @return The value
+   */
+
+  public long getInteger(
+    final String name)
+  {
+    return this.getInteger(this.layout.fieldOrFail(name).index());
+  }
+
+  /**
+   * Set the value of the integer field at the given index. Values are
+   * truncated to the size of the field when encoded.
+   *
+   * @param index The field index
+   * @param value The value
+   */
+
+  public void setInteger(
+    final int index,
+    final long value)
+  {
+    this.checkKind(index, false);
+    this.values[index] = value;
+  }
+
+  /**
+   * Set the value of the named integer field. Values are truncated to the
+   * size of the field when encoded.
+   *
+   * @param name  The field name
+   * @param value The value
+   */
+
+  public void setInteger(
+    final String name,
+    final long value)
+  {
+    this.setInteger(this.layout.fieldOrFail(name).index(), value);
+  }
+
+  /**
+   * Get the value of the floating point field at the given index.
+   *
+   * @param index The field index
+   *
+   * @return The value
+   */
+
+  public double getFloat(
+    final int index)
+  {
+    this.checkKind(index, true);
+    return Double.longBitsToDouble(this.values[index]);
+  }
+
+  /**
+   * Get the value of the named floating point field.
+   *
+   * @param name The field name
+   *
+   * @return The value
+   */
+
+  public double getFloat(
+    final String name)
+  {
+    return this.getFloat(this.layout.fieldOrFail(name).index());
+  }
+
+  /**
+   * Set the value of the floating point field at the given index. Values
+   * are rounded to the precision of the field when encoded.
+   *
+   * @param index The field index
+   * @param value The value
+   */
+
+  public void setFloat(
+    final int index,
+    final double value)
+  {
+    this.checkKind(index, true);
+    this.values[index] = Double.doubleToRawLongBits(value);
+  }
+
+  /**
+   * Set the value of the named floating point field. Values are rounded to
+   * the precision of the field when encoded.
+   *
+   * @param name  The field name
+   * @param value The value
+   */
+
+  public void setFloat(
+    final String name,
+    final double value)
+  {
+    this.setFloat(this.layout.fieldOrFail(name).index(), value);
+  }
+
+  /**
+   * Set all fields to zero.
+   */
+
+  public void clear()
+  {
+    Arrays.fill(this.values, 0L);
+  }
+
+  private void checkKind(
+    final int index,
+    final boolean floatingPoint)
+  {
+    final var field = this.layout.fields().get(index);
+    if (field.kind().isFloatingPoint() != floatingPoint) {
+      throw new IllegalArgumentException(
+        "Field '%s' has kind %s".formatted(field.name(), field.kind()));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    final var builder = new StringBuilder(64);
+    builder.append("[BSSLayoutRecord ");
+    builder.append(this.layout.name());
+    for (final var field : this.layout.fields()) {
+      builder.append(' ');
+      builder.append(field.name());
+      builder.append('=');
+      if (field.kind().isFloatingPoint()) {
+        builder.append(this.getFloat(field.index()));
+      } else {
+        builder.append(this.getInteger(field.index()));
+      }
+    }
+    builder.append(']');
+    return builder.toString();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.layout;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+/**
+ * <p>The template for compiled layouts.</p>
+ *
+ * <p>This class is never loaded directly. Instead, its bytecode is defined
+ * as a new hidden class for each compiled layout, with the layout's decoder
+ * and encoder method handles passed in as class data. As the handles are
+ * held in {@code static final} fields of a hidden class, the JIT compiler
+ * treats them as constants and can inline the entire composed handle into
+ * callers.</p>
+ */
+
+final class BSSLayoutTemplate implements BSSLayoutTransferType
+{
+  private static final MethodHandle DECODER;
+  private static final MethodHandle ENCODER;
+
+  static {
+    try {
+      final List<?> handles =
+        MethodHandles.classData(MethodHandles.lookup(), "_", List.class);
+      DECODER = (MethodHandle) handles.get(0);
+      ENCODER = (MethodHandle) handles.get(1);
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private BSSLayoutTemplate()
+  {
+
+  }
+
+  @Override
+  public void decode(
+    final byte[] octets,
+    final long[] values)
+  {
+    try {
+      DECODER.invokeExact(octets, values);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void encode(
+    final byte[] octets,
+    final long[] values)
+  {
+    try {
+      ENCODER.invokeExact(octets, values);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
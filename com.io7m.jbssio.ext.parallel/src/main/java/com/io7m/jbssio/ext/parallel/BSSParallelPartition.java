@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.parallel;
+
+/**
+ * A contiguous run of records within a table, assigned to a single worker.
+ *
+ * @param index       The index of the partition, in table order
+ * @param recordFirst The index of the first record in the partition
+ * @param recordCount The number of records in the partition
+ * @param offset      The offset of the partition, relative to the reader
+ * @param size        The size of the partition in octets
+ */
+
+public record BSSParallelPartition(
+  int index,
+  long recordFirst,
+  long recordCount,
+  long offset,
+  long size)
+{
+  /**
+   * A contiguous run of records within a table, assigned to a single worker.
+   *
+   * @param index       The index of the partition, in table order
+   * @param recordFirst The index of the first record in the partition
+   * @param recordCount The number of records in the partition
+   * @param offset      The offset of the partition, relative to the reader
+   * @param size        The size of the partition in octets
+   */
+
+  public BSSParallelPartition
+  {
+    if (index < 0) {
+      throw new IllegalArgumentException(
+        "Partition index must be non-negative.");
+    }
+    if (recordFirst < 0L || recordCount < 0L) {
+      throw new IllegalArgumentException(
+        "Record indices and counts must be non-negative.");
+    }
+    if (offset < 0L || size < 0L) {
+      throw new IllegalArgumentException(
+        "Partition offsets and sizes must be non-negative.");
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.parallel;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+
+import java.io.IOException;
+
+/**
+ * A function that processes a single partition of a table.
+ *
+ * @param <T> The type of results
+ */
+
+@FunctionalInterface
+public interface BSSParallelProcessorType<T>
+{
+  /**
+   * Process a partition. The given reader is bounded to exactly the octets
+   * of the partition, and is positioned at the first record. The reader is
+   * used only by the calling thread for the duration of the call.
+   *
+   * @param reader    The reader for the partition
+   * @param partition The partition
+   *
+   * @return A result
+   *
+   * @throws IOException On errors
+   */
+
+  T process(
+    BSSReaderRandomAccessType reader,
+    BSSParallelPartition partition)
+    throws IOException;
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A description of a table of fixed-size records.
+ *
+ * @param offset      The offset of the first record, relative to the reader
+ * @param recordSize  The size of a single record in octets
+ * @param recordCount The number of records
+ */
+
+public record BSSParallelTable(
+  long offset,
+  long recordSize,
+  long recordCount)
+{
+  /**
+   * A description of a table of fixed-size records.
+   *
+   * @param offset      The offset of the first record, relative to the reader
+   * @param recordSize  The size of a single record in octets
+   * @param recordCount The number of records
+   */
+
+  public BSSParallelTable
+  {
+    if (offset < 0L) {
+      throw new IllegalArgumentException(
+        "Table offset must be non-negative.");
+    }
+    if (recordSize <= 0L) {
+      throw new IllegalArgumentException(
+        "Record size must be positive.");
+    }
+    if (recordCount < 0L) {
+      throw new IllegalArgumentException(
+        "Record count must be non-negative.");
+    }
+    Math.multiplyExact(recordSize, recordCount);
+  }
+
+  /**
+   * @return The total size of the table in octets
+   */
+
+  public long size()
+  {
+    return this.recordSize * this.recordCount;
+  }
+
+  /**
+   * Split the table into at most {@code partitions} disjoint partitions.
+   * Partitions always begin and end on record boundaries, and the sizes of
+   * any two partitions differ by at most one record. Empty partitions are
+   * never produced, so fewer than {@code partitions} partitions are returned
+   * if the table has fewer records than that.
+   *
+   * @param partitions The maximum number of partitions
+   *
+   * @return The partitions, in table order
+   */
+
+  public List<BSSParallelPartition> partition(
+    final int partitions)
+  {
+    if (partitions <= 0) {
+      throw new IllegalArgumentException(
+        "Partition count must be positive.");
+    }
+
+    final var count =
+      (int) Math.min(partitions, this.recordCount);
+    if (count == 0) {
+      return List.of();
+    }
+
+    final var results =
+      new ArrayList<BSSParallelPartition>(count);
+
+    final var base = this.recordCount / count;
+    final var extra = this.recordCount % count;
+
+    var recordFirst = 0L;
+    for (int index = 0; index < count; ++index) {
+      final var records = index < extra ? base + 1L : base;
+      results.add(new BSSParallelPartition(
+        index,
+        recordFirst,
+        records,
+        this.offset + (recordFirst * this.recordSize),
+        records * this.recordSize
+      ));
+      recordFirst += records;
+    }
+    return List.copyOf(results);
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.ext.parallel;
+
+import com.io7m.jbssio.api.BSSCloseableType;
+import com.io7m.jbssio.api.BSSFallibleType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Functions to process tables of fixed-size records in parallel.
+ *
+ * Each partition of a table is accessed through its own bounded sub-reader
+ * or sub-writer. These have independent cursors and do not share mutable
+ * buffers, and so can be handed to different threads. Executors such as a
+ * {@link java.util.concurrent.ForkJoinPool} or
+ * {@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()}
+ * are both suitable.
+ */
+
+public final class BSSParallelTables
+{
+  private BSSParallelTables()
+  {
+
+  }
+
+  /**
+   * Create one bounded sub-reader per partition of the given table. The
+   * sub-readers are created on the calling thread.
+   *
+   * @param reader     The reader containing the table
+   * @param table      The table
+   * @param partitions The maximum number of partitions
+   *
+   * @return The sub-readers, in table order
+   *
+   * @throws IOException On errors
+   * @see BSSParallelTable#partition(int)
+   */
+
+  public static List<BSSReaderRandomAccessType> createSubReaders(
+    final BSSReaderRandomAccessType reader,
+    final BSSParallelTable table,
+    final int partitions)
+    throws IOException
+  {
+    Objects.requireNonNull(reader, "reader");
+    Objects.requireNonNull(table, "table");
+
+    final var parts = table.partition(partitions);
+    final var readers = new ArrayList<BSSReaderRandomAccessType>(parts.size());
+    for (final var part : parts) {
+      readers.add(createSubReader(reader, part));
+    }
+    return List.copyOf(readers);
+  }
+
+  /**
+   * Split the given table into at most {@code partitions} partitions, and
+   * process each partition on the given executor. The results are returned
+   * in table order regardless of the order in which the partitions complete.
+   * If processing any partition fails, the remaining partitions are
+   * cancelled and the first failure (in table order) is raised.
+   *
+   * @param executor   The executor
+   * @param reader     The reader containing the table
+   * @param table      The table
+   * @param partitions The maximum number of partitions
+   * @param processor  The partition processor
+   * @param <T>        The type of results
+   *
+   * @return The results of each partition, in table order
+   *
+   * @throws IOException On errors
+   */
+
+  public static <T> List<T> process(
+    final ExecutorService executor,
+    final BSSReaderRandomAccessType reader,
+    final BSSParallelTable table,
+    final int partitions,
+    final BSSParallelProcessorType<T> processor)
+    throws IOException
+  {
+    Objects.requireNonNull(executor, "executor");
+    Objects.requireNonNull(reader, "reader");
+    Objects.requireNonNull(table, "table");
+    Objects.requireNonNull(processor, "processor");
+
+    final var parts = table.partition(partitions);
+    final var targets = new ArrayList<BSSReaderRandomAccessType>(parts.size());
+    for (final var part : parts) {
+      targets.add(createSubReader(reader, part));
+    }
+    return run(executor, reader, parts, targets, processor::process);
+  }
+
+  /**
+   * Create one bounded sub-writer per partition of the given table. The
+   * sub-writers are created on the calling thread.
+   *
+   * @param writer     The writer containing the table
+   * @param table      The table
+   * @param partitions The maximum number of partitions
+   *
+   * @return The sub-writers, in table order
+   *
+   * @throws IOException On errors
+   * @see BSSParallelTable#partition(int)
+   */
+
+  public static List<BSSWriterRandomAccessType> createSubWriters(
+    final BSSWriterRandomAccessType writer,
+    final BSSParallelTable table,
+    final int partitions)
+    throws IOException
+  {
+    Objects.requireNonNull(writer, "writer");
+    Objects.requireNonNull(table, "table");
+
+    final var parts = table.partition(partitions);
+    final var writers = new ArrayList<BSSWriterRandomAccessType>(parts.size());
+    for (final var part : parts) {
+      writers.add(createSubWriter(writer, part));
+    }
+    return List.copyOf(writers);
+  }
+
+  /**
+   * Split the given table into at most {@code partitions} partitions, and
+   * write each partition on the given executor. The results are returned
+   * in table order regardless of the order in which the partitions complete.
+   * If writing any partition fails, the remaining partitions are
+   * cancelled and the first failure (in table order) is raised.
+   *
+   * @param executor   The executor
+   * @param writer     The writer containing the table
+   * @param table      The table
+   * @param partitions The maximum number of partitions
+   * @param producer   The partition producer
+   * @param <T>        The type of results
+   *
+   * @return The results of each partition, in table order
+   *
+   * @throws IOException On errors
+   */
+
+  public static <T> List<T> write(
+    final ExecutorService executor,
+    final BSSWriterRandomAccessType writer,
+    final BSSParallelTable table,
+    final int partitions,
+    final BSSParallelWriterType<T> producer)
+    throws IOException
+  {
+    Objects.requireNonNull(executor, "executor");
+    Objects.requireNonNull(writer, "writer");
+    Objects.requireNonNull(table, "table");
+    Objects.requireNonNull(producer, "producer");
+
+    final var parts = table.partition(partitions);
+    final var targets = new ArrayList<BSSWriterRandomAccessType>(parts.size());
+    for (final var part : parts) {
+      targets.add(createSubWriter(writer, part));
+    }
+    return run(executor, writer, parts, targets, producer::write);
+  }
+
+  private interface TaskType<S, T>
+  {
+    T execute(
+      S target,
+      BSSParallelPartition partition)
+      throws IOException;
+  }
+
+  private static <S extends BSSCloseableType, T> List<T> run(
+    final ExecutorService executor,
+    final BSSFallibleType owner,
+    final List<BSSParallelPartition> parts,
+    final List<S> targets,
+    final TaskType<S, T> task)
+    throws IOException
+  {
+    final var futures = new ArrayList<Future<T>>(parts.size());
+    try {
+      for (int index = 0; index < parts.size(); ++index) {
+        final var part = parts.get(index);
+        final var target = targets.get(index);
+        futures.add(executor.submit(() -> {
+          try (target) {
+            return task.execute(target, part);
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+      }
+      return collect(owner, futures);
+    } finally {
+      for (final var future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private static <T> List<T> collect(
+    final BSSFallibleType owner,
+    final List<Future<T>> futures)
+    throws IOException
+  {
+    final var results = new ArrayList<T>(futures.size());
+    for (int index = 0; index < futures.size(); ++index) {
+      try {
+        results.add(futures.get(index).get());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        final var ex = new InterruptedIOException(e.getMessage());
+        ex.initCause(e);
+        throw ex;
+      } catch (final ExecutionException e) {
+        final var cause = unwrap(e.getCause());
+        if (cause instanceof final IOException io) {
+          throw io;
+        }
+        if (cause instanceof final RuntimeException re) {
+          throw re;
+        }
+        if (cause instanceof final Error er) {
+          throw er;
+        }
+        throw owner.createException(
+          "Partition processing failed.",
+          Map.of("Partition", Integer.toString(index)),
+          (message) -> new IOException(message, cause)
+        );
+      }
+    }
+    return results;
+  }
+
+  /*
+   * Some executors (such as the fork/join pool) wrap exceptions raised by
+   * tasks in further exceptions of their own, so the original exception is
+   * recovered by walking the chain of causes.
+   */
+
+  private static Throwable unwrap(
+    final Throwable e)
+  {
+    var current = e;
+    while (current != null) {
+      if (current instanceof final UncheckedIOException io) {
+        return io.getCause();
+      }
+      current = current.getCause();
+    }
+    return e;
+  }
+
+  private static BSSReaderRandomAccessType createSubReader(
+    final BSSReaderRandomAccessType reader,
+    final BSSParallelPartition part)
+    throws IOException
+  {
+    return reader.createSubReaderAtBounded(
+      "partition" + part.index(),
+      part.offset(),
+      part.size()
+    );
+  }
+
+  private static BSSWriterRandomAccessType createSubWriter(
+    final BSSWriterRandomAccessType writer,
+    final BSSParallelPartition part)
+    throws IOException
+  {
+    return writer.createSubWriterAtBounded(
+      "partition" + part.index(),
+      part.offset(),
+      part.size()
+    );
+  }
+}
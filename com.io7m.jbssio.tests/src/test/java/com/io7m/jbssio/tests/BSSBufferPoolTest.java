@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.vanilla.BSSBufferPools;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for buffer pools.
+ */
+
+public final class BSSBufferPoolTest
+{
+  /**
+   * Buffers are allocated in power-of-two size classes and reused.
+   */
+
+  @Test
+  public void testAcquireRelease()
+  {
+    final var pool = BSSBufferPools.create(1024L, 256);
+
+    final var b0 = pool.acquire(5);
+    assertTrue(b0.isDirect());
+    assertEquals(8, b0.capacity());
+    assertEquals(0, b0.position());
+    assertEquals(5, b0.limit());
+    assertEquals(BIG_ENDIAN, b0.order());
+
+    final var b1 = pool.acquire(100);
+    assertEquals(128, b1.capacity());
+
+    pool.release(b0);
+    pool.release(b1);
+    assertEquals(136L, pool.statistics().octetsRetained());
+
+    final var b2 = pool.acquire(8);
+    assertSame(b0, b2);
+    assertEquals(8, b2.limit());
+    final var b3 = pool.acquire(65);
+    assertSame(b1, b3);
+    assertEquals(65, b3.limit());
+
+    final var stats = pool.statistics();
+    assertEquals(4L, stats.acquisitions());
+    assertEquals(2L, stats.allocations());
+    assertEquals(2L, stats.releases());
+    assertEquals(0L, stats.discards());
+    assertEquals(0L, stats.octetsRetained());
+  }
+
+  /**
+   * Oversized, foreign, and over-budget buffers are not retained.
+   */
+
+  @Test
+  public void testDiscards()
+  {
+    final var pool = BSSBufferPools.create(64L, 64);
+
+    final var big = pool.acquire(1000);
+    assertEquals(1000, big.capacity());
+    pool.release(big);
+
+    pool.release(ByteBuffer.allocate(16));
+
+    final var b0 = pool.acquire(64);
+    final var b1 = pool.acquire(64);
+    pool.release(b0);
+    pool.release(b1);
+
+    final var stats = pool.statistics();
+    assertEquals(3L, stats.discards());
+    assertEquals(64L, stats.octetsRetained());
+    assertNotSame(b0, pool.acquire(1));
+  }
+
+  /**
+   * Invalid pools are rejected.
+   */
+
+  @Test
+  public void testInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSBufferPools.create(-1L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSBufferPools.create(100L, 100);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSBufferPools.create(100L, 4);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSBufferPools.create(100L).acquire(-1);
+    });
+  }
+
+  /**
+   * Pooled channel readers and writers return their buffers when closed.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testChannelReadersWriters()
+    throws IOException
+  {
+    final var pool = BSSBufferPools.create(1024L);
+    final var path = Files.createTempFile("jbssio-pool-", ".dat");
+
+    try {
+      final var output = FileChannel.open(path, StandardOpenOption.WRITE);
+      try (var writer = new BSSWriters(pool)
+        .createWriterFromChannel(URI.create("urn:fake"), output, "w")) {
+        for (int index = 0; index < 4; ++index) {
+          try (var sub = writer.createSubWriterAtBounded(
+            "s", index * 8L, 8L)) {
+            sub.writeU64BE(index);
+          }
+        }
+        writer.seekTo(32L);
+        writer.writeU32LE(0x10203040L);
+      }
+
+      final var afterWrites = pool.statistics();
+      assertEquals(5L, afterWrites.acquisitions());
+      assertEquals(1L, afterWrites.allocations());
+      assertEquals(5L, afterWrites.releases());
+      assertEquals(8L, afterWrites.octetsRetained());
+
+      final var input = FileChannel.open(path, StandardOpenOption.READ);
+      try (var reader = new BSSReaders(pool)
+        .createReaderFromChannel(URI.create("urn:fake"), input, "r")) {
+        for (int index = 0; index < 4; ++index) {
+          try (var sub = reader.createSubReaderAtBounded(
+            "s", index * 8L, 8L)) {
+            assertEquals(index, sub.readU64BE());
+          }
+        }
+        reader.seekTo(32L);
+        assertEquals(0x10203040L, reader.readU32LE());
+      }
+    } finally {
+      Files.deleteIfExists(path);
+    }
+
+    final var stats = pool.statistics();
+    assertEquals(10L, stats.acquisitions());
+    assertEquals(1L, stats.allocations());
+    assertEquals(10L, stats.releases());
+    assertEquals(0L, stats.discards());
+  }
+
+  /**
+   * Sub-readers return their buffers even if their parent is closed first.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testReleaseAfterParentClosed()
+    throws IOException
+  {
+    final var pool = BSSBufferPools.create(1024L);
+    final var path = Files.createTempFile("jbssio-pool-", ".dat");
+    Files.write(path, new byte[16]);
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final var reader = new BSSReaders(pool)
+        .createReaderFromChannel(URI.create("urn:fake"), channel, "r");
+      final var sub = reader.createSubReaderAtBounded("s", 0L, 8L);
+      sub.readU32BE();
+      reader.close();
+      sub.close();
+    } finally {
+      Files.deleteIfExists(path);
+    }
+
+    assertEquals(1L, pool.statistics().releases());
+    assertEquals(8L, pool.statistics().octetsRetained());
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReaderBytesType;
+import com.io7m.jbssio.api.BSSWriterBytesType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class BSSBytesDefaultsTest
+{
+  private static byte[] data(
+    final int size)
+  {
+    final var bytes = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      bytes[index] = (byte) index;
+    }
+    return bytes;
+  }
+
+  /**
+   * The default buffer writes copy every remaining byte, in chunks.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWriterDefaults()
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    final var writer = new BSSWriterBytesType()
+    {
+      @Override
+      public void writeBytes(
+        final String name,
+        final byte[] buffer)
+      {
+        output.writeBytes(buffer);
+      }
+
+      @Override
+      public void writeBytes(
+        final String name,
+        final byte[] buffer,
+        final int offset,
+        final int length)
+      {
+        output.write(buffer, offset, length);
+      }
+
+      @Override
+      public void writeBytes(
+        final byte[] buffer)
+      {
+        output.writeBytes(buffer);
+      }
+
+      @Override
+      public void writeBytes(
+        final byte[] buffer,
+        final int offset,
+        final int length)
+      {
+        output.write(buffer, offset, length);
+      }
+    };
+
+    final var bytes = data(20_000);
+    final var direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    writer.writeBytes(direct);
+    assertEquals(direct.limit(), direct.position());
+
+    writer.writeBytes("x", ByteBuffer.wrap(bytes, 10, 5));
+    final var expected = new byte[20_005];
+    System.arraycopy(bytes, 0, expected, 0, 20_000);
+    System.arraycopy(bytes, 10, expected, 20_000, 5);
+    assertArrayEquals(expected, output.toByteArray());
+  }
+
+  /**
+   * The default buffer reads fill the buffer in chunks, and stop at a short
+   * read.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderDefaults()
+    throws Exception
+  {
+    final var bytes = data(20_000);
+    final var source = ByteBuffer.wrap(bytes);
+    final var reader = new BSSReaderBytesType()
+    {
+      @Override
+      public int readBytes(
+        final byte[] buffer,
+        final int offset,
+        final int length)
+      {
+        final var count = Math.min(length, source.remaining());
+        source.get(buffer, offset, count);
+        return count;
+      }
+
+      @Override
+      public int readBytes(
+        final String name,
+        final byte[] buffer,
+        final int offset,
+        final int length)
+      {
+        return this.readBytes(buffer, offset, length);
+      }
+    };
+
+    final var target = ByteBuffer.allocateDirect(19_000);
+    assertEquals(19_000, reader.readBytes(target));
+    assertEquals(19_000, target.position());
+
+    final var rest = ByteBuffer.allocate(2000);
+    assertEquals(1000, reader.readBytes("x", rest));
+    assertEquals(1000, rest.position());
+    assertEquals((byte) 19_999, rest.get(999));
+  }
+}
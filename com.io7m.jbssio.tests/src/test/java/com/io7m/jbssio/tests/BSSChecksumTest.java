@@ -0,0 +1,348 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.ext.checksum.BSSChecksumTap;
+import com.io7m.jbssio.ext.checksum.BSSTapRegion;
+import com.io7m.jbssio.ext.checksum.BSSTaps;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSChecksumTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+
+  private BSSReaders readers;
+  private BSSWriters writers;
+  private byte[] data;
+
+  private static long crc32c(
+    final byte[] bytes,
+    final int offset,
+    final int length)
+  {
+    final var crc = new CRC32C();
+    crc.update(bytes, offset, length);
+    return crc.getValue();
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.readers = new BSSReaders();
+    this.writers = new BSSWriters();
+    this.data = new byte[100];
+    new Random(0x5eedL).nextBytes(this.data);
+  }
+
+  /**
+   * Reading values of every kind within a region checksums exactly the bytes
+   * of the region, skipping outside the region does not read, and bytes read
+   * again through a sub reader are not checksummed twice.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderRegion()
+    throws Exception
+  {
+    final var tap =
+      BSSChecksumTap.create(new CRC32C(), BSSTapRegion.of(10L, 50L));
+
+    try (var reader = BSSTaps.readerRandomAccess(
+      this.readers.createReaderFromByteBuffer(
+        URI_FAKE, ByteBuffer.wrap(this.data), "a"), tap)) {
+      reader.readU8();
+      reader.skip(9L);
+      assertEquals(0L, tap.octets());
+
+      reader.readU32BE();
+      reader.readF32LE();
+      reader.readD64BE();
+      reader.readF16BE("x");
+      reader.readS16LE();
+      reader.readBytes(new byte[10]);
+      assertEquals(30L, tap.octets());
+
+      try (var sub = reader.createSubReaderAtBounded("b", 0L, 8L)) {
+        assertEquals(reader, sub.parentReader().orElseThrow());
+        sub.readU64LE();
+      }
+      assertEquals(38L, tap.octets());
+
+      reader.skip(20L);
+      assertTrue(tap.isComplete());
+      reader.readU8();
+    }
+
+    assertEquals(50L, tap.octets());
+    assertEquals(crc32c(this.data, 10, 50), tap.value());
+  }
+
+  /**
+   * Floating point values are observed as their exact bytes.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderFloatBits()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocate(14);
+    buffer.putInt(0, 0x7fc01234);
+    buffer.putLong(4, 0x7ff8000000abcdefL);
+    buffer.putChar(12, (char) 0x7e01);
+
+    final var tap =
+      BSSChecksumTap.create(new CRC32C(), BSSTapRegion.unbounded(0L));
+
+    try (var reader = BSSTaps.readerRandomAccess(
+      this.readers.createReaderFromByteBuffer(URI_FAKE, buffer, "a"), tap)) {
+      reader.readF32BE();
+      reader.readD64BE();
+      reader.readF16BE();
+    }
+
+    assertEquals(crc32c(buffer.array(), 0, 14), tap.value());
+  }
+
+  /**
+   * Sequential readers are tapped, including sub readers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderSequential()
+    throws Exception
+  {
+    final var tap =
+      BSSChecksumTap.create(new Adler32(), BSSTapRegion.unbounded(0L));
+
+    try (var reader = BSSTaps.readerSequential(
+      this.readers.createReaderFromStream(
+        URI_FAKE, new ByteArrayInputStream(this.data), "a"), tap)) {
+      reader.readS32LE();
+      try (var sub = reader.createSubReaderBounded("b", 16L)) {
+        assertEquals(reader, sub.parentReader().orElseThrow());
+        sub.readD64LE();
+        sub.readU64BE("y");
+      }
+      reader.readBytes(ByteBuffer.allocate(20));
+    }
+
+    final var expected = new Adler32();
+    expected.update(this.data, 0, 40);
+    assertEquals(40L, tap.octets());
+    assertEquals(expected.getValue(), tap.value());
+  }
+
+  /**
+   * Bytes read into direct buffers are observed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderDirectBuffer()
+    throws Exception
+  {
+    final var tap =
+      BSSChecksumTap.create(new CRC32C(), BSSTapRegion.of(4L, 90L));
+
+    try (var reader = BSSTaps.readerRandomAccess(
+      this.readers.createReaderFromByteBuffer(
+        URI_FAKE, ByteBuffer.wrap(this.data), "a"), tap)) {
+      final var target = ByteBuffer.allocateDirect(100);
+      target.position(3);
+      reader.readBytes(target);
+      assertEquals(100, target.position());
+    }
+
+    assertTrue(tap.isComplete());
+    assertEquals(crc32c(this.data, 4, 90), tap.value());
+  }
+
+  /**
+   * Separate regions of a source can be checksummed separately by tapping
+   * sub readers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderPerRegion()
+    throws Exception
+  {
+    try (var reader = this.readers.createReaderFromByteBuffer(
+      URI_FAKE, ByteBuffer.wrap(this.data), "a")) {
+      final var header = reader.createSubReaderAtBounded("h", 0L, 16L);
+      final var body = reader.createSubReaderAtBounded("b", 16L, 84L);
+      final var headerTap =
+        BSSChecksumTap.create(new CRC32C(), BSSTapRegion.remainingOf(header));
+      final var bodyTap =
+        BSSChecksumTap.create(new CRC32C(), BSSTapRegion.remainingOf(body));
+
+      readAll(BSSTaps.readerRandomAccess(header, headerTap));
+      readAll(BSSTaps.readerRandomAccess(body, bodyTap));
+
+      assertEquals(crc32c(this.data, 0, 16), headerTap.value());
+      assertEquals(crc32c(this.data, 16, 84), bodyTap.value());
+    }
+  }
+
+  private static void readAll(
+    final BSSReaderRandomAccessType reader)
+    throws IOException
+  {
+    try (reader) {
+      reader.skip(reader.bytesRemaining().orElseThrow());
+    }
+  }
+
+  /**
+   * Writing values of every kind checksums exactly the bytes written.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWriterRandomAccess()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocate(100);
+    final var tap =
+      BSSChecksumTap.create(new CRC32C(), BSSTapRegion.unbounded(0L));
+
+    final long end;
+    try (var writer = BSSTaps.writerRandomAccess(
+      this.writers.createWriterFromByteBuffer(URI_FAKE, buffer, "a"), tap)) {
+      writer.writeU8(0x23);
+      writer.writeS16BE(-2);
+      writer.writeU32LE(0xfeedbeefL);
+      writer.writeS64BE("x", -3L);
+      writer.writeF16LE(Double.NaN);
+      writer.writeF32BE(1.5);
+      writer.writeF64LE("y", Math.PI);
+      writer.writeBytes(this.data, 0, 10);
+
+      try (var sub = writer.createSubWriterAtBounded("b", 0L, 4L)) {
+        sub.writeU32BE(0x10203040L);
+      }
+      writer.seekTo(writer.offsetCurrentRelative() + 4L);
+      writer.writeBytes(ByteBuffer.wrap(this.data, 10, 6));
+      end = writer.offsetCurrentAbsolute();
+    }
+
+    assertEquals(end, tap.octets());
+    assertEquals(crc32c(buffer.array(), 0, (int) end), tap.value());
+  }
+
+  /**
+   * Padding sequential writers is observed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWriterSequentialPad()
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    final var tap =
+      BSSChecksumTap.create(new Adler32(), BSSTapRegion.unbounded(0L));
+
+    try (var writer = BSSTaps.writerSequential(
+      this.writers.createWriterFromStream(URI_FAKE, output, "a"), tap)) {
+      writer.writeU8(1);
+      assertEquals(31L, writer.padTo(32L, (byte) 0x7f));
+      writer.writeBytes(this.data);
+    }
+
+    final var bytes = output.toByteArray();
+    final var expected = new Adler32();
+    expected.update(bytes);
+    assertEquals(132, bytes.length);
+    assertEquals(expected.getValue(), tap.value());
+  }
+
+  /**
+   * Skipping over bytes of the region that have yet to be observed is an
+   * error.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWriterNonSequential()
+    throws Exception
+  {
+    final var tap =
+      BSSChecksumTap.create(new CRC32C(), BSSTapRegion.of(0L, 16L));
+
+    try (var writer = BSSTaps.writerRandomAccess(
+      this.writers.createWriterFromByteBuffer(
+        URI_FAKE, ByteBuffer.allocate(32), "a"), tap)) {
+      writer.writeU8(1);
+      writer.skip(2L);
+
+      final var ex = assertThrows(IOException.class, () -> writer.writeU8(2));
+      assertTrue(ex.getMessage().contains("Non-sequential"));
+      assertEquals(1L, tap.octets());
+      assertFalse(tap.isComplete());
+    }
+  }
+
+  /**
+   * Regions are validated.
+   */
+
+  @Test
+  public void testRegionInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSTapRegion.of(-1L, 1L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSTapRegion.of(0L, -1L);
+    });
+    assertEquals(Long.MAX_VALUE, BSSTapRegion.unbounded(3L).end());
+    assertEquals(
+      OptionalLong.of(7L), BSSTapRegion.of(3L, 7L).size());
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.ext.codec.BSSCodec;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.F16LE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.F32BE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.F64LE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.S16LE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.S32BE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.S64LE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.S8;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.U16BE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.U32LE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.U64BE;
+import com.io7m.jbssio.ext.codec.BSSCodecFields.U8;
+
+/**
+ * A record used to test generated codecs.
+ *
+ * @param magic  The magic number
+ * @param scale  The scale
+ * @param u8     An unsigned byte
+ * @param s8     A signed byte
+ * @param u16    An unsigned short
+ * @param s16    A signed short
+ * @param s32    A signed int
+ * @param u64    An unsigned long
+ * @param s64    A signed long
+ * @param half   A half-precision float
+ * @param weight A double
+ */
+
+@BSSCodec
+public record BSSCodecHeader(
+  @U32LE long magic,
+  @F32BE float scale,
+  @U8 int u8,
+  @S8 byte s8,
+  @U16BE int u16,
+  @S16LE short s16,
+  @S32BE long s32,
+  @U64BE long u64,
+  @S64LE long s64,
+  @F16LE double half,
+  @F64LE double weight)
+{
+
+}
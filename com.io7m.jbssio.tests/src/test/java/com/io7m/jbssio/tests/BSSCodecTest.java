@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for generated codecs.
+ */
+
+public final class BSSCodecTest
+{
+  private static final BSSCodecHeader HEADER =
+    new BSSCodecHeader(
+      0xfedcba98L,
+      3.25f,
+      0xf0,
+      (byte) -2,
+      0xfedc,
+      (short) -1000,
+      -100000L,
+      0xfedcba9876543210L,
+      -10000000000L,
+      1.0,
+      -1.0e100
+    );
+
+  private ByteBuffer buffer;
+  private BSSReaderRandomAccessType reader;
+  private BSSWriterRandomAccessType writer;
+
+  @BeforeEach
+  public void setup()
+    throws IOException
+  {
+    this.buffer =
+      ByteBuffer.allocate(256);
+
+    this.reader =
+      new BSSReaders()
+        .createReaderFromByteBuffer(
+          URI.create("urn:buffer"),
+          this.buffer,
+          "root"
+        );
+
+    this.writer =
+      new BSSWriters()
+        .createWriterFromByteBuffer(
+          URI.create("urn:buffer"),
+          this.buffer,
+          "root"
+        );
+  }
+
+  @Test
+  public void testSize()
+  {
+    assertEquals(44, BSSCodecHeaderCodec.SIZE);
+    assertEquals(44, BSSCodecHeaderCodec.INSTANCE.size());
+    assertEquals("BSSCodecHeader", BSSCodecHeaderCodec.INSTANCE.name());
+  }
+
+  @Test
+  public void testWriteMatchesReader()
+    throws IOException
+  {
+    BSSCodecHeaderCodec.INSTANCE.write(this.writer, HEADER);
+    assertEquals(44L, this.writer.offsetCurrentRelative());
+
+    assertEquals(0xfedcba98L, this.reader.readU32LE());
+    assertEquals(3.25f, this.reader.readF32BE());
+    assertEquals(0xf0, this.reader.readU8());
+    assertEquals(-2, this.reader.readS8());
+    assertEquals(0xfedc, this.reader.readU16BE());
+    assertEquals(-1000, this.reader.readS16LE());
+    assertEquals(-100000L, this.reader.readS32BE());
+    assertEquals(0xfedcba9876543210L, this.reader.readU64BE());
+    assertEquals(-10000000000L, this.reader.readS64LE());
+    assertEquals(1.0, this.reader.readF16LE(), 0.001);
+    assertEquals(-1.0e100, this.reader.readD64LE());
+  }
+
+  @Test
+  public void testRoundTrip()
+    throws IOException
+  {
+    BSSCodecHeaderCodec.INSTANCE.write(this.writer, HEADER);
+
+    final var result = BSSCodecHeaderCodec.INSTANCE.read(this.reader);
+    assertEquals(44L, this.reader.offsetCurrentRelative());
+    assertEquals(HEADER.magic(), result.magic());
+    assertEquals(HEADER.scale(), result.scale());
+    assertEquals(HEADER.u8(), result.u8());
+    assertEquals(HEADER.s8(), result.s8());
+    assertEquals(HEADER.u16(), result.u16());
+    assertEquals(HEADER.s16(), result.s16());
+    assertEquals(HEADER.s32(), result.s32());
+    assertEquals(HEADER.u64(), result.u64());
+    assertEquals(HEADER.s64(), result.s64());
+    assertEquals(HEADER.half(), result.half(), 0.001);
+    assertEquals(HEADER.weight(), result.weight());
+  }
+
+  @Test
+  public void testArrayRoundTrip()
+    throws IOException
+  {
+    final var values = List.of(HEADER, HEADER, HEADER);
+    BSSCodecHeaderCodec.INSTANCE.writeArray(this.writer, values);
+    assertEquals(132L, this.writer.offsetCurrentRelative());
+
+    final var results =
+      BSSCodecHeaderCodec.INSTANCE.readArray(this.reader, 3);
+    assertEquals(3, results.size());
+    assertEquals(132L, this.reader.offsetCurrentRelative());
+    for (final var result : results) {
+      assertEquals(HEADER.magic(), result.magic());
+      assertEquals(HEADER.weight(), result.weight());
+    }
+  }
+
+  @Test
+  public void testOutOfBounds()
+    throws IOException
+  {
+    try (var sub = this.reader.createSubReaderAtBounded("sub", 0L, 43L)) {
+      assertThrows(IOException.class, () -> {
+        BSSCodecHeaderCodec.INSTANCE.read(sub);
+      });
+      assertEquals(0L, sub.offsetCurrentRelative());
+    }
+  }
+
+  @Test
+  public void testShortReadSequential()
+    throws IOException
+  {
+    try (var sequential =
+           new BSSReaders().createReaderFromStream(
+             URI.create("urn:stream"),
+             new ByteArrayInputStream(new byte[50]),
+             "root")) {
+      BSSCodecHeaderCodec.INSTANCE.read(sequential);
+      assertThrows(EOFException.class, () -> {
+        BSSCodecHeaderCodec.INSTANCE.read(sequential);
+      });
+    }
+  }
+
+  @Test
+  public void testDecodeOffsetChecked()
+  {
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      BSSCodecHeaderCodec.INSTANCE.decode(new byte[44], 1);
+    });
+  }
+}
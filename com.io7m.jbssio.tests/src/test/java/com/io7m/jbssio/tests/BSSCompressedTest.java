@@ -0,0 +1,407 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSCompression;
+import com.io7m.jbssio.api.BSSCompressionFormat;
+import com.io7m.jbssio.vanilla.BSSBufferPools;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BSSCompressedTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+
+  private BSSReaders readers;
+  private BSSWriters writers;
+  private byte[] data;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.readers = new BSSReaders();
+    this.writers = new BSSWriters();
+
+    /*
+     * Compressible, but not trivially so.
+     */
+
+    final var random = new Random(0x5eedL);
+    this.data = new byte[200_000];
+    for (int index = 0; index < this.data.length; ++index) {
+      this.data[index] = (byte) ('a' + random.nextInt(8));
+    }
+  }
+
+  private static byte[] gzip(
+    final byte[] bytes)
+    throws IOException
+  {
+    final var output = new ByteArrayOutputStream();
+    try (var stream = new GZIPOutputStream(output)) {
+      stream.write(bytes);
+    }
+    return output.toByteArray();
+  }
+
+  private byte[] readAll(
+    final byte[] compressed,
+    final BSSCompression compression)
+    throws IOException
+  {
+    try (var reader = this.readers.createReaderFromStreamCompressed(
+      URI_FAKE, new ByteArrayInputStream(compressed), "a", compression)) {
+      final var result = new ByteArrayOutputStream();
+      final var buffer = new byte[10_000];
+      while (true) {
+        final int count;
+        try {
+          count = reader.readBytes(buffer);
+        } catch (final EOFException e) {
+          return result.toByteArray();
+        }
+        result.write(buffer, 0, count);
+      }
+    }
+  }
+
+  /**
+   * Data written with a GZIP writer can be read by the JDK, and by a GZIP
+   * reader.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipStreamRoundTrip()
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    try (var writer = this.writers.createWriterFromStreamCompressed(
+      URI_FAKE, output, "a", BSSCompression.gzip())) {
+      writer.writeU32BE(0xcafebabeL);
+      writer.writeF64LE(Math.E);
+      writer.writeBytes(this.data);
+    }
+
+    final byte[] jdk;
+    try (var stream =
+           new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+      jdk = stream.readAllBytes();
+    }
+    assertEquals(200_012, jdk.length);
+
+    try (var reader = this.readers.createReaderFromStreamCompressed(
+      URI_FAKE,
+      new ByteArrayInputStream(output.toByteArray()),
+      "a",
+      BSSCompression.gzip())) {
+      assertEquals(0xcafebabeL, reader.readU32BE());
+      assertEquals(Math.E, reader.readD64LE());
+
+      final var bytes = new byte[this.data.length];
+      assertEquals(bytes.length, reader.readBytes(bytes));
+      assertArrayEquals(this.data, bytes);
+      assertThrows(IOException.class, reader::readU8);
+    }
+  }
+
+  /**
+   * GZIP headers with every optional field are parsed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipHeaderFields()
+    throws Exception
+  {
+    final var body = new ByteArrayOutputStream();
+    final var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(this.data);
+    deflater.finish();
+    final var chunk = new byte[4096];
+    while (!deflater.finished()) {
+      body.write(chunk, 0, deflater.deflate(chunk));
+    }
+    deflater.end();
+
+    final var crc = new CRC32();
+    crc.update(this.data);
+
+    final var file = new ByteArrayOutputStream();
+    file.write(new byte[]{
+      (byte) 0x1f, (byte) 0x8b, 8, 0x1e, 0, 0, 0, 0, 0, 3,
+      3, 0, 'x', 'y', 'z',
+      'n', 'a', 'm', 'e', 0,
+      'c', 0,
+      0x12, 0x34,
+    });
+    file.write(body.toByteArray());
+    final var trailer =
+      ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    trailer.putInt((int) crc.getValue());
+    trailer.putInt(this.data.length);
+    file.write(trailer.array());
+
+    assertArrayEquals(
+      this.data, this.readAll(file.toByteArray(), BSSCompression.gzip()));
+  }
+
+  /**
+   * Concatenated GZIP members are read as one stream, including when the
+   * requested compressed buffer is smaller than the headers and trailers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipConcatenatedSmallBuffer()
+    throws Exception
+  {
+    final var file = new ByteArrayOutputStream();
+    file.write(gzip(this.data));
+    file.write(gzip(new byte[0]));
+    file.write(gzip(this.data));
+
+    final var expected = new ByteArrayOutputStream();
+    expected.write(this.data);
+    expected.write(this.data);
+
+    final var result =
+      this.readAll(
+        file.toByteArray(),
+        BSSCompression.gzip().withBufferSize(1));
+    assertArrayEquals(expected.toByteArray(), result);
+  }
+
+  /**
+   * Data following a GZIP member that is not another member, such as
+   * trailing zero padding, ends the stream as it does for GZIPInputStream.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipTrailingPadding()
+    throws Exception
+  {
+    for (final var padding : new int[]{1, 2, 512}) {
+      final var file = new ByteArrayOutputStream();
+      file.write(gzip(this.data));
+      file.write(new byte[padding]);
+      final var bytes = file.toByteArray();
+
+      try (var stream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+        assertArrayEquals(this.data, stream.readAllBytes());
+      }
+
+      assertArrayEquals(
+        this.data, this.readAll(bytes, BSSCompression.gzip()));
+      assertArrayEquals(
+        this.data,
+        this.readAll(bytes, BSSCompression.gzip().withBufferSize(1)));
+    }
+  }
+
+  /**
+   * ZLIB data can be written to and read from file channels.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testZlibChannel()
+    throws Exception
+  {
+    final var path = Files.createTempFile("jbssio-compressed-", ".zlib");
+    final var compression = BSSCompression.zlib().withLevel(9);
+
+    try (var writer = this.writers.createWriterFromWritableChannelCompressed(
+      URI_FAKE,
+      FileChannel.open(path, StandardOpenOption.WRITE),
+      "a",
+      compression)) {
+      writer.writeBytes(this.data);
+      writer.writeS16LE(-2);
+    }
+
+    try (var stream = new InflaterInputStream(Files.newInputStream(path))) {
+      final var bytes = stream.readAllBytes();
+      assertEquals(200_002, bytes.length);
+    }
+
+    try (var reader = this.readers.createReaderFromReadableChannelCompressed(
+      URI_FAKE,
+      FileChannel.open(path, StandardOpenOption.READ),
+      "a",
+      compression)) {
+      final var bytes = ByteBuffer.allocateDirect(this.data.length);
+      assertEquals(this.data.length, reader.readBytes(bytes));
+      assertEquals(ByteBuffer.wrap(this.data), bytes.flip());
+      assertEquals(-2, reader.readS16LE());
+    }
+  }
+
+  /**
+   * Raw DEFLATE data round trips with tiny buffers and pooled buffers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeflatePooled()
+    throws Exception
+  {
+    final var pool = BSSBufferPools.create(1L << 20);
+    final var pooledReaders = new BSSReaders(pool);
+    final var pooledWriters = new BSSWriters(pool);
+
+    for (int round = 0; round < 3; ++round) {
+      final var output = new ByteArrayOutputStream();
+      try (var writer = pooledWriters.createWriterFromWritableChannelCompressed(
+        URI_FAKE,
+        Channels.newChannel(output),
+        "a",
+        BSSCompression.deflate().withBufferSize(1))) {
+        writer.writeBytes(this.data, 0, 1000);
+      }
+
+      try (var reader = pooledReaders.createReaderFromReadableChannelCompressed(
+        URI_FAKE,
+        Channels.newChannel(new ByteArrayInputStream(output.toByteArray())),
+        "a",
+        BSSCompression.deflate().withBufferSize(3))) {
+        final var bytes = new byte[1000];
+        assertEquals(1000, reader.readBytes(bytes));
+        for (int index = 0; index < 1000; ++index) {
+          assertEquals(this.data[index], bytes[index]);
+        }
+      }
+    }
+
+    final var statistics = pool.statistics();
+    assertEquals(statistics.acquisitions(), statistics.releases());
+  }
+
+  /**
+   * Corrupt trailers are detected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipCorruptTrailer()
+    throws Exception
+  {
+    final var file = gzip(this.data);
+    file[file.length - 6] ^= 0x1;
+
+    final var ex = assertThrows(IOException.class, () -> {
+      this.readAll(file, BSSCompression.gzip());
+    });
+    assertEquals("Corrupt GZIP trailer (CRC-32 mismatch).", ex.getMessage());
+  }
+
+  /**
+   * Truncated data is detected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipTruncated()
+    throws Exception
+  {
+    final var file = gzip(this.data);
+    final var truncated = new byte[file.length / 2];
+    System.arraycopy(file, 0, truncated, 0, truncated.length);
+
+    try (var reader = this.readers.createReaderFromStreamCompressed(
+      URI_FAKE,
+      new ByteArrayInputStream(truncated),
+      "a",
+      BSSCompression.gzip())) {
+      final var ex = assertThrows(EOFException.class, () -> {
+        reader.readBytes(new byte[this.data.length]);
+      });
+      assertEquals("Unexpected end of compressed data.", ex.getMessage());
+    }
+  }
+
+  /**
+   * Data that is not GZIP data is rejected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGzipNotGzip()
+    throws Exception
+  {
+    final var ex = assertThrows(IOException.class, () -> {
+      this.readAll(this.data, BSSCompression.gzip());
+    });
+    assertEquals("Not in GZIP format.", ex.getMessage());
+  }
+
+  /**
+   * Compression parameters are validated.
+   */
+
+  @Test
+  public void testCompressionInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSCompression.gzip().withLevel(10);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSCompression.gzip().withLevel(-2);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSCompression.gzip().withBufferSize(0);
+    });
+    assertEquals(
+      BSSCompressionFormat.ZLIB,
+      BSSCompression.zlib().withLevel(0).format());
+  }
+}
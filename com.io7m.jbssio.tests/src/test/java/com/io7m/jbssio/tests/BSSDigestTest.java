@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.ext.checksum.BSSDigestTap;
+import com.io7m.jbssio.ext.checksum.BSSTapRegion;
+import com.io7m.jbssio.ext.checksum.BSSTaps;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSDigestTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+
+  private BSSReaders readers;
+  private BSSWriters writers;
+  private byte[] data;
+
+  private static byte[] sha256(
+    final byte[] bytes,
+    final int offset,
+    final int length)
+    throws Exception
+  {
+    final var digest = MessageDigest.getInstance("SHA-256");
+    digest.update(bytes, offset, length);
+    return digest.digest();
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.readers = new BSSReaders();
+    this.writers = new BSSWriters();
+    this.data = new byte[100_000];
+    new Random(0x5eedL).nextBytes(this.data);
+  }
+
+  /**
+   * A writer that seeks back to fill in a header outside of the region
+   * digests exactly the payload region.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWriterPayloadRegion()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocate(100_016);
+    final var tap =
+      BSSDigestTap.create(
+        MessageDigest.getInstance("SHA-256"),
+        BSSTapRegion.of(16L, 100_000L));
+
+    try (var writer = BSSTaps.writerRandomAccess(
+      this.writers.createWriterFromByteBuffer(URI_FAKE, buffer, "a"), tap)) {
+      writer.seekTo(16L);
+      for (int index = 0; index < 1000; ++index) {
+        writer.writeU32BE(index);
+      }
+      writer.writeBytes(this.data, 4000, 96_000);
+      writer.seekTo(0L);
+      writer.writeU64BE(0x5349474eL);
+      writer.writeU64BE(100_000L);
+    }
+
+    assertTrue(tap.isComplete());
+    assertArrayEquals(sha256(buffer.array(), 16, 100_000), tap.digest());
+  }
+
+  /**
+   * A sequential reader digests everything read through it.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderSequential()
+    throws Exception
+  {
+    final var tap =
+      BSSDigestTap.create(
+        MessageDigest.getInstance("SHA-256"),
+        BSSTapRegion.unbounded(0L));
+
+    try (var reader = BSSTaps.readerSequential(
+      this.readers.createReaderFromStream(
+        URI_FAKE, new ByteArrayInputStream(this.data), "a"), tap)) {
+      reader.readU64LE();
+      reader.readBytes(new byte[50_000]);
+      reader.skip(49_992L);
+    }
+
+    final var expected = sha256(this.data, 0, 100_000);
+    assertEquals(100_000L, tap.octets());
+    assertArrayEquals(expected, tap.digest());
+    assertEquals(HexFormat.of().formatHex(expected), tap.digestHex());
+  }
+
+  /**
+   * Observing bytes after the digest is completed fails.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCompleted()
+    throws Exception
+  {
+    final var tap =
+      BSSDigestTap.create(
+        MessageDigest.getInstance("SHA-256"),
+        BSSTapRegion.unbounded(0L));
+
+    try (var reader = BSSTaps.readerRandomAccess(
+      this.readers.createReaderFromByteBuffer(
+        URI_FAKE, ByteBuffer.wrap(this.data), "a"), tap)) {
+      reader.readBytes(new byte[10_000]);
+
+      final var first = tap.digest();
+      assertArrayEquals(first, tap.digest());
+      assertArrayEquals(sha256(this.data, 0, 10_000), first);
+
+      assertThrows(IllegalStateException.class, () -> {
+        reader.readBytes(new byte[10_000]);
+      });
+    }
+  }
+}
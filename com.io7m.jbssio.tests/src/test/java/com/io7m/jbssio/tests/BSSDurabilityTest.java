@@ -0,0 +1,330 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSDurabilityMode;
+import com.io7m.jbssio.api.BSSDurabilityPolicy;
+import com.io7m.jbssio.api.BSSDurabilityStatistics;
+import com.io7m.jbssio.api.BSSDurabilityType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.OptionalLong;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSDurabilityTest
+{
+  private BSSWriters writers;
+  private Path path;
+
+  @BeforeEach
+  public void setup()
+    throws IOException
+  {
+    this.writers = new BSSWriters();
+    this.path = Files.createTempFile("jbssio-durability-", ".dat");
+  }
+
+  private BSSWriterRandomAccessType writerOf(
+    final BSSDurabilityType durability)
+    throws IOException
+  {
+    return this.writers.createWriterFromChannelDurable(
+      URI.create("urn:fake"),
+      FileChannel.open(this.path, StandardOpenOption.WRITE),
+      "a",
+      OptionalLong.empty(),
+      durability
+    );
+  }
+
+  /**
+   * A policy of none never forces.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNone()
+    throws Exception
+  {
+    final var durability =
+      this.writers.createDurability(BSSDurabilityPolicy.none());
+
+    try (var writer = this.writerOf(durability)) {
+      writer.writeU64BE(0L);
+      writer.flush();
+    }
+
+    final var stats = durability.statistics();
+    assertEquals(0L, stats.commits());
+    assertEquals(0L, stats.forces());
+    assertEquals(0.0, stats.forceNanosMean());
+    assertEquals(0.0, stats.commitsPerForce());
+  }
+
+  /**
+   * A policy of on-close forces once on close.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOnClose()
+    throws Exception
+  {
+    final var durability =
+      this.writers.createDurability(BSSDurabilityPolicy.onClose());
+
+    try (var writer = this.writerOf(durability)) {
+      try (var sub = writer.createSubWriterAt("x", 0L)) {
+        sub.writeU64BE(0x1122334455667788L);
+      }
+      writer.flush();
+      assertEquals(0L, durability.statistics().forces());
+    }
+
+    final var stats = durability.statistics();
+    assertEquals(1L, stats.commits());
+    assertEquals(1L, stats.forces());
+    assertEquals(8L, stats.octetsForced());
+    assertTrue(stats.forceNanosMaximum() >= 0L);
+    assertTrue(stats.forceNanosTotal() >= stats.forceNanosMaximum());
+    assertEquals(8, Files.readAllBytes(this.path).length);
+  }
+
+  /**
+   * A policy of every-octets forces whenever enough data has been written.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEveryOctets()
+    throws Exception
+  {
+    final var durability =
+      this.writers.createDurability(BSSDurabilityPolicy.everyOctets(8L));
+
+    try (var writer = this.writerOf(durability)) {
+      writer.writeU32BE(0L);
+      assertEquals(0L, durability.statistics().forces());
+      writer.writeU32BE(0L);
+      assertEquals(1L, durability.statistics().forces());
+      writer.writeU32BE(0L);
+      writer.writeU32BE(0L);
+      assertEquals(2L, durability.statistics().forces());
+      writer.writeU8(0);
+    }
+
+    final var stats = durability.statistics();
+    assertEquals(3L, stats.commits());
+    assertEquals(3L, stats.forces());
+    assertEquals(17L, stats.octetsForced());
+  }
+
+  /**
+   * A policy of every-interval forces only once the interval has elapsed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEveryInterval()
+    throws Exception
+  {
+    final var durability =
+      this.writers.createDurability(
+        BSSDurabilityPolicy.everyInterval(Duration.ofHours(1L)));
+
+    try (var writer = this.writerOf(durability)) {
+      for (int index = 0; index < 100; ++index) {
+        writer.writeU32BE(index);
+      }
+      assertEquals(0L, durability.statistics().forces());
+    }
+    assertEquals(1L, durability.statistics().forces());
+
+    final var eager =
+      this.writers.createDurability(
+        BSSDurabilityPolicy.everyInterval(Duration.ofNanos(1L)));
+
+    try (var writer = this.writerOf(eager)) {
+      Thread.sleep(1L);
+      writer.writeU32BE(0L);
+      assertEquals(1L, eager.statistics().forces());
+    }
+  }
+
+  /**
+   * Flushing without writing anything new does not force.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCommitElided()
+    throws Exception
+  {
+    final var durability =
+      this.writers.createDurability(BSSDurabilityPolicy.groupCommit());
+
+    try (var writer = this.writerOf(durability)) {
+      writer.writeU32BE(0L);
+      writer.flush();
+      writer.flush();
+      writer.flush();
+    }
+
+    final var stats = durability.statistics();
+    assertEquals(4L, stats.commits());
+    assertEquals(1L, stats.forces());
+    assertEquals(4.0, stats.commitsPerForce());
+  }
+
+  /**
+   * Concurrent flushes share forces.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCommitConcurrent()
+    throws Exception
+  {
+    final var durability =
+      this.writers.createDurability(BSSDurabilityPolicy.groupCommit());
+
+    final var threadCount = 8;
+    final var records = 50;
+    final var barrier = new CyclicBarrier(threadCount);
+    final var failure = new AtomicReference<Throwable>();
+
+    try (var writer = this.writerOf(durability)) {
+      final var threads = new ArrayList<Thread>();
+      for (int thread = 0; thread < threadCount; ++thread) {
+        final var sub = writer.createSubWriterAtBounded(
+          "t", thread * records * 4L, records * 4L);
+        final var value = thread;
+        threads.add(Thread.ofPlatform().start(() -> {
+          try {
+            barrier.await();
+            for (int index = 0; index < records; ++index) {
+              sub.writeU32BE(value);
+              sub.flush();
+            }
+          } catch (final Throwable e) {
+            failure.compareAndSet(null, e);
+          }
+        }));
+      }
+      for (final var thread : threads) {
+        thread.join();
+      }
+      assertNull(failure.get());
+    }
+
+    final var stats = durability.statistics();
+    assertEquals(threadCount * records + 1L, stats.commits());
+    assertTrue(stats.forces() <= stats.commits());
+    assertEquals(threadCount * records * 4L, stats.octetsForced());
+
+    final var data = ByteBuffer.wrap(Files.readAllBytes(this.path));
+    for (int thread = 0; thread < threadCount; ++thread) {
+      for (int index = 0; index < records; ++index) {
+        assertEquals(thread, data.getInt());
+      }
+    }
+  }
+
+  /**
+   * Policies are validated.
+   */
+
+  @Test
+  public void testPolicyInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSDurabilityPolicy.everyOctets(0L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSDurabilityPolicy.everyInterval(Duration.ZERO);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSDurabilityPolicy.everyInterval(Duration.ofSeconds(-1L));
+    });
+    assertEquals(
+      BSSDurabilityMode.GROUP_COMMIT,
+      BSSDurabilityPolicy.groupCommit().mode());
+  }
+
+  /**
+   * Policies from other providers are rejected.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testPolicyForeign()
+    throws IOException
+  {
+    final var foreign = new BSSDurabilityType()
+    {
+      @Override
+      public BSSDurabilityPolicy policy()
+      {
+        return BSSDurabilityPolicy.onClose();
+      }
+
+      @Override
+      public BSSDurabilityStatistics statistics()
+      {
+        return new BSSDurabilityStatistics(0L, 0L, 0L, 0L, 0L);
+      }
+    };
+
+    try (var channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+      assertThrows(IllegalArgumentException.class, () -> {
+        this.writers.createWriterFromChannelDurable(
+          URI.create("urn:fake"),
+          channel,
+          "a",
+          OptionalLong.empty(),
+          foreign
+        );
+      });
+    }
+  }
+}
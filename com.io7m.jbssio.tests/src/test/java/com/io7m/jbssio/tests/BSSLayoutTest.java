@@ -0,0 +1,456 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+import com.io7m.jbssio.ext.layout.BSSLayout;
+import com.io7m.jbssio.ext.layout.BSSLayoutCodec;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.F16;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.F32;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.F64;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.S16;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.S32;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.S64;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.S8;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.U16;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.U32;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.U64;
+import static com.io7m.jbssio.ext.layout.BSSLayoutFieldKind.U8;
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the Layout extension.
+ */
+
+public final class BSSLayoutTest
+{
+  private ByteBuffer buffer;
+  private BSSReaderRandomAccessType reader;
+  private BSSWriterRandomAccessType writer;
+
+  private static BSSLayout allKinds()
+  {
+    return BSSLayout.builder("record")
+      .addField("u8", U8, BIG_ENDIAN)
+      .addField("s8", S8, BIG_ENDIAN)
+      .addField("u16be", U16, BIG_ENDIAN)
+      .addField("s16le", S16, LITTLE_ENDIAN)
+      .addField("u32le", U32, LITTLE_ENDIAN)
+      .addField("s32be", S32, BIG_ENDIAN)
+      .addField("u64be", U64, BIG_ENDIAN)
+      .addField("s64le", S64, LITTLE_ENDIAN)
+      .addField("f16le", F16, LITTLE_ENDIAN)
+      .addField("f32be", F32, BIG_ENDIAN)
+      .addField("f64le", F64, LITTLE_ENDIAN)
+      .build();
+  }
+
+  @BeforeEach
+  public void setup()
+    throws IOException
+  {
+    this.buffer =
+      ByteBuffer.allocate(256);
+
+    this.reader =
+      new BSSReaders()
+        .createReaderFromByteBuffer(
+          URI.create("urn:buffer"),
+          this.buffer,
+          "root"
+        );
+
+    this.writer =
+      new BSSWriters()
+        .createWriterFromByteBuffer(
+          URI.create("urn:buffer"),
+          this.buffer,
+          "root"
+        );
+  }
+
+  @Test
+  public void testDecodeMatchesReader()
+    throws IOException
+  {
+    this.writer.writeU8(0xf0);
+    this.writer.writeS8(-2);
+    this.writer.writeU16BE(0xfedc);
+    this.writer.writeS16LE(-1000);
+    this.writer.writeU32LE(0xfedcba98L);
+    this.writer.writeS32BE(-100000L);
+    this.writer.writeU64BE(0xfedcba9876543210L);
+    this.writer.writeS64LE(-10000000000L);
+    this.writer.writeF16LE(0.5);
+    this.writer.writeF32BE(3.25);
+    this.writer.writeF64LE(-1.0e100);
+
+    final var layout = allKinds();
+    assertEquals(44, layout.size());
+
+    final var codec = BSSLayoutCodec.create(layout);
+    final var record = layout.createRecord();
+    codec.read(this.reader, record);
+
+    assertEquals(44L, this.reader.offsetCurrentRelative());
+    assertEquals(0xf0L, record.getInteger("u8"));
+    assertEquals(-2L, record.getInteger("s8"));
+    assertEquals(0xfedcL, record.getInteger("u16be"));
+    assertEquals(-1000L, record.getInteger("s16le"));
+    assertEquals(0xfedcba98L, record.getInteger("u32le"));
+    assertEquals(-100000L, record.getInteger("s32be"));
+    assertEquals(0xfedcba9876543210L, record.getInteger("u64be"));
+    assertEquals(-10000000000L, record.getInteger("s64le"));
+    assertEquals(0.5, record.getFloat("f16le"), 0.001);
+    assertEquals(3.25, record.getFloat("f32be"));
+    assertEquals(-1.0e100, record.getFloat("f64le"));
+  }
+
+  @Test
+  public void testEncodeRoundTrip()
+    throws IOException
+  {
+    final var layout = allKinds();
+    final var codec = BSSLayoutCodec.create(layout);
+    final var record = layout.createRecord();
+
+    record.setInteger("u8", 0xf0L);
+    record.setInteger("s8", -2L);
+    record.setInteger("u16be", 0xfedcL);
+    record.setInteger("s16le", -1000L);
+    record.setInteger("u32le", 0xfedcba98L);
+    record.setInteger("s32be", -100000L);
+    record.setInteger("u64be", 0xfedcba9876543210L);
+    record.setInteger("s64le", -10000000000L);
+    record.setFloat("f16le", 0.5);
+    record.setFloat("f32be", 3.25);
+    record.setFloat("f64le", -1.0e100);
+    codec.write(this.writer, record);
+
+    assertEquals(44L, this.writer.offsetCurrentRelative());
+    assertEquals(0xf0, this.reader.readU8());
+    assertEquals(-2, this.reader.readS8());
+    assertEquals(0xfedc, this.reader.readU16BE());
+    assertEquals(-1000, this.reader.readS16LE());
+    assertEquals(0xfedcba98L, this.reader.readU32LE());
+    assertEquals(-100000, this.reader.readS32BE());
+    assertEquals(0xfedcba9876543210L, this.reader.readU64BE());
+    assertEquals(-10000000000L, this.reader.readS64LE());
+    assertEquals(0.5, this.reader.readF16LE(), 0.001);
+    assertEquals(3.25f, this.reader.readF32BE());
+    assertEquals(-1.0e100, this.reader.readD64LE());
+
+    this.reader.seekTo(0L);
+    final var back = layout.createRecord();
+    codec.read(this.reader, back);
+    for (final var field : layout.fields()) {
+      if (field.kind().isFloatingPoint()) {
+        assertEquals(
+          record.getFloat(field.index()),
+          back.getFloat(field.index()),
+          0.001);
+      } else {
+        assertEquals(
+          record.getInteger(field.index()),
+          back.getInteger(field.index()));
+      }
+    }
+  }
+
+  @Test
+  public void testOffsetsAndPadding()
+    throws IOException
+  {
+    final var layout =
+      BSSLayout.builder("record")
+        .addField("a", U8, BIG_ENDIAN)
+        .align(4)
+        .addField("b", U32, BIG_ENDIAN)
+        .addFieldAt("c", U16, LITTLE_ENDIAN, 10)
+        .setRecordAlignment(8)
+        .build();
+
+    assertEquals(0, layout.fieldOrFail("a").offset());
+    assertEquals(4, layout.fieldOrFail("b").offset());
+    assertEquals(10, layout.fieldOrFail("c").offset());
+    assertEquals(16, layout.size());
+
+    for (int index = 0; index < 16; ++index) {
+      this.buffer.put(index, (byte) 0xff);
+    }
+
+    final var codec = BSSLayoutCodec.create(layout);
+    final var record = layout.createRecord();
+    codec.read(this.reader, record);
+    assertEquals(0xffL, record.getInteger("a"));
+    assertEquals(0xffffffffL, record.getInteger("b"));
+    assertEquals(0xffffL, record.getInteger("c"));
+
+    record.setInteger("a", 1L);
+    record.setInteger("b", 2L);
+    record.setInteger("c", 3L);
+    codec.writeAt(this.writer, 16L, record);
+
+    assertEquals(32L, this.writer.offsetCurrentRelative());
+    assertEquals(1, this.buffer.get(16));
+    assertEquals(0, this.buffer.get(17));
+    assertEquals(0, this.buffer.get(18));
+    assertEquals(0, this.buffer.get(19));
+    assertEquals(2, this.buffer.getInt(20));
+    assertEquals(0, this.buffer.getShort(24));
+    assertEquals(3, this.buffer.get(26));
+    assertEquals(0, this.buffer.get(27));
+    assertEquals(0L, this.buffer.getInt(28));
+
+    codec.readAt(this.reader, 16L, record);
+    assertEquals(1L, record.getInteger("a"));
+    assertEquals(2L, record.getInteger("b"));
+    assertEquals(3L, record.getInteger("c"));
+  }
+
+  @Test
+  public void testOverlapRejected()
+  {
+    final var builder =
+      BSSLayout.builder("record")
+        .addField("a", U32, BIG_ENDIAN);
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      builder.addFieldAt("b", U16, BIG_ENDIAN, 2);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      builder.addField("a", U16, BIG_ENDIAN);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      builder.align(0);
+    });
+  }
+
+  @Test
+  public void testKindMismatch()
+  {
+    final var record = allKinds().createRecord();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      record.getFloat("u8");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      record.setInteger("f32be", 23L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      record.getInteger("nonexistent");
+    });
+  }
+
+  @Test
+  public void testLayoutMismatch()
+  {
+    final var codec = BSSLayoutCodec.create(allKinds());
+    final var record = allKinds().createRecord();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      codec.read(this.reader, record);
+    });
+  }
+
+  @Test
+  public void testOutOfBounds()
+    throws IOException
+  {
+    final var layout = allKinds();
+    final var codec = BSSLayoutCodec.create(layout);
+    final var record = layout.createRecord();
+
+    try (var sub = this.reader.createSubReaderAtBounded("sub", 0L, 43L)) {
+      assertThrows(IOException.class, () -> {
+        codec.read(sub, record);
+      });
+      assertEquals(0L, sub.offsetCurrentRelative());
+    }
+  }
+
+  @Test
+  public void testShortReadSequential()
+    throws IOException
+  {
+    final var layout = allKinds();
+    final var codec = BSSLayoutCodec.create(layout);
+    final var record = layout.createRecord();
+
+    try (var sequential =
+           new BSSReaders().createReaderFromStream(
+             URI.create("urn:stream"),
+             new ByteArrayInputStream(new byte[60]),
+             "root")) {
+      codec.read(sequential, record);
+      assertThrows(EOFException.class, () -> {
+        codec.read(sequential, record);
+      });
+    }
+  }
+
+  @Test
+  public void testColumnsMatchRecords()
+    throws IOException
+  {
+    final var layout = allKinds();
+    final var codec = BSSLayoutCodec.create(layout);
+    final var record = layout.createRecord();
+
+    for (int index = 0; index < 5; ++index) {
+      record.setInteger("u8", 0xf0L + index);
+      record.setInteger("s8", -2L - index);
+      record.setInteger("u16be", 0xfedcL + index);
+      record.setInteger("s16le", -1000L - index);
+      record.setInteger("u32le", 0xfedcba98L + index);
+      record.setInteger("s32be", -100000L - index);
+      record.setInteger("u64be", 0xfedcba9876543210L + index);
+      record.setInteger("s64le", -10000000000L - index);
+      record.setFloat("f16le", index);
+      record.setFloat("f32be", 3.25 + index);
+      record.setFloat("f64le", -1.0e100 * index);
+      codec.write(this.writer, record);
+    }
+
+    final var columns = codec.readColumns(this.reader, 5);
+    assertEquals(5, columns.count());
+    assertEquals(220L, this.reader.offsetCurrentRelative());
+
+    for (int index = 0; index < 5; ++index) {
+      assertEquals(0xf0 + index, columns.intColumn("u8")[index]);
+      assertEquals(-2 - index, columns.intColumn("s8")[index]);
+      assertEquals(0xfedc + index, columns.intColumn("u16be")[index]);
+      assertEquals(-1000 - index, columns.intColumn("s16le")[index]);
+      assertEquals(0xfedcba98L + index, columns.longColumn("u32le")[index]);
+      assertEquals(-100000 - index, columns.intColumn("s32be")[index]);
+      assertEquals(
+        0xfedcba9876543210L + index, columns.longColumn("u64be")[index]);
+      assertEquals(-10000000000L - index, columns.longColumn("s64le")[index]);
+      assertEquals(index, columns.floatColumn("f16le")[index], 0.001);
+      assertEquals(3.25f + index, columns.floatColumn("f32be")[index]);
+      assertEquals(-1.0e100 * index, columns.doubleColumn("f64le")[index]);
+    }
+  }
+
+  @Test
+  public void testColumnsChunked()
+    throws IOException
+  {
+    final var layout =
+      BSSLayout.builder("index")
+        .addField("offset", U64, LITTLE_ENDIAN)
+        .addField("size", U32, LITTLE_ENDIAN)
+        .addField("flags", U16, BIG_ENDIAN)
+        .setRecordAlignment(16)
+        .build();
+
+    final var count = 10000;
+    final var data = ByteBuffer.allocate(layout.size() * count);
+    for (int index = 0; index < count; ++index) {
+      final var base = index * layout.size();
+      data.order(LITTLE_ENDIAN);
+      data.putLong(base, index * 1000L);
+      data.putInt(base + 8, index);
+      data.order(BIG_ENDIAN);
+      data.putShort(base + 12, (short) index);
+    }
+
+    final var tableReader =
+      new BSSReaders().createReaderFromByteBuffer(
+        URI.create("urn:table"), data, "table");
+    final var columns =
+      BSSLayoutCodec.create(layout).readColumns(tableReader, count);
+
+    for (int index = 0; index < count; ++index) {
+      assertEquals(index * 1000L, columns.longColumn("offset")[index]);
+      assertEquals(index, columns.longColumn("size")[index]);
+      assertEquals(index & 0xffff, columns.intColumn("flags")[index]);
+    }
+  }
+
+  @Test
+  public void testColumnsOutOfBounds()
+    throws IOException
+  {
+    final var layout = allKinds();
+    final var codec = BSSLayoutCodec.create(layout);
+
+    try (var sub = this.reader.createSubReaderAtBounded("sub", 0L, 100L)) {
+      assertThrows(IOException.class, () -> {
+        codec.readColumns(sub, 3);
+      });
+      assertEquals(0L, sub.offsetCurrentRelative());
+    }
+  }
+
+  @Test
+  public void testColumnsWrongType()
+  {
+    final var columns = allKinds().createColumns(1);
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      columns.longColumn("u8");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      columns.doubleColumn("f32be");
+    });
+  }
+
+  @Test
+  public void testColumnsSequential()
+    throws IOException
+  {
+    final var layout =
+      BSSLayout.builder("pair")
+        .addField("a", U8, BIG_ENDIAN)
+        .addField("b", S8, BIG_ENDIAN)
+        .build();
+
+    try (var sequential =
+           new BSSReaders().createReaderFromStream(
+             URI.create("urn:stream"),
+             new ByteArrayInputStream(new byte[]{1, -1, 2, -2, 3}),
+             "root")) {
+      final var codec = BSSLayoutCodec.create(layout);
+      final var columns = codec.readColumns(sequential, 2);
+      assertEquals(1, columns.intColumn("a")[0]);
+      assertEquals(-1, columns.intColumn("b")[0]);
+      assertEquals(2, columns.intColumn("a")[1]);
+      assertEquals(-2, columns.intColumn("b")[1]);
+
+      assertThrows(EOFException.class, () -> {
+        codec.readColumns(sequential, 2);
+      });
+    }
+  }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSOverlayType;
+import com.io7m.jbssio.vanilla.BSSRangeSourceSimulated;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSOverlayTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+
+  private BSSReaders readers;
+  private BSSWriters writers;
+  private Path directory;
+  private Path file;
+  private byte[] data;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+    throws IOException
+  {
+    this.readers = new BSSReaders();
+    this.writers = new BSSWriters();
+    this.directory = inDirectory;
+    this.data = new byte[300_000];
+    for (int index = 0; index < this.data.length; ++index) {
+      this.data[index] = (byte) (index * 31);
+    }
+    this.file = this.directory.resolve("base.bin");
+    Files.write(this.file, this.data);
+  }
+
+  private BSSOverlayType openOverlay()
+    throws IOException
+  {
+    final var base =
+      this.readers.createReaderFromChannel(
+        URI_FAKE, FileChannel.open(this.file, READ), "base");
+    return this.writers.createOverlay(URI_FAKE, base);
+  }
+
+  private byte[] writeOut(
+    final BSSOverlayType overlay)
+    throws IOException
+  {
+    final var output = this.directory.resolve("output.bin");
+    Files.deleteIfExists(output);
+    try (var channel = FileChannel.open(output, CREATE_NEW, WRITE)) {
+      assertEquals(overlay.size(), overlay.writeTo(channel));
+    }
+    return Files.readAllBytes(output);
+  }
+
+  /**
+   * Patched fields are visible through reader views and in the written
+   * file, and the base file is unchanged.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPatchFields()
+    throws Exception
+  {
+    final var expected = this.data.clone();
+    final var view = ByteBuffer.wrap(expected).order(ByteOrder.BIG_ENDIAN);
+    view.putInt(4, 0xcafebabe);
+    view.putShort(200_000, (short) 0x1234);
+
+    try (var overlay = this.openOverlay()) {
+      try (var writer = overlay.createWriter("w")) {
+        writer.seekTo(4L);
+        writer.writeU32BE(0xcafebabeL);
+        writer.seekTo(200_000L);
+        writer.writeU16BE(0x1234);
+      }
+
+      assertEquals(2, overlay.extentCount());
+      assertEquals(300_000L, overlay.size());
+      assertEquals(300_000L, overlay.baseSize());
+
+      try (var reader = overlay.createReader("r")) {
+        reader.seekTo(2L);
+        assertEquals(expected[2] & 0xff, reader.readU8());
+        reader.readU8();
+        assertEquals(0xcafebabeL, reader.readU32BE());
+        reader.seekTo(199_999L);
+        final var bytes = new byte[4];
+        reader.readBytes(bytes);
+        assertArrayEquals(
+          new byte[]{expected[199_999], 0x12, 0x34, expected[200_002]},
+          bytes);
+      }
+
+      assertArrayEquals(expected, this.writeOut(overlay));
+    }
+
+    assertArrayEquals(this.data, Files.readAllBytes(this.file));
+  }
+
+  /**
+   * Overlapping and adjacent writes are merged into a single extent.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testMergeExtents()
+    throws Exception
+  {
+    try (var overlay = this.openOverlay()) {
+      try (var writer = overlay.createWriter("w")) {
+        writer.seekTo(10L);
+        writer.writeU32BE(0x01020304L);
+        writer.seekTo(20L);
+        writer.writeU32BE(0x05060708L);
+        assertEquals(2, overlay.extentCount());
+
+        writer.seekTo(14L);
+        writer.writeU32BE(0x11121314L);
+        writer.writeU16BE(0x1516);
+        assertEquals(1, overlay.extentCount());
+
+        writer.seekTo(12L);
+        writer.writeU64BE(0x2122232425262728L);
+        assertEquals(1, overlay.extentCount());
+      }
+
+      try (var reader = overlay.createReader("r")) {
+        reader.seekTo(10L);
+        final var bytes = new byte[14];
+        reader.readBytes(bytes);
+        assertArrayEquals(
+          new byte[]{
+            0x01, 0x02, 0x21, 0x22, 0x23, 0x24, 0x25, 0x26,
+            0x27, 0x28, 0x05, 0x06, 0x07, 0x08,
+          },
+          bytes);
+      }
+    }
+  }
+
+  /**
+   * Writing a large region field by field produces a single extent, and
+   * later writes that fill the gap between two extents join them.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFieldByFieldRegion()
+    throws Exception
+  {
+    final var count = 256 * 1024;
+
+    try (var overlay = this.openOverlay()) {
+      try (var writer = overlay.createWriter("w")) {
+        for (int index = 0; index < count; ++index) {
+          writer.writeU32BE(index);
+        }
+        assertEquals(1, overlay.extentCount());
+
+        writer.seekTo(2_000_000L);
+        writer.writeU32BE(0xffffffffL);
+        assertEquals(2, overlay.extentCount());
+
+        writer.seekTo(4L * count);
+        while (writer.offsetCurrentRelative() < 2_000_000L) {
+          writer.writeU8(0x7f);
+        }
+        assertEquals(1, overlay.extentCount());
+      }
+
+      try (var reader = overlay.createReader("r")) {
+        for (int index = 0; index < count; ++index) {
+          assertEquals(index, reader.readU32BE());
+        }
+        reader.seekTo(1_999_999L);
+        assertEquals(0x7f, reader.readU8());
+        assertEquals(0xffffffffL, reader.readU32BE());
+      }
+    }
+  }
+
+  /**
+   * Writing beyond the end of the base extends the overlay, and the gap
+   * reads as zeroes.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testExtend()
+    throws Exception
+  {
+    try (var overlay = this.openOverlay()) {
+      try (var writer = overlay.createWriter("w")) {
+        writer.seekTo(300_010L);
+        writer.writeU32LE(0xffffffffL);
+      }
+
+      assertEquals(300_014L, overlay.size());
+
+      try (var reader = overlay.createReader("r")) {
+        reader.seekTo(299_999L);
+        assertEquals(this.data[299_999] & 0xff, reader.readU8());
+        assertEquals(0L, reader.readU64BE());
+        assertEquals(0, reader.readU16BE());
+        assertEquals(0xffffffffL, reader.readU32LE());
+        assertThrows(IOException.class, reader::readU8);
+      }
+
+      final var output = this.writeOut(overlay);
+      assertEquals(300_014, output.length);
+      for (int index = 300_000; index < 300_010; ++index) {
+        assertEquals(0, output[index]);
+      }
+    }
+  }
+
+  /**
+   * Overlays over bases that are not backed by file channels are written
+   * out correctly.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testByteBufferBase()
+    throws Exception
+  {
+    final var base =
+      this.readers.createReaderFromByteBuffer(
+        URI_FAKE, ByteBuffer.wrap(this.data), "base");
+
+    try (var overlay = this.writers.createOverlay(URI_FAKE, base)) {
+      try (var writer = overlay.createWriter("w")) {
+        writer.seekTo(100_000L);
+        writer.writeU8(0xff);
+      }
+
+      final var expected = this.data.clone();
+      expected[100_000] = (byte) 0xff;
+      assertArrayEquals(expected, this.writeOut(overlay));
+    }
+  }
+
+  /**
+   * Overlays over channel readers whose channels are not file channels are
+   * written out correctly, including after the base reader has read values
+   * through its own buffers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNonFileChannelBases()
+    throws Exception
+  {
+    final var expected = this.data.clone();
+    expected[150_000] = (byte) 0xee;
+
+    final var rangeBase =
+      this.readers.createReaderFromRangeSource(
+        URI_FAKE,
+        BSSRangeSourceSimulated.create(ByteBuffer.wrap(this.data), Duration.ZERO),
+        "base",
+        this.readers.createBlockCache(4096, 65536L));
+
+    final var segmentBase =
+      this.readers.createReaderFromSegmentFiles(
+        URI_FAKE, List.of(this.file, this.file), "base", 2);
+
+    try (var overlay = this.writers.createOverlay(URI_FAKE, rangeBase)) {
+      this.patchAndCheck(overlay, expected);
+    }
+
+    final var doubled = new byte[this.data.length * 2];
+    System.arraycopy(expected, 0, doubled, 0, expected.length);
+    System.arraycopy(this.data, 0, doubled, this.data.length, this.data.length);
+    try (var overlay = this.writers.createOverlay(URI_FAKE, segmentBase)) {
+      this.patchAndCheck(overlay, doubled);
+    }
+  }
+
+  private void patchAndCheck(
+    final BSSOverlayType overlay,
+    final byte[] expected)
+    throws IOException
+  {
+    try (var writer = overlay.createWriter("w")) {
+      writer.seekTo(150_000L);
+      writer.writeU8(0xee);
+    }
+    try (var reader = overlay.createReader("r")) {
+      reader.seekTo(149_990L);
+      assertEquals(expected[149_990] & 0xff, reader.readU8());
+      reader.seekTo(150_000L);
+      assertEquals(0xee, reader.readU8());
+    }
+    assertArrayEquals(expected, this.writeOut(overlay));
+  }
+
+  /**
+   * Reader views are bounded by the size at creation but observe later
+   * writes within that bound.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderViewBounds()
+    throws Exception
+  {
+    try (var overlay = this.openOverlay()) {
+      try (var reader = overlay.createReader("r")) {
+        try (var writer = overlay.createWriter("w")) {
+          writer.writeU8(0xaa);
+          writer.seekTo(300_000L);
+          writer.writeU8(0xbb);
+        }
+
+        assertEquals(0xaa, reader.readU8());
+        reader.seekTo(299_999L);
+        reader.readU8();
+        assertThrows(IOException.class, reader::readU8);
+      }
+
+      try (var reader = overlay.createReader("r")) {
+        reader.seekTo(300_000L);
+        assertEquals(0xbb, reader.readU8());
+      }
+    }
+  }
+
+  /**
+   * Closing the overlay closes the base, and views can no longer be used.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClose()
+    throws Exception
+  {
+    final var base =
+      this.readers.createReaderFromByteBuffer(
+        URI_FAKE, ByteBuffer.wrap(this.data), "base");
+    final var overlay = this.writers.createOverlay(URI_FAKE, base);
+    final var reader = overlay.createReader("r");
+
+    assertFalse(overlay.isClosed());
+    overlay.close();
+    assertTrue(overlay.isClosed());
+    assertTrue(base.isClosed());
+
+    assertThrows(IOException.class, reader::readU8);
+    assertThrows(IOException.class, () -> overlay.createWriter("w"));
+  }
+}
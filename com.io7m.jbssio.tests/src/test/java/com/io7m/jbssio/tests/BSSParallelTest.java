@@ -0,0 +1,620 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+import com.io7m.jbssio.ext.parallel.BSSParallelPartition;
+import com.io7m.jbssio.ext.parallel.BSSParallelTable;
+import com.io7m.jbssio.ext.parallel.BSSParallelTables;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the Parallel extension.
+ */
+
+public final class BSSParallelTest
+{
+  private static final int RECORD_SIZE = 16;
+  private static final int RECORD_COUNT = 10_000;
+  private static final int HEADER_SIZE = 8;
+
+  private Path path;
+  private ByteBuffer data;
+  private ExecutorService forkJoin;
+  private ExecutorService virtual;
+
+  private static long checksumOf(
+    final BSSReaderRandomAccessType reader,
+    final BSSParallelPartition partition)
+    throws IOException
+  {
+    var sum = 0L;
+    for (long index = 0L; index < partition.recordCount(); ++index) {
+      final var record = partition.recordFirst() + index;
+      assertEquals(record, reader.readU32BE());
+      assertEquals(record * 2L, reader.readU32LE());
+      assertEquals(record * 3L, reader.readS64BE());
+      sum += record;
+    }
+    assertEquals(0L, reader.bytesRemaining().orElseThrow());
+    return sum;
+  }
+
+  private static Long writeRecords(
+    final BSSWriterRandomAccessType writer,
+    final BSSParallelPartition partition)
+    throws IOException
+  {
+    for (long index = 0L; index < partition.recordCount(); ++index) {
+      final var record = partition.recordFirst() + index;
+      writer.writeU32BE(record);
+      writer.writeU32LE(record * 2L);
+      writer.writeS64BE(record * 3L);
+    }
+    assertEquals(0L, writer.bytesRemaining().orElseThrow());
+    return Long.valueOf(partition.recordCount());
+  }
+
+  private static long expectedSum()
+  {
+    return ((long) RECORD_COUNT * (long) (RECORD_COUNT - 1)) / 2L;
+  }
+
+  @BeforeEach
+  public void setup()
+    throws IOException
+  {
+    this.data = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * RECORD_COUNT);
+    this.data.order(BIG_ENDIAN);
+    this.data.putLong(0, 0xcafebabeL);
+    for (int index = 0; index < RECORD_COUNT; ++index) {
+      final var base = HEADER_SIZE + index * RECORD_SIZE;
+      this.data.putInt(base, index);
+      this.data.putInt(base + 4, Integer.reverseBytes(index * 2));
+      this.data.putLong(base + 8, index * 3L);
+    }
+
+    this.path = Files.createTempFile("jbssio-parallel-", ".dat");
+    Files.write(this.path, this.data.array());
+
+    this.forkJoin = new ForkJoinPool(8);
+    this.virtual = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws IOException
+  {
+    this.forkJoin.shutdown();
+    this.virtual.shutdown();
+    Files.deleteIfExists(this.path);
+  }
+
+  private void checkProcess(
+    final BSSReaderRandomAccessType reader,
+    final ExecutorService executor)
+    throws IOException
+  {
+    final var table =
+      new BSSParallelTable(HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+    final var results =
+      BSSParallelTables.process(
+        executor, reader, table, 7, BSSParallelTest::checksumOf);
+
+    assertEquals(7, results.size());
+
+    final var partitions = table.partition(7);
+    var total = 0L;
+    for (int index = 0; index < results.size(); ++index) {
+      final var partition = partitions.get(index);
+      final var first = partition.recordFirst();
+      final var count = partition.recordCount();
+      assertEquals(
+        (first * count) + ((count * (count - 1L)) / 2L),
+        results.get(index).longValue()
+      );
+      total += results.get(index);
+    }
+    assertEquals(expectedSum(), total);
+    assertEquals(0L, reader.offsetCurrentRelative());
+  }
+
+  /**
+   * Partitions are disjoint, contiguous, and balanced.
+   */
+
+  @Test
+  public void testPartition()
+  {
+    final var table = new BSSParallelTable(8L, 16L, 10L);
+    final var partitions = table.partition(3);
+
+    assertEquals(3, partitions.size());
+    assertEquals(new BSSParallelPartition(0, 0L, 4L, 8L, 64L), partitions.get(0));
+    assertEquals(new BSSParallelPartition(1, 4L, 3L, 72L, 48L), partitions.get(1));
+    assertEquals(new BSSParallelPartition(2, 7L, 3L, 120L, 48L), partitions.get(2));
+    assertEquals(168L, table.offset() + table.size());
+  }
+
+  /**
+   * Empty partitions are never produced.
+   */
+
+  @Test
+  public void testPartitionFewRecords()
+  {
+    assertEquals(2, new BSSParallelTable(0L, 4L, 2L).partition(8).size());
+    assertEquals(0, new BSSParallelTable(0L, 4L, 0L).partition(8).size());
+  }
+
+  /**
+   * Invalid tables and partition counts are rejected.
+   */
+
+  @Test
+  public void testPartitionInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new BSSParallelTable(0L, 0L, 1L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new BSSParallelTable(-1L, 1L, 1L);
+    });
+    assertThrows(ArithmeticException.class, () -> {
+      new BSSParallelTable(0L, Long.MAX_VALUE, 2L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new BSSParallelTable(0L, 1L, 1L).partition(0);
+    });
+  }
+
+  /**
+   * Byte buffer tables can be processed on a fork/join pool.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testByteBufferForkJoin()
+    throws IOException
+  {
+    try (var reader = new BSSReaders()
+      .createReaderFromByteBuffer(URI.create("urn:fake"), this.data, "a")) {
+      this.checkProcess(reader, this.forkJoin);
+    }
+  }
+
+  /**
+   * Byte buffer tables can be processed on virtual threads.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testByteBufferVirtual()
+    throws IOException
+  {
+    try (var reader = new BSSReaders()
+      .createReaderFromByteBuffer(URI.create("urn:fake"), this.data, "a")) {
+      this.checkProcess(reader, this.virtual);
+    }
+  }
+
+  /**
+   * File channel tables can be processed on a fork/join pool.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testFileChannelForkJoin()
+    throws IOException
+  {
+    final var channel = FileChannel.open(this.path, StandardOpenOption.READ);
+    try (var reader = new BSSReaders()
+      .createReaderFromChannel(URI.create("urn:fake"), channel, "a")) {
+      this.checkProcess(reader, this.forkJoin);
+    }
+  }
+
+  /**
+   * Seekable channel tables can be processed on virtual threads.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testSeekableChannelVirtual()
+    throws IOException
+  {
+    final var channel = new DelegatingChannel(
+      Files.newByteChannel(this.path, StandardOpenOption.READ));
+    try (var reader = new BSSReaders()
+      .createReaderFromChannel(URI.create("urn:fake"), channel, "a")) {
+      this.checkProcess(reader, this.virtual);
+    }
+  }
+
+  /**
+   * Sub-readers created up front can be used from many threads at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSubReadersConcurrent()
+    throws Exception
+  {
+    final var channel = FileChannel.open(this.path, StandardOpenOption.READ);
+    try (var reader = new BSSReaders()
+      .createReaderFromChannel(URI.create("urn:fake"), channel, "a")) {
+      final var table =
+        new BSSParallelTable(HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+      final var readers =
+        BSSParallelTables.createSubReaders(reader, table, 16);
+      final var partitions =
+        table.partition(16);
+
+      final var threads = new ArrayList<Thread>();
+      final var failures = new ArrayList<Throwable>();
+      for (int index = 0; index < readers.size(); ++index) {
+        final var subReader = readers.get(index);
+        final var partition = partitions.get(index);
+        threads.add(Thread.ofPlatform().start(() -> {
+          try {
+            checksumOf(subReader, partition);
+          } catch (final Throwable e) {
+            synchronized (failures) {
+              failures.add(e);
+            }
+          }
+        }));
+      }
+      for (final var thread : threads) {
+        thread.join();
+      }
+      assertEquals(List.of(), failures);
+    }
+  }
+
+  /**
+   * Failures in partitions are propagated.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testFailurePropagated()
+    throws IOException
+  {
+    try (var reader = new BSSReaders()
+      .createReaderFromByteBuffer(URI.create("urn:fake"), this.data, "a")) {
+      final var table =
+        new BSSParallelTable(HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+
+      final var ex = assertThrows(IOException.class, () -> {
+        BSSParallelTables.process(
+          this.forkJoin, reader, table, 4, (subReader, partition) -> {
+            if (partition.index() == 2) {
+              throw new IOException("Partition 2");
+            }
+            return Long.valueOf(checksumOf(subReader, partition));
+          });
+      });
+      assertEquals("Partition 2", ex.getMessage());
+    }
+  }
+
+  /**
+   * Partitions that exceed the bounds of the reader are rejected.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testOutOfBounds()
+    throws IOException
+  {
+    try (var reader = new BSSReaders()
+      .createReaderFromByteBuffer(URI.create("urn:fake"), this.data, "a")) {
+      final var table =
+        new BSSParallelTable(HEADER_SIZE, RECORD_SIZE, RECORD_COUNT + 1);
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        BSSParallelTables.createSubReaders(reader, table, 4);
+      });
+    }
+  }
+
+  private void checkWrite(
+    final BSSWriterRandomAccessType writer,
+    final ExecutorService executor)
+    throws IOException
+  {
+    final var table =
+      new BSSParallelTable(HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+    final var results =
+      BSSParallelTables.write(
+        executor, writer, table, 7, BSSParallelTest::writeRecords);
+
+    assertEquals(
+      (long) RECORD_COUNT,
+      results.stream().mapToLong(Long::longValue).sum());
+    assertEquals(0L, writer.offsetCurrentRelative());
+  }
+
+  private void checkWritten(
+    final byte[] written)
+  {
+    final var expected = this.data.array();
+    assertArrayEquals(
+      Arrays.copyOfRange(expected, HEADER_SIZE, expected.length),
+      Arrays.copyOfRange(written, HEADER_SIZE, written.length)
+    );
+  }
+
+  /**
+   * Byte buffer tables can be written on a fork/join pool.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testWriteByteBufferForkJoin()
+    throws IOException
+  {
+    final var target = ByteBuffer.allocate(this.data.capacity());
+    try (var writer = new BSSWriters()
+      .createWriterFromByteBuffer(URI.create("urn:fake"), target, "a")) {
+      this.checkWrite(writer, this.forkJoin);
+    }
+    this.checkWritten(target.array());
+  }
+
+  /**
+   * File channel tables can be written on virtual threads.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testWriteFileChannelVirtual()
+    throws IOException
+  {
+    final var output = Files.createTempFile("jbssio-parallel-", ".dat");
+    final var channel = FileChannel.open(
+      output, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    try (var writer = new BSSWriters()
+      .createWriterFromChannel(URI.create("urn:fake"), channel, "a")) {
+      this.checkWrite(writer, this.virtual);
+    }
+    this.checkWritten(Files.readAllBytes(output));
+    Files.deleteIfExists(output);
+  }
+
+  /**
+   * Seekable channel tables can be written on a fork/join pool.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testWriteSeekableChannelForkJoin()
+    throws IOException
+  {
+    final var output = Files.createTempFile("jbssio-parallel-", ".dat");
+    final var channel = new DelegatingChannel(
+      Files.newByteChannel(
+        output,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING));
+    try (var writer = new BSSWriters()
+      .createWriterFromChannel(URI.create("urn:fake"), channel, "a")) {
+      this.checkWrite(writer, this.forkJoin);
+    }
+    this.checkWritten(Files.readAllBytes(output));
+    Files.deleteIfExists(output);
+  }
+
+  /**
+   * Sub-writers created up front can be used from many threads at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSubWritersConcurrent()
+    throws Exception
+  {
+    final var output = Files.createTempFile("jbssio-parallel-", ".dat");
+    final var channel = FileChannel.open(
+      output, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    try (var writer = new BSSWriters()
+      .createWriterFromChannel(URI.create("urn:fake"), channel, "a")) {
+      final var table =
+        new BSSParallelTable(HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+      final var writers =
+        BSSParallelTables.createSubWriters(writer, table, 16);
+      final var partitions =
+        table.partition(16);
+
+      final var threads = new ArrayList<Thread>();
+      final var failures = new ArrayList<Throwable>();
+      for (int index = 0; index < writers.size(); ++index) {
+        final var subWriter = writers.get(index);
+        final var partition = partitions.get(index);
+        threads.add(Thread.ofPlatform().start(() -> {
+          try {
+            writeRecords(subWriter, partition);
+          } catch (final Throwable e) {
+            synchronized (failures) {
+              failures.add(e);
+            }
+          }
+        }));
+      }
+      for (final var thread : threads) {
+        thread.join();
+      }
+      assertEquals(List.of(), failures);
+    }
+    this.checkWritten(Files.readAllBytes(output));
+    Files.deleteIfExists(output);
+  }
+
+  /**
+   * A reader over a writer whose partitions were written concurrently
+   * covers the whole table, regardless of the order in which the
+   * partitions completed.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testWriteAsReader()
+    throws IOException
+  {
+    for (int pass = 0; pass < 50; ++pass) {
+      final var target = ByteBuffer.allocate(this.data.capacity());
+      try (var writer = new BSSWriters()
+        .createWriterFromByteBuffer(URI.create("urn:fake"), target, "a")) {
+        this.checkWrite(writer, this.forkJoin);
+
+        try (var reader = writer.asReader("r")) {
+          assertEquals(
+            (long) this.data.capacity(),
+            reader.bytesRemaining().orElseThrow());
+          this.checkProcess(reader, this.forkJoin);
+        }
+      }
+    }
+
+    final var output = Files.createTempFile("jbssio-parallel-", ".dat");
+    final var channel = FileChannel.open(
+      output,
+      StandardOpenOption.READ,
+      StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING);
+    try (var writer = new BSSWriters()
+      .createWriterFromChannel(URI.create("urn:fake"), channel, "a")) {
+      this.checkWrite(writer, this.virtual);
+
+      try (var reader = writer.asReader("r")) {
+        assertEquals(
+          (long) this.data.capacity(),
+          reader.bytesRemaining().orElseThrow());
+        this.checkProcess(reader, this.virtual);
+      }
+    }
+    Files.deleteIfExists(output);
+  }
+
+  private static final class DelegatingChannel
+    implements SeekableByteChannel
+  {
+    private final SeekableByteChannel delegate;
+
+    DelegatingChannel(
+      final SeekableByteChannel inDelegate)
+    {
+      this.delegate = inDelegate;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst)
+      throws IOException
+    {
+      return this.delegate.read(dst);
+    }
+
+    @Override
+    public int write(final ByteBuffer src)
+      throws IOException
+    {
+      return this.delegate.write(src);
+    }
+
+    @Override
+    public long position()
+      throws IOException
+    {
+      return this.delegate.position();
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition)
+      throws IOException
+    {
+      this.delegate.position(newPosition);
+      return this;
+    }
+
+    @Override
+    public long size()
+      throws IOException
+    {
+      return this.delegate.size();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size)
+      throws IOException
+    {
+      this.delegate.truncate(size);
+      return this;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+      return this.delegate.isOpen();
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      this.delegate.close();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReaderAsynchronousType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSReadersAsynchronousFileChannelTest
+{
+  private static BSSReaderAsynchronousType readerOf(
+    final int size)
+    throws IOException
+  {
+    final var path = Files.createTempFile("jbssio-readers-", ".dat");
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = (byte) index;
+    }
+    Files.write(path, data);
+
+    return new BSSReaders().createReaderFromAsynchronousChannel(
+      URI.create("urn:fake"),
+      AsynchronousFileChannel.open(path, StandardOpenOption.READ),
+      "a"
+    );
+  }
+
+  /**
+   * Fetched regions can be parsed synchronously.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetch()
+    throws Exception
+  {
+    try (var reader = readerOf(256)) {
+      assertEquals(URI.create("urn:fake"), reader.uri());
+      assertEquals("a", reader.name());
+
+      try (var region = reader.fetch("r", 16L, 8L).get()) {
+        assertEquals("r", region.path());
+        assertEquals(OptionalLong.of(8L), region.bytesRemaining());
+        assertEquals(0x10111213L, region.readU32BE());
+        assertEquals(0x17161514L, region.readU32LE());
+        assertThrows(IOException.class, region::readU8);
+      }
+    }
+  }
+
+  /**
+   * Regions extending beyond the end of the file are truncated.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetchShort()
+    throws Exception
+  {
+    try (var reader = readerOf(20)) {
+      try (var region = reader.fetch("r", 16L, 100L).get()) {
+        assertEquals(OptionalLong.of(4L), region.bytesRemaining());
+        assertEquals(0x10111213L, region.readU32BE());
+      }
+      try (var region = reader.fetch("r", 100L, 100L).get()) {
+        assertEquals(OptionalLong.of(0L), region.bytesRemaining());
+      }
+      try (var region = reader.fetch("r", 0L, 0L).get()) {
+        assertEquals(OptionalLong.of(0L), region.bytesRemaining());
+      }
+    }
+  }
+
+  /**
+   * Many fetches can be in flight at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetchConcurrent()
+    throws Exception
+  {
+    try (var reader = readerOf(4096 * 4)) {
+      final var futures =
+        new ArrayList<CompletableFuture<BSSReaderRandomAccessType>>();
+      for (int index = 0; index < 64; ++index) {
+        futures.add(reader.fetch("r", index * 256L, 256L));
+      }
+
+      for (int index = 0; index < 64; ++index) {
+        try (var region = futures.get(index).get()) {
+          for (int octet = 0; octet < 256; ++octet) {
+            assertEquals(octet, region.readU8());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetching from a closed reader fails.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetchClosed()
+    throws Exception
+  {
+    final var reader = readerOf(16);
+    assertFalse(reader.isClosed());
+    reader.close();
+    assertTrue(reader.isClosed());
+    reader.close();
+
+    final var ex = assertThrows(ExecutionException.class, () -> {
+      reader.fetch("r", 0L, 4L).get();
+    });
+    assertInstanceOf(ClosedChannelException.class, ex.getCause());
+  }
+
+  /**
+   * Invalid regions are rejected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFetchInvalid()
+    throws Exception
+  {
+    try (var reader = readerOf(16)) {
+      assertThrows(IllegalArgumentException.class, () -> {
+        reader.fetch("r", -1L, 4L);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        reader.fetch("r", 0L, -1L);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        reader.fetch("r", 0L, 1L + Integer.MAX_VALUE);
+      });
+    }
+  }
+}
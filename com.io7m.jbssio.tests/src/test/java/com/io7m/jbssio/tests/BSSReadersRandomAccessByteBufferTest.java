@@ -18,15 +18,20 @@ package com.io7m.jbssio.tests;
 
 import com.io7m.ieee754b16.Binary16;
 import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.internal.BSSReaderByteBuffer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 public final class BSSReadersRandomAccessByteBufferTest
 {
@@ -896,4 +901,286 @@ public final class BSSReadersRandomAccessByteBufferTest
       Assertions.assertThrows(IOException.class, () -> reader.readBytes(buffer));
     }
   }
+
+  @Test
+  public void testReadBytesByteBuffer()
+    throws Exception
+  {
+    final var data = ByteBuffer.allocateDirect(32);
+    for (var index = 0; index < 32; ++index) {
+      data.put(index, (byte) index);
+    }
+
+    final var heap = ByteBuffer.allocate(20);
+    heap.position(4);
+    final var direct = ByteBuffer.allocateDirect(16);
+
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromByteBuffer(URI.create("urn:fake"), data, "a")) {
+      Assertions.assertEquals(16, reader.readBytes(heap));
+      Assertions.assertEquals(20, heap.position());
+      Assertions.assertEquals(16, reader.readBytes("q", direct));
+      Assertions.assertEquals(16, direct.position());
+      Assertions.assertEquals(0L, reader.bytesRemaining().getAsLong());
+
+      for (var index = 0; index < 16; ++index) {
+        Assertions.assertEquals((byte) index, heap.get(index + 4));
+        Assertions.assertEquals((byte) (index + 16), direct.get(index));
+      }
+
+      Assertions.assertEquals(0, data.position());
+      Assertions.assertThrows(
+        IOException.class,
+        () -> reader.readBytes(ByteBuffer.allocate(1)));
+    }
+  }
+
+  @Test
+  public void testRebind()
+    throws Exception
+  {
+    final var data0 = ByteBuffer.allocate(8);
+    data0.putInt(0, 0x01020304);
+    final var data1 = ByteBuffer.allocate(8);
+    data1.putInt(0, 0x05060708);
+    final var data2 = ByteBuffer.allocate(2);
+    data2.putShort(0, (short) 0x090a);
+
+    final var readers = new BSSReaders();
+    final var reader =
+      readers.createReaderFromByteBufferRebindable(URI.create("urn:fake"), data0, "a");
+
+    Assertions.assertEquals(0x01020304L, reader.readU32BE());
+    Assertions.assertEquals(4L, reader.bytesRemaining().getAsLong());
+
+    reader.rebind(data1);
+    Assertions.assertEquals(0L, reader.offsetCurrentRelative());
+    Assertions.assertEquals(8L, reader.bytesRemaining().getAsLong());
+    Assertions.assertEquals(0x05060708L, reader.readU32BE());
+
+    reader.rebind(data2);
+    Assertions.assertEquals(2L, reader.bytesRemaining().getAsLong());
+    Assertions.assertEquals(0x090a, reader.readU16BE());
+    Assertions.assertThrows(IOException.class, reader::readU8);
+    Assertions.assertThrows(
+      IllegalArgumentException.class,
+      () -> reader.createSubReaderAtBounded("x", 0L, 3L));
+  }
+
+  @Test
+  public void testRebindVaryingSizesAllocationFree()
+    throws Exception
+  {
+    final var buffers = new ByteBuffer[64];
+    for (var index = 0; index < buffers.length; ++index) {
+      buffers[index] = ByteBuffer.allocate(index + 1);
+      buffers[index].put(index, (byte) index);
+    }
+
+    final var readers = new BSSReaders();
+    final var reader =
+      readers.createReaderFromByteBufferRebindable(URI.create("urn:fake"), buffers[0], "a");
+
+    final var threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /*
+     * Run the loop once to warm it up, and then check that a second run
+     * allocates (almost) nothing. Without primitive bounds, each rebind to a
+     * buffer of a different size allocates new range objects, which would
+     * amount to several megabytes here.
+     */
+
+    var sum = 0L;
+    for (var pass = 0; pass < 2; ++pass) {
+      final var before = threads.getCurrentThreadAllocatedBytes();
+      for (var iteration = 0; iteration < 100_000; ++iteration) {
+        final var index = iteration % buffers.length;
+        reader.rebind(buffers[index]);
+        reader.seekTo(index);
+        sum += reader.readU8();
+      }
+      final var allocated = threads.getCurrentThreadAllocatedBytes() - before;
+      LOG.debug("allocated: {}", Long.valueOf(allocated));
+      if (pass == 1) {
+        Assertions.assertTrue(
+          allocated < 65536L,
+          "Rebinding allocated " + allocated + " octets");
+      }
+    }
+    Assertions.assertEquals(2L * (100_000L / 64L) * (63L * 64L / 2L)
+                              + 2L * (32L * 31L / 2L), sum);
+  }
+
+  @Test
+  public void testSubReaderAllocationLight()
+    throws Exception
+  {
+    final var data = ByteBuffer.allocate(4096);
+    for (var index = 0; index < 4096; index += 16) {
+      data.put(index, (byte) (index / 16));
+    }
+
+    final var readers = new BSSReaders();
+    final var reader =
+      readers.createReaderFromByteBuffer(URI.create("urn:fake"), data, "a");
+
+    final var threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /*
+     * Creating a sub-reader allocates the sub-reader itself, but no range
+     * objects for its bounds or for the physical bounds of the buffer.
+     * The loop is run once to warm it up before it is measured.
+     */
+
+    var sum = 0L;
+    var allocated = 0L;
+    for (var pass = 0; pass < 2; ++pass) {
+      final var before = threads.getCurrentThreadAllocatedBytes();
+      for (var iteration = 0; iteration < 100_000; ++iteration) {
+        final var record = (iteration % 256) * 16L;
+        try (var bounded = reader.createSubReaderAtBounded("r", record, 16L)) {
+          try (var offset = bounded.createSubReaderAt("o", 0L)) {
+            sum += offset.readU8();
+          }
+        }
+      }
+      allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    final var perReader = allocated / 200_000L;
+    LOG.debug("allocated per sub-reader: {}", Long.valueOf(perReader));
+    Assertions.assertTrue(
+      perReader <= 128L,
+      "Sub-reader creation allocated " + perReader + " octets per reader");
+    Assertions.assertEquals(2L * ((100_000L / 256L) * (255L * 256L / 2L)
+                              + (160L * 159L / 2L)), sum);
+  }
+
+  @Test
+  public void testRebindReopens()
+    throws Exception
+  {
+    final var data = ByteBuffer.allocate(8);
+
+    final var readers = new BSSReaders();
+    final var reader =
+      readers.createReaderFromByteBufferRebindable(URI.create("urn:fake"), data, "a");
+
+    reader.close();
+    Assertions.assertTrue(reader.isClosed());
+    Assertions.assertThrows(IOException.class, reader::readU8);
+
+    reader.rebind(data);
+    Assertions.assertFalse(reader.isClosed());
+    Assertions.assertEquals(0, reader.readU8());
+  }
+
+  @Test
+  public void testRebindClosesSubReaders()
+    throws Exception
+  {
+    final var data0 = ByteBuffer.allocate(8);
+    final var data1 = ByteBuffer.allocate(8);
+
+    final var readers = new BSSReaders();
+    final var reader =
+      readers.createReaderFromByteBufferRebindable(URI.create("urn:fake"), data0, "a");
+
+    final var sub0 = reader.createSubReaderAtBounded("x", 0L, 4L);
+    final var sub1 = sub0.createSubReaderAt("y", 0L);
+    Assertions.assertFalse(sub1.isClosed());
+
+    reader.rebind(data1);
+    Assertions.assertFalse(reader.isClosed());
+    Assertions.assertTrue(sub0.isClosed());
+    Assertions.assertTrue(sub1.isClosed());
+    Assertions.assertThrows(IOException.class, sub0::readU8);
+    Assertions.assertThrows(IOException.class, sub1::readU8);
+
+    try (var sub2 = reader.createSubReaderAtBounded("z", 4L, 4L)) {
+      data1.put(4, (byte) 0x7f);
+      Assertions.assertEquals(0x7f, sub2.readU8());
+    }
+  }
+
+  @Test
+  public void testPrefetchMapped()
+    throws Exception
+  {
+    final var path = Files.createTempFile("jbssio-readers-", ".dat");
+    final var data = new byte[8192];
+    for (var index = 0; index < data.length; ++index) {
+      data[index] = (byte) index;
+    }
+    Files.write(path, data);
+
+    final var readers = new BSSReaders();
+    final var channel = FileChannel.open(path, StandardOpenOption.READ);
+    try (var reader = readers.createReaderFromFileMapped(URI.create("urn:fake"), channel, "a")) {
+      Assertions.assertTrue(((BSSReaderByteBuffer) reader).isFileMapping());
+      try (var sub = reader.createSubReaderAtBounded("x", 4096L, 4096L)) {
+        Assertions.assertTrue(((BSSReaderByteBuffer) sub).isFileMapping());
+        sub.prefetch(0L, 8192L);
+        sub.prefetch(8192L, 1L);
+        sub.prefetch(-1L, 1L);
+        Assertions.assertEquals(0L, sub.offsetCurrentRelative());
+        for (var index = 0; index < 4096; ++index) {
+          Assertions.assertEquals(index & 0xff, sub.readU8());
+        }
+      }
+    }
+    Assertions.assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void testPrefetchDirectNotMapping()
+    throws Exception
+  {
+    final var path = Files.createTempFile("jbssio-readers-", ".dat");
+    Files.write(path, new byte[4096]);
+
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromByteBuffer(
+      URI.create("urn:fake"), ByteBuffer.allocateDirect(16), "a")) {
+      Assertions.assertFalse(((BSSReaderByteBuffer) reader).isFileMapping());
+      reader.prefetch(0L, 16L);
+      Assertions.assertEquals(0L, reader.offsetCurrentRelative());
+    }
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final var map = channel.map(FileChannel.MapMode.READ_ONLY, 0L, 4096L);
+      try (var reader = readers.createReaderFromByteBuffer(URI.create("urn:fake"), map, "a")) {
+        Assertions.assertFalse(((BSSReaderByteBuffer) reader).isFileMapping());
+      }
+    }
+  }
+
+  @Test
+  public void testPrefetchHeap()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    final var stream = ByteBuffer.wrap(new byte[] {0x10, 0x20});
+
+    try (var reader = readers.createReaderFromByteBuffer(URI.create("urn:fake"), stream, "a")) {
+      reader.prefetch(0L, 2L);
+      Assertions.assertEquals(0L, reader.offsetCurrentRelative());
+      Assertions.assertEquals(0x10, reader.readU8());
+    }
+  }
+
+  @Test
+  public void testPrefetchClosed()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    final var stream = ByteBuffer.wrap(new byte[2]);
+
+    final var reader =
+      readers.createReaderFromByteBuffer(URI.create("urn:fake"), stream, "a");
+    reader.close();
+    Assertions.assertThrows(IOException.class, () -> reader.prefetch(0L, 2L));
+  }
 }
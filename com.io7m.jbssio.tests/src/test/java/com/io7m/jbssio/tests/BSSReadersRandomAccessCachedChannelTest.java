@@ -0,0 +1,363 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSBlockCacheType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.internal.BSSBlockCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSReadersRandomAccessCachedChannelTest
+  extends BSSReadersRandomAccessChannelContract<FileChannel>
+{
+  private BSSReaders readers;
+  private BSSBlockCacheType cache;
+
+  @BeforeEach
+  public void cacheSetup()
+  {
+    this.readers = new BSSReaders();
+
+    /*
+     * A deliberately awkward block size ensures that most values straddle
+     * block boundaries.
+     */
+
+    this.cache = this.readers.createBlockCache(7, 7L * 4L);
+  }
+
+  @Override
+  protected FileChannel channelOf(final byte[] data)
+    throws IOException
+  {
+    final var path = Files.createTempFile("jbssio-readers-", ".dat");
+    Files.write(path, data);
+    return FileChannel.open(path, StandardOpenOption.READ);
+  }
+
+  @Override
+  protected BSSReaderRandomAccessType readerOf(
+    final FileChannel channel)
+    throws IOException
+  {
+    this.cache.clear();
+    return this.readers.createReaderFromChannelCached(
+      URI.create("urn:fake"),
+      channel,
+      "a",
+      OptionalLong.of(channel.size()),
+      this.cache
+    );
+  }
+
+  @Override
+  protected BSSReaderRandomAccessType readerUnboundedOf(
+    final FileChannel channel)
+    throws IOException
+  {
+    this.cache.clear();
+    return this.readers.createReaderFromChannelCached(
+      URI.create("urn:fake"),
+      channel,
+      "a",
+      OptionalLong.empty(),
+      this.cache
+    );
+  }
+
+  private static byte[] sequence(
+    final int size)
+  {
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = (byte) index;
+    }
+    return data;
+  }
+
+  /**
+   * Repeated reads of the same data are served from the cache.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testCacheHits()
+    throws IOException
+  {
+    try (var channel = this.channelOf(sequence(14))) {
+      try (var reader = this.readerOf(channel)) {
+        for (int index = 0; index < 14; ++index) {
+          assertEquals(index, reader.readU8());
+        }
+        reader.seekTo(0L);
+        for (int index = 0; index < 14; ++index) {
+          assertEquals(index, reader.readU8());
+        }
+      }
+    }
+
+    final var stats = this.cache.statistics();
+    assertEquals(2L, stats.misses());
+    assertEquals(26L, stats.hits());
+    assertEquals(2L, stats.blocksResident());
+    assertEquals(14L, stats.octetsResident());
+    assertEquals(0L, stats.evictions());
+    assertEquals(26.0 / 28.0, stats.hitRatio(), 0.000001);
+  }
+
+  /**
+   * Readers with the same URI share blocks even over different channels.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testCacheSharedByURI()
+    throws IOException
+  {
+    final var data = sequence(7);
+    try (var channel0 = this.channelOf(data);
+         var channel1 = this.channelOf(data)) {
+      try (var reader0 = this.readerOf(channel0);
+           var reader1 = this.readers.createReaderFromChannelCached(
+             URI.create("urn:fake"),
+             channel1,
+             "b",
+             OptionalLong.empty(),
+             this.cache)) {
+        assertEquals(0x00010203L, reader0.readU32BE());
+        assertEquals(0x00010203L, reader1.readU32BE());
+      }
+    }
+
+    final var stats = this.cache.statistics();
+    assertEquals(1L, stats.misses());
+    assertEquals(1L, stats.hits());
+  }
+
+  /**
+   * The cache evicts least recently used blocks to stay within capacity.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testCacheEviction()
+    throws IOException
+  {
+    try (var channel = this.channelOf(sequence(7 * 16))) {
+      try (var reader = this.readerOf(channel)) {
+        for (int index = 0; index < 7 * 16; ++index) {
+          assertEquals(index, reader.readU8());
+        }
+      }
+    }
+
+    final var stats = this.cache.statistics();
+    assertEquals(16L, stats.misses());
+    assertTrue(stats.octetsResident() <= this.cache.capacity());
+    assertEquals(16L - stats.blocksResident(), stats.evictions());
+  }
+
+  /**
+   * Invalidating a source discards its blocks.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testCacheInvalidate()
+    throws IOException
+  {
+    try (var channel = this.channelOf(sequence(14))) {
+      try (var reader = this.readerOf(channel)) {
+        reader.readU32BE();
+        this.cache.invalidate(URI.create("urn:other"));
+        assertEquals(1L, this.cache.statistics().blocksResident());
+        this.cache.invalidate(URI.create("urn:fake"));
+        assertEquals(0L, this.cache.statistics().blocksResident());
+        assertEquals(0L, this.cache.statistics().octetsResident());
+        reader.seekTo(0L);
+        assertEquals(0x00010203L, reader.readU32BE());
+        assertEquals(2L, this.cache.statistics().misses());
+      }
+    }
+  }
+
+  /**
+   * Blocks claimed before their source is invalidated, or before the cache
+   * is cleared, are not retained when their loads complete.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testCacheInvalidateDuringLoad()
+    throws IOException
+  {
+    final var source = URI.create("urn:fake");
+    final var blocks = BSSBlockCache.create(7, 7L * 4L);
+    final var data = new byte[7];
+
+    assertNull(blocks.lookupOrClaim(source, 0L));
+    blocks.invalidate(source);
+    blocks.complete(source, 0L, data, 0, 7, true);
+    assertFalse(blocks.contains(source, 0L));
+
+    assertEquals(2, blocks.claimRun(source, 1L, 2));
+    blocks.clear();
+    blocks.complete(source, 1L, data, 0, 7, true);
+    blocks.complete(source, 2L, data, 0, 7, true);
+    assertEquals(0L, blocks.statistics().blocksResident());
+
+    assertNull(blocks.lookupOrClaim(source, 0L));
+    blocks.invalidate(URI.create("urn:other"));
+    blocks.complete(source, 0L, data, 0, 7, true);
+    assertTrue(blocks.contains(source, 0L));
+  }
+
+  /**
+   * Cached readers can be used from many threads at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCacheConcurrent()
+    throws Exception
+  {
+    final var data = new byte[4096 * 8];
+    for (int index = 0; index < data.length; index += 4) {
+      final var value = index / 4;
+      data[index] = (byte) (value >>> 24);
+      data[index + 1] = (byte) (value >>> 16);
+      data[index + 2] = (byte) (value >>> 8);
+      data[index + 3] = (byte) value;
+    }
+
+    final var sharedCache = this.readers.createBlockCache(512, 8192L);
+    try (var channel = this.channelOf(data)) {
+      try (var reader = this.readers.createReaderFromChannelCached(
+        URI.create("urn:fake"),
+        channel,
+        "a",
+        OptionalLong.empty(),
+        sharedCache)) {
+        final var failure = new AtomicReference<Throwable>();
+        final var threads = new ArrayList<Thread>();
+        for (int thread = 0; thread < 8; ++thread) {
+          final var sub = reader.createSubReaderAtBounded("t", 0L, 4096L * 8L);
+          threads.add(Thread.ofPlatform().start(() -> {
+            try {
+              for (int pass = 0; pass < 4; ++pass) {
+                sub.seekTo(0L);
+                for (long index = 0L; index < 8192L; ++index) {
+                  assertEquals(index, sub.readU32BE());
+                }
+              }
+            } catch (final Throwable e) {
+              failure.compareAndSet(null, e);
+            }
+          }));
+        }
+        for (final var thread : threads) {
+          thread.join();
+        }
+        assertNull(failure.get());
+      }
+    }
+
+    assertTrue(sharedCache.statistics().octetsResident() <= 8192L);
+  }
+
+  /**
+   * Invalid caches are rejected.
+   */
+
+  @Test
+  public void testCacheInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.readers.createBlockCache(0, 100L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.readers.createBlockCache(100, 99L);
+    });
+  }
+
+  /**
+   * Prefetching loads the blocks covered by a range in the background
+   * without counting hits or misses, and later reads are served from the
+   * cache.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetch()
+    throws Exception
+  {
+    try (var channel = this.channelOf(sequence(21))) {
+      try (var reader = this.readerOf(channel)) {
+        try (var sub = reader.createSubReaderAtBounded("s", 7L, 14L)) {
+          sub.prefetch(0L, 100L);
+          sub.prefetch(14L, 1L);
+          assertEquals(0L, sub.offsetCurrentRelative());
+
+          final var deadline = System.nanoTime() + 10_000_000_000L;
+          while (this.cache.statistics().blocksResident() < 2L) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1L);
+          }
+
+          var stats = this.cache.statistics();
+          assertEquals(0L, stats.hits());
+          assertEquals(0L, stats.misses());
+          assertEquals(2L, stats.blocksResident());
+
+          for (int index = 7; index < 21; ++index) {
+            assertEquals(index, sub.readU8());
+          }
+
+          stats = this.cache.statistics();
+          assertEquals(14L, stats.hits());
+          assertEquals(0L, stats.misses());
+          assertEquals(2L, stats.blocksResident());
+        }
+      }
+    }
+  }
+}
@@ -829,6 +829,61 @@ public abstract class BSSReadersRandomAccessChannelContract<T extends Channel>
     }
   }
 
+  @Test
+  public void testReadBytesOffset()
+    throws Exception
+  {
+    final var data = new byte[32];
+    for (var index = 0; index < data.length; ++index) {
+      data[index] = (byte) index;
+    }
+
+    final var buffer = new byte[8];
+    final var channel = this.channelOf(data);
+    try (var reader = this.readerOf(channel)) {
+      reader.seekTo(4L);
+      Assertions.assertEquals(4, reader.readBytes(buffer, 2, 4));
+      Assertions.assertArrayEquals(
+        new byte[]{0, 0, 4, 5, 6, 7, 0, 0},
+        buffer);
+      Assertions.assertEquals(8L, reader.offsetCurrentRelative());
+    }
+  }
+
+  @Test
+  public void testReadBytesByteBuffer()
+    throws Exception
+  {
+    final var data = new byte[32];
+    for (var index = 0; index < data.length; ++index) {
+      data[index] = (byte) index;
+    }
+
+    final var heap = ByteBuffer.allocate(16);
+    final var direct = ByteBuffer.allocateDirect(24);
+    direct.position(4);
+    direct.limit(20);
+
+    final var channel = this.channelOf(data);
+    try (var reader = this.readerOf(channel)) {
+      Assertions.assertEquals(16, reader.readBytes(heap));
+      Assertions.assertEquals(16, heap.position());
+      Assertions.assertEquals(16L, reader.bytesRemaining().getAsLong());
+      Assertions.assertEquals(16, reader.readBytes("q", direct));
+      Assertions.assertEquals(20, direct.position());
+      Assertions.assertEquals(0L, reader.bytesRemaining().getAsLong());
+
+      for (var index = 0; index < 16; ++index) {
+        Assertions.assertEquals(data[index], heap.get(index));
+        Assertions.assertEquals(data[index + 16], direct.get(index + 4));
+      }
+
+      Assertions.assertThrows(
+        IOException.class,
+        () -> reader.readBytes(ByteBuffer.allocate(1)));
+    }
+  }
+
   @Test
   public void testReadS8Named()
     throws Exception
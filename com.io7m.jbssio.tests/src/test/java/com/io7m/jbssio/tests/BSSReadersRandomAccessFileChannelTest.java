@@ -18,12 +18,18 @@ package com.io7m.jbssio.tests;
 
 import com.io7m.jbssio.api.BSSReaderRandomAccessType;
 import com.io7m.jbssio.vanilla.BSSReaders;
+import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public final class BSSReadersRandomAccessFileChannelTest
   extends BSSReadersRandomAccessChannelContract<FileChannel>
@@ -54,4 +60,76 @@ public final class BSSReadersRandomAccessFileChannelTest
     return new BSSReaders()
       .createReaderFromChannel(URI.create("urn:fake"), channel, "a");
   }
+
+  /**
+   * Reads on file channels are positional, and do not disturb the position
+   * of the channel.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testPositionalReadsPreserveChannelPosition()
+    throws IOException
+  {
+    final var data = new byte[64];
+    for (int index = 0; index < data.length; ++index) {
+      data[index] = (byte) index;
+    }
+
+    try (var channel = this.channelOf(data)) {
+      channel.position(17L);
+      try (var reader = this.readerOf(channel)) {
+        reader.seekTo(32L);
+        assertEquals(32, reader.readU8());
+        assertEquals(0x2122_2324L, reader.readU32BE());
+        assertEquals(17L, channel.position());
+      }
+    }
+  }
+
+  /**
+   * Sub-readers over a file channel can read concurrently.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testConcurrentSubReaders()
+    throws Exception
+  {
+    final var data = new byte[4096 * 8];
+    for (int index = 0; index < data.length; index += 4) {
+      final var value = index / 4;
+      data[index] = (byte) (value >>> 24);
+      data[index + 1] = (byte) (value >>> 16);
+      data[index + 2] = (byte) (value >>> 8);
+      data[index + 3] = (byte) value;
+    }
+
+    try (var channel = this.channelOf(data)) {
+      try (var reader = this.readerOf(channel)) {
+        final var failure = new AtomicReference<Throwable>();
+        final var threads = new ArrayList<Thread>();
+        for (int thread = 0; thread < 8; ++thread) {
+          final var sub =
+            reader.createSubReaderAtBounded("t" + thread, thread * 4096L, 4096L);
+          final var base = thread * 1024L;
+          threads.add(Thread.ofPlatform().start(() -> {
+            try {
+              for (long index = 0L; index < 1024L; ++index) {
+                assertEquals(base + index, sub.readU32BE());
+              }
+            } catch (final Throwable e) {
+              failure.compareAndSet(null, e);
+            }
+          }));
+        }
+        for (final var thread : threads) {
+          thread.join();
+        }
+        assertNull(failure.get());
+      }
+    }
+  }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSReadAheadType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.vanilla.BSSBufferPools;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSReadersRandomAccessReadAheadChannelTest
+  extends BSSReadersRandomAccessChannelContract<FileChannel>
+{
+  private BSSReaders readers;
+  private BSSReadAheadType readAhead;
+
+  @BeforeEach
+  public void readAheadSetup()
+  {
+    this.readers = new BSSReaders();
+    this.readAhead = this.readers.createReadAhead(4, 32);
+  }
+
+  @Override
+  protected FileChannel channelOf(final byte[] data)
+    throws IOException
+  {
+    final var path = Files.createTempFile("jbssio-readers-", ".dat");
+    Files.write(path, data);
+    return FileChannel.open(path, StandardOpenOption.READ);
+  }
+
+  @Override
+  protected BSSReaderRandomAccessType readerOf(
+    final FileChannel channel)
+    throws IOException
+  {
+    return this.readers.createReaderFromChannelReadAhead(
+      URI.create("urn:fake"),
+      channel,
+      "a",
+      OptionalLong.of(channel.size()),
+      this.readAhead
+    );
+  }
+
+  @Override
+  protected BSSReaderRandomAccessType readerUnboundedOf(
+    final FileChannel channel)
+    throws IOException
+  {
+    return this.readers.createReaderFromChannelReadAhead(
+      URI.create("urn:fake"),
+      channel,
+      "a",
+      OptionalLong.empty(),
+      this.readAhead
+    );
+  }
+
+  private static byte[] sequence(
+    final int size)
+  {
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = (byte) index;
+    }
+    return data;
+  }
+
+  /**
+   * Sequential scans grow the window and are mostly served from it.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testSequentialScan()
+    throws IOException
+  {
+    this.readAhead = this.readers.createReadAhead(16, 1024);
+
+    try (var channel = this.channelOf(sequence(8192))) {
+      try (var reader = this.readerOf(channel)) {
+        for (int index = 0; index < 8192; ++index) {
+          assertEquals(index & 0xff, reader.readU8());
+        }
+      }
+    }
+
+    final var stats = this.readAhead.statistics();
+    assertEquals(8192L, stats.reads());
+    assertEquals(8192L, stats.octetsRequested());
+    assertEquals(8192L, stats.octetsFetched());
+    assertEquals(1L, stats.randomMisses());
+    assertEquals(1L, stats.directReads());
+    assertTrue(stats.fills() < 16L, "Fills %d".formatted(stats.fills()));
+    assertTrue(stats.hitRatio() > 0.99);
+  }
+
+  /**
+   * Random lookups shrink the window so that only requested octets are read.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testRandomLookups()
+    throws IOException
+  {
+    this.readAhead = this.readers.createReadAhead(16, 1024);
+
+    final var random = new SplittableRandom(0x5eedL);
+    try (var channel = this.channelOf(sequence(1 << 20))) {
+      try (var reader = this.readerOf(channel)) {
+        for (int index = 0; index < 1000; ++index) {
+          final var offset = random.nextLong(0L, (1L << 20) - 4L) & ~3L;
+          reader.seekTo(offset);
+          reader.readU32BE();
+        }
+      }
+    }
+
+    final var stats = this.readAhead.statistics();
+    assertEquals(1000L, stats.reads());
+    assertEquals(1000L, stats.directReads());
+    assertEquals(0L, stats.fills());
+    assertEquals(1.0, stats.amplification(), 0.000001);
+  }
+
+  /**
+   * Windows adapt when the pattern changes from random to sequential.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testRandomThenSequential()
+    throws IOException
+  {
+    this.readAhead = this.readers.createReadAhead(16, 1024);
+
+    try (var channel = this.channelOf(sequence(65536))) {
+      try (var reader = this.readerOf(channel)) {
+        reader.seekTo(60000L);
+        reader.readU32BE();
+        reader.seekTo(100L);
+        reader.readU32BE();
+        reader.seekTo(30000L);
+        for (int index = 0; index < 4096; ++index) {
+          assertEquals((30000 + index) & 0xff, reader.readU8());
+        }
+      }
+    }
+
+    final var stats = this.readAhead.statistics();
+    assertTrue(stats.hitRatio() > 0.95);
+    assertTrue(stats.amplification() < 1.3);
+  }
+
+  /**
+   * Window buffers are drawn from the pool and returned on close.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testPooledWindows()
+    throws IOException
+  {
+    final var pool = BSSBufferPools.create(1L << 20);
+    final var pooled = new BSSReaders(pool);
+    final var policy = pooled.createReadAhead(64, 256);
+
+    try (var channel = this.channelOf(sequence(4096))) {
+      try (var reader = pooled.createReaderFromChannelReadAhead(
+        URI.create("urn:fake"), channel, "a", OptionalLong.empty(), policy)) {
+        for (int index = 0; index < 4096; ++index) {
+          assertEquals(index & 0xff, reader.readU8());
+        }
+      }
+    }
+
+    final var stats = pool.statistics();
+    assertEquals(stats.acquisitions(), stats.releases());
+    assertTrue(stats.acquisitions() > 1L);
+  }
+
+  /**
+   * Invalid policies are rejected.
+   */
+
+  @Test
+  public void testReadAheadInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.readers.createReadAhead(0, 100);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.readers.createReadAhead(100, 99);
+    });
+  }
+}
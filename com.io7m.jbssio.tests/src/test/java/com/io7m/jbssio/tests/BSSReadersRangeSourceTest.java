@@ -0,0 +1,418 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSBlockCacheStatistics;
+import com.io7m.jbssio.api.BSSBlockCacheType;
+import com.io7m.jbssio.vanilla.BSSRangeSourceSimulated;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.internal.BSSBlockCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSReadersRangeSourceTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+  private static final int BLOCK_SIZE = 16;
+
+  private BSSReaders readers;
+  private BSSBlockCacheType cache;
+  private BSSRangeSourceSimulated source;
+  private byte[] data;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.readers = new BSSReaders();
+    this.cache = this.readers.createBlockCache(BLOCK_SIZE, 1024L);
+    this.data = new byte[200];
+    for (int index = 0; index < this.data.length; ++index) {
+      this.data[index] = (byte) index;
+    }
+    this.source =
+      BSSRangeSourceSimulated.create(ByteBuffer.wrap(this.data), Duration.ZERO);
+  }
+
+  /**
+   * A read that spans several blocks that are not resident is served with
+   * a single request, and reading the same bytes again makes no requests.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSpanCoalesced()
+    throws Exception
+  {
+    try (var reader = this.readers.createReaderFromRangeSource(
+      URI_FAKE, this.source, "a", this.cache)) {
+      assertEquals(OptionalLong.of(200L), reader.bytesRemaining());
+
+      reader.seekTo(3L);
+      final var bytes = new byte[100];
+      assertEquals(100, reader.readBytes(bytes));
+      assertArrayEquals(slice(this.data, 3, 100), bytes);
+      assertEquals(1L, this.source.requests());
+      assertEquals(112L, this.source.octets());
+
+      reader.seekTo(3L);
+      assertEquals(100, reader.readBytes(bytes));
+      assertArrayEquals(slice(this.data, 3, 100), bytes);
+      assertEquals(1L, this.source.requests());
+    }
+  }
+
+  /**
+   * Values of all sizes, including those that cross block boundaries, are
+   * read correctly, and the final short block is handled.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testValues()
+    throws Exception
+  {
+    final var expected =
+      ByteBuffer.wrap(this.data).order(ByteOrder.BIG_ENDIAN);
+
+    try (var reader = this.readers.createReaderFromRangeSource(
+      URI_FAKE, this.source, "a", this.cache)) {
+      reader.seekTo(13L);
+      assertEquals(expected.getInt(13) & 0xffffffffL, reader.readU32BE());
+      reader.seekTo(30L);
+      assertEquals(expected.getLong(30), reader.readS64BE());
+      reader.seekTo(198L);
+      assertEquals(expected.getShort(198) & 0xffff, reader.readU16BE());
+      assertThrows(IOException.class, reader::readU8);
+    }
+  }
+
+  /**
+   * A read over a partially resident span fetches only the runs of blocks
+   * that are missing, with one request per run.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPartiallyResident()
+    throws Exception
+  {
+    try (var reader = this.readers.createReaderFromRangeSource(
+      URI_FAKE, this.source, "a", this.cache)) {
+
+      /*
+       * Make blocks 2 and 3 resident.
+       */
+
+      reader.seekTo(32L);
+      reader.readBytes(new byte[32]);
+      assertEquals(1L, this.source.requests());
+
+      /*
+       * Blocks 0-1 and 4-6 are then fetched with one request each.
+       */
+
+      reader.seekTo(0L);
+      final var bytes = new byte[112];
+      assertEquals(112, reader.readBytes(bytes));
+      assertArrayEquals(slice(this.data, 0, 112), bytes);
+      assertEquals(3L, this.source.requests());
+      assertEquals(112L, this.source.octets());
+    }
+  }
+
+  /**
+   * Prefetching a span that is not resident issues a single request.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchCoalesced()
+    throws Exception
+  {
+    final var blockCache = (BSSBlockCache) this.cache;
+
+    try (var reader = this.readers.createReaderFromRangeSource(
+      URI_FAKE, this.source, "a", this.cache)) {
+      reader.prefetch(0L, 80L);
+
+      final var deadline = System.nanoTime() + 10_000_000_000L;
+      while (!blockCache.contains(URI_FAKE, 4L)) {
+        assertTrue(System.nanoTime() < deadline, "Prefetch timed out");
+        Thread.sleep(1L);
+      }
+
+      assertEquals(1L, this.source.requests());
+      assertEquals(80L, this.source.octets());
+
+      reader.seekTo(0L);
+      final var bytes = new byte[80];
+      reader.readBytes(bytes);
+      assertArrayEquals(slice(this.data, 0, 80), bytes);
+      assertEquals(1L, this.source.requests());
+    }
+  }
+
+  /**
+   * A read that is far larger than the cache fetches each octet exactly
+   * once, with a single request, rather than refetching blocks that the
+   * cache could not retain.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLargeReadSmallCache()
+    throws Exception
+  {
+    final var large = new byte[4096];
+    for (int index = 0; index < large.length; ++index) {
+      large[index] = (byte) (index * 7);
+    }
+
+    final var smallCache =
+      this.readers.createBlockCache(BLOCK_SIZE, BLOCK_SIZE * 4L);
+
+    try (var largeSource = BSSRangeSourceSimulated.create(
+      ByteBuffer.wrap(large), Duration.ZERO)) {
+      try (var reader = this.readers.createReaderFromRangeSource(
+        URI_FAKE, largeSource, "a", smallCache)) {
+        final var bytes = new byte[large.length];
+        assertEquals(large.length, reader.readBytes(bytes));
+        assertArrayEquals(large, bytes);
+        assertEquals(1L, largeSource.requests());
+        assertEquals(4096L, largeSource.octets());
+        assertTrue(smallCache.statistics().octetsResident() <= 64L);
+
+        /*
+         * The retained blocks at the start of the run are served from the
+         * cache.
+         */
+
+        reader.seekTo(0L);
+        assertEquals(16, reader.readBytes(new byte[16]));
+        assertEquals(1L, largeSource.requests());
+      }
+    }
+  }
+
+  /**
+   * Readers that miss on the same block at the same time wait for a single
+   * load of that block rather than each reading it.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testConcurrentMissesDeduplicated()
+    throws Exception
+  {
+    try (var latent = BSSRangeSourceSimulated.create(
+      ByteBuffer.wrap(this.data), Duration.ofMillis(200L))) {
+      try (var reader = this.readers.createReaderFromRangeSource(
+        URI_FAKE, latent, "a", this.cache)) {
+        final var failure = new AtomicReference<Throwable>();
+        final var threads = new ArrayList<Thread>();
+        for (int thread = 0; thread < 8; ++thread) {
+          final var sub = reader.createSubReaderAtBounded("t", 0L, 16L);
+          threads.add(Thread.ofPlatform().start(() -> {
+            try {
+              final var bytes = new byte[16];
+              assertEquals(16, sub.readBytes(bytes));
+              assertArrayEquals(slice(this.data, 0, 16), bytes);
+            } catch (final Throwable e) {
+              failure.compareAndSet(null, e);
+            }
+          }));
+        }
+        for (final var thread : threads) {
+          thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(1L, latent.requests());
+        assertEquals(16L, latent.octets());
+      }
+    }
+  }
+
+  /**
+   * Prefetching a span larger than the cache fetches no more than the
+   * cache can hold.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchClampedToCapacity()
+    throws Exception
+  {
+    final var blockCache = (BSSBlockCache) this.cache;
+    final var large = new byte[4096];
+
+    try (var largeSource = BSSRangeSourceSimulated.create(
+      ByteBuffer.wrap(large), Duration.ZERO)) {
+      try (var reader = this.readers.createReaderFromRangeSource(
+        URI_FAKE, largeSource, "a", this.cache)) {
+        reader.prefetch(0L, 4096L);
+
+        final var deadline = System.nanoTime() + 10_000_000_000L;
+        while (!blockCache.contains(URI_FAKE, 31L)
+          || !blockCache.contains(URI_FAKE, 63L)) {
+          assertTrue(System.nanoTime() < deadline, "Prefetch timed out");
+          Thread.sleep(1L);
+        }
+        Thread.sleep(100L);
+
+        assertEquals(2L, largeSource.requests());
+        assertEquals(1024L, largeSource.octets());
+        assertTrue(blockCache.contains(URI_FAKE, 0L));
+        assertFalse(blockCache.contains(URI_FAKE, 64L));
+      }
+    }
+  }
+
+  /**
+   * Block caches from other providers are rejected.
+   */
+
+  @Test
+  public void testForeignCache()
+  {
+    final var foreign = new BSSBlockCacheType()
+    {
+      @Override
+      public int blockSize()
+      {
+        return BLOCK_SIZE;
+      }
+
+      @Override
+      public long capacity()
+      {
+        return 1024L;
+      }
+
+      @Override
+      public BSSBlockCacheStatistics statistics()
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void invalidate(final URI uri)
+      {
+
+      }
+
+      @Override
+      public void clear()
+      {
+
+      }
+    };
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.readers.createReaderFromRangeSource(
+        URI_FAKE, this.source, "a", foreign);
+    });
+  }
+
+  /**
+   * Closing the reader closes the source.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCloseClosesSource()
+    throws Exception
+  {
+    final var reader =
+      this.readers.createReaderFromRangeSource(
+        URI_FAKE, this.source, "a", this.cache);
+    assertFalse(this.source.isClosed());
+    reader.close();
+    assertTrue(this.source.isClosed());
+    assertThrows(ClosedChannelException.class, this.source::size);
+  }
+
+  /**
+   * The simulated source waits for its latency, and rejects ranges beyond
+   * its data.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSimulatedSource()
+    throws Exception
+  {
+    try (var latent = BSSRangeSourceSimulated.create(
+      ByteBuffer.wrap(this.data), Duration.ofMillis(20L))) {
+      final var target = ByteBuffer.allocate(10);
+      final var time = System.nanoTime();
+      latent.read(190L, 10, target);
+      assertTrue(System.nanoTime() - time >= 20_000_000L);
+      assertArrayEquals(slice(this.data, 190, 10), target.array());
+
+      assertThrows(EOFException.class, () -> {
+        latent.read(195L, 10, ByteBuffer.allocate(10));
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        latent.read(0L, 10, ByteBuffer.allocate(5));
+      });
+      assertEquals(1L, latent.requests());
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      BSSRangeSourceSimulated.create(
+        ByteBuffer.allocate(1), Duration.ofMillis(-1L));
+    });
+  }
+
+  private static byte[] slice(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    final var result = new byte[length];
+    System.arraycopy(data, offset, result, 0, length);
+    return result;
+  }
+}
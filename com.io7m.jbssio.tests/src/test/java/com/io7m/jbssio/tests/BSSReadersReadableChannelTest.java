@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2019 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSCompression;
+import com.io7m.jbssio.api.BSSReaderSequentialType;
+import com.io7m.jbssio.vanilla.BSSReaders;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSReadersReadableChannelTest
+{
+  private static final Logger LOG = LoggerFactory.getLogger(
+    BSSReadersReadableChannelTest.class);
+
+  private static void checkExceptionMessageContains(
+    final Exception e,
+    final String text)
+  {
+    LOG.debug("ex: ", e);
+    assertTrue(
+      e.getMessage().contains(text),
+      "Exception message " + e.getMessage() + " contains " + text);
+  }
+
+  private static ReadableByteChannel channelOf(
+    final byte[] data)
+  {
+    return Channels.newChannel(new ByteArrayInputStream(data));
+  }
+
+  private static byte[] sequentialData(
+    final int size)
+  {
+    final var data = new byte[size];
+    for (var index = 0; index < size; ++index) {
+      data[index] = (byte) index;
+    }
+    return data;
+  }
+
+  @Test
+  public void testEmptyChannel()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(new byte[0]),
+      "a")) {
+      Assertions.assertEquals(0L, reader.offsetCurrentAbsolute());
+      Assertions.assertEquals(0L, reader.offsetCurrentRelative());
+      Assertions.assertEquals(OptionalLong.empty(), reader.bytesRemaining());
+      Assertions.assertThrows(EOFException.class, reader::readU8);
+    }
+  }
+
+  @Test
+  public void testNames()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(sequentialData(4)),
+      "a")) {
+      Assertions.assertEquals("a", reader.path());
+
+      try (var s0 = reader.createSubReader("x")) {
+        Assertions.assertEquals("a/x", s0.path());
+        try (var s1 = s0.createSubReader("y")) {
+          Assertions.assertEquals("a/x/y", s1.path());
+          try (var s2 = s1.createSubReader("z")) {
+            Assertions.assertEquals("a/x/y/z", s2.path());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPrimitives()
+    throws Exception
+  {
+    final var expected = ByteBuffer.allocate(64);
+    expected.put((byte) -1);
+    expected.put((byte) 0xfe);
+    expected.order(ByteOrder.BIG_ENDIAN);
+    expected.putShort((short) 0x1234);
+    expected.putInt(0x12345678);
+    expected.putLong(0x123456789abcdef0L);
+    expected.putFloat(1.5f);
+    expected.putDouble(2.5);
+    expected.order(ByteOrder.LITTLE_ENDIAN);
+    expected.putShort((short) 0x1234);
+    expected.putInt(0x12345678);
+    expected.putLong(0x123456789abcdef0L);
+    expected.putFloat(1.5f);
+    expected.putDouble(2.5);
+
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(expected.array()),
+      "a")) {
+      Assertions.assertEquals(-1, reader.readS8());
+      Assertions.assertEquals(0xfe, reader.readU8("u8"));
+      Assertions.assertEquals(0x1234, reader.readU16BE());
+      Assertions.assertEquals(0x12345678L, reader.readU32BE("u32"));
+      Assertions.assertEquals(0x123456789abcdef0L, reader.readS64BE());
+      Assertions.assertEquals(1.5f, reader.readF32BE());
+      Assertions.assertEquals(2.5, reader.readD64BE("d64"));
+      Assertions.assertEquals(0x1234, reader.readS16LE());
+      Assertions.assertEquals(0x12345678L, reader.readS32LE("s32"));
+      Assertions.assertEquals(0x123456789abcdef0L, reader.readU64LE());
+      Assertions.assertEquals(1.5f, reader.readF32LE("f32"));
+      Assertions.assertEquals(2.5, reader.readD64LE());
+      Assertions.assertEquals(expected.position(), reader.offsetCurrentAbsolute());
+    }
+  }
+
+  @Test
+  public void testSeparateLimits()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(sequentialData(12)),
+      "a")) {
+      Assertions.assertEquals(0L, reader.offsetCurrentAbsolute());
+
+      try (var s = reader.createSubReaderBounded("x", 4L)) {
+        Assertions.assertEquals(0L, s.offsetCurrentRelative());
+        Assertions.assertEquals(OptionalLong.of(4L), s.bytesRemaining());
+        Assertions.assertEquals(0x00010203L, s.readU32BE());
+        Assertions.assertEquals(OptionalLong.of(0L), s.bytesRemaining());
+        Assertions.assertThrows(IOException.class, s::readU8);
+      }
+
+      Assertions.assertEquals(4L, reader.offsetCurrentAbsolute());
+
+      try (var s = reader.createSubReaderBounded("y", 4L)) {
+        Assertions.assertEquals(0L, s.offsetCurrentRelative());
+        Assertions.assertEquals(4L, s.offsetCurrentAbsolute());
+        Assertions.assertEquals(0x04050607L, s.readU32BE());
+      }
+
+      Assertions.assertEquals(8L, reader.offsetCurrentAbsolute());
+    }
+  }
+
+  @Test
+  public void testSeparateLimitsExceeds()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannelBounded(
+      URI.create("urn:fake"),
+      channelOf(sequentialData(12)),
+      "a",
+      4L)) {
+      final var ex =
+        Assertions.assertThrows(
+          IOException.class,
+          () -> reader.createSubReaderBounded("x", 5L));
+      checkExceptionMessageContains(ex, "Size limit           : 4");
+    }
+  }
+
+  @Test
+  public void testParentLimitApplies()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannelBounded(
+      URI.create("urn:fake"),
+      channelOf(sequentialData(12)),
+      "a",
+      4L)) {
+      reader.skip(2L);
+      try (var s = reader.createSubReaderBounded("x", 4L)) {
+        Assertions.assertEquals(0x0203, s.readU16BE());
+        Assertions.assertThrows(EOFException.class, s::readU8);
+      }
+    }
+  }
+
+  @Test
+  public void testSkipAlign()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(sequentialData(16)),
+      "a")) {
+      reader.skip(3L);
+      Assertions.assertEquals(3L, reader.offsetCurrentAbsolute());
+      reader.align(4);
+      Assertions.assertEquals(4L, reader.offsetCurrentAbsolute());
+      Assertions.assertEquals(4, reader.readU8());
+      reader.align(8);
+      Assertions.assertEquals(8, reader.readU8());
+      Assertions.assertThrows(IOException.class, () -> reader.skip(8L));
+    }
+  }
+
+  @Test
+  public void testReadShort()
+    throws Exception
+  {
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(sequentialData(3)),
+      "a")) {
+      final var ex =
+        Assertions.assertThrows(IOException.class, reader::readU32BE);
+      checkExceptionMessageContains(ex, "Short read.");
+    }
+  }
+
+  @Test
+  public void testReadBytesLarge()
+    throws Exception
+  {
+    final var data = sequentialData(300_000);
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(data),
+      "a")) {
+      checkLargeRead(data, reader);
+    }
+  }
+
+  @Test
+  public void testReadBytesLargeScattering()
+    throws Exception
+  {
+    final var data = sequentialData(300_000);
+    final var file = Files.createTempFile("bssio-", ".bin");
+    try {
+      Files.write(file, data);
+      final var readers = new BSSReaders();
+      try (var reader = readers.createReaderFromReadableChannel(
+        file.toUri(),
+        FileChannel.open(file, READ),
+        "a")) {
+        checkLargeRead(data, reader);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testReadBytesByteBuffer()
+    throws Exception
+  {
+    final var data = sequentialData(100_000);
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channelOf(data),
+      "a")) {
+      final var small = ByteBuffer.allocateDirect(3);
+      Assertions.assertEquals(3, reader.readBytes(small));
+      Assertions.assertFalse(small.hasRemaining());
+
+      final var large = ByteBuffer.allocateDirect(99_997);
+      Assertions.assertEquals(99_997, reader.readBytes("q", large));
+      Assertions.assertFalse(large.hasRemaining());
+
+      for (var index = 0; index < 3; ++index) {
+        Assertions.assertEquals(data[index], small.get(index));
+      }
+      for (var index = 0; index < 99_997; ++index) {
+        Assertions.assertEquals(data[index + 3], large.get(index));
+      }
+
+      Assertions.assertThrows(
+        EOFException.class,
+        () -> reader.readBytes(ByteBuffer.allocate(1)));
+    }
+  }
+
+  private static void checkLargeRead(
+    final byte[] data,
+    final BSSReaderSequentialType reader)
+    throws IOException
+  {
+    Assertions.assertEquals(0x00, reader.readU8());
+
+    final var received = new byte[200_000];
+    Assertions.assertEquals(
+      199_990,
+      reader.readBytes(received, 10, 199_990));
+    for (var index = 0; index < 199_990; ++index) {
+      Assertions.assertEquals(data[index + 1], received[index + 10]);
+    }
+
+    Assertions.assertEquals(199_991L, reader.offsetCurrentAbsolute());
+    Assertions.assertEquals(data[199_991] & 0xff, reader.readU8());
+
+    final var tail = new byte[200_000];
+    Assertions.assertEquals(100_008, reader.readBytes(tail, 0, 200_000));
+    Assertions.assertEquals(data[299_999], tail[100_007]);
+    Assertions.assertThrows(EOFException.class, reader::readU8);
+  }
+
+  @Test
+  public void testCloseSubReaderLeavesChannelOpen()
+    throws Exception
+  {
+    final var channel = channelOf(sequentialData(8));
+    final var readers = new BSSReaders();
+    try (var reader = readers.createReaderFromReadableChannel(
+      URI.create("urn:fake"),
+      channel,
+      "a")) {
+      final var s = reader.createSubReader("x");
+      s.close();
+      Assertions.assertTrue(s.isClosed());
+      Assertions.assertTrue(channel.isOpen());
+      Assertions.assertThrows(ClosedChannelException.class, s::readU8);
+      Assertions.assertEquals(0, reader.readU8());
+    }
+    Assertions.assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void testNonBlockingChannelRejected()
+    throws Exception
+  {
+    final var pipe = Pipe.open();
+    try (var sink = pipe.sink(); var source = pipe.source()) {
+      source.configureBlocking(false);
+
+      final var readers = new BSSReaders();
+      Assertions.assertThrows(IllegalArgumentException.class, () -> {
+        readers.createReaderFromReadableChannel(
+          URI.create("urn:fake"), source, "a");
+      });
+      Assertions.assertThrows(IllegalArgumentException.class, () -> {
+        readers.createReaderFromReadableChannelBounded(
+          URI.create("urn:fake"), source, "a", 8L);
+      });
+      Assertions.assertThrows(IllegalArgumentException.class, () -> {
+        readers.createReaderFromReadableChannelCompressed(
+          URI.create("urn:fake"), source, "a", BSSCompression.gzip());
+      });
+
+      source.configureBlocking(true);
+      sink.write(ByteBuffer.wrap(sequentialData(8)));
+      sink.close();
+      try (var reader = readers.createReaderFromReadableChannelBounded(
+        URI.create("urn:fake"), source, "a", 8L)) {
+        Assertions.assertEquals(0, reader.readU8());
+      }
+    }
+  }
+}
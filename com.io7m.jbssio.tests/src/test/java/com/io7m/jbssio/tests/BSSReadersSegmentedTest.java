@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.vanilla.BSSReaders;
+import com.io7m.jbssio.vanilla.internal.BSSSegmentedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BSSReadersSegmentedTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+
+  private BSSReaders readers;
+  private List<Path> segments;
+  private byte[] data;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    this.readers = new BSSReaders();
+    this.data = new byte[16];
+    for (int index = 0; index < this.data.length; ++index) {
+      this.data[index] = (byte) index;
+    }
+
+    /*
+     * Segments of sizes 5, 0, 7, and 4.
+     */
+
+    final var sizes = new int[]{5, 0, 7, 4};
+    this.segments = new ArrayList<>();
+    var offset = 0;
+    for (int index = 0; index < sizes.length; ++index) {
+      final var path = directory.resolve("data.%03d".formatted(index));
+      final var bytes = new byte[sizes[index]];
+      System.arraycopy(this.data, offset, bytes, 0, bytes.length);
+      Files.write(path, bytes);
+      this.segments.add(path);
+      offset += sizes[index];
+    }
+  }
+
+  /**
+   * Segments are presented as one address space, and values that cross
+   * segment boundaries (including empty segments) are read correctly.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCrossingReads()
+    throws Exception
+  {
+    try (var reader = this.readers.createReaderFromSegmentFiles(
+      URI_FAKE, this.segments, "a", 2)) {
+      assertEquals(OptionalLong.of(16L), reader.bytesRemaining());
+
+      reader.seekTo(3L);
+      assertEquals(0x03040506L, reader.readU32BE());
+      reader.seekTo(8L);
+      assertEquals(0x08090a0b0c0d0e0fL, reader.readU64BE());
+
+      reader.seekTo(0L);
+      final var bytes = new byte[16];
+      assertEquals(16, reader.readBytes(bytes));
+      assertArrayEquals(this.data, bytes);
+      assertThrows(IOException.class, reader::readU8);
+
+      reader.seekTo(0L);
+      try (var sub = reader.createSubReaderAtBounded("b", 4L, 6L)) {
+        assertEquals(0x040506070809L, sub.readU32BE() << 16 | sub.readU16BE());
+      }
+    }
+  }
+
+  /**
+   * Segment files are opened lazily, and no more than the maximum number
+   * are held open.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOpenMaximum()
+    throws Exception
+  {
+    final var channel = BSSSegmentedChannel.fromPaths(this.segments, 2);
+    assertEquals(16L, channel.size());
+    assertEquals(0, channel.openCount());
+
+    final var target = ByteBuffer.allocate(1);
+    for (final var offset : new long[]{0L, 5L, 12L, 0L, 15L}) {
+      channel.position(offset);
+      assertEquals(1, channel.read(target.clear()));
+      assertEquals(this.data[(int) offset], target.get(0));
+      assertTrue(channel.openCount() <= 2);
+    }
+
+    channel.position(16L);
+    assertEquals(-1, channel.read(target.clear()));
+    assertThrows(NonWritableChannelException.class, () -> {
+      channel.write(target);
+    });
+
+    channel.close();
+    assertEquals(0, channel.openCount());
+    assertFalse(channel.isOpen());
+  }
+
+  /**
+   * Segment channels are closed with the reader.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannels()
+    throws Exception
+  {
+    final var channels = new ArrayList<FileChannel>();
+    for (final var path : this.segments) {
+      channels.add(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    try (var reader = this.readers.createReaderFromSegmentChannels(
+      URI_FAKE, channels, "a")) {
+      reader.seekTo(4L);
+      assertEquals(0x0504L, reader.readU16LE());
+    }
+
+    for (final var channel : channels) {
+      assertFalse(channel.isOpen());
+    }
+  }
+
+  /**
+   * Segments that shrink after the reader is created are detected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testTruncatedSegment()
+    throws Exception
+  {
+    try (var reader = this.readers.createReaderFromSegmentFiles(
+      URI_FAKE, this.segments, "a", 1)) {
+      Files.write(this.segments.get(2), new byte[3]);
+      reader.seekTo(4L);
+      assertThrows(IOException.class, reader::readU64BE);
+    }
+  }
+
+  /**
+   * The maximum number of open segments must be positive.
+   */
+
+  @Test
+  public void testOpenMaximumInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.readers.createReaderFromSegmentFiles(
+        URI_FAKE, this.segments, "a", 0);
+    });
+  }
+}
@@ -725,6 +725,39 @@ public final class BSSReadersSequentialTest
     }
   }
 
+  @Test
+  public void testReadBytesByteBuffer()
+    throws Exception
+  {
+    final var data = new byte[32];
+    for (var index = 0; index < data.length; ++index) {
+      data[index] = (byte) index;
+    }
+
+    final var heap = ByteBuffer.allocate(16);
+    final var direct = ByteBuffer.allocateDirect(16);
+
+    final var readers = new BSSReaders();
+    try (var stream = new ByteArrayInputStream(data)) {
+      try (var reader = readers.createReaderFromStreamBounded(URI.create(
+        "urn:fake"), stream, "a", 32L)) {
+        Assertions.assertEquals(16, reader.readBytes(heap));
+        Assertions.assertEquals(16, heap.position());
+        Assertions.assertEquals(16, reader.readBytes("q", direct));
+        Assertions.assertEquals(16, direct.position());
+
+        for (var index = 0; index < 16; ++index) {
+          Assertions.assertEquals(data[index], heap.get(index));
+          Assertions.assertEquals(data[index + 16], direct.get(index));
+        }
+
+        Assertions.assertThrows(
+          IOException.class,
+          () -> reader.readBytes(ByteBuffer.allocate(1)));
+      }
+    }
+  }
+
   @Test
   public void testReadS8Named()
     throws Exception
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -70,6 +71,15 @@ public final class BSSUnsupportedTest
         .readBytes("x", new byte[]{0x0}, 0, 1);
     });
 
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSReaderSequentialUnsupported()
+        .readBytes(ByteBuffer.allocate(1));
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSReaderSequentialUnsupported()
+        .readBytes("x", ByteBuffer.allocate(1));
+    });
+
     new BSSReaderSequentialUnsupported().close();
     assertEquals(Optional.empty(), new BSSReaderSequentialUnsupported().parentReader());
     assertFalse(new BSSReaderSequentialUnsupported().isClosed());
@@ -108,6 +118,15 @@ public final class BSSUnsupportedTest
         .createSubReaderAtBounded("x", 23L, 23L);
     });
 
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSReaderRandomAccessUnsupported()
+        .readBytes(ByteBuffer.allocate(1));
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSReaderRandomAccessUnsupported()
+        .readBytes("x", ByteBuffer.allocate(1));
+    });
+
     new BSSReaderRandomAccessUnsupported().close();
     assertEquals(Optional.empty(), new BSSReaderRandomAccessUnsupported().parentReader());
     assertFalse(new BSSReaderRandomAccessUnsupported().isClosed());
@@ -158,6 +177,15 @@ public final class BSSUnsupportedTest
         .padTo(0, (byte) 0);
     });
 
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSWriterSequentialUnsupported()
+        .writeBytes(ByteBuffer.allocate(1));
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSWriterSequentialUnsupported()
+        .writeBytes("x", ByteBuffer.allocate(1));
+    });
+
     new BSSWriterSequentialUnsupported().close();
     assertFalse(new BSSWriterSequentialUnsupported().isClosed());
   }
@@ -203,6 +231,15 @@ public final class BSSUnsupportedTest
         .writeBytes("x", new byte[]{0x0});
     });
 
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSWriterRandomAccessUnsupported()
+        .writeBytes(ByteBuffer.allocate(1));
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSWriterRandomAccessUnsupported()
+        .writeBytes("x", ByteBuffer.allocate(1));
+    });
+
     new BSSWriterRandomAccessUnsupported().close();
     assertFalse(new BSSWriterRandomAccessUnsupported().isClosed());
   }
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.vanilla.BSSBufferPools;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BSSWriteBehindTest
+{
+  private static byte[] sequence(
+    final int size)
+  {
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = (byte) index;
+    }
+    return data;
+  }
+
+  /**
+   * Data written to a stream writer arrives in order.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testStreamOrdered()
+    throws Exception
+  {
+    final var data = sequence(1000);
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = new BSSWriters().createWriterFromStreamWriteBehind(
+      URI.create("urn:fake"), stream, "a", OptionalLong.empty(), 16)) {
+      for (int index = 0; index < 500; ++index) {
+        writer.writeU8(data[index]);
+      }
+      writer.writeBytes(data, 500, 100);
+      for (int index = 600; index < 1000; index += 4) {
+        writer.writeU32BE(
+          ((data[index] & 0xffL) << 24)
+            | ((data[index + 1] & 0xffL) << 16)
+            | ((data[index + 2] & 0xffL) << 8)
+            | (data[index + 3] & 0xffL));
+      }
+      assertEquals(1000L, writer.offsetCurrentRelative());
+    }
+
+    assertArrayEquals(data, stream.toByteArray());
+  }
+
+  /**
+   * Flushing a stream writer waits for all buffered data.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testStreamFlush()
+    throws Exception
+  {
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = new BSSWriters().createWriterFromStreamWriteBehind(
+      URI.create("urn:fake"), stream, "a", OptionalLong.empty(), 16)) {
+      writer.writeU32BE(0x10203040L);
+      writer.flush();
+      assertArrayEquals(
+        new byte[]{0x10, 0x20, 0x30, 0x40},
+        stream.toByteArray());
+    }
+  }
+
+  /**
+   * Errors raised by the stream are reported by later operations.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testStreamFailure()
+    throws Exception
+  {
+    final var stream = new OutputStream()
+    {
+      @Override
+      public void write(final int b)
+        throws IOException
+      {
+        throw new IOException("Disk full!");
+      }
+    };
+
+    final var writer = new BSSWriters().createWriterFromStreamWriteBehind(
+      URI.create("urn:fake"), stream, "a", OptionalLong.empty(), 4);
+
+    writer.writeU32BE(0L);
+    writer.writeU32BE(0L);
+
+    final var ex0 = assertThrows(IOException.class, writer::flush);
+    assertEquals("Disk full!", ex0.getCause().getMessage());
+    assertThrows(IOException.class, () -> writer.writeU32BE(0L));
+    assertThrows(IOException.class, writer::close);
+  }
+
+  /**
+   * Later writes to the same position in a channel win, including writes
+   * made by sub-writers and writes too large to be buffered.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannelOverwrite()
+    throws Exception
+  {
+    final var path = Files.createTempFile("jbssio-writers-", ".dat");
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      try (var writer = new BSSWriters().createWriterFromChannelWriteBehind(
+        URI.create("urn:fake"), channel, "a", OptionalLong.empty(), 8)) {
+        try (var s0 = writer.createSubWriterAtBounded("x", 4L, 4L)) {
+          s0.writeU32BE(0x11111111L);
+        }
+        writer.writeU32BE(0x22222222L);
+        writer.writeU32BE(0x33333333L);
+        writer.seekTo(2L);
+        writer.writeU32BE(0x44444444L);
+        writer.seekTo(8L);
+        writer.writeBytes(new byte[]{0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55});
+        writer.seekTo(0L);
+        writer.writeU8(0x66);
+      }
+    }
+
+    assertArrayEquals(
+      new byte[]{
+        0x66, 0x22, 0x44, 0x44, 0x44, 0x44, 0x33, 0x33,
+        0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55,
+      },
+      Files.readAllBytes(path));
+  }
+
+  /**
+   * Errors raised by the channel are reported by later operations.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannelFailure()
+    throws Exception
+  {
+    final var path = Files.createTempFile("jbssio-writers-", ".dat");
+    final var channel = FileChannel.open(path, StandardOpenOption.READ);
+    final var writer = new BSSWriters().createWriterFromChannelWriteBehind(
+      URI.create("urn:fake"), channel, "a", OptionalLong.empty(), 4);
+
+    writer.writeU32BE(0L);
+    writer.writeU32BE(0L);
+
+    final var ex = assertThrows(IOException.class, writer::close);
+    assertInstanceOf(NonWritableChannelException.class, ex.getCause());
+    assertEquals(false, channel.isOpen());
+  }
+
+  /**
+   * Channel writers created by a provider with a pool draw both buffers
+   * from the pool, and return them when closed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannelPooled()
+    throws Exception
+  {
+    final var pool = BSSBufferPools.create(1024L);
+    final var data = sequence(100);
+    final var path = Files.createTempFile("jbssio-writers-", ".dat");
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      try (var writer = new BSSWriters(pool).createWriterFromChannelWriteBehind(
+        URI.create("urn:fake"), channel, "a", OptionalLong.empty(), 16)) {
+        writer.writeBytes(data);
+
+        final var stats = pool.statistics();
+        assertEquals(2L, stats.acquisitions());
+        assertEquals(0L, stats.releases());
+      }
+    }
+
+    final var stats = pool.statistics();
+    assertEquals(2L, stats.acquisitions());
+    assertEquals(2L, stats.releases());
+    assertArrayEquals(data, Files.readAllBytes(path));
+
+    final var reused = pool.acquire(16);
+    assertEquals(2L, pool.statistics().allocations());
+    pool.release(reused);
+  }
+
+  /**
+   * Invalid buffer sizes are rejected.
+   */
+
+  @Test
+  public void testBufferSizeInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new BSSWriters().createWriterFromStreamWriteBehind(
+        URI.create("urn:fake"),
+        new ByteArrayOutputStream(),
+        "a",
+        OptionalLong.empty(),
+        0);
+    });
+  }
+}
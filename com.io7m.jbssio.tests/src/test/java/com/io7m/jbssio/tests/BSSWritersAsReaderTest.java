@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSWriterRandomAccessUnsupported;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.OptionalLong;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BSSWritersAsReaderTest
+{
+  private static final URI URI_FAKE = URI.create("urn:fake");
+
+  private BSSWriters writers;
+  private Path file;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+  {
+    this.writers = new BSSWriters();
+    this.file = directory.resolve("data.bin");
+  }
+
+  /**
+   * A reader over a buffer writer covers exactly the written range and
+   * shares the writer's buffer.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testByteBuffer()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocate(64);
+
+    try (var writer = this.writers.createWriterFromByteBuffer(
+      URI_FAKE, buffer, "w")) {
+      writer.writeU32BE(0x01020304L);
+      writer.writeU16LE(0x0506);
+      writer.writeBytes(new byte[]{7, 8});
+
+      try (var reader = writer.asReader("r")) {
+        assertEquals(OptionalLong.of(8L), reader.bytesRemaining());
+        assertEquals(0x01020304L, reader.readU32BE());
+        assertEquals(0x0506, reader.readU16LE());
+        assertEquals(7, reader.readU8());
+        assertEquals(8, reader.readU8());
+        assertThrows(IOException.class, reader::readU8);
+
+        writer.seekTo(0L);
+        writer.writeU8(0xff);
+        reader.seekTo(0L);
+        assertEquals(0xff, reader.readU8());
+      }
+    }
+  }
+
+  /**
+   * The written range extends to the furthest offset written, even if the
+   * writer has since moved back to patch earlier data.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFurthestOffset()
+    throws Exception
+  {
+    try (var writer = this.writers.createWriterFromByteBuffer(
+      URI_FAKE, ByteBuffer.allocate(64), "w")) {
+      writer.writeU32BE(0L);
+      writer.writeU64BE(0x1112131415161718L);
+      writer.seekTo(0L);
+      writer.writeU32BE(12L);
+
+      try (var reader = writer.asReader("r")) {
+        assertEquals(OptionalLong.of(12L), reader.bytesRemaining());
+        assertEquals(12L, reader.readU32BE());
+        assertEquals(0x1112131415161718L, reader.readU64BE());
+      }
+    }
+  }
+
+  /**
+   * Writes made through sub-writers extend the written range of their
+   * ancestors, and a reader created from a sub-writer covers only the
+   * sub-writer's data.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSubWriters()
+    throws Exception
+  {
+    try (var writer = this.writers.createWriterFromByteBuffer(
+      URI_FAKE, ByteBuffer.allocate(64), "w")) {
+      writer.writeU32BE(0x01020304L);
+
+      try (var sub = writer.createSubWriterAt("s", 8L)) {
+        sub.writeU32BE(0xa1a2a3a4L);
+
+        try (var reader = sub.asReader("r")) {
+          assertEquals(OptionalLong.of(4L), reader.bytesRemaining());
+          assertEquals(0xa1a2a3a4L, reader.readU32BE());
+        }
+      }
+
+      try (var reader = writer.asReader("r")) {
+        assertEquals(OptionalLong.of(16L), reader.bytesRemaining());
+        assertEquals(0x01020304L, reader.readU32BE());
+        reader.seekTo(12L);
+        assertEquals(0xa1a2a3a4L, reader.readU32BE());
+      }
+    }
+  }
+
+  /**
+   * A reader over a channel writer reads from the same channel, and closing
+   * the reader leaves the writer usable.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannel()
+    throws Exception
+  {
+    try (var writer = this.writers.createWriterFromChannel(
+      URI_FAKE, FileChannel.open(this.file, CREATE_NEW, READ, WRITE), "w")) {
+      writer.writeU64BE(0x0102030405060708L);
+      writer.writeBytes(new byte[]{9, 10, 11});
+
+      try (var reader = writer.asReader("r")) {
+        assertEquals(OptionalLong.of(11L), reader.bytesRemaining());
+        assertEquals(0x0102030405060708L, reader.readU64BE());
+        final var bytes = new byte[3];
+        reader.readBytes(bytes);
+        assertArrayEquals(new byte[]{9, 10, 11}, bytes);
+      }
+
+      writer.writeU8(12);
+      try (var reader = writer.asReader("r")) {
+        reader.seekTo(11L);
+        assertEquals(12, reader.readU8());
+      }
+    }
+  }
+
+  /**
+   * Pending write-behind writes are completed before the reader is
+   * created.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannelWriteBehind()
+    throws Exception
+  {
+    try (var writer = this.writers.createWriterFromChannelWriteBehind(
+      URI_FAKE,
+      FileChannel.open(this.file, CREATE_NEW, READ, WRITE),
+      "w",
+      OptionalLong.empty(),
+      16)) {
+      for (int index = 0; index < 100; ++index) {
+        writer.writeU32BE(index);
+      }
+
+      try (var reader = writer.asReader("r")) {
+        assertEquals(OptionalLong.of(400L), reader.bytesRemaining());
+        for (int index = 0; index < 100; ++index) {
+          assertEquals(index, reader.readU32BE());
+        }
+      }
+    }
+  }
+
+  /**
+   * Writers that do not support readers say so.
+   */
+
+  @Test
+  public void testUnsupported()
+  {
+    assertThrows(UnsupportedOperationException.class, () -> {
+      new BSSWriterRandomAccessUnsupported().asReader("r");
+    });
+  }
+}
@@ -481,6 +481,41 @@ public abstract class BSSWritersRandomAccessChannelContract<T extends Channel>
     }
   }
 
+  @Test
+  public void testWriteBytesByteBuffer()
+    throws Exception
+  {
+    final var data = new byte[16];
+
+    final var heap =
+      ByteBuffer.wrap("xxAAAABBBB".getBytes(StandardCharsets.US_ASCII));
+    heap.position(2);
+
+    final var direct = ByteBuffer.allocateDirect(8);
+    direct.put("CCCCDDDD".getBytes(StandardCharsets.US_ASCII));
+    direct.flip();
+
+    try (var channel = this.channelOf(data)) {
+      try (var writer = this.writerOf(channel)) {
+        writer.writeBytes(heap);
+        writer.writeBytes("C", direct);
+        Assertions.assertEquals(16L, writer.offsetCurrentRelative());
+        Assertions.assertThrows(
+          IOException.class,
+          () -> writer.writeBytes(ByteBuffer.allocate(1)));
+      }
+
+      Assertions.assertFalse(heap.hasRemaining());
+      Assertions.assertFalse(direct.hasRemaining());
+      Assertions.assertArrayEquals(new byte[]{
+        'A', 'A', 'A', 'A',
+        'B', 'B', 'B', 'B',
+        'C', 'C', 'C', 'C',
+        'D', 'D', 'D', 'D'
+      }, this.writtenDataOf(data));
+    }
+  }
+
   @Test
   public final void testException()
     throws IOException
@@ -18,6 +18,7 @@ package com.io7m.jbssio.tests;
 
 import com.io7m.jbssio.api.BSSWriterRandomAccessType;
 import com.io7m.jbssio.vanilla.BSSWriters;
+import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URI;
@@ -28,6 +29,8 @@ import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.OptionalLong;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public final class BSSWritersRandomAccessSeekableChannelTest extends BSSWritersRandomAccessChannelContract<FileChannel>
 {
   private final HashMap<byte[], Path> pathsOf = new HashMap<>();
@@ -59,4 +62,31 @@ public final class BSSWritersRandomAccessSeekableChannelTest extends BSSWritersR
   {
     return Files.readAllBytes(this.pathsOf.get(data));
   }
+
+  /**
+   * Writes do not move the position of a file channel, but flushing sets
+   * the position to the end of the furthest write.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFlushPositionsChannel()
+    throws Exception
+  {
+    try (var channel = this.channelOf(new byte[0])) {
+      try (var writer = new BSSWriters().createWriterFromChannel(
+        URI.create("urn:fake"), channel, "a")) {
+        writer.writeU64BE(0L);
+        try (var sub = writer.createSubWriterAt("s", 100L)) {
+          sub.writeU32BE(0L);
+        }
+        writer.seekTo(4L);
+        assertEquals(0L, channel.position());
+
+        writer.flush();
+        assertEquals(112L, channel.position());
+      }
+    }
+  }
 }
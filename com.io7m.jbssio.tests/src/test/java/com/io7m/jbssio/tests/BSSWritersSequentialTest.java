@@ -627,6 +627,37 @@ public final class BSSWritersSequentialTest
     }
   }
 
+  @Test
+  public void testWriteBytesByteBuffer()
+    throws Exception
+  {
+    final var heap =
+      ByteBuffer.wrap("xxAAAABBBB".getBytes(StandardCharsets.US_ASCII));
+    heap.position(2);
+
+    final var direct = ByteBuffer.allocateDirect(20000);
+    for (var index = 0; index < 20000; ++index) {
+      direct.put(index, (byte) 'C');
+    }
+
+    final var writers = new BSSWriters();
+    try (var stream = new ByteArrayOutputStream()) {
+      try (var writer = writers.createWriterFromStream(URI.create("urn:fake"), stream, "a")) {
+        writer.writeBytes(heap);
+        writer.writeBytes("C", direct);
+      }
+
+      Assertions.assertFalse(heap.hasRemaining());
+      Assertions.assertFalse(direct.hasRemaining());
+
+      final var expected = new byte[20008];
+      Arrays.fill(expected, 0, 4, (byte) 'A');
+      Arrays.fill(expected, 4, 8, (byte) 'B');
+      Arrays.fill(expected, 8, 20008, (byte) 'C');
+      Assertions.assertArrayEquals(expected, stream.toByteArray());
+    }
+  }
+
   @Test
   public void testPadTo()
     throws Exception
@@ -0,0 +1,304 @@
+/*
+ * Copyright © 2019 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jbssio.tests;
+
+import com.io7m.jbssio.api.BSSWriterSequentialType;
+import com.io7m.jbssio.vanilla.BSSWriters;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public final class BSSWritersWritableChannelTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BSSWritersWritableChannelTest.class);
+
+  @Test
+  public void testEmptyChannel()
+    throws Exception
+  {
+    final var writers = new BSSWriters();
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = writers.createWriterFromWritableChannel(
+      URI.create("urn:fake"),
+      Channels.newChannel(stream),
+      "a")) {
+      Assertions.assertEquals(0L, writer.offsetCurrentAbsolute());
+      Assertions.assertEquals(0L, writer.offsetCurrentRelative());
+      Assertions.assertEquals(OptionalLong.empty(), writer.bytesRemaining());
+    }
+    Assertions.assertEquals(0, stream.size());
+  }
+
+  @Test
+  public void testClosedNested()
+    throws Exception
+  {
+    final var writers = new BSSWriters();
+    final var channel = Channels.newChannel(new ByteArrayOutputStream());
+    final var writer = writers.createWriterFromWritableChannel(
+      URI.create("urn:fake"),
+      channel,
+      "a");
+
+    try (var s = writer.createSubWriterAt("x", 0L)) {
+      Assertions.assertEquals("a/x", s.path());
+      s.close();
+      Assertions.assertTrue(channel.isOpen());
+      Assertions.assertThrows(IOException.class, () -> s.writeS8(0x0));
+
+      writer.close();
+      Assertions.assertFalse(channel.isOpen());
+      Assertions.assertTrue(writer.isClosed());
+      Assertions.assertThrows(IOException.class, () -> writer.writeS8(0x0));
+    }
+  }
+
+  @Test
+  public void testFlush()
+    throws Exception
+  {
+    final var writers = new BSSWriters();
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = writers.createWriterFromWritableChannel(
+      URI.create("urn:fake"),
+      Channels.newChannel(stream),
+      "a")) {
+      writer.writeU32BE(0x01020304L);
+      Assertions.assertEquals(0, stream.size());
+      writer.flush();
+      Assertions.assertArrayEquals(
+        new byte[]{0x1, 0x2, 0x3, 0x4},
+        stream.toByteArray());
+    }
+  }
+
+  @Test
+  public void testPrimitives()
+    throws Exception
+  {
+    final var writers = new BSSWriters();
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = writers.createWriterFromWritableChannel(
+      URI.create("urn:fake"),
+      Channels.newChannel(stream),
+      "a")) {
+      writer.writeS8(-1);
+      writer.writeU8("u8", 0xfe);
+      writer.writeU16BE(0x1234);
+      writer.writeS32BE("s32", 0x12345678L);
+      writer.writeU64BE(0x123456789abcdef0L);
+      writer.writeF32BE(1.5);
+      writer.writeF64BE("f64", 2.5);
+      writer.writeS16LE("s16", 0x1234);
+      writer.writeU32LE(0xffff_fffeL);
+      writer.writeS64LE("s64", 0x123456789abcdef0L);
+      writer.writeF16LE(0.5);
+      writer.writeF64LE(2.5);
+    }
+
+    final var buffer = ByteBuffer.wrap(stream.toByteArray());
+    Assertions.assertEquals(52, buffer.capacity());
+    Assertions.assertEquals((byte) -1, buffer.get());
+    Assertions.assertEquals((byte) 0xfe, buffer.get());
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    Assertions.assertEquals((short) 0x1234, buffer.getShort());
+    Assertions.assertEquals(0x12345678, buffer.getInt());
+    Assertions.assertEquals(0x123456789abcdef0L, buffer.getLong());
+    Assertions.assertEquals(1.5f, buffer.getFloat());
+    Assertions.assertEquals(2.5, buffer.getDouble());
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    Assertions.assertEquals((short) 0x1234, buffer.getShort());
+    Assertions.assertEquals(0xffff_fffe, buffer.getInt());
+    Assertions.assertEquals(0x123456789abcdef0L, buffer.getLong());
+    Assertions.assertEquals((short) 0x3800, buffer.getShort());
+    Assertions.assertEquals(2.5, buffer.getDouble());
+  }
+
+  @Test
+  public void testSubWriterBounded()
+    throws Exception
+  {
+    final var writers = new BSSWriters();
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = writers.createWriterFromWritableChannelBounded(
+      URI.create("urn:fake"),
+      Channels.newChannel(stream),
+      "a",
+      12L)) {
+      Assertions.assertEquals(OptionalLong.of(12L), writer.bytesRemaining());
+
+      try (var s = writer.createSubWriterAtBounded("x", 0L, 4L)) {
+        s.writeU32BE(0x00010203L);
+        Assertions.assertEquals(OptionalLong.of(0L), s.bytesRemaining());
+        Assertions.assertThrows(IOException.class, () -> s.writeU8(0x0));
+      }
+
+      try (var s = writer.createSubWriterAtBounded("y", 6L, 4L)) {
+        Assertions.assertEquals(6L, s.offsetCurrentAbsolute());
+        Assertions.assertEquals(0L, s.offsetCurrentRelative());
+        s.writeU16BE(0x0607);
+        Assertions.assertEquals(8L, writer.offsetCurrentRelative());
+        Assertions.assertEquals(2L, s.offsetCurrentRelative());
+      }
+
+      final var ex =
+        Assertions.assertThrows(
+          IOException.class,
+          () -> writer.createSubWriterAtBounded("z", 8L, 13L));
+      LOG.debug("ex: ", ex);
+
+      Assertions.assertThrows(IOException.class, () -> writer.skip(5L));
+      Assertions.assertThrows(
+        IOException.class,
+        () -> writer.createSubWriterAt("w", 0L));
+    }
+
+    Assertions.assertArrayEquals(new byte[]{
+      0x0, 0x1, 0x2, 0x3,
+      0x0, 0x0, 0x6, 0x7,
+    }, stream.toByteArray());
+  }
+
+  @Test
+  public void testPadTo()
+    throws Exception
+  {
+    final var writers = new BSSWriters();
+    final var stream = new ByteArrayOutputStream();
+    try (var writer = writers.createWriterFromWritableChannel(
+      URI.create("urn:fake"),
+      Channels.newChannel(stream),
+      "a")) {
+      writer.writeU8(0x0);
+      writer.align(4);
+      final var wrote = writer.padTo(100000L, (byte) 'z');
+      Assertions.assertEquals(100000L - 4L, wrote);
+    }
+
+    final var expected = new byte[100000];
+    Arrays.fill(expected, (byte) 'z');
+    Arrays.fill(expected, 0, 4, (byte) 0);
+    Assertions.assertArrayEquals(expected, stream.toByteArray());
+  }
+
+  @Test
+  public void testWriteBytesLarge()
+    throws Exception
+  {
+    final var stream = new ByteArrayOutputStream();
+    final var writers = new BSSWriters();
+    final var expected =
+      writeLarge(writers.createWriterFromWritableChannel(
+        URI.create("urn:fake"),
+        Channels.newChannel(stream),
+        "a"));
+    Assertions.assertArrayEquals(expected, stream.toByteArray());
+  }
+
+  @Test
+  public void testWriteBytesLargeGathering()
+    throws Exception
+  {
+    final var file = Files.createTempFile("bssio-", ".bin");
+    try {
+      final var writers = new BSSWriters();
+      final var expected =
+        writeLarge(writers.createWriterFromWritableChannel(
+          file.toUri(),
+          FileChannel.open(file, WRITE),
+          "a"));
+      Assertions.assertArrayEquals(expected, Files.readAllBytes(file));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testWriteBytesByteBuffer()
+    throws Exception
+  {
+    final var file = Files.createTempFile("bssio-", ".bin");
+    try {
+      final var large = ByteBuffer.allocateDirect(100_000);
+      for (var index = 0; index < 100_000; ++index) {
+        large.put(index, (byte) index);
+      }
+
+      final var writers = new BSSWriters();
+      try (var writer = writers.createWriterFromWritableChannel(
+        file.toUri(),
+        FileChannel.open(file, WRITE),
+        "a")) {
+        writer.writeBytes(ByteBuffer.wrap(new byte[]{0x1, 0x2, 0x3}));
+        writer.writeBytes("large", large);
+        Assertions.assertEquals(100_003L, writer.offsetCurrentAbsolute());
+      }
+
+      Assertions.assertFalse(large.hasRemaining());
+
+      final var written = Files.readAllBytes(file);
+      Assertions.assertEquals(100_003, written.length);
+      Assertions.assertEquals(0x3, written[2]);
+      for (var index = 0; index < 100_000; ++index) {
+        Assertions.assertEquals(large.get(index), written[index + 3]);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static byte[] writeLarge(
+    final BSSWriterSequentialType writer)
+    throws IOException
+  {
+    final var data = new byte[300_000];
+    for (var index = 0; index < data.length; ++index) {
+      data[index] = (byte) index;
+    }
+
+    final var expected = ByteBuffer.allocate(1 + 199_990 + 4 + 300_000);
+    try (writer) {
+      writer.writeU8(0xff);
+      writer.writeBytes(data, 10, 199_990);
+      writer.writeU32BE(0x01020304L);
+      writer.writeBytes("data", data);
+      Assertions.assertEquals(
+        (long) expected.capacity(),
+        writer.offsetCurrentAbsolute());
+    }
+
+    expected.put((byte) 0xff);
+    expected.put(data, 10, 199_990);
+    expected.putInt(0x01020304);
+    expected.put(data);
+    return expected.array();
+  }
+}
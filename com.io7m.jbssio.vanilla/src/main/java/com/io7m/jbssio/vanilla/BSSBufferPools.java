@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla;
+
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.vanilla.internal.BSSBufferPool;
+
+/**
+ * Functions to create buffer pools.
+ *
+ * @see BSSReaders#BSSReaders(BSSBufferPoolType)
+ * @see BSSWriters#BSSWriters(BSSBufferPoolType)
+ * @since 2.1.0
+ */
+
+public final class BSSBufferPools
+{
+  /**
+   * The size of the largest buffer pooled by default.
+   */
+
+  public static final int DEFAULT_SIZE_MAXIMUM = 1 << 20;
+
+  private BSSBufferPools()
+  {
+
+  }
+
+  /**
+   * Create a buffer pool that pools buffers of up to
+   * {@link #DEFAULT_SIZE_MAXIMUM} octets.
+   *
+   * @param capacity The maximum number of octets of idle buffers to retain
+   *
+   * @return A buffer pool
+   */
+
+  public static BSSBufferPoolType create(
+    final long capacity)
+  {
+    return create(capacity, DEFAULT_SIZE_MAXIMUM);
+  }
+
+  /**
+   * Create a buffer pool.
+   *
+   * @param capacity    The maximum number of octets of idle buffers to retain
+   * @param sizeMaximum The size of the largest buffer that will be pooled,
+   *                    which must be a power of two
+   *
+   * @return A buffer pool
+   */
+
+  public static BSSBufferPoolType create(
+    final long capacity,
+    final int sizeMaximum)
+  {
+    return BSSBufferPool.create(capacity, sizeMaximum);
+  }
+}
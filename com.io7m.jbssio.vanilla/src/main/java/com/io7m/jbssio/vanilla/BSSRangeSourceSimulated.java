@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla;
+
+import com.io7m.jbssio.api.BSSRangeSourceType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process range source that serves ranges of an existing buffer,
+ * waiting for a fixed latency before each request. The source stands in for
+ * remote sources such as HTTP servers or object stores in tests and
+ * benchmarks, and counts the requests made of it so that the effect of
+ * caching and coalescing can be observed. Instances are thread-safe.
+ *
+ * @since 2.1.0
+ */
+
+public final class BSSRangeSourceSimulated implements BSSRangeSourceType
+{
+  private final ByteBuffer data;
+  private final long latencyNanos;
+  private final LongAdder requests;
+  private final LongAdder octets;
+  private final AtomicBoolean closed;
+
+  private BSSRangeSourceSimulated(
+    final ByteBuffer inData,
+    final Duration inLatency)
+  {
+    this.data =
+      Objects.requireNonNull(inData, "data").asReadOnlyBuffer();
+    this.latencyNanos =
+      Objects.requireNonNull(inLatency, "latency").toNanos();
+    this.requests = new LongAdder();
+    this.octets = new LongAdder();
+    this.closed = new AtomicBoolean(false);
+  }
+
+  /**
+   * Create a source that serves the remaining bytes of the given buffer.
+   * The buffer's position and limit are not modified.
+   *
+   * @param data    The data
+   * @param latency The time to wait before serving each request
+   *
+   * @return A source
+   */
+
+  public static BSSRangeSourceSimulated create(
+    final ByteBuffer data,
+    final Duration latency)
+  {
+    Objects.requireNonNull(data, "data");
+    Objects.requireNonNull(latency, "latency");
+
+    if (latency.isNegative()) {
+      throw new IllegalArgumentException(
+        "Latency %s must be non-negative.".formatted(latency));
+    }
+    return new BSSRangeSourceSimulated(data.slice(), latency);
+  }
+
+  /**
+   * @return The number of requests served so far
+   */
+
+  public long requests()
+  {
+    return this.requests.sum();
+  }
+
+  /**
+   * @return The number of octets served so far
+   */
+
+  public long octets()
+  {
+    return this.octets.sum();
+  }
+
+  /**
+   * @return {@code true} if the source has been closed
+   */
+
+  public boolean isClosed()
+  {
+    return this.closed.get();
+  }
+
+  @Override
+  public long size()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.data.capacity();
+  }
+
+  @Override
+  public void read(
+    final long offset,
+    final int length,
+    final ByteBuffer target)
+    throws IOException
+  {
+    Objects.requireNonNull(target, "target");
+    this.checkOpen();
+
+    if (offset < 0L || length < 0) {
+      throw new IllegalArgumentException(
+        "Offset %d and length %d must be non-negative."
+          .formatted(Long.valueOf(offset), Integer.valueOf(length)));
+    }
+    if (length > target.remaining()) {
+      throw new IllegalArgumentException(
+        "Length %d exceeds the %d bytes remaining in the target."
+          .formatted(
+            Integer.valueOf(length),
+            Integer.valueOf(target.remaining())));
+    }
+    if (offset + length > this.data.capacity()) {
+      throw new EOFException(
+        "Range [%d, %d) exceeds the source size %d."
+          .formatted(
+            Long.valueOf(offset),
+            Long.valueOf(offset + length),
+            Integer.valueOf(this.data.capacity())));
+    }
+
+    this.waitLatency();
+    this.requests.increment();
+    this.octets.add(length);
+    target.put(this.data.slice((int) offset, length));
+  }
+
+  private void waitLatency()
+    throws InterruptedIOException
+  {
+    if (this.latencyNanos == 0L) {
+      return;
+    }
+
+    try {
+      Thread.sleep(Duration.ofNanos(this.latencyNanos));
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final var ex = new InterruptedIOException("Interrupted during request.");
+      ex.initCause(e);
+      throw ex;
+    }
+  }
+
+  private void checkOpen()
+    throws ClosedChannelException
+  {
+    if (this.closed.get()) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.closed.set(true);
+  }
+}
@@ -16,19 +16,38 @@
 
 package com.io7m.jbssio.vanilla;
 
+import com.io7m.jbssio.api.BSSBlockCacheType;
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.api.BSSCompression;
+import com.io7m.jbssio.api.BSSRangeSourceType;
+import com.io7m.jbssio.api.BSSReadAheadType;
+import com.io7m.jbssio.api.BSSReaderAsynchronousType;
 import com.io7m.jbssio.api.BSSReaderProviderType;
 import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSReaderRebindableType;
 import com.io7m.jbssio.api.BSSReaderSequentialType;
+import com.io7m.jbssio.vanilla.internal.BSSBlockCache;
+import com.io7m.jbssio.vanilla.internal.BSSInflatingChannel;
+import com.io7m.jbssio.vanilla.internal.BSSRangeSourceChannel;
+import com.io7m.jbssio.vanilla.internal.BSSReadAhead;
+import com.io7m.jbssio.vanilla.internal.BSSReaderAsynchronousFileChannel;
 import com.io7m.jbssio.vanilla.internal.BSSReaderByteBuffer;
+import com.io7m.jbssio.vanilla.internal.BSSReaderReadableChannel;
 import com.io7m.jbssio.vanilla.internal.BSSReaderSeekableChannel;
 import com.io7m.jbssio.vanilla.internal.BSSReaderStream;
+import com.io7m.jbssio.vanilla.internal.BSSSegmentedChannel;
 import org.osgi.service.component.annotations.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 import java.util.OptionalLong;
 
@@ -39,13 +58,30 @@ import java.util.OptionalLong;
 @Component(service = BSSReaderProviderType.class)
 public final class BSSReaders implements BSSReaderProviderType
 {
+  private final BSSBufferPoolType pool;
+
   /**
    * Construct a provider.
    */
 
   public BSSReaders()
   {
+    this.pool = null;
+  }
+
+  /**
+   * Construct a provider. Channel readers created by this provider draw
+   * their buffers from the given pool, and return them when closed.
+   *
+   * @param inPool The buffer pool
+   *
+   * @since 2.1.0
+   */
 
+  public BSSReaders(
+    final BSSBufferPoolType inPool)
+  {
+    this.pool = Objects.requireNonNull(inPool, "pool");
   }
 
   @Override
@@ -97,6 +133,52 @@ public final class BSSReaders implements BSSReaderProviderType
     return BSSReaderByteBuffer.createFromByteBuffer(uri, buffer, name);
   }
 
+  @Override
+  public BSSReaderRandomAccessType createReaderFromFileMapped(
+    final URI uri,
+    final FileChannel channel,
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+
+    final var size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException(
+        "File size %s exceeds the maximum mappable size %s."
+          .formatted(
+            Long.toUnsignedString(size),
+            Integer.toUnsignedString(Integer.MAX_VALUE)));
+    }
+
+    final var mapping =
+      channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+
+    return BSSReaderByteBuffer.createFromFileMapping(
+      uri,
+      mapping,
+      name,
+      () -> {
+        channel.close();
+        return null;
+      });
+  }
+
+  @Override
+  public BSSReaderRebindableType createReaderFromByteBufferRebindable(
+    final URI uri,
+    final ByteBuffer buffer,
+    final String name)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(buffer, "buffer");
+    Objects.requireNonNull(name, "path");
+
+    return BSSReaderByteBuffer.createFromByteBufferRebindable(uri, buffer, name);
+  }
+
   @Override
   public BSSReaderRandomAccessType createReaderFromChannel(
     final URI uri,
@@ -108,11 +190,14 @@ public final class BSSReaders implements BSSReaderProviderType
     Objects.requireNonNull(channel, "channel");
     Objects.requireNonNull(name, "path");
 
-    return BSSReaderSeekableChannel.createFromChannel(
+    return BSSReaderSeekableChannel.createFromChannelConfigured(
       uri,
       channel,
       name,
-      OptionalLong.empty());
+      OptionalLong.empty(),
+      null,
+      this.pool,
+      null);
   }
 
   @Override
@@ -127,10 +212,247 @@ public final class BSSReaders implements BSSReaderProviderType
     Objects.requireNonNull(channel, "channel");
     Objects.requireNonNull(name, "path");
 
-    return BSSReaderSeekableChannel.createFromChannel(
+    return BSSReaderSeekableChannel.createFromChannelConfigured(
+      uri,
+      channel,
+      name,
+      OptionalLong.of(size),
+      null,
+      this.pool,
+      null);
+  }
+
+  @Override
+  public BSSBlockCacheType createBlockCache(
+    final int blockSize,
+    final long capacity)
+  {
+    return BSSBlockCache.create(blockSize, capacity);
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createReaderFromChannelCached(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSBlockCacheType cache)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+    Objects.requireNonNull(size, "size");
+    Objects.requireNonNull(cache, "cache");
+
+    if (cache instanceof final BSSBlockCache blockCache) {
+      return BSSReaderSeekableChannel.createFromChannelConfigured(
+        uri,
+        channel,
+        name,
+        size,
+        blockCache,
+        this.pool,
+        null);
+    }
+
+    throw new IllegalArgumentException(
+      "Block cache %s was not created by this provider.".formatted(cache));
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createReaderFromRangeSource(
+    final URI uri,
+    final BSSRangeSourceType source,
+    final String name,
+    final BSSBlockCacheType cache)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(name, "path");
+    Objects.requireNonNull(cache, "cache");
+
+    if (cache instanceof final BSSBlockCache blockCache) {
+      return BSSReaderSeekableChannel.createFromChannelConfigured(
+        uri,
+        BSSRangeSourceChannel.create(source),
+        name,
+        OptionalLong.empty(),
+        blockCache,
+        this.pool,
+        null);
+    }
+
+    throw new IllegalArgumentException(
+      "Block cache %s was not created by this provider.".formatted(cache));
+  }
+
+  @Override
+  public BSSReadAheadType createReadAhead(
+    final int windowMinimum,
+    final int windowMaximum)
+  {
+    return BSSReadAhead.create(windowMinimum, windowMaximum);
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createReaderFromChannelReadAhead(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSReadAheadType readAhead)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+    Objects.requireNonNull(size, "size");
+    Objects.requireNonNull(readAhead, "readAhead");
+
+    if (readAhead instanceof final BSSReadAhead policy) {
+      return BSSReaderSeekableChannel.createFromChannelConfigured(
+        uri,
+        channel,
+        name,
+        size,
+        null,
+        this.pool,
+        policy);
+    }
+
+    throw new IllegalArgumentException(
+      "Read-ahead policy %s was not created by this provider."
+        .formatted(readAhead));
+  }
+
+  @Override
+  public BSSReaderAsynchronousType createReaderFromAsynchronousChannel(
+    final URI uri,
+    final AsynchronousFileChannel channel,
+    final String name)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+
+    return BSSReaderAsynchronousFileChannel.create(uri, channel, name);
+  }
+
+  @Override
+  public BSSReaderSequentialType createReaderFromReadableChannel(
+    final URI uri,
+    final ReadableByteChannel channel,
+    final String name)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+
+    return BSSReaderReadableChannel.create(
+      uri,
+      channel,
+      name,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSReaderSequentialType createReaderFromReadableChannelBounded(
+    final URI uri,
+    final ReadableByteChannel channel,
+    final String name,
+    final long size)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+
+    return BSSReaderReadableChannel.create(
       uri,
       channel,
       name,
       OptionalLong.of(size));
   }
+
+  @Override
+  public BSSReaderSequentialType createReaderFromStreamCompressed(
+    final URI uri,
+    final InputStream stream,
+    final String name,
+    final BSSCompression compression)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(stream, "stream");
+    Objects.requireNonNull(name, "path");
+    Objects.requireNonNull(compression, "compression");
+
+    return BSSReaderReadableChannel.create(
+      uri,
+      BSSInflatingChannel.fromStream(stream, compression),
+      name,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSReaderSequentialType createReaderFromReadableChannelCompressed(
+    final URI uri,
+    final ReadableByteChannel channel,
+    final String name,
+    final BSSCompression compression)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "path");
+    Objects.requireNonNull(compression, "compression");
+
+    return BSSReaderReadableChannel.create(
+      uri,
+      BSSInflatingChannel.fromChannel(channel, compression, this.pool),
+      name,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createReaderFromSegmentFiles(
+    final URI uri,
+    final List<Path> segments,
+    final String name,
+    final int openMaximum)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(segments, "segments");
+    Objects.requireNonNull(name, "path");
+
+    return BSSReaderSeekableChannel.createFromChannelConfigured(
+      uri,
+      BSSSegmentedChannel.fromPaths(segments, openMaximum),
+      name,
+      OptionalLong.empty(),
+      null,
+      this.pool,
+      null);
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createReaderFromSegmentChannels(
+    final URI uri,
+    final List<? extends SeekableByteChannel> segments,
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(segments, "segments");
+    Objects.requireNonNull(name, "path");
+
+    return BSSReaderSeekableChannel.createFromChannelConfigured(
+      uri,
+      BSSSegmentedChannel.fromChannels(segments),
+      name,
+      OptionalLong.empty(),
+      null,
+      this.pool,
+      null);
+  }
 }
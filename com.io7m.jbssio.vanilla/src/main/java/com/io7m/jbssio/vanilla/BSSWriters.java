@@ -16,35 +16,73 @@
 
 package com.io7m.jbssio.vanilla;
 
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.api.BSSCompression;
+import com.io7m.jbssio.api.BSSDurabilityPolicy;
+import com.io7m.jbssio.api.BSSDurabilityType;
+import com.io7m.jbssio.api.BSSOverlayType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
 import com.io7m.jbssio.api.BSSWriterProviderType;
 import com.io7m.jbssio.api.BSSWriterRandomAccessType;
 import com.io7m.jbssio.api.BSSWriterSequentialType;
+import com.io7m.jbssio.vanilla.internal.BSSDeflatingChannel;
+import com.io7m.jbssio.vanilla.internal.BSSDurability;
+import com.io7m.jbssio.vanilla.internal.BSSOverlay;
 import com.io7m.jbssio.vanilla.internal.BSSWriterByteBuffer;
 import com.io7m.jbssio.vanilla.internal.BSSWriterSeekableChannel;
 import com.io7m.jbssio.vanilla.internal.BSSWriterStream;
+import com.io7m.jbssio.vanilla.internal.BSSWriterWritableChannel;
 import org.osgi.service.component.annotations.Component;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Objects;
 import java.util.OptionalLong;
 
 /**
  * A default provider of writers.
+ *
+ * Random access writers over a {@link FileChannel} write with positional
+ * writes, so that sub-writers on different threads can write to the same
+ * channel without locking. Unlike earlier versions, such writes do not move
+ * the position of the channel; flushing a writer sets the position of the
+ * channel to the end of the furthest write. Writers over other channels
+ * seek the channel before each write, and leave it positioned at the end
+ * of the most recent write.
  */
 
 @Component(service = BSSWriterProviderType.class)
 public final class BSSWriters implements BSSWriterProviderType
 {
+  private final BSSBufferPoolType pool;
+
   /**
    * Construct a provider.
    */
 
   public BSSWriters()
   {
+    this.pool = null;
+  }
+
+  /**
+   * Construct a provider. Channel writers created by this provider draw
+   * their buffers from the given pool, and return them when closed.
+   *
+   * @param inPool The buffer pool
+   *
+   * @since 2.1.0
+   */
 
+  public BSSWriters(
+    final BSSBufferPoolType inPool)
+  {
+    this.pool = Objects.requireNonNull(inPool, "pool");
   }
 
   @Override
@@ -93,8 +131,8 @@ public final class BSSWriters implements BSSWriterProviderType
     Objects.requireNonNull(uri, "uri");
     Objects.requireNonNull(channel, "channel");
     Objects.requireNonNull(name, "name");
-    return BSSWriterSeekableChannel.createFromChannel(
-      uri, channel, name, OptionalLong.empty());
+    return BSSWriterSeekableChannel.createFromChannelConfigured(
+      uri, channel, name, OptionalLong.empty(), this.pool);
   }
 
   @Override
@@ -107,8 +145,8 @@ public final class BSSWriters implements BSSWriterProviderType
     Objects.requireNonNull(uri, "uri");
     Objects.requireNonNull(channel, "channel");
     Objects.requireNonNull(name, "name");
-    return BSSWriterSeekableChannel.createFromChannel(
-      uri, channel, name, OptionalLong.of(size));
+    return BSSWriterSeekableChannel.createFromChannelConfigured(
+      uri, channel, name, OptionalLong.of(size), this.pool);
   }
 
   @Override
@@ -122,7 +160,162 @@ public final class BSSWriters implements BSSWriterProviderType
     Objects.requireNonNull(channel, "channel");
     Objects.requireNonNull(name, "name");
     Objects.requireNonNull(size, "size");
-    return BSSWriterSeekableChannel.createFromChannel(
-      uri, channel, name, size);
+    return BSSWriterSeekableChannel.createFromChannelConfigured(
+      uri, channel, name, size, this.pool);
+  }
+
+  @Override
+  public BSSWriterSequentialType createWriterFromStreamWriteBehind(
+    final URI uri,
+    final OutputStream stream,
+    final String name,
+    final OptionalLong size,
+    final int bufferSize)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(stream, "stream");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(size, "size");
+    checkBufferSize(bufferSize);
+    return BSSWriterStream.createWriteBehind(
+      uri, stream, name, size, bufferSize);
+  }
+
+  @Override
+  public BSSWriterRandomAccessType createWriterFromChannelWriteBehind(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final OptionalLong size,
+    final int bufferSize)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(size, "size");
+    checkBufferSize(bufferSize);
+    return BSSWriterSeekableChannel.createFromChannelWriteBehind(
+      uri, channel, name, size, this.pool, bufferSize);
+  }
+
+  @Override
+  public BSSDurabilityType createDurability(
+    final BSSDurabilityPolicy policy)
+  {
+    return BSSDurability.create(policy);
+  }
+
+  @Override
+  public BSSWriterRandomAccessType createWriterFromChannelDurable(
+    final URI uri,
+    final FileChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSDurabilityType durability)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(size, "size");
+    Objects.requireNonNull(durability, "durability");
+
+    if (durability instanceof final BSSDurability policy) {
+      return BSSWriterSeekableChannel.createFromChannelDurable(
+        uri, channel, name, size, this.pool, policy);
+    }
+
+    throw new IllegalArgumentException(
+      "Durability policy %s was not created by this provider."
+        .formatted(durability));
+  }
+
+  private static void checkBufferSize(
+    final int bufferSize)
+  {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException(
+        "Buffer size must be positive.");
+    }
+  }
+
+  @Override
+  public BSSWriterSequentialType createWriterFromWritableChannel(
+    final URI uri,
+    final WritableByteChannel channel,
+    final String name)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "name");
+    return BSSWriterWritableChannel.create(
+      uri,
+      channel,
+      name,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSWriterSequentialType createWriterFromWritableChannelBounded(
+    final URI uri,
+    final WritableByteChannel channel,
+    final String name,
+    final long size)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "name");
+    return BSSWriterWritableChannel.create(
+      uri,
+      channel,
+      name,
+      OptionalLong.of(size));
+  }
+
+  @Override
+  public BSSWriterSequentialType createWriterFromStreamCompressed(
+    final URI uri,
+    final OutputStream stream,
+    final String name,
+    final BSSCompression compression)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(stream, "stream");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(compression, "compression");
+    return BSSWriterWritableChannel.create(
+      uri,
+      BSSDeflatingChannel.fromStream(stream, compression),
+      name,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSWriterSequentialType createWriterFromWritableChannelCompressed(
+    final URI uri,
+    final WritableByteChannel channel,
+    final String name,
+    final BSSCompression compression)
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(compression, "compression");
+    return BSSWriterWritableChannel.create(
+      uri,
+      BSSDeflatingChannel.fromChannel(channel, compression, this.pool),
+      name,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSOverlayType createOverlay(
+    final URI uri,
+    final BSSReaderRandomAccessType base)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(base, "base");
+
+    return BSSOverlay.create(uri, base, this.pool);
   }
 }
@@ -0,0 +1,466 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSBlockCacheStatistics;
+import com.io7m.jbssio.api.BSSBlockCacheType;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A block cache. The cache is divided into a number of independently locked
+ * segments, each of which holds an equal share of the capacity and evicts
+ * its least recently used blocks when that share is exceeded. Blocks are
+ * loaded outside of any lock, so a slow read never blocks lookups of other
+ * blocks. A thread that misses on a block claims it before loading it, and
+ * any other thread that misses on the same block while it is being loaded
+ * waits for that load rather than reading the block again. A load that is
+ * in progress when its source is invalidated still completes for the
+ * threads waiting on it, but its block is not retained, because the data
+ * may have been read before the invalidation.
+ */
+
+public final class BSSBlockCache implements BSSBlockCacheType
+{
+  private static final int SEGMENTS_MAXIMUM = 16;
+
+  private final int blockSize;
+  private final long capacity;
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+
+  private BSSBlockCache(
+    final int inBlockSize,
+    final long inCapacity)
+  {
+    this.blockSize = inBlockSize;
+    this.capacity = inCapacity;
+
+    final var blocks =
+      Math.max(1L, inCapacity / inBlockSize);
+    final var count =
+      Integer.highestOneBit((int) Math.min(SEGMENTS_MAXIMUM, blocks));
+
+    this.segments = new Segment[count];
+    for (int index = 0; index < count; ++index) {
+      this.segments[index] = new Segment(this, inCapacity / count);
+    }
+    this.segmentMask = count - 1;
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+  }
+
+  /**
+   * Create a block cache.
+   *
+   * @param blockSize The size of a single block in octets
+   * @param capacity  The maximum number of octets of block data to hold
+   *
+   * @return A block cache
+   */
+
+  public static BSSBlockCache create(
+    final int blockSize,
+    final long capacity)
+  {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException(
+        "Block size must be positive.");
+    }
+    if (capacity < blockSize) {
+      throw new IllegalArgumentException(
+        "Capacity must be at least the size of a single block.");
+    }
+    return new BSSBlockCache(blockSize, capacity);
+  }
+
+  /**
+   * Look up a block. If the block is resident, it is returned and the
+   * lookup is counted as a hit. Otherwise, the lookup is counted as a miss.
+   * If another thread is already loading the block, this method waits for
+   * that load to complete and returns its result. If no thread is loading
+   * the block, the caller claims the block and {@code null} is returned; the
+   * caller must then load the block and pass it to
+   * {@link #complete(URI, long, byte[], int, int, boolean)} or
+   * {@link #fail(URI, long, IOException)}.
+   *
+   * @param source The source URI
+   * @param index  The block index
+   *
+   * @return The block data, or {@code null} if the caller claimed the block
+   *
+   * @throws IOException On errors raised by another thread's load
+   */
+
+  public byte[] lookupOrClaim(
+    final URI source,
+    final long index)
+    throws IOException
+  {
+    final var key = new BlockKey(source, index);
+    final var segment = this.segmentFor(key);
+
+    final CompletableFuture<byte[]> pending;
+    synchronized (segment) {
+      final var existing = segment.blocks.get(key);
+      if (existing != null) {
+        this.hits.increment();
+        return existing;
+      }
+      this.misses.increment();
+      final var claim = segment.loading.get(key);
+      if (claim == null) {
+        segment.loading.put(key, new Claim());
+        return null;
+      }
+      pending = claim.future;
+    }
+    return awaitP(pending);
+  }
+
+  /**
+   * Claim up to {@code countMaximum} consecutive blocks starting at block
+   * {@code first}, stopping at the first block that is either resident or
+   * being loaded. Claims are not counted as hits or misses. Each claimed
+   * block must be passed to
+   * {@link #complete(URI, long, byte[], int, int, boolean)} or
+   * {@link #fail(URI, long, IOException)}.
+   *
+   * @param source       The source URI
+   * @param first        The index of the first block
+   * @param countMaximum The maximum number of blocks to claim
+   *
+   * @return The number of blocks claimed
+   */
+
+  public int claimRun(
+    final URI source,
+    final long first,
+    final int countMaximum)
+  {
+    var count = 0;
+    while (count < countMaximum) {
+      final var key = new BlockKey(source, first + count);
+      final var segment = this.segmentFor(key);
+      synchronized (segment) {
+        if (segment.blocks.containsKey(key)
+          || segment.loading.containsKey(key)) {
+          break;
+        }
+        segment.loading.put(key, new Claim());
+      }
+      ++count;
+    }
+    return count;
+  }
+
+  /**
+   * Complete the load of a claimed block, whose data is the range
+   * {@code [from, to)} of {@code data}. Any threads waiting for the block
+   * receive the data. The data is copied only if it is retained or if any
+   * thread is waiting for it, and is not copied at all if the range covers
+   * the whole array. The block is not retained if its source was
+   * invalidated (or the cache was cleared) after the block was claimed.
+   *
+   * @param source The source URI
+   * @param index  The block index
+   * @param data   The array holding the block data
+   * @param from   The start of the block data in the array
+   * @param to     The end of the block data in the array
+   * @param retain {@code true} if the block should be inserted into the
+   *               cache
+   */
+
+  public void complete(
+    final URI source,
+    final long index,
+    final byte[] data,
+    final int from,
+    final int to,
+    final boolean retain)
+  {
+    Objects.requireNonNull(data, "data");
+
+    final var key = new BlockKey(source, index);
+    final var segment = this.segmentFor(key);
+
+    final Claim claim;
+    byte[] block = null;
+    synchronized (segment) {
+      claim = segment.loading.remove(key);
+      final var keep = retain && (claim == null || !claim.invalidated);
+      if (keep || claim != null) {
+        block = blockOf(data, from, to);
+      }
+      if (keep && segment.blocks.putIfAbsent(key, block) == null) {
+        segment.octets += block.length;
+        segment.evict();
+      }
+    }
+    if (claim != null) {
+      claim.future.complete(block);
+    }
+  }
+
+  /**
+   * Fail the load of a claimed block. Any threads waiting for the block
+   * receive the error.
+   *
+   * @param source The source URI
+   * @param index  The block index
+   * @param error  The error
+   */
+
+  public void fail(
+    final URI source,
+    final long index,
+    final IOException error)
+  {
+    final var key = new BlockKey(source, index);
+    final var segment = this.segmentFor(key);
+
+    final Claim claim;
+    synchronized (segment) {
+      claim = segment.loading.remove(key);
+    }
+    if (claim != null) {
+      claim.future.completeExceptionally(error);
+    }
+  }
+
+  /**
+   * @return The largest number of blocks of a single coalesced read that
+   * should be retained, which is half of the capacity of the cache, so that
+   * one large read cannot displace everything else in the cache
+   */
+
+  public int retainedRunMaximum()
+  {
+    return (int) Math.max(1L, Math.min(
+      Integer.MAX_VALUE,
+      this.capacity / this.blockSize / 2L));
+  }
+
+  private static byte[] blockOf(
+    final byte[] data,
+    final int from,
+    final int to)
+  {
+    if (from == 0 && to == data.length) {
+      return data;
+    }
+    return Arrays.copyOfRange(data, from, to);
+  }
+
+  private static byte[] awaitP(
+    final CompletableFuture<byte[]> pending)
+    throws IOException
+  {
+    try {
+      return pending.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final var ex = new InterruptedIOException("Interrupted awaiting block.");
+      ex.initCause(e);
+      throw ex;
+    } catch (final ExecutionException e) {
+      final var cause = e.getCause();
+      if (cause instanceof final IOException io) {
+        throw new IOException(io.getMessage(), io);
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Determine whether a block is resident. The lookup is not counted as
+   * either a hit or a miss, and does not affect the eviction order.
+   *
+   * @param source The source URI
+   * @param index  The block index
+   *
+   * @return {@code true} if the block is resident
+   */
+
+  public boolean contains(
+    final URI source,
+    final long index)
+  {
+    final var key = new BlockKey(source, index);
+    final var segment = this.segmentFor(key);
+
+    synchronized (segment) {
+      return segment.blocks.containsKey(key);
+    }
+  }
+
+  private Segment segmentFor(
+    final BlockKey key)
+  {
+    final var h = key.hashCode();
+    return this.segments[(h ^ (h >>> 16)) & this.segmentMask];
+  }
+
+  @Override
+  public int blockSize()
+  {
+    return this.blockSize;
+  }
+
+  @Override
+  public long capacity()
+  {
+    return this.capacity;
+  }
+
+  @Override
+  public BSSBlockCacheStatistics statistics()
+  {
+    var blocks = 0L;
+    var octets = 0L;
+    for (final var segment : this.segments) {
+      synchronized (segment) {
+        blocks += segment.blocks.size();
+        octets += segment.octets;
+      }
+    }
+
+    return new BSSBlockCacheStatistics(
+      this.hits.sum(),
+      this.misses.sum(),
+      this.evictions.sum(),
+      blocks,
+      octets
+    );
+  }
+
+  @Override
+  public void invalidate(
+    final URI source)
+  {
+    Objects.requireNonNull(source, "source");
+
+    for (final var segment : this.segments) {
+      synchronized (segment) {
+        final var iter = segment.blocks.entrySet().iterator();
+        while (iter.hasNext()) {
+          final var entry = iter.next();
+          if (entry.getKey().source().equals(source)) {
+            segment.octets -= entry.getValue().length;
+            iter.remove();
+          }
+        }
+        for (final var entry : segment.loading.entrySet()) {
+          if (entry.getKey().source().equals(source)) {
+            entry.getValue().invalidated = true;
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void clear()
+  {
+    for (final var segment : this.segments) {
+      synchronized (segment) {
+        segment.blocks.clear();
+        segment.octets = 0L;
+        for (final var claim : segment.loading.values()) {
+          claim.invalidated = true;
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSBlockCache %d %d]",
+      Integer.valueOf(this.blockSize),
+      Long.valueOf(this.capacity));
+  }
+
+  private record BlockKey(
+    URI source,
+    long index)
+  {
+
+  }
+
+  /**
+   * A claim on a block that is being loaded. Claims are guarded by the lock
+   * of the segment that holds them.
+   */
+
+  private static final class Claim
+  {
+    private final CompletableFuture<byte[]> future;
+    private boolean invalidated;
+
+    Claim()
+    {
+      this.future = new CompletableFuture<>();
+    }
+  }
+
+  private static final class Segment
+  {
+    private final BSSBlockCache cache;
+    private final long octetsMaximum;
+    private final LinkedHashMap<BlockKey, byte[]> blocks;
+    private final HashMap<BlockKey, Claim> loading;
+    private long octets;
+
+    Segment(
+      final BSSBlockCache inCache,
+      final long inOctetsMaximum)
+    {
+      this.cache = inCache;
+      this.octetsMaximum = inOctetsMaximum;
+      this.blocks = new LinkedHashMap<>(16, 0.75f, true);
+      this.loading = new HashMap<>();
+    }
+
+    void evict()
+    {
+      final var iter = this.blocks.entrySet().iterator();
+      while (this.octets > this.octetsMaximum && iter.hasNext()) {
+        final Map.Entry<BlockKey, byte[]> eldest = iter.next();
+        this.octets -= eldest.getValue().length;
+        iter.remove();
+        this.cache.evictions.increment();
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSBufferPoolStatistics;
+import com.io7m.jbssio.api.BSSBufferPoolType;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+
+/**
+ * A buffer pool. Buffers are allocated in power-of-two size classes, and
+ * idle buffers of each class are kept on a lock-free free list. Buffers
+ * larger than the largest class are allocated exactly and never retained.
+ * The capacity limits only the memory held by idle buffers; acquisitions
+ * never fail, and buffers that are never released are simply collected.
+ */
+
+public final class BSSBufferPool implements BSSBufferPoolType
+{
+  private static final int CLASS_SIZE_MINIMUM_LOG2 = 3;
+
+  private final long capacity;
+  private final int sizeMaximum;
+  private final ConcurrentLinkedQueue<ByteBuffer>[] free;
+  private final AtomicLong retained;
+  private final LongAdder acquisitions;
+  private final LongAdder allocations;
+  private final LongAdder releases;
+  private final LongAdder discards;
+
+  @SuppressWarnings("unchecked")
+  private BSSBufferPool(
+    final long inCapacity,
+    final int inSizeMaximum)
+  {
+    this.capacity = inCapacity;
+    this.sizeMaximum = inSizeMaximum;
+
+    final var classes =
+      classOf(inSizeMaximum) + 1;
+    this.free = new ConcurrentLinkedQueue[classes];
+    for (int index = 0; index < classes; ++index) {
+      this.free[index] = new ConcurrentLinkedQueue<>();
+    }
+
+    this.retained = new AtomicLong();
+    this.acquisitions = new LongAdder();
+    this.allocations = new LongAdder();
+    this.releases = new LongAdder();
+    this.discards = new LongAdder();
+  }
+
+  /**
+   * Create a buffer pool.
+   *
+   * @param capacity    The maximum number of octets of idle buffers to retain
+   * @param sizeMaximum The size of the largest buffer that will be pooled
+   *
+   * @return A buffer pool
+   */
+
+  public static BSSBufferPool create(
+    final long capacity,
+    final int sizeMaximum)
+  {
+    if (capacity < 0L) {
+      throw new IllegalArgumentException(
+        "Capacity must be non-negative.");
+    }
+    if (sizeMaximum < 8 || Integer.bitCount(sizeMaximum) != 1) {
+      throw new IllegalArgumentException(
+        "Maximum buffer size must be a power of two no smaller than 8.");
+    }
+    return new BSSBufferPool(capacity, sizeMaximum);
+  }
+
+  private static int classOf(
+    final int size)
+  {
+    final var log2 =
+      32 - Integer.numberOfLeadingZeros(Math.max(1, size - 1));
+    return Math.max(0, log2 - CLASS_SIZE_MINIMUM_LOG2);
+  }
+
+  @Override
+  public long capacity()
+  {
+    return this.capacity;
+  }
+
+  @Override
+  public ByteBuffer acquire(
+    final int size)
+  {
+    if (size < 0) {
+      throw new IllegalArgumentException("Size must be non-negative.");
+    }
+
+    this.acquisitions.increment();
+
+    ByteBuffer buffer = null;
+    if (size <= this.sizeMaximum) {
+      final var sizeClass = classOf(size);
+      buffer = this.free[sizeClass].poll();
+      if (buffer == null) {
+        this.allocations.increment();
+        buffer = ByteBuffer.allocateDirect(
+          1 << (sizeClass + CLASS_SIZE_MINIMUM_LOG2));
+      } else {
+        this.retained.addAndGet(-buffer.capacity());
+      }
+    } else {
+      this.allocations.increment();
+      buffer = ByteBuffer.allocateDirect(size);
+    }
+
+    buffer.clear();
+    buffer.limit(size);
+    buffer.order(BIG_ENDIAN);
+    return buffer;
+  }
+
+  @Override
+  public void release(
+    final ByteBuffer buffer)
+  {
+    Objects.requireNonNull(buffer, "buffer");
+
+    this.releases.increment();
+
+    final var size = buffer.capacity();
+    if (!buffer.isDirect()
+      || size > this.sizeMaximum
+      || Integer.bitCount(size) != 1
+      || size < (1 << CLASS_SIZE_MINIMUM_LOG2)) {
+      this.discards.increment();
+      return;
+    }
+
+    while (true) {
+      final var current = this.retained.get();
+      if (current + size > this.capacity) {
+        this.discards.increment();
+        return;
+      }
+      if (this.retained.compareAndSet(current, current + size)) {
+        break;
+      }
+    }
+
+    this.free[classOf(size)].offer(buffer);
+  }
+
+  @Override
+  public BSSBufferPoolStatistics statistics()
+  {
+    return new BSSBufferPoolStatistics(
+      this.acquisitions.sum(),
+      this.allocations.sum(),
+      this.releases.sum(),
+      this.discards.sum(),
+      this.retained.get()
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSBufferPool %d %d]",
+      Long.valueOf(this.capacity),
+      Integer.valueOf(this.sizeMaximum));
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Byte buffer view var handles. Accesses through these handles use absolute
+ * indices and an explicit byte order, and therefore never read or modify
+ * the position, limit, or byte order of the accessed buffer. This allows
+ * readers and writers to share a buffer without sharing any mutable state.
+ */
+
+final class BSSByteBufferViews
+{
+  static final VarHandle SHORT_BE =
+    MethodHandles.byteBufferViewVarHandle(short[].class, BIG_ENDIAN);
+  static final VarHandle SHORT_LE =
+    MethodHandles.byteBufferViewVarHandle(short[].class, LITTLE_ENDIAN);
+  static final VarHandle CHAR_BE =
+    MethodHandles.byteBufferViewVarHandle(char[].class, BIG_ENDIAN);
+  static final VarHandle CHAR_LE =
+    MethodHandles.byteBufferViewVarHandle(char[].class, LITTLE_ENDIAN);
+  static final VarHandle INT_BE =
+    MethodHandles.byteBufferViewVarHandle(int[].class, BIG_ENDIAN);
+  static final VarHandle INT_LE =
+    MethodHandles.byteBufferViewVarHandle(int[].class, LITTLE_ENDIAN);
+  static final VarHandle LONG_BE =
+    MethodHandles.byteBufferViewVarHandle(long[].class, BIG_ENDIAN);
+  static final VarHandle LONG_LE =
+    MethodHandles.byteBufferViewVarHandle(long[].class, LITTLE_ENDIAN);
+  static final VarHandle FLOAT_BE =
+    MethodHandles.byteBufferViewVarHandle(float[].class, BIG_ENDIAN);
+  static final VarHandle FLOAT_LE =
+    MethodHandles.byteBufferViewVarHandle(float[].class, LITTLE_ENDIAN);
+  static final VarHandle DOUBLE_BE =
+    MethodHandles.byteBufferViewVarHandle(double[].class, BIG_ENDIAN);
+  static final VarHandle DOUBLE_LE =
+    MethodHandles.byteBufferViewVarHandle(double[].class, LITTLE_ENDIAN);
+
+  private BSSByteBufferViews()
+  {
+
+  }
+}
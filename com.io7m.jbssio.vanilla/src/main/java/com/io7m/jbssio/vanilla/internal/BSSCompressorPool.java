@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Process-wide pools of inflaters and deflaters. Each inflater and deflater
+ * owns a native zlib stream with tens (inflaters) to hundreds (deflaters)
+ * of kilobytes of native state, and so creating one per compressed stream
+ * is expensive; pooled instances are reset and reused instead. Instances
+ * beyond the capacity of a pool are ended when released.
+ */
+
+final class BSSCompressorPool
+{
+  private static final int CAPACITY = 32;
+
+  private static final ArrayBlockingQueue<Inflater> INFLATERS_RAW =
+    new ArrayBlockingQueue<>(CAPACITY);
+  private static final ArrayBlockingQueue<Inflater> INFLATERS_WRAPPED =
+    new ArrayBlockingQueue<>(CAPACITY);
+  private static final ArrayBlockingQueue<Deflater> DEFLATERS_RAW =
+    new ArrayBlockingQueue<>(CAPACITY);
+  private static final ArrayBlockingQueue<Deflater> DEFLATERS_WRAPPED =
+    new ArrayBlockingQueue<>(CAPACITY);
+
+  private BSSCompressorPool()
+  {
+
+  }
+
+  /**
+   * Take an inflater from the pool, creating one if the pool is empty.
+   *
+   * @param nowrap {@code true} if the inflater reads raw DEFLATE data
+   *
+   * @return An inflater
+   */
+
+  static Inflater inflater(
+    final boolean nowrap)
+  {
+    final var inflater = inflatersFor(nowrap).poll();
+    if (inflater != null) {
+      return inflater;
+    }
+    return new Inflater(nowrap);
+  }
+
+  /**
+   * Reset the given inflater and return it to the pool.
+   *
+   * @param inflater The inflater
+   * @param nowrap   The value of {@code nowrap} with which the inflater was
+   *                 taken
+   */
+
+  static void release(
+    final Inflater inflater,
+    final boolean nowrap)
+  {
+    inflater.reset();
+    if (!inflatersFor(nowrap).offer(inflater)) {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Take a deflater from the pool, creating one if the pool is empty.
+   *
+   * @param level  The compression level
+   * @param nowrap {@code true} if the deflater writes raw DEFLATE data
+   *
+   * @return A deflater
+   */
+
+  static Deflater deflater(
+    final int level,
+    final boolean nowrap)
+  {
+    final var deflater = deflatersFor(nowrap).poll();
+    if (deflater != null) {
+      deflater.setLevel(level);
+      return deflater;
+    }
+    return new Deflater(level, nowrap);
+  }
+
+  /**
+   * Reset the given deflater and return it to the pool.
+   *
+   * @param deflater The deflater
+   * @param nowrap   The value of {@code nowrap} with which the deflater was
+   *                 taken
+   */
+
+  static void release(
+    final Deflater deflater,
+    final boolean nowrap)
+  {
+    deflater.reset();
+    if (!deflatersFor(nowrap).offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  private static ArrayBlockingQueue<Inflater> inflatersFor(
+    final boolean nowrap)
+  {
+    return nowrap ? INFLATERS_RAW : INFLATERS_WRAPPED;
+  }
+
+  private static ArrayBlockingQueue<Deflater> deflatersFor(
+    final boolean nowrap)
+  {
+    return nowrap ? DEFLATERS_RAW : DEFLATERS_WRAPPED;
+  }
+}
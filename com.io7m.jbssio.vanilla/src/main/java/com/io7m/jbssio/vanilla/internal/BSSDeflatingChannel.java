@@ -0,0 +1,312 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.api.BSSCompression;
+import com.io7m.jbssio.api.BSSCompressionFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A writable channel that compresses data written to it into another
+ * channel.
+ *
+ * Data passed to {@link #write(ByteBuffer)} is handed to the deflater
+ * without copying, and compressed data is deflated directly into a single
+ * large buffer that is written to the target channel when full. When the
+ * target is a channel, the compressed buffer is direct, and so no data
+ * passes through the Java heap at all. The compressed data is completed
+ * when the channel is closed.
+ */
+
+public final class BSSDeflatingChannel implements WritableByteChannel
+{
+  private static final byte[] EMPTY = new byte[0];
+
+  private static final byte[] GZIP_HEADER = {
+    (byte) 0x1f,
+    (byte) 0x8b,
+    (byte) 0x08,
+    (byte) 0x00,
+    (byte) 0x00,
+    (byte) 0x00,
+    (byte) 0x00,
+    (byte) 0x00,
+    (byte) 0x00,
+    (byte) 0xff,
+  };
+
+  private final WritableByteChannel target;
+  private final ByteBuffer output;
+  private final BSSBufferPoolType pool;
+  private final BSSCompressionFormat format;
+  private final boolean nowrap;
+  private final Deflater deflater;
+  private final CRC32 crc;
+  private boolean headerWritten;
+  private boolean open;
+
+  private BSSDeflatingChannel(
+    final WritableByteChannel inTarget,
+    final ByteBuffer inOutput,
+    final BSSBufferPoolType inPool,
+    final BSSCompression inCompression)
+  {
+    this.target =
+      Objects.requireNonNull(inTarget, "target");
+    this.output =
+      Objects.requireNonNull(inOutput, "output");
+    this.format =
+      inCompression.format();
+    this.pool = inPool;
+
+    this.nowrap = this.format != BSSCompressionFormat.ZLIB;
+    this.deflater =
+      BSSCompressorPool.deflater(inCompression.level(), this.nowrap);
+    this.crc = new CRC32();
+    this.open = true;
+  }
+
+  /**
+   * Create a channel that compresses data into the given stream. Compressed
+   * data is written directly from the array of a heap buffer.
+   *
+   * @param stream      The target stream
+   * @param compression The compression parameters
+   *
+   * @return A channel
+   */
+
+  public static BSSDeflatingChannel fromStream(
+    final OutputStream stream,
+    final BSSCompression compression)
+  {
+    return new BSSDeflatingChannel(
+      new StreamTarget(stream),
+      ByteBuffer.allocate(compression.bufferSize()),
+      null,
+      compression
+    );
+  }
+
+  /**
+   * Create a channel that compresses data into the given channel.
+   * Compressed data is written from a direct buffer, drawn from the given
+   * pool if one is provided.
+   *
+   * @param channel     The target channel
+   * @param compression The compression parameters
+   * @param pool        The buffer pool, if any
+   *
+   * @return A channel
+   */
+
+  public static BSSDeflatingChannel fromChannel(
+    final WritableByteChannel channel,
+    final BSSCompression compression,
+    final BSSBufferPoolType pool)
+  {
+    final ByteBuffer buffer;
+    if (pool != null) {
+      buffer = pool.acquire(compression.bufferSize());
+    } else {
+      buffer = ByteBuffer.allocateDirect(compression.bufferSize());
+    }
+    return new BSSDeflatingChannel(
+      channel,
+      buffer.clear(),
+      pool,
+      compression
+    );
+  }
+
+  @Override
+  public int write(
+    final ByteBuffer source)
+    throws IOException
+  {
+    if (!this.open) {
+      throw new ClosedChannelException();
+    }
+
+    this.writeHeader();
+
+    final var count = source.remaining();
+    if (this.format == BSSCompressionFormat.GZIP) {
+      this.crc.update(source.duplicate());
+    }
+
+    /*
+     * The deflater reads the position and limit of an input buffer each
+     * time it is invoked, so the reference to the caller's buffer must be
+     * dropped before the caller reuses it.
+     */
+
+    this.deflater.setInput(source);
+    try {
+      while (!this.deflater.needsInput()) {
+        this.deflater.deflate(this.output);
+        if (!this.output.hasRemaining()) {
+          this.drain();
+        }
+      }
+    } finally {
+      this.deflater.setInput(EMPTY);
+    }
+    return count;
+  }
+
+  private void writeHeader()
+    throws IOException
+  {
+    if (this.format == BSSCompressionFormat.GZIP && !this.headerWritten) {
+      this.headerWritten = true;
+      for (final var b : GZIP_HEADER) {
+        this.put(b);
+      }
+    }
+  }
+
+  private void writeTrailer()
+    throws IOException
+  {
+    if (this.format == BSSCompressionFormat.GZIP) {
+      this.putIntLE(this.crc.getValue());
+      this.putIntLE(this.deflater.getBytesRead());
+    }
+  }
+
+  private void putIntLE(
+    final long value)
+    throws IOException
+  {
+    for (int index = 0; index < 4; ++index) {
+      this.put((byte) (value >>> (index * 8)));
+    }
+  }
+
+  private void put(
+    final byte value)
+    throws IOException
+  {
+    if (!this.output.hasRemaining()) {
+      this.drain();
+    }
+    this.output.put(value);
+  }
+
+  private void drain()
+    throws IOException
+  {
+    this.output.flip();
+    try {
+      while (this.output.hasRemaining()) {
+        this.target.write(this.output);
+      }
+    } finally {
+      this.output.clear();
+    }
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return this.open;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (!this.open) {
+      return;
+    }
+
+    this.open = false;
+    try {
+      this.writeHeader();
+      this.deflater.finish();
+      while (!this.deflater.finished()) {
+        this.deflater.deflate(this.output);
+        if (!this.output.hasRemaining()) {
+          this.drain();
+        }
+      }
+      this.writeTrailer();
+      this.drain();
+    } finally {
+      try {
+        this.target.close();
+      } finally {
+        BSSCompressorPool.release(this.deflater, this.nowrap);
+        if (this.pool != null) {
+          this.pool.release(this.output);
+        }
+      }
+    }
+  }
+
+  private static final class StreamTarget implements WritableByteChannel
+  {
+    private final OutputStream stream;
+    private boolean open;
+
+    StreamTarget(
+      final OutputStream inStream)
+    {
+      this.stream = Objects.requireNonNull(inStream, "stream");
+      this.open = true;
+    }
+
+    @Override
+    public int write(
+      final ByteBuffer source)
+      throws IOException
+    {
+      final var count = source.remaining();
+      this.stream.write(
+        source.array(),
+        source.arrayOffset() + source.position(),
+        count);
+      source.position(source.limit());
+      return count;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+      return this.open;
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      this.open = false;
+      this.stream.close();
+    }
+  }
+}
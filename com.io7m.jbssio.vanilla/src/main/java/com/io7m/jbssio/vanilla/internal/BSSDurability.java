@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSDurabilityPolicy;
+import com.io7m.jbssio.api.BSSDurabilityStatistics;
+import com.io7m.jbssio.api.BSSDurabilityType;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A durability policy. The policy itself holds only the policy parameters
+ * and the aggregated statistics; each root writer keeps its own
+ * {@link BSSDurabilitySync}.
+ */
+
+public final class BSSDurability implements BSSDurabilityType
+{
+  private final BSSDurabilityPolicy policy;
+  private final LongAdder commits;
+  private final LongAdder forces;
+  private final LongAdder octetsForced;
+  private final LongAdder forceNanosTotal;
+  private final AtomicLong forceNanosMaximum;
+
+  private BSSDurability(
+    final BSSDurabilityPolicy inPolicy)
+  {
+    this.policy = Objects.requireNonNull(inPolicy, "policy");
+    this.commits = new LongAdder();
+    this.forces = new LongAdder();
+    this.octetsForced = new LongAdder();
+    this.forceNanosTotal = new LongAdder();
+    this.forceNanosMaximum = new AtomicLong();
+  }
+
+  /**
+   * Create a durability policy.
+   *
+   * @param policy The policy parameters
+   *
+   * @return A durability policy
+   */
+
+  public static BSSDurability create(
+    final BSSDurabilityPolicy policy)
+  {
+    return new BSSDurability(policy);
+  }
+
+  void recordCommit()
+  {
+    this.commits.increment();
+  }
+
+  void recordForce(
+    final long octets,
+    final long nanos)
+  {
+    this.forces.increment();
+    this.octetsForced.add(octets);
+    this.forceNanosTotal.add(nanos);
+    this.forceNanosMaximum.accumulateAndGet(nanos, Math::max);
+  }
+
+  @Override
+  public BSSDurabilityPolicy policy()
+  {
+    return this.policy;
+  }
+
+  @Override
+  public BSSDurabilityStatistics statistics()
+  {
+    return new BSSDurabilityStatistics(
+      this.commits.sum(),
+      this.forces.sum(),
+      this.octetsForced.sum(),
+      this.forceNanosTotal.sum(),
+      this.forceNanosMaximum.get()
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("[BSSDurability %s]", this.policy);
+  }
+}
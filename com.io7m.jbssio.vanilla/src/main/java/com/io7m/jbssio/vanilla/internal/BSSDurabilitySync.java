@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * The durability state of a single channel, shared between a root writer
+ * and all of its sub-writers.
+ *
+ * Every commit takes a ticket. The first committer to find no force in
+ * progress forces the channel on behalf of every ticket issued so far;
+ * committers that arrive while a force is in progress wait for it, and
+ * if their ticket was issued after it began, one of them forces again on
+ * behalf of all of them. A commit when no octets have been written since
+ * the last force began does not force at all.
+ */
+
+final class BSSDurabilitySync
+{
+  private final BSSDurability durability;
+  private final FileChannel channel;
+  private long pending;
+  private long lastForce;
+  private long requested;
+  private long completed;
+  private boolean forcing;
+
+  BSSDurabilitySync(
+    final BSSDurability inDurability,
+    final FileChannel inChannel)
+  {
+    this.durability =
+      Objects.requireNonNull(inDurability, "durability");
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.lastForce = System.nanoTime();
+  }
+
+  /**
+   * Account for {@code octets} newly written octets, forcing the channel if
+   * the policy requires it.
+   *
+   * @param octets The number of octets
+   *
+   * @throws IOException On errors
+   */
+
+  void written(
+    final long octets)
+    throws IOException
+  {
+    final var policy = this.durability.policy();
+    final boolean due;
+    synchronized (this) {
+      this.pending += octets;
+      due = switch (policy.mode()) {
+        case EVERY_OCTETS -> this.pending >= policy.octets();
+        case EVERY_INTERVAL ->
+          System.nanoTime() - this.lastForce >= policy.interval().toNanos();
+        case NONE, ON_CLOSE, GROUP_COMMIT -> false;
+      };
+    }
+
+    if (due) {
+      this.commit();
+    }
+  }
+
+  /**
+   * A writer was flushed.
+   *
+   * @throws IOException On errors
+   */
+
+  void flushed()
+    throws IOException
+  {
+    switch (this.durability.policy().mode()) {
+      case GROUP_COMMIT -> this.commit();
+      case NONE, ON_CLOSE, EVERY_OCTETS, EVERY_INTERVAL -> {
+
+      }
+    }
+  }
+
+  /**
+   * The root writer is closing.
+   *
+   * @throws IOException On errors
+   */
+
+  void closing()
+    throws IOException
+  {
+    switch (this.durability.policy().mode()) {
+      case NONE -> {
+
+      }
+      case ON_CLOSE, EVERY_OCTETS, EVERY_INTERVAL, GROUP_COMMIT -> this.commit();
+    }
+  }
+
+  private void commit()
+    throws IOException
+  {
+    this.durability.recordCommit();
+
+    final long target;
+    final long octets;
+    synchronized (this) {
+      final var ticket = ++this.requested;
+      while (this.forcing && this.completed < ticket) {
+        this.awaitP();
+      }
+      if (this.completed >= ticket) {
+        return;
+      }
+      if (this.pending == 0L) {
+        this.completed = this.requested;
+        return;
+      }
+
+      this.forcing = true;
+      target = this.requested;
+      octets = this.pending;
+      this.pending = 0L;
+    }
+
+    final var start = System.nanoTime();
+    try {
+      this.channel.force(false);
+    } catch (final IOException e) {
+      synchronized (this) {
+        this.pending += octets;
+        this.forcing = false;
+        this.notifyAll();
+      }
+      throw e;
+    }
+
+    final var time = System.nanoTime() - start;
+    this.durability.recordForce(octets, time);
+
+    synchronized (this) {
+      this.completed = target;
+      this.forcing = false;
+      this.lastForce = start;
+      this.notifyAll();
+    }
+  }
+
+  private void awaitP()
+    throws InterruptedIOException
+  {
+    try {
+      this.wait();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final var ex = new InterruptedIOException(e.getMessage());
+      ex.initCause(e);
+      throw ex;
+    }
+  }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.api.BSSCompression;
+import com.io7m.jbssio.api.BSSCompressionFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A readable channel that decompresses data read from another channel.
+ *
+ * Compressed data is read into a single large buffer and handed to the
+ * inflater without copying, and decompressed data is inflated directly into
+ * the buffer passed to {@link #read(ByteBuffer)}. When the source is a
+ * channel, the compressed buffer is direct, and so no data passes through
+ * the Java heap at all. GZIP headers and trailers are parsed here rather
+ * than by the inflater, so that GZIP data can be read with a raw inflater.
+ */
+
+public final class BSSInflatingChannel implements ReadableByteChannel
+{
+  /**
+   * The smallest compressed buffer, large enough to hold the fixed-size
+   * parts of GZIP headers and trailers.
+   */
+
+  private static final int BUFFER_SIZE_MINIMUM = 16;
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int GZIP_METHOD_DEFLATE = 8;
+  private static final int GZIP_FLAG_HCRC = 0x02;
+  private static final int GZIP_FLAG_EXTRA = 0x04;
+  private static final int GZIP_FLAG_NAME = 0x08;
+  private static final int GZIP_FLAG_COMMENT = 0x10;
+  private static final int GZIP_FLAG_RESERVED = 0xe0;
+
+  private final ReadableByteChannel source;
+  private final ByteBuffer input;
+  private final BSSBufferPoolType pool;
+  private final BSSCompressionFormat format;
+  private final boolean nowrap;
+  private final Inflater inflater;
+  private final CRC32 crc;
+  private State state;
+  private boolean open;
+
+  private enum State
+  {
+    HEADER,
+    BODY,
+    TRAILER,
+    END
+  }
+
+  private BSSInflatingChannel(
+    final ReadableByteChannel inSource,
+    final ByteBuffer inInput,
+    final BSSBufferPoolType inPool,
+    final BSSCompressionFormat inFormat)
+  {
+    this.source =
+      Objects.requireNonNull(inSource, "source");
+    this.input =
+      Objects.requireNonNull(inInput, "input");
+    this.format =
+      Objects.requireNonNull(inFormat, "format");
+    this.pool = inPool;
+
+    this.input.order(ByteOrder.LITTLE_ENDIAN);
+    this.input.limit(0);
+
+    this.nowrap = inFormat != BSSCompressionFormat.ZLIB;
+    this.inflater = BSSCompressorPool.inflater(this.nowrap);
+    this.crc = new CRC32();
+    this.open = true;
+
+    if (inFormat == BSSCompressionFormat.GZIP) {
+      this.state = State.HEADER;
+    } else {
+      this.state = State.BODY;
+    }
+  }
+
+  /**
+   * Create a channel that decompresses data read from the given stream.
+   * Compressed data is read directly into the array of a heap buffer.
+   *
+   * @param stream      The source stream
+   * @param compression The compression parameters
+   *
+   * @return A channel
+   */
+
+  public static BSSInflatingChannel fromStream(
+    final InputStream stream,
+    final BSSCompression compression)
+  {
+    return new BSSInflatingChannel(
+      new StreamSource(stream),
+      ByteBuffer.allocate(bufferSizeOf(compression)),
+      null,
+      compression.format()
+    );
+  }
+
+  /**
+   * Create a channel that decompresses data read from the given channel.
+   * Compressed data is read into a direct buffer, drawn from the given pool
+   * if one is provided.
+   *
+   * @param channel     The source channel
+   * @param compression The compression parameters
+   * @param pool        The buffer pool, if any
+   *
+   * @return A channel
+   *
+   * @throws IllegalArgumentException If the channel is non-blocking
+   */
+
+  public static BSSInflatingChannel fromChannel(
+    final ReadableByteChannel channel,
+    final BSSCompression compression,
+    final BSSBufferPoolType pool)
+  {
+    BSSReaderReadableChannel.checkBlocking(channel);
+
+    final ByteBuffer buffer;
+    if (pool != null) {
+      buffer = pool.acquire(bufferSizeOf(compression));
+    } else {
+      buffer = ByteBuffer.allocateDirect(bufferSizeOf(compression));
+    }
+    return new BSSInflatingChannel(
+      channel,
+      buffer.clear(),
+      pool,
+      compression.format()
+    );
+  }
+
+  private static int bufferSizeOf(
+    final BSSCompression compression)
+  {
+    return Math.max(BUFFER_SIZE_MINIMUM, compression.bufferSize());
+  }
+
+  @Override
+  public int read(
+    final ByteBuffer target)
+    throws IOException
+  {
+    if (!this.open) {
+      throw new ClosedChannelException();
+    }
+
+    while (true) {
+      switch (this.state) {
+        case HEADER -> {
+          this.readHeader();
+        }
+        case BODY -> {
+          final var count = this.inflate(target);
+          if (count > 0 || !target.hasRemaining()) {
+            return count;
+          }
+        }
+        case TRAILER -> {
+          this.readTrailer();
+        }
+        case END -> {
+          return -1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Inflate data into the target buffer. Returns either a positive count,
+   * or zero if the target buffer is full or the end of the compressed data
+   * was reached.
+   */
+
+  private int inflate(
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var start = target.position();
+    while (target.hasRemaining()) {
+      if (this.inflater.needsInput()) {
+        if (!this.fill(1)) {
+          throw new EOFException("Unexpected end of compressed data.");
+        }
+        this.inflater.setInput(this.input);
+      }
+
+      final int count;
+      try {
+        count = this.inflater.inflate(target);
+      } catch (final DataFormatException e) {
+        final var ex = new ZipException(e.getMessage());
+        ex.initCause(e);
+        throw ex;
+      }
+
+      if (this.inflater.finished()) {
+        this.state = State.TRAILER;
+      }
+      if (count > 0) {
+        if (this.format == BSSCompressionFormat.GZIP) {
+          this.crc.update(
+            target.duplicate()
+              .limit(target.position())
+              .position(start));
+        }
+        return count;
+      }
+      if (this.state == State.TRAILER) {
+        return 0;
+      }
+      if (this.inflater.needsDictionary()) {
+        throw new ZipException("A preset dictionary is required.");
+      }
+    }
+    return 0;
+  }
+
+  private void readHeader()
+    throws IOException
+  {
+    this.require(10);
+
+    if ((this.input.getShort() & 0xffff) != GZIP_MAGIC) {
+      throw new ZipException("Not in GZIP format.");
+    }
+    if ((this.input.get() & 0xff) != GZIP_METHOD_DEFLATE) {
+      throw new ZipException("Unsupported GZIP compression method.");
+    }
+    final var flags = this.input.get() & 0xff;
+    if ((flags & GZIP_FLAG_RESERVED) != 0) {
+      throw new ZipException("Unsupported GZIP flags.");
+    }
+
+    // Modification time, extra flags, and operating system.
+    this.skipHeader(6);
+
+    if ((flags & GZIP_FLAG_EXTRA) != 0) {
+      this.require(2);
+      this.skipHeader(this.input.getShort() & 0xffff);
+    }
+    if ((flags & GZIP_FLAG_NAME) != 0) {
+      this.skipHeaderString();
+    }
+    if ((flags & GZIP_FLAG_COMMENT) != 0) {
+      this.skipHeaderString();
+    }
+    if ((flags & GZIP_FLAG_HCRC) != 0) {
+      this.skipHeader(2);
+    }
+    this.state = State.BODY;
+  }
+
+  private void readTrailer()
+    throws IOException
+  {
+    if (this.format != BSSCompressionFormat.GZIP) {
+      this.state = State.END;
+      return;
+    }
+
+    this.require(8);
+
+    final var expectedCRC = this.input.getInt() & 0xffff_ffffL;
+    final var expectedSize = this.input.getInt() & 0xffff_ffffL;
+    if (expectedCRC != this.crc.getValue()) {
+      throw new ZipException("Corrupt GZIP trailer (CRC-32 mismatch).");
+    }
+    if (expectedSize != (this.inflater.getBytesWritten() & 0xffff_ffffL)) {
+      throw new ZipException("Corrupt GZIP trailer (size mismatch).");
+    }
+
+    /*
+     * Data following the trailer is another GZIP member only if it begins
+     * with the GZIP magic number. Anything else (such as trailing padding)
+     * ends the stream, as it does for GZIPInputStream.
+     */
+
+    if (this.fill(2)
+      && (this.input.getShort(this.input.position()) & 0xffff) == GZIP_MAGIC) {
+      this.inflater.reset();
+      this.crc.reset();
+      this.state = State.HEADER;
+    } else {
+      this.state = State.END;
+    }
+  }
+
+  private void require(
+    final int octets)
+    throws IOException
+  {
+    if (!this.fill(octets)) {
+      throw new EOFException("Unexpected end of GZIP data.");
+    }
+  }
+
+  private void skipHeader(
+    final int octets)
+    throws IOException
+  {
+    var remaining = octets;
+    while (remaining > 0) {
+      this.require(1);
+      final var count = Math.min(remaining, this.input.remaining());
+      this.input.position(this.input.position() + count);
+      remaining -= count;
+    }
+  }
+
+  private void skipHeaderString()
+    throws IOException
+  {
+    while (true) {
+      this.require(1);
+      if (this.input.get() == 0) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Ensure that at least {@code octets} bytes of compressed data are
+   * buffered, reading from the source as necessary. This must not be called
+   * while the inflater holds unconsumed input.
+   *
+   * @return {@code false} if the source ended first
+   */
+
+  private boolean fill(
+    final int octets)
+    throws IOException
+  {
+    if (this.input.remaining() >= octets) {
+      return true;
+    }
+
+    this.input.compact();
+    try {
+      while (this.input.position() < octets) {
+        if (this.source.read(this.input) == -1) {
+          break;
+        }
+      }
+    } finally {
+      this.input.flip();
+    }
+    return this.input.remaining() >= octets;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return this.open;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.open) {
+      this.open = false;
+      try {
+        this.source.close();
+      } finally {
+        BSSCompressorPool.release(this.inflater, this.nowrap);
+        if (this.pool != null) {
+          this.pool.release(this.input);
+        }
+      }
+    }
+  }
+
+  private static final class StreamSource implements ReadableByteChannel
+  {
+    private final InputStream stream;
+    private boolean open;
+
+    StreamSource(
+      final InputStream inStream)
+    {
+      this.stream = Objects.requireNonNull(inStream, "stream");
+      this.open = true;
+    }
+
+    @Override
+    public int read(
+      final ByteBuffer target)
+      throws IOException
+    {
+      final var position = target.position();
+      final var count =
+        this.stream.read(
+          target.array(),
+          target.arrayOffset() + position,
+          target.remaining());
+      if (count > 0) {
+        target.position(position + count);
+      }
+      return count;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+      return this.open;
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      this.open = false;
+      this.stream.close();
+    }
+  }
+}
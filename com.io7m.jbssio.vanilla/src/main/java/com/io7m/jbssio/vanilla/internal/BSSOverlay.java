@@ -0,0 +1,468 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.api.BSSOverlayType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSWriterRandomAccessType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+/**
+ * A copy-on-write overlay over a base reader. Writes are recorded in a map
+ * of disjoint extents ordered by offset; adjacent and overlapping writes are
+ * merged so that the map never contains two extents that touch. Each
+ * extent is held in a growable array, so that a write that extends an
+ * extent at its end (the common case when a region is written field by
+ * field) is appended in place in amortized constant time. Readers and
+ * writers access the overlay through {@link BSSOverlayChannel} views, so
+ * that the existing seekable channel readers and writers are used
+ * unchanged.
+ */
+
+public final class BSSOverlay implements BSSOverlayType
+{
+  /**
+   * The size of the buffer used to copy the base, and of the block of zeroes
+   * used to fill gaps beyond the end of the base.
+   */
+
+  private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+  private static final byte[] ZEROES = new byte[COPY_BUFFER_SIZE];
+
+  /**
+   * The largest extent that can be recorded.
+   */
+
+  private static final long EXTENT_SIZE_MAXIMUM = Integer.MAX_VALUE - 8;
+
+  private final URI uri;
+  private final BSSReaderRandomAccessType base;
+  private final long baseSize;
+  private final BSSBufferPoolType pool;
+  private final TreeMap<Long, Extent> extents;
+  private long size;
+  private volatile boolean closed;
+
+  private BSSOverlay(
+    final URI inURI,
+    final BSSReaderRandomAccessType inBase,
+    final long inBaseSize,
+    final BSSBufferPoolType inPool)
+  {
+    this.uri = Objects.requireNonNull(inURI, "uri");
+    this.base = Objects.requireNonNull(inBase, "base");
+    this.baseSize = inBaseSize;
+    this.pool = inPool;
+    this.extents = new TreeMap<>();
+    this.size = inBaseSize;
+  }
+
+  /**
+   * Create an overlay over the given base reader.
+   *
+   * @param uri  The URI of the overlay
+   * @param base The base reader, which must have a known size
+   * @param pool The buffer pool used by readers and writers, if any
+   *
+   * @return An overlay
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BSSOverlay create(
+    final URI uri,
+    final BSSReaderRandomAccessType base,
+    final BSSBufferPoolType pool)
+    throws IOException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(base, "base");
+
+    base.seekTo(0L);
+    final var baseSize =
+      base.bytesRemaining()
+        .orElseThrow(() -> new IllegalArgumentException(
+          "Base reader %s must have a known size.".formatted(base)));
+
+    return new BSSOverlay(uri, base, baseSize, pool);
+  }
+
+  @Override
+  public URI uri()
+  {
+    return this.uri;
+  }
+
+  @Override
+  public long baseSize()
+  {
+    return this.baseSize;
+  }
+
+  @Override
+  public synchronized long size()
+  {
+    return this.size;
+  }
+
+  @Override
+  public synchronized int extentCount()
+  {
+    return this.extents.size();
+  }
+
+  @Override
+  public BSSWriterRandomAccessType createWriter(
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+    this.checkNotClosed();
+
+    return BSSWriterSeekableChannel.createFromChannelConfigured(
+      this.uri,
+      new BSSOverlayChannel(this),
+      name,
+      OptionalLong.empty(),
+      this.pool);
+  }
+
+  @Override
+  public BSSReaderRandomAccessType createReader(
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+    this.checkNotClosed();
+
+    return BSSReaderSeekableChannel.createFromChannelConfigured(
+      this.uri,
+      new BSSOverlayChannel(this),
+      name,
+      OptionalLong.of(this.size()),
+      null,
+      this.pool,
+      null);
+  }
+
+  @Override
+  public synchronized long writeTo(
+    final WritableByteChannel target)
+    throws IOException
+  {
+    Objects.requireNonNull(target, "target");
+    this.checkNotClosed();
+
+    var cursor = 0L;
+    for (final var entry : this.extents.entrySet()) {
+      final var start = entry.getKey().longValue();
+      final var extent = entry.getValue();
+      this.copyBaseP(cursor, start - cursor, target);
+      writeFully(ByteBuffer.wrap(extent.data, 0, extent.length), target);
+      cursor = start + extent.length;
+    }
+    this.copyBaseP(cursor, this.size - cursor, target);
+    return this.size;
+  }
+
+  /**
+   * Read from the overlay at the given offset.
+   *
+   * @param target The target buffer
+   * @param offset The offset
+   *
+   * @return The number of bytes read, or {@code -1} if the offset is at or
+   * beyond the end of the overlay
+   *
+   * @throws IOException On I/O errors
+   */
+
+  synchronized int read(
+    final ByteBuffer target,
+    final long offset)
+    throws IOException
+  {
+    this.checkNotClosed();
+
+    if (offset >= this.size) {
+      return -1;
+    }
+
+    final var end = offset + Math.min(target.remaining(), this.size - offset);
+    var cursor = offset;
+    while (cursor < end) {
+      final var floor = this.extents.floorEntry(Long.valueOf(cursor));
+      if (floor != null) {
+        final var start = floor.getKey().longValue();
+        final var extent = floor.getValue();
+        final var extentEnd = start + extent.length;
+        if (extentEnd > cursor) {
+          final var count = (int) (Math.min(end, extentEnd) - cursor);
+          target.put(extent.data, (int) (cursor - start), count);
+          cursor += count;
+          continue;
+        }
+      }
+
+      final var next = this.extents.higherKey(Long.valueOf(cursor));
+      final var gapEnd =
+        next == null ? end : Math.min(end, next.longValue());
+      this.readBaseP(cursor, (int) (gapEnd - cursor), target);
+      cursor = gapEnd;
+    }
+    return (int) (end - offset);
+  }
+
+  /**
+   * Record a write to the overlay at the given offset, merging the write
+   * with any extents that it overlaps or touches.
+   *
+   * @param source The source buffer
+   * @param offset The offset
+   *
+   * @return The number of bytes written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  synchronized int write(
+    final ByteBuffer source,
+    final long offset)
+    throws IOException
+  {
+    this.checkNotClosed();
+
+    final var length = source.remaining();
+    if (length == 0) {
+      return 0;
+    }
+
+    /*
+     * If the write overlaps or touches the extent that starts at or before
+     * it, that extent is extended in place. Otherwise, a new extent is
+     * created. Any following extents that the write reaches are then
+     * absorbed into it.
+     */
+
+    final var end = offset + length;
+    final var floor = this.extents.floorEntry(Long.valueOf(offset));
+
+    final long start;
+    final Extent extent;
+    if (floor != null
+      && floor.getKey().longValue() + floor.getValue().length >= offset) {
+      start = floor.getKey().longValue();
+      extent = floor.getValue();
+    } else {
+      start = offset;
+      extent = new Extent();
+    }
+
+    final var absorbed =
+      this.extents.subMap(Long.valueOf(start), false, Long.valueOf(end), true);
+
+    var extentEnd = Math.max(start + extent.length, end);
+    for (final var entry : absorbed.entrySet()) {
+      extentEnd = Math.max(
+        extentEnd, entry.getKey().longValue() + entry.getValue().length);
+    }
+
+    if (extentEnd - start > EXTENT_SIZE_MAXIMUM) {
+      throw new IOException(
+        "An extent of %d octets exceeds the maximum extent size %d."
+          .formatted(
+            Long.valueOf(extentEnd - start),
+            Long.valueOf(EXTENT_SIZE_MAXIMUM)));
+    }
+
+    extent.ensureLength((int) (extentEnd - start));
+    this.extents.put(Long.valueOf(start), extent);
+    for (final var entry : absorbed.entrySet()) {
+      final var other = entry.getValue();
+      System.arraycopy(
+        other.data,
+        0,
+        extent.data,
+        (int) (entry.getKey().longValue() - start),
+        other.length);
+    }
+    absorbed.clear();
+
+    source.get(extent.data, (int) (offset - start), length);
+    this.size = Math.max(this.size, end);
+    return length;
+  }
+
+  /**
+   * An extent: the first {@code length} bytes of {@code data}. The array
+   * grows geometrically so that repeated appends are cheap.
+   */
+
+  private static final class Extent
+  {
+    private byte[] data;
+    private int length;
+
+    Extent()
+    {
+      this.data = new byte[0];
+      this.length = 0;
+    }
+
+    void ensureLength(
+      final int newLength)
+    {
+      if (newLength > this.data.length) {
+        final var doubled =
+          (int) Math.min(EXTENT_SIZE_MAXIMUM, 2L * this.data.length);
+        this.data = Arrays.copyOf(this.data, Math.max(newLength, doubled));
+      }
+      this.length = Math.max(this.length, newLength);
+    }
+  }
+
+  /**
+   * Read {@code length} bytes of the base at the given offset into the
+   * target buffer. Bytes beyond the end of the base read as zeroes.
+   */
+
+  private void readBaseP(
+    final long offset,
+    final int length,
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var fromBase =
+      (int) Math.max(0L, Math.min(length, this.baseSize - offset));
+
+    if (fromBase > 0) {
+      final var slice = target.slice(target.position(), fromBase);
+      synchronized (this.base) {
+        this.base.seekTo(offset);
+        while (slice.hasRemaining()) {
+          this.base.readBytes(slice);
+        }
+      }
+      target.position(target.position() + fromBase);
+    }
+
+    var zeroes = length - fromBase;
+    while (zeroes > 0) {
+      final var count = Math.min(zeroes, ZEROES.length);
+      target.put(ZEROES, 0, count);
+      zeroes -= count;
+    }
+  }
+
+  /**
+   * Copy {@code length} bytes of the base at the given offset to the target
+   * channel. Bytes beyond the end of the base are written as zeroes.
+   */
+
+  private void copyBaseP(
+    final long offset,
+    final long length,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    final var fromBase =
+      Math.max(0L, Math.min(length, this.baseSize - offset));
+
+    if (fromBase > 0L) {
+      synchronized (this.base) {
+        if (this.base instanceof final BSSReaderSeekableChannel channelBase) {
+          channelBase.transferTo(offset, fromBase, target);
+        } else {
+          this.copyBaseBufferedP(offset, fromBase, target);
+        }
+      }
+    }
+
+    var zeroes = length - fromBase;
+    while (zeroes > 0L) {
+      final var count = (int) Math.min(zeroes, ZEROES.length);
+      writeFully(ByteBuffer.wrap(ZEROES, 0, count), target);
+      zeroes -= count;
+    }
+  }
+
+  private void copyBaseBufferedP(
+    final long offset,
+    final long length,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    final var buffer =
+      ByteBuffer.allocate((int) Math.min(length, COPY_BUFFER_SIZE));
+
+    this.base.seekTo(offset);
+    var remaining = length;
+    while (remaining > 0L) {
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), remaining));
+      while (buffer.hasRemaining()) {
+        this.base.readBytes(buffer);
+      }
+      buffer.flip();
+      remaining -= buffer.remaining();
+      writeFully(buffer, target);
+    }
+  }
+
+  private static void writeFully(
+    final ByteBuffer source,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    while (source.hasRemaining()) {
+      target.write(source);
+    }
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    return this.closed;
+  }
+
+  @Override
+  public synchronized void close()
+    throws IOException
+  {
+    if (!this.closed) {
+      this.closed = true;
+      this.base.close();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BSSOverlay %s]".formatted(this.uri);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Objects;
+
+/**
+ * A seekable channel view of an overlay. Each reader or writer created from
+ * an overlay has its own view, with its own position, and closing a view
+ * does not close the overlay. In addition to the usual channel operations,
+ * the channel supports positional reads that neither use nor modify the
+ * position of the channel.
+ */
+
+public final class BSSOverlayChannel implements SeekableByteChannel
+{
+  private final BSSOverlay overlay;
+  private long position;
+  private volatile boolean open;
+
+  BSSOverlayChannel(
+    final BSSOverlay inOverlay)
+  {
+    this.overlay = Objects.requireNonNull(inOverlay, "overlay");
+    this.open = true;
+  }
+
+  /**
+   * Read bytes starting at the given position, without using or modifying
+   * the position of the channel.
+   *
+   * @param target The target buffer
+   * @param offset The position
+   *
+   * @return The number of bytes read, or {@code -1} if the position is at or
+   * beyond the end of the overlay
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public int read(
+    final ByteBuffer target,
+    final long offset)
+    throws IOException
+  {
+    this.checkOpen();
+    return this.overlay.read(target, offset);
+  }
+
+  @Override
+  public synchronized int read(
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var count = this.read(target, this.position);
+    if (count > 0) {
+      this.position += count;
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized int write(
+    final ByteBuffer source)
+    throws IOException
+  {
+    this.checkOpen();
+    final var count = this.overlay.write(source, this.position);
+    this.position += count;
+    return count;
+  }
+
+  @Override
+  public synchronized long position()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(
+    final long newPosition)
+    throws IOException
+  {
+    this.checkOpen();
+    if (newPosition < 0L) {
+      throw new IllegalArgumentException("Position must be non-negative.");
+    }
+    this.position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.overlay.size();
+  }
+
+  @Override
+  public SeekableByteChannel truncate(
+    final long newSize)
+  {
+    throw new UnsupportedOperationException("Overlays cannot be truncated.");
+  }
+
+  private void checkOpen()
+    throws ClosedChannelException
+  {
+    if (!this.open) {
+      throw new ClosedChannelException();
+    }
+    this.overlay.checkNotClosed();
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return this.open;
+  }
+
+  @Override
+  public void close()
+  {
+    this.open = false;
+  }
+}
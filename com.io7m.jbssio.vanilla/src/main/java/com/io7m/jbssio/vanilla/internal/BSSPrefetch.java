@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background execution of prefetch requests. Prefetches are hints, and so
+ * failures are logged and otherwise ignored; the subsequent demand read
+ * will encounter and report the same error.
+ */
+
+final class BSSPrefetch
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BSSPrefetch.class);
+
+  private BSSPrefetch()
+  {
+
+  }
+
+  /**
+   * A prefetch task.
+   */
+
+  @FunctionalInterface
+  interface TaskType
+  {
+    void run()
+      throws IOException;
+  }
+
+  /**
+   * Schedule the given task for execution on a virtual thread.
+   *
+   * @param task The task
+   */
+
+  static void schedule(
+    final TaskType task)
+  {
+    Executor.EXECUTOR.execute(() -> {
+      try {
+        task.run();
+      } catch (final IOException | RuntimeException e) {
+        LOG.debug("prefetch failed: ", e);
+      }
+    });
+  }
+
+  /**
+   * The executor is created on first use, so that readers that never
+   * prefetch never start one.
+   */
+
+  private static final class Executor
+  {
+    private static final ExecutorService EXECUTOR =
+      Executors.newVirtualThreadPerTaskExecutor();
+
+    private Executor()
+    {
+
+    }
+  }
+}
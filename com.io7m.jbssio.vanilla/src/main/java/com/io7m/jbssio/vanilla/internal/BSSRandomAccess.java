@@ -27,15 +27,18 @@ import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
+import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
+
 abstract class BSSRandomAccess<T>
   implements BSSSeekableType,
   BSSFallibleType,
@@ -46,35 +49,123 @@ abstract class BSSRandomAccess<T>
   private static final Logger LOG =
     LoggerFactory.getLogger(BSSRandomAccess.class);
 
+  /**
+   * A close function that does nothing. Sub-objects typically have nothing
+   * to release, and use this shared instance.
+   */
+
+  static final Callable<Void> ON_CLOSE_NOTHING = () -> null;
+
+  /**
+   * The value returned by {@link #bytesRemainingOrUnbounded()} for objects
+   * that have no upper bound.
+   */
+
+  private static final long UNBOUNDED = Long.MAX_VALUE;
+
+  /**
+   * Sub-objects of the same parent may be written by different threads, and
+   * each raises the furthest written offset of every ancestor, and so those
+   * offsets are updated atomically. The offset of a parent is read with
+   * acquire semantics; the parent must not move while its sub-objects are
+   * being written, as their absolute positions depend on it.
+   */
+
+  private static final VarHandle OFFSET_RELATIVE;
+  private static final VarHandle OFFSET_WRITTEN;
+
+  static {
+    try {
+      final var lookup = MethodHandles.lookup();
+      OFFSET_RELATIVE = lookup.findVarHandle(
+        BSSRandomAccess.class, "offsetRelative", long.class);
+      OFFSET_WRITTEN = lookup.findVarHandle(
+        BSSRandomAccess.class, "offsetWritten", long.class);
+    } catch (final NoSuchFieldException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   protected final URI uri;
-  protected final String path;
-  private final BSSRangeHalfOpen parentRangeRelative;
-  private final AtomicBoolean closed;
+  private final String pathElement;
   private final BSSRandomAccess<T> parent;
   private final Callable<Void> onClose;
+  private final int parentGeneration;
+
+  /*
+   * The bounds of this object are held in primitive fields, which the hot
+   * paths read directly. The range object is only created when something
+   * (such as an error message) needs it, so that rebinding a root object
+   * to bounds of any size, or creating a sub-object with primitive bounds,
+   * does not allocate a range.
+   */
+
+  private BSSRangeHalfOpen parentRangeRelative;
+  private long rangeLower;
+  private long rangeUpper;
+  private boolean rangeUnbounded;
   private long offsetRelative;
+  private long offsetWritten;
+  private int generation;
+  private volatile boolean closed;
+  private String path;
 
   BSSRandomAccess(
     final BSSRandomAccess<T> inParent,
     final BSSRangeHalfOpen inParentRangeRelative,
     final Callable<Void> inOnClose,
     final URI inURI,
-    final String inPath)
+    final String inName)
+  {
+    this(
+      inParent,
+      Objects.requireNonNull(inParentRangeRelative, "parentRangeRelative")
+        .lower(),
+      inParentRangeRelative.upper().orElse(0L),
+      inParentRangeRelative.isUpperUnbounded(),
+      inOnClose,
+      inURI,
+      inName);
+    this.parentRangeRelative = inParentRangeRelative;
+  }
+
+  /**
+   * Construct an object with the bounds {@code [lower, upper)} relative to
+   * the parent, or {@code [lower, ∞)} if {@code unbounded} is
+   * {@code true}. The bounds must already have been checked with
+   * {@link #checkSubRange(long, long)} or
+   * {@link #checkOffsetSubRange(long)}.
+   */
+
+  BSSRandomAccess(
+    final BSSRandomAccess<T> inParent,
+    final long inLower,
+    final long inUpper,
+    final boolean inUnbounded,
+    final Callable<Void> inOnClose,
+    final URI inURI,
+    final String inName)
   {
     this.parent = inParent;
 
-    this.parentRangeRelative =
-      Objects.requireNonNull(inParentRangeRelative, "parentRangeRelative");
+    this.rangeLower = inLower;
+    this.rangeUpper = inUpper;
+    this.rangeUnbounded = inUnbounded;
     this.onClose =
       Objects.requireNonNull(inOnClose, "onClose");
     this.uri =
       Objects.requireNonNull(inURI, "uri");
-    this.path =
-      Objects.requireNonNull(inPath, "path");
-
-    this.closed = new AtomicBoolean(false);
+    this.pathElement =
+      Objects.requireNonNull(inName, "name");
+
+    if (inParent != null) {
+      this.parentGeneration = inParent.generation;
+    } else {
+      this.parentGeneration = 0;
+      this.path = inName;
+    }
 
-    if (inParentRangeRelative.isUpperUnbounded()) {
+    if (inUnbounded) {
       this.checkAncestorsUnbounded();
     }
   }
@@ -82,6 +173,35 @@ abstract class BSSRandomAccess<T>
   protected abstract BSSRangeHalfOpen physicalSourceAbsoluteBounds()
     throws IOException;
 
+  /**
+   * @return The absolute upper bound of the physical source, or
+   * {@link #UNBOUNDED} if the source has no upper bound. Objects whose
+   * physical bounds change should override this to avoid creating a range
+   * on each call.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  protected long physicalSourceAbsoluteUpper()
+    throws IOException
+  {
+    return this.physicalSourceAbsoluteBounds().upper().orElse(UNBOUNDED);
+  }
+
+  private BSSRangeHalfOpen parentRangeRelative()
+  {
+    var range = this.parentRangeRelative;
+    if (range == null) {
+      if (this.rangeUnbounded) {
+        range = new BSSRangeHalfOpen(this.rangeLower, OptionalLong.empty());
+      } else {
+        range = BSSRangeHalfOpen.create(this.rangeLower, this.rangeUpper);
+      }
+      this.parentRangeRelative = range;
+    }
+    return range;
+  }
+
   protected final BSSRandomAccess<T> parent()
   {
     return this.parent;
@@ -91,7 +211,7 @@ abstract class BSSRandomAccess<T>
   {
     var currentNode = this;
     while (currentNode != null) {
-      if (!currentNode.parentRangeRelative.isUpperUnbounded()) {
+      if (!currentNode.rangeUnbounded) {
         throw new IllegalStateException(
           "All ancestors of an unbounded object must also be unbounded");
       }
@@ -99,7 +219,7 @@ abstract class BSSRandomAccess<T>
     }
   }
 
-  private long toAbsolute(
+  final long toAbsolute(
     final long relative)
   {
     return this.absoluteStart() + relative;
@@ -119,33 +239,79 @@ abstract class BSSRandomAccess<T>
 
   private long absoluteStart()
   {
-    var accumulated = this.parentRangeRelative.lower();
+    var accumulated = this.rangeLower;
     var currentParent = this.parent;
     while (currentParent != null) {
-      accumulated += currentParent.parentRangeRelative.lower() + currentParent.offsetRelative;
+      accumulated += currentParent.rangeLower + currentParent.offsetRelative;
       currentParent = currentParent.parent;
     }
     return accumulated;
   }
 
-  private OptionalLong absoluteEnd()
+  /**
+   * Calculate the number of bytes remaining without allocating. The
+   * absolute end is the smaller of the end of the physical source and the
+   * end of the bounds of this object.
+   *
+   * @return The number of bytes remaining, or {@link #UNBOUNDED}
+   */
+
+  private long bytesRemainingOrUnbounded()
     throws IOException
   {
     final var specStart =
       this.absoluteStart();
+    final var physUpper =
+      this.physicalSourceAbsoluteUpper();
+
+    final long absEnd;
+    if (!this.rangeUnbounded) {
+      final var specEnd =
+        specStart + (this.rangeUpper - this.rangeLower);
+      if (physUpper != UNBOUNDED
+        && Long.compareUnsigned(physUpper, specEnd) < 0) {
+        absEnd = physUpper;
+      } else {
+        absEnd = specEnd;
+      }
+    } else if (physUpper != UNBOUNDED) {
+      absEnd = physUpper;
+    } else {
+      return UNBOUNDED;
+    }
 
-    final OptionalLong specUpper =
-      this.parentRangeRelative.interval()
-        .stream()
-        .map(interval -> specStart + interval)
-        .findFirst();
+    return absEnd - (specStart + this.offsetRelative);
+  }
+
+  /**
+   * Clamp the range of {@code length} bytes starting at the relative
+   * {@code offset} to the bounds of this object. Ranges that lie entirely
+   * outside of the bounds have length zero.
+   *
+   * @param offset The relative offset
+   * @param length The length of the range
+   *
+   * @return The number of bytes of the range within the bounds
+   *
+   * @throws IOException On I/O errors
+   */
+
+  final long clampedLength(
+    final long offset,
+    final long length)
+    throws IOException
+  {
+    if (offset < 0L || length <= 0L) {
+      return 0L;
+    }
 
-    final var specBounds =
-      new BSSRangeHalfOpen(specStart, specUpper);
-    final BSSRangeHalfOpen physBounds =
-      this.physicalSourceAbsoluteBounds();
+    final var remaining = this.bytesRemainingOrUnbounded();
+    if (remaining == UNBOUNDED) {
+      return length;
+    }
 
-    return BSSRangeHalfOpen.minimumUpperBoundOf(physBounds, specBounds);
+    final var available = (remaining + this.offsetRelative) - offset;
+    return Math.max(0L, Math.min(length, available));
   }
 
   final void checkHasBytesRemaining(
@@ -153,11 +319,8 @@ abstract class BSSRandomAccess<T>
     final long want)
     throws IOException
   {
-    final var remainingOpt = this.bytesRemaining();
-    if (remainingOpt.isPresent()) {
-      if (want > remainingOpt.getAsLong()) {
-        throw this.outOfBounds(name, this.offsetRelative + want);
-      }
+    if (want > this.bytesRemainingOrUnbounded()) {
+      throw this.outOfBounds(name, this.offsetRelative + want);
     }
   }
 
@@ -165,26 +328,98 @@ abstract class BSSRandomAccess<T>
     final long offset,
     final long size)
   {
-    final var subRange = new BSSRangeHalfOpen(
-      offset,
-      OptionalLong.of(offset + size));
-    if (!this.parentRangeRelative.isUpperUnbounded()) {
-      BSSRanges.checkRangesCompatible(
-        this.parentRangeRelative,
-        subRange,
-        this::toAbsoluteRange,
-        (attributes) -> {
-          attributes.addExceptionAttribute("Path", this.path);
-          attributes.addExceptionAttribute("URI", this.uri.toString());
-        });
+    this.checkSubRange(offset, size);
+    return BSSRangeHalfOpen.create(offset, offset + size);
+  }
+
+  /**
+   * Check that the range {@code [offset, offset + size)} is a valid range
+   * for a sub-object of this object. Valid ranges are checked without
+   * allocating.
+   *
+   * @param offset The relative offset of the sub-object
+   * @param size   The size of the sub-object
+   *
+   * @throws IllegalArgumentException If the range is not valid
+   */
+
+  final void checkSubRange(
+    final long offset,
+    final long size)
+  {
+    final var upper = offset + size;
+    final var ordered = Long.compareUnsigned(offset, upper) <= 0;
+    if (ordered && this.rangeUnbounded) {
+      return;
     }
-    return subRange;
+
+    final var projectedLower = offset - this.rangeLower;
+    final var projectedUpper = upper - this.rangeLower;
+    if (ordered
+      && Long.compareUnsigned(projectedLower, this.rangeLower) >= 0
+      && Long.compareUnsigned(projectedUpper, this.rangeUpper) <= 0) {
+      return;
+    }
+
+    final var subRange = BSSRangeHalfOpen.create(offset, upper);
+    BSSRanges.checkRangesCompatible(
+      this.parentRangeRelative(),
+      subRange,
+      this::toAbsoluteRange,
+      (attributes) -> {
+        attributes.addExceptionAttribute("Path", this.path());
+        attributes.addExceptionAttribute("URI", this.uri.toString());
+      });
   }
 
   final BSSRangeHalfOpen createOffsetSubRange(
     final long offset)
   {
-    return new BSSRangeHalfOpen(offset, this.parentRangeRelative.interval());
+    this.checkOffsetSubRange(offset);
+    if (this.rangeUnbounded) {
+      return new BSSRangeHalfOpen(offset, OptionalLong.empty());
+    }
+    return BSSRangeHalfOpen.create(offset, this.rangeSize());
+  }
+
+  /**
+   * Check that a sub-object starting at {@code offset}, and having the same
+   * size as this object, has valid bounds.
+   *
+   * @param offset The relative offset of the sub-object
+   *
+   * @throws IllegalArgumentException If the bounds are not valid
+   */
+
+  final void checkOffsetSubRange(
+    final long offset)
+  {
+    if (!this.rangeUnbounded
+      && Long.compareUnsigned(offset, this.rangeSize()) > 0) {
+      throw new IllegalArgumentException(
+        "Lower %s must be <= upper %s"
+          .formatted(
+            Long.toUnsignedString(offset),
+            Long.toUnsignedString(this.rangeSize())));
+    }
+  }
+
+  /**
+   * @return The size of the bounds of this object, if bounded
+   */
+
+  final long rangeSize()
+  {
+    return this.rangeUpper - this.rangeLower;
+  }
+
+  /**
+   * @return {@code true} if this object has no upper bound
+   */
+
+  final boolean isRangeUnbounded()
+  {
+    return this.rangeUnbounded;
   }
 
   private IOException outOfBounds(
@@ -195,14 +430,14 @@ abstract class BSSRandomAccess<T>
     try {
       bounds = this.physicalSourceAbsoluteBounds();
     } catch (final IOException e) {
-      bounds = this.toAbsoluteRange(this.parentRangeRelative);
+      bounds = this.toAbsoluteRange(this.parentRangeRelative());
     }
 
     final var attributes = new HashMap<String, String>(4);
     attributes.put(
       "Target Offset (Absolute)",
       "0x" + Long.toUnsignedString(targetPosition, 16));
-    attributes.put("Bounds (Relative)", this.parentRangeRelative.toString());
+    attributes.put("Bounds (Relative)", this.parentRangeRelative().toString());
     attributes.put("Bounds (Absolute)", bounds.toString());
     if (name != null) {
       attributes.put("Field", name);
@@ -236,12 +471,11 @@ abstract class BSSRandomAccess<T>
   public final OptionalLong bytesRemaining()
     throws IOException
   {
-    final var absEnd = this.absoluteEnd();
-    if (absEnd.isPresent()) {
-      final var absOff = this.toAbsolute(this.offsetRelative);
-      return OptionalLong.of(absEnd.getAsLong() - absOff);
+    final var remaining = this.bytesRemainingOrUnbounded();
+    if (remaining == UNBOUNDED) {
+      return OptionalLong.empty();
     }
-    return OptionalLong.empty();
+    return OptionalLong.of(remaining);
   }
 
   @Override
@@ -250,7 +484,11 @@ abstract class BSSRandomAccess<T>
   {
     this.checkNotClosed();
 
-    if (!this.parentRangeRelative.includesValue(position)) {
+    final var includes =
+      Long.compareUnsigned(position, this.rangeLower) >= 0
+        && (this.rangeUnbounded
+        || Long.compareUnsigned(position, this.rangeUpper) < 0);
+    if (!includes) {
       throw this.outOfBounds(null, position);
     }
 
@@ -261,27 +499,74 @@ abstract class BSSRandomAccess<T>
   public final void close()
     throws IOException
   {
-    if (!this.isClosed()) {
-      try {
-        this.onClose.call();
-      } catch (final IOException e) {
-        throw e;
-      } catch (final Exception e) {
-        throw new IOException(e);
-      } finally {
-        this.closed.set(true);
+    try {
+      if (!this.isClosed()) {
+        try {
+          this.onClose.call();
+        } catch (final IOException e) {
+          throw e;
+        } catch (final Exception e) {
+          throw new IOException(e);
+        } finally {
+          this.closed = true;
+        }
       }
+    } finally {
+      this.releaseResources();
     }
   }
 
+  /**
+   * Release any resources (such as pooled buffers) held by this object
+   * itself, as opposed to the underlying source. This is called on every
+   * call to {@link #close()}, including when the object is already closed
+   * because an ancestor was closed, and so must be idempotent.
+   */
+
+  protected void releaseResources()
+  {
+
+  }
+
   @Override
   public final boolean isClosed()
   {
     final var parentRef = this.parent;
     if (parentRef != null) {
-      return parentRef.isClosed() || this.closed.get();
+      return parentRef.isClosed()
+        || parentRef.generation != this.parentGeneration
+        || this.closed;
+    }
+    return this.closed;
+  }
+
+  /**
+   * Reset this (root) object to its initial state with the bounds
+   * {@code [0, upper)}. The object is reopened if it was closed, and all
+   * objects previously derived from this object are effectively closed.
+   * Rebinding does not allocate.
+   *
+   * @param upper The new upper bound
+   */
+
+  final void rebindBounds(
+    final long upper)
+  {
+    if (this.parent != null) {
+      throw new IllegalStateException("Only root objects can be rebound");
+    }
+
+    if (this.rangeUnbounded
+      || this.rangeLower != 0L
+      || this.rangeUpper != upper) {
+      this.parentRangeRelative = null;
     }
-    return this.closed.get();
+    this.rangeLower = 0L;
+    this.rangeUpper = upper;
+    this.rangeUnbounded = false;
+    this.offsetRelative = 0L;
+    ++this.generation;
+    this.closed = false;
   }
 
   final void increaseOffsetRelative(final long amount)
@@ -289,6 +574,58 @@ abstract class BSSRandomAccess<T>
     this.offsetRelative += amount;
   }
 
+  /**
+   * Increase the current offset past data that has just been written, and
+   * raise the furthest written offset of this object and each of its
+   * ancestors, each in its own relative coordinates. The furthest written
+   * offsets are raised atomically, so sibling sub-objects may be written
+   * concurrently.
+   *
+   * @param amount The number of bytes written
+   */
+
+  final void increaseOffsetRelativeWritten(final long amount)
+  {
+    this.offsetRelative += amount;
+
+    var end = this.offsetRelative;
+    BSSRandomAccess<T> node = this;
+    while (node != null) {
+      raiseOffsetWritten(node, end);
+      final var nodeParent = node.parent;
+      if (nodeParent != null) {
+        end += node.rangeLower
+          + (long) OFFSET_RELATIVE.getAcquire(nodeParent);
+      }
+      node = nodeParent;
+    }
+  }
+
+  private static void raiseOffsetWritten(
+    final BSSRandomAccess<?> node,
+    final long end)
+  {
+    var current = (long) OFFSET_WRITTEN.getAcquire(node);
+    while (current < end) {
+      final var witness =
+        (long) OFFSET_WRITTEN.compareAndExchange(node, current, end);
+      if (witness == current) {
+        return;
+      }
+      current = witness;
+    }
+  }
+
+  /**
+   * @return The furthest relative offset reached by data written through
+   * this object or any of its descendants
+   */
+
+  final long offsetWritten()
+  {
+    return (long) OFFSET_WRITTEN.getAcquire(this);
+  }
+
   @Override
   public final long offsetCurrentAbsolute()
   {
@@ -310,7 +647,17 @@ abstract class BSSRandomAccess<T>
   @Override
   public final String path()
   {
-    return this.path;
+    var result = this.path;
+    if (result == null) {
+      final var parentPath = this.parent.path();
+      result = new StringBuilder(parentPath.length() + this.pathElement.length() + 1)
+        .append(parentPath)
+        .append(PATH_SEPARATOR)
+        .append(this.pathElement)
+        .toString();
+      this.path = result;
+    }
+    return result;
   }
 
   @Override
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSRangeSourceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Objects;
+
+/**
+ * A read-only seekable channel over a range source. In addition to the
+ * usual channel operations, the channel supports positional reads that
+ * neither use nor modify the position of the channel, in the manner of
+ * {@link java.nio.channels.FileChannel#read(ByteBuffer, long)}, so that
+ * readers sharing the channel can issue range requests concurrently.
+ */
+
+public final class BSSRangeSourceChannel implements SeekableByteChannel
+{
+  private final BSSRangeSourceType source;
+  private final long size;
+  private long position;
+  private volatile boolean open;
+
+  private BSSRangeSourceChannel(
+    final BSSRangeSourceType inSource,
+    final long inSize)
+  {
+    this.source = Objects.requireNonNull(inSource, "source");
+    this.size = inSize;
+    this.open = true;
+  }
+
+  /**
+   * Create a channel over the given source. The size of the source is read
+   * once, when the channel is created.
+   *
+   * @param source The source
+   *
+   * @return A channel
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BSSRangeSourceChannel create(
+    final BSSRangeSourceType source)
+    throws IOException
+  {
+    return new BSSRangeSourceChannel(source, source.size());
+  }
+
+  /**
+   * Read bytes starting at the given position, without using or modifying
+   * the position of the channel.
+   *
+   * @param target The target buffer
+   * @param offset The position
+   *
+   * @return The number of bytes read, or {@code -1} if the position is at or
+   * beyond the end of the source
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public int read(
+    final ByteBuffer target,
+    final long offset)
+    throws IOException
+  {
+    this.checkOpen();
+
+    if (offset >= this.size) {
+      return -1;
+    }
+    final var length =
+      (int) Math.min(target.remaining(), this.size - offset);
+    if (length > 0) {
+      this.source.read(offset, length, target);
+    }
+    return length;
+  }
+
+  @Override
+  public synchronized int read(
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var count = this.read(target, this.position);
+    if (count > 0) {
+      this.position += count;
+    }
+    return count;
+  }
+
+  @Override
+  public int write(
+    final ByteBuffer data)
+  {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized long position()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(
+    final long newPosition)
+    throws IOException
+  {
+    this.checkOpen();
+    if (newPosition < 0L) {
+      throw new IllegalArgumentException("Position must be non-negative.");
+    }
+    this.position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.size;
+  }
+
+  @Override
+  public SeekableByteChannel truncate(
+    final long newSize)
+  {
+    throw new NonWritableChannelException();
+  }
+
+  private void checkOpen()
+    throws ClosedChannelException
+  {
+    if (!this.open) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return this.open;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.open) {
+      this.open = false;
+      this.source.close();
+    }
+  }
+}
@@ -73,6 +73,32 @@ final class BSSRanges
     throw new IllegalArgumentException(stringBuilder.toString());
   }
 
+  /**
+   * The allocation-free equivalent of the inclusion test performed by
+   * {@code checkRangesCompatible}
+   * for a bounded target range {@code [targetLower, targetUpper)}.
+   */
+
+  static boolean isProjectionIncluded(
+    final BSSRangeHalfOpen existingRange,
+    final long targetLower,
+    final long targetUpper)
+  {
+    final var existingLower = existingRange.lower();
+    final var projectedLower = targetLower - existingLower;
+    final var projectedUpper = targetUpper - existingLower;
+
+    if (Long.compareUnsigned(projectedLower, existingLower) < 0) {
+      return false;
+    }
+
+    final var existingUpper = existingRange.upper();
+    if (existingUpper.isEmpty()) {
+      return true;
+    }
+    return Long.compareUnsigned(projectedUpper, existingUpper.getAsLong()) <= 0;
+  }
+
   public static void checkRangesCompatible(
     final BSSRangeHalfOpen existingRange,
     final BSSRangeHalfOpen targetRange,
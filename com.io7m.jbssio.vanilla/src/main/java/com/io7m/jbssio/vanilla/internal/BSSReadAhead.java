@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSReadAheadStatistics;
+import com.io7m.jbssio.api.BSSReadAheadType;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An adaptive read-ahead policy. The policy itself holds only the window
+ * limits and the aggregated statistics; each reader keeps its own
+ * {@link BSSReadAheadWindow}.
+ */
+
+public final class BSSReadAhead implements BSSReadAheadType
+{
+  private final int windowMinimum;
+  private final int windowMaximum;
+  private final LongAdder reads;
+  private final LongAdder hits;
+  private final LongAdder sequentialMisses;
+  private final LongAdder randomMisses;
+  private final LongAdder fills;
+  private final LongAdder directReads;
+  private final LongAdder octetsRequested;
+  private final LongAdder octetsFetched;
+
+  private BSSReadAhead(
+    final int inWindowMinimum,
+    final int inWindowMaximum)
+  {
+    this.windowMinimum = inWindowMinimum;
+    this.windowMaximum = inWindowMaximum;
+    this.reads = new LongAdder();
+    this.hits = new LongAdder();
+    this.sequentialMisses = new LongAdder();
+    this.randomMisses = new LongAdder();
+    this.fills = new LongAdder();
+    this.directReads = new LongAdder();
+    this.octetsRequested = new LongAdder();
+    this.octetsFetched = new LongAdder();
+  }
+
+  /**
+   * Create a read-ahead policy.
+   *
+   * @param windowMinimum The smallest read-ahead window in octets
+   * @param windowMaximum The largest read-ahead window in octets
+   *
+   * @return A read-ahead policy
+   */
+
+  public static BSSReadAhead create(
+    final int windowMinimum,
+    final int windowMaximum)
+  {
+    if (windowMinimum <= 0) {
+      throw new IllegalArgumentException(
+        "Minimum window size must be positive.");
+    }
+    if (windowMaximum < windowMinimum) {
+      throw new IllegalArgumentException(
+        "Maximum window size must be at least the minimum window size.");
+    }
+    return new BSSReadAhead(windowMinimum, windowMaximum);
+  }
+
+  void recordRead(
+    final int size)
+  {
+    this.reads.increment();
+    this.octetsRequested.add(size);
+  }
+
+  void recordHit()
+  {
+    this.hits.increment();
+  }
+
+  void recordMiss(
+    final boolean sequential)
+  {
+    if (sequential) {
+      this.sequentialMisses.increment();
+    } else {
+      this.randomMisses.increment();
+    }
+  }
+
+  void recordFill(
+    final long fetched)
+  {
+    this.fills.increment();
+    this.octetsFetched.add(fetched);
+  }
+
+  void recordDirectRead(
+    final long fetched)
+  {
+    this.directReads.increment();
+    this.octetsFetched.add(fetched);
+  }
+
+  @Override
+  public int windowMinimum()
+  {
+    return this.windowMinimum;
+  }
+
+  @Override
+  public int windowMaximum()
+  {
+    return this.windowMaximum;
+  }
+
+  @Override
+  public BSSReadAheadStatistics statistics()
+  {
+    return new BSSReadAheadStatistics(
+      this.reads.sum(),
+      this.hits.sum(),
+      this.sequentialMisses.sum(),
+      this.randomMisses.sum(),
+      this.fills.sum(),
+      this.directReads.sum(),
+      this.octetsRequested.sum(),
+      this.octetsFetched.sum()
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSReadAhead %d %d]",
+      Integer.valueOf(this.windowMinimum),
+      Integer.valueOf(this.windowMaximum));
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSBufferPoolType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The read-ahead window of a single reader. A window is not thread-safe,
+ * and is owned by exactly one reader.
+ */
+
+final class BSSReadAheadWindow
+{
+  private final BSSReadAhead policy;
+  private final BSSBufferPoolType pool;
+  private final FillType filler;
+  private ByteBuffer data;
+  private long start;
+  private long end;
+  private long lastEnd;
+  private int windowSize;
+
+  BSSReadAheadWindow(
+    final BSSReadAhead inPolicy,
+    final BSSBufferPoolType inPool,
+    final FillType inFiller)
+  {
+    this.policy = inPolicy;
+    this.pool = inPool;
+    this.filler = inFiller;
+    this.lastEnd = -1L;
+  }
+
+  /**
+   * A function that reads from the underlying channel at an absolute
+   * position until the target is full or the end of the channel is reached.
+   */
+
+  @FunctionalInterface
+  interface FillType
+  {
+    void fill(
+      long position,
+      ByteBuffer target)
+      throws IOException;
+  }
+
+  void read(
+    final long position,
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var size = target.remaining();
+    this.policy.recordRead(size);
+
+    final var sequential = this.isSequential(position);
+    var missed = false;
+    var offset = position;
+    while (target.hasRemaining()) {
+      if (offset >= this.start && offset < this.end) {
+        final var within = (int) (offset - this.start);
+        final var count =
+          (int) Math.min(this.end - offset, target.remaining());
+        target.put(target.position(), this.data, within, count);
+        target.position(target.position() + count);
+        offset += count;
+        continue;
+      }
+
+      if (!missed) {
+        missed = true;
+        this.adapt(sequential);
+      }
+
+      if (target.remaining() >= this.windowSize) {
+        final var before = target.remaining();
+        this.filler.fill(offset, target);
+        this.policy.recordDirectRead(before - target.remaining());
+        break;
+      }
+
+      if (!this.fill(offset)) {
+        break;
+      }
+    }
+
+    if (!missed) {
+      this.policy.recordHit();
+    }
+    this.lastEnd = position + size;
+  }
+
+  private boolean isSequential(
+    final long position)
+  {
+    if (this.lastEnd < 0L) {
+      return false;
+    }
+    final var gap = position - this.lastEnd;
+    return gap >= 0L
+      && gap <= Math.max(this.windowSize, this.policy.windowMinimum());
+  }
+
+  private void adapt(
+    final boolean sequential)
+  {
+    this.policy.recordMiss(sequential);
+    if (sequential) {
+      if (this.windowSize == 0) {
+        this.windowSize = this.policy.windowMinimum();
+      } else {
+        this.windowSize =
+          (int) Math.min(
+            (long) this.windowSize * 2L,
+            this.policy.windowMaximum());
+      }
+    } else {
+      this.windowSize = this.windowSize / 2;
+      if (this.windowSize < this.policy.windowMinimum()) {
+        this.windowSize = 0;
+      }
+    }
+  }
+
+  private boolean fill(
+    final long position)
+    throws IOException
+  {
+    final var size = this.windowSize;
+    var buffer = this.data;
+    if (buffer == null || buffer.capacity() < size) {
+      this.release();
+      buffer =
+        this.pool != null ? this.pool.acquire(size) : ByteBuffer.allocate(size);
+      this.data = buffer;
+    }
+
+    buffer.clear();
+    buffer.limit(size);
+    this.filler.fill(position, buffer);
+
+    final var fetched = buffer.position();
+    this.policy.recordFill(fetched);
+    this.start = position;
+    this.end = position + fetched;
+    return fetched > 0;
+  }
+
+  void release()
+  {
+    final var buffer = this.data;
+    if (buffer != null) {
+      this.data = null;
+      this.start = 0L;
+      this.end = 0L;
+      if (this.pool != null) {
+        this.pool.release(buffer);
+      }
+    }
+  }
+}
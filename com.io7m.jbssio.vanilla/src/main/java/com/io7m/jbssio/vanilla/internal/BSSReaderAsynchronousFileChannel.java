@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.jbssio.api.BSSReaderAsynchronousType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous reader based on an asynchronous file channel. Each fetch
+ * reads into a freshly allocated heap buffer, issuing further reads from
+ * the completion handler until the region is filled or the end of the file
+ * is reached, and then completes with a byte buffer reader over the buffer.
+ * No thread is blocked while a fetch is in flight.
+ */
+
+public final class BSSReaderAsynchronousFileChannel
+  implements BSSReaderAsynchronousType
+{
+  private final URI uri;
+  private final AsynchronousFileChannel channel;
+  private final String name;
+  private volatile boolean closed;
+
+  private BSSReaderAsynchronousFileChannel(
+    final URI inURI,
+    final AsynchronousFileChannel inChannel,
+    final String inName)
+  {
+    this.uri =
+      Objects.requireNonNull(inURI, "uri");
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.name =
+      Objects.requireNonNull(inName, "name");
+  }
+
+  /**
+   * Create an asynchronous reader based on an asynchronous file channel.
+   *
+   * @param uri     The source URI
+   * @param channel The source channel
+   * @param name    The name
+   *
+   * @return An asynchronous reader
+   */
+
+  public static BSSReaderAsynchronousType create(
+    final URI uri,
+    final AsynchronousFileChannel channel,
+    final String name)
+  {
+    return new BSSReaderAsynchronousFileChannel(uri, channel, name);
+  }
+
+  @Override
+  public URI uri()
+  {
+    return this.uri;
+  }
+
+  @Override
+  public String name()
+  {
+    return this.name;
+  }
+
+  @Override
+  public CompletableFuture<BSSReaderRandomAccessType> fetch(
+    final String inName,
+    final long offset,
+    final long size)
+  {
+    Objects.requireNonNull(inName, "name");
+
+    if (offset < 0L) {
+      throw new IllegalArgumentException(
+        "Offset %d must be non-negative.".formatted(Long.valueOf(offset)));
+    }
+    if (size < 0L || size > (long) Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "Size %d must be in the range [0, %d]."
+          .formatted(Long.valueOf(size), Integer.valueOf(Integer.MAX_VALUE)));
+    }
+
+    if (this.closed) {
+      return CompletableFuture.failedFuture(new ClosedChannelException());
+    }
+
+    final var fetch = new Fetch(this, inName, offset, (int) size);
+    fetch.next();
+    return fetch.future;
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    return this.closed;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (!this.closed) {
+      this.closed = true;
+      this.channel.close();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSReaderAsynchronousFileChannel %s %s]",
+      this.uri,
+      this.name);
+  }
+
+  private static final class Fetch
+    implements CompletionHandler<Integer, Void>
+  {
+    private final BSSReaderAsynchronousFileChannel reader;
+    private final String name;
+    private final long offset;
+    private final ByteBuffer buffer;
+    private final CompletableFuture<BSSReaderRandomAccessType> future;
+
+    Fetch(
+      final BSSReaderAsynchronousFileChannel inReader,
+      final String inName,
+      final long inOffset,
+      final int inSize)
+    {
+      this.reader = inReader;
+      this.name = inName;
+      this.offset = inOffset;
+      this.buffer = ByteBuffer.allocate(inSize);
+      this.future = new CompletableFuture<>();
+    }
+
+    void next()
+    {
+      if (!this.buffer.hasRemaining()) {
+        this.finish();
+        return;
+      }
+
+      try {
+        this.reader.channel.read(
+          this.buffer,
+          this.offset + this.buffer.position(),
+          null,
+          this);
+      } catch (final RuntimeException e) {
+        this.future.completeExceptionally(e);
+      }
+    }
+
+    private void finish()
+    {
+      this.buffer.flip();
+      this.future.complete(
+        BSSReaderByteBuffer.createFromByteBuffer(
+          this.reader.uri,
+          this.buffer.slice(),
+          this.name));
+    }
+
+    @Override
+    public void completed(
+      final Integer result,
+      final Void attachment)
+    {
+      if (result.intValue() < 0) {
+        this.finish();
+      } else {
+        this.next();
+      }
+    }
+
+    @Override
+    public void failed(
+      final Throwable exc,
+      final Void attachment)
+    {
+      this.future.completeExceptionally(exc);
+    }
+  }
+}
@@ -18,18 +18,29 @@ package com.io7m.jbssio.vanilla.internal;
 
 import com.io7m.ieee754b16.Binary16;
 import com.io7m.jbssio.api.BSSReaderRandomAccessType;
+import com.io7m.jbssio.api.BSSReaderRebindableType;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.OptionalLong;
 import java.util.concurrent.Callable;
 
-import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.CHAR_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.CHAR_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.DOUBLE_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.DOUBLE_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.FLOAT_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.FLOAT_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.INT_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.INT_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.LONG_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.LONG_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.SHORT_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.SHORT_LE;
 
 /**
  * A random access reader based on a byte buffer.
@@ -37,24 +48,55 @@ import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
 
 public final class BSSReaderByteBuffer
   extends BSSRandomAccess<BSSReaderRandomAccessType>
-  implements BSSReaderRandomAccessType
+  implements BSSReaderRebindableType
 {
-  private final ByteBuffer map;
-  private final BSSRangeHalfOpen physicalBounds;
+
+  private ByteBuffer map;
+  private MappedByteBuffer fileMapping;
+  private BSSRangeHalfOpen physicalBounds;
+  private long physicalUpper;
 
   private BSSReaderByteBuffer(
-    final BSSReaderByteBuffer inParent,
     final URI inURI,
     final BSSRangeHalfOpen inRangeRelative,
     final String inName,
     final ByteBuffer inMap,
+    final BSSRangeHalfOpen inPhysicalBounds,
     final Callable<Void> inOnClose)
   {
-    super(inParent, inRangeRelative, inOnClose, inURI, inName);
+    super(null, inRangeRelative, inOnClose, inURI, inName);
     this.map =
       Objects.requireNonNull(inMap, "map");
     this.physicalBounds =
-      BSSRangeHalfOpen.create(0L, inMap.capacity());
+      Objects.requireNonNull(inPhysicalBounds, "physicalBounds");
+    this.physicalUpper =
+      inPhysicalBounds.upper().getAsLong();
+  }
+
+  /**
+   * Construct a sub-reader. The sub-reader shares the buffer and physical
+   * bounds of its parent, and its own bounds are held as primitives, so no
+   * range objects are allocated.
+   */
+
+  private BSSReaderByteBuffer(
+    final BSSReaderByteBuffer inParent,
+    final long inLower,
+    final long inUpper,
+    final boolean inUnbounded,
+    final String inName)
+  {
+    super(
+      inParent,
+      inLower,
+      inUpper,
+      inUnbounded,
+      ON_CLOSE_NOTHING,
+      inParent.uri,
+      inName);
+    this.map = inParent.map;
+    this.physicalUpper = inParent.physicalUpper;
+    this.fileMapping = inParent.fileMapping;
   }
 
   /**
@@ -72,15 +114,96 @@ public final class BSSReaderByteBuffer
     final ByteBuffer buffer,
     final String name)
   {
+    final var bounds = BSSRangeHalfOpen.create(0L, buffer.capacity());
     return new BSSReaderByteBuffer(
-      null,
       uri,
-      new BSSRangeHalfOpen(
-        0L,
-        OptionalLong.of(Integer.toUnsignedLong(buffer.capacity()))),
+      bounds,
       name,
       buffer,
-      () -> null);
+      bounds,
+      ON_CLOSE_NOTHING);
+  }
+
+  /**
+   * Create a reader over a mapping of a file. Unlike other direct buffers,
+   * the reader knows that the buffer maps a file, and so prefetching asks
+   * the operating system to load the mapped pages.
+   *
+   * @param uri     The target URI
+   * @param mapping The file mapping
+   * @param name    The name
+   * @param onClose The function evaluated when the reader is closed
+   *
+   * @return A reader
+   */
+
+  public static BSSReaderRandomAccessType createFromFileMapping(
+    final URI uri,
+    final MappedByteBuffer mapping,
+    final String name,
+    final Callable<Void> onClose)
+  {
+    final var bounds = BSSRangeHalfOpen.create(0L, mapping.capacity());
+    final var reader = new BSSReaderByteBuffer(
+      uri,
+      bounds,
+      name,
+      mapping,
+      bounds,
+      onClose);
+    reader.fileMapping = mapping;
+    return reader;
+  }
+
+  /**
+   * Create a reader that can be rebound to other buffers.
+   *
+   * @param uri    The target URI
+   * @param buffer The target buffer
+   * @param name   The name
+   *
+   * @return A reader
+   */
+
+  public static BSSReaderRebindableType createFromByteBufferRebindable(
+    final URI uri,
+    final ByteBuffer buffer,
+    final String name)
+  {
+    final var bounds = BSSRangeHalfOpen.create(0L, buffer.capacity());
+    return new BSSReaderByteBuffer(
+      uri,
+      bounds,
+      name,
+      buffer,
+      bounds,
+      ON_CLOSE_NOTHING);
+  }
+
+  @Override
+  public void rebind(
+    final ByteBuffer buffer)
+  {
+    Objects.requireNonNull(buffer, "buffer");
+
+    if (super.parent() != null) {
+      throw new IllegalStateException("Only root readers can be rebound");
+    }
+
+    /*
+     * The bounds are held as primitives, and the range objects are only
+     * recreated on demand, so that rebinding to buffers of varying sizes
+     * does not allocate.
+     */
+
+    final var capacity = Integer.toUnsignedLong(buffer.capacity());
+    if (this.physicalUpper != capacity) {
+      this.physicalBounds = null;
+      this.physicalUpper = capacity;
+    }
+
+    this.map = buffer;
+    this.rebindBounds(capacity);
   }
 
   private static int longPositionTo2GBLimitedByteBufferPosition(
@@ -99,20 +222,9 @@ public final class BSSReaderByteBuffer
     Objects.requireNonNull(inName, "path");
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path)
-        .append(PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
+    this.checkSubRange(offset, size);
     return new BSSReaderByteBuffer(
-      this,
-      this.uri,
-      this.createSubRange(offset, size),
-      newName,
-      this.map,
-      () -> null);
+      this, offset, offset + size, false, inName);
   }
 
   @Override
@@ -130,20 +242,44 @@ public final class BSSReaderByteBuffer
     Objects.requireNonNull(inName, "path");
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path)
-        .append(PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
+    this.checkOffsetSubRange(offset);
     return new BSSReaderByteBuffer(
-      this,
-      this.uri,
-      this.createOffsetSubRange(offset),
-      newName,
-      this.map,
-      () -> null);
+      this, offset, this.rangeSize(), this.isRangeUnbounded(), inName);
+  }
+
+  /**
+   * @return {@code true} if this reader was created over a mapping of a file
+   */
+
+  public boolean isFileMapping()
+  {
+    return this.fileMapping != null;
+  }
+
+  @Override
+  public void prefetch(
+    final long offset,
+    final long length)
+    throws IOException
+  {
+    this.checkNotClosed();
+
+    final var mapped = this.fileMapping;
+    if (mapped == null) {
+      return;
+    }
+
+    final var clamped = this.clampedLength(offset, length);
+    if (clamped == 0L) {
+      return;
+    }
+
+    final var index =
+      longPositionTo2GBLimitedByteBufferPosition(this.toAbsolute(offset));
+    final var slice =
+      mapped.slice(index, longPositionTo2GBLimitedByteBufferPosition(clamped));
+
+    BSSPrefetch.schedule(slice::load);
   }
 
   @Override
@@ -165,7 +301,6 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 1L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(1L);
-    this.map.position(0);
     return this.map.get(longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
@@ -176,7 +311,6 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 1L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(1L);
-    this.map.position(0);
     return (int) this.map.get(longPositionTo2GBLimitedByteBufferPosition(
       position)) & 0xff;
   }
@@ -188,9 +322,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getShort(longPositionTo2GBLimitedByteBufferPosition(
+    return (short) SHORT_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -201,9 +333,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getChar(longPositionTo2GBLimitedByteBufferPosition(
+    return (char) CHAR_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -214,9 +344,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getInt(longPositionTo2GBLimitedByteBufferPosition(
+    return (int) INT_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -227,9 +355,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return (long) (this.map.getInt(longPositionTo2GBLimitedByteBufferPosition(
+    return (long) ((int) INT_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position))) & 0xffff_ffffL;
   }
 
@@ -240,9 +366,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getLong(longPositionTo2GBLimitedByteBufferPosition(position));
+    return (long) LONG_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
   private long readU64LEp(final String name)
@@ -252,9 +376,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getLong(longPositionTo2GBLimitedByteBufferPosition(position));
+    return (long) LONG_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
   private int readS16BEp(final String name)
@@ -264,9 +386,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getShort(longPositionTo2GBLimitedByteBufferPosition(
+    return (short) SHORT_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -277,9 +397,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getChar(longPositionTo2GBLimitedByteBufferPosition(
+    return (char) CHAR_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -290,9 +408,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getInt(longPositionTo2GBLimitedByteBufferPosition(
+    return (int) INT_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -303,9 +419,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return (long) (this.map.getInt(longPositionTo2GBLimitedByteBufferPosition(
+    return (long) ((int) INT_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position))) & 0xffff_ffffL;
   }
 
@@ -316,9 +430,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getLong(longPositionTo2GBLimitedByteBufferPosition(position));
+    return (long) LONG_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
   private long readU64BEp(final String name)
@@ -328,9 +440,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getLong(longPositionTo2GBLimitedByteBufferPosition(position));
+    return (long) LONG_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
   private float readF32BEp(final String name)
@@ -340,9 +450,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getFloat(longPositionTo2GBLimitedByteBufferPosition(position));
+    return (float) FLOAT_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
   private float readF32LEp(final String name)
@@ -352,9 +460,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getFloat(longPositionTo2GBLimitedByteBufferPosition(position));
+    return (float) FLOAT_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position));
   }
 
   private double readD64BEp(final String name)
@@ -364,9 +470,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
-    return this.map.getDouble(longPositionTo2GBLimitedByteBufferPosition(
+    return (double) DOUBLE_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -377,9 +481,7 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
-    return this.map.getDouble(longPositionTo2GBLimitedByteBufferPosition(
+    return (double) DOUBLE_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(
       position));
   }
 
@@ -390,10 +492,8 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
-    this.map.order(ByteOrder.BIG_ENDIAN);
-    this.map.position(0);
     return Binary16.unpackFloat(
-      this.map.getChar(longPositionTo2GBLimitedByteBufferPosition(position)));
+      (char) CHAR_BE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position)));
   }
 
   private float readF16LEp(final String name)
@@ -403,25 +503,25 @@ public final class BSSReaderByteBuffer
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
-    this.map.order(ByteOrder.LITTLE_ENDIAN);
-    this.map.position(0);
     return Binary16.unpackFloat(
-      this.map.getChar(longPositionTo2GBLimitedByteBufferPosition(position)));
+      (char) CHAR_LE.get(this.map, longPositionTo2GBLimitedByteBufferPosition(position)));
   }
 
   private int readBytesp(
     final String name,
-    final byte[] buffer,
-    final int offset,
-    final int length)
+    final ByteBuffer buffer)
     throws IOException, EOFException
   {
+    Objects.requireNonNull(buffer, "buffer");
     this.checkNotClosed();
+    final var length = buffer.remaining();
     final var llong = Integer.toUnsignedLong(length);
     this.checkHasBytesRemaining(name, llong);
-    final var position = this.offsetCurrentAbsolute();
-    this.map.position(longPositionTo2GBLimitedByteBufferPosition(position));
-    this.map.get(buffer, offset, length);
+    final var position =
+      longPositionTo2GBLimitedByteBufferPosition(this.offsetCurrentAbsolute());
+    final var target = buffer.position();
+    buffer.put(target, this.map, position, length);
+    buffer.position(target + length);
     this.increaseOffsetRelative(llong);
     return length;
   }
@@ -716,9 +816,7 @@ public final class BSSReaderByteBuffer
   {
     return this.readBytesp(
       Objects.requireNonNull(name, "name"),
-      buffer,
-      offset,
-      length);
+      ByteBuffer.wrap(buffer, offset, length));
   }
 
   @Override
@@ -728,12 +826,40 @@ public final class BSSReaderByteBuffer
     final int length)
     throws IOException, EOFException
   {
-    return this.readBytesp(null, buffer, offset, length);
+    return this.readBytesp(null, ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public int readBytes(
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesp(null, buffer);
+  }
+
+  @Override
+  public int readBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesp(Objects.requireNonNull(name, "name"), buffer);
   }
 
   @Override
   protected BSSRangeHalfOpen physicalSourceAbsoluteBounds()
   {
-    return this.physicalBounds;
+    var bounds = this.physicalBounds;
+    if (bounds == null) {
+      bounds = BSSRangeHalfOpen.create(0L, this.physicalUpper);
+      this.physicalBounds = bounds;
+    }
+    return bounds;
+  }
+
+  @Override
+  protected long physicalSourceAbsoluteUpper()
+  {
+    return this.physicalUpper;
   }
 }
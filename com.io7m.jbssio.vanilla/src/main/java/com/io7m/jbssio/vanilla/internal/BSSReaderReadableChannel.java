@@ -0,0 +1,969 @@
+/*
+ * Copyright © 2019 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSReaderSequentialType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * A sequential reader based on a (non-seekable) readable byte channel.
+ *
+ * Data is read from the channel into a reusable direct buffer, and values are
+ * decoded directly from that buffer. Reads of bytes that exceed the amount of
+ * buffered data are performed with scattering reads (when the channel
+ * supports them) that fill the caller's buffer and refill the internal buffer
+ * in a single operation.
+ */
+
+public final class BSSReaderReadableChannel implements BSSReaderSequentialType
+{
+  private static final int BUFFER_SIZE = 65536;
+
+  private final BSSReaderReadableChannel parent;
+  private final Source source;
+  private final String path;
+  private final AtomicBoolean closed;
+  private final OptionalLong size;
+  private final URI uri;
+  private final long start;
+
+  private BSSReaderReadableChannel(
+    final BSSReaderReadableChannel inParent,
+    final URI inURI,
+    final String inName,
+    final Source inSource,
+    final OptionalLong inSize)
+  {
+    this.parent = inParent;
+
+    this.uri =
+      Objects.requireNonNull(inURI, "uri");
+    this.path =
+      Objects.requireNonNull(inName, "path");
+    this.source =
+      Objects.requireNonNull(inSource, "inSource");
+    this.size =
+      Objects.requireNonNull(inSize, "inSize");
+
+    this.closed = new AtomicBoolean(false);
+    this.start = inSource.consumed;
+  }
+
+  /**
+   * Create a reader based on the given channel.
+   *
+   * @param uri       The source URI
+   * @param inChannel The source channel
+   * @param inName    The name
+   * @param inSize    The size
+   *
+   * @return A reader
+   *
+   * @throws IllegalArgumentException If the channel is non-blocking
+   */
+
+  public static BSSReaderReadableChannel create(
+    final URI uri,
+    final ReadableByteChannel inChannel,
+    final String inName,
+    final OptionalLong inSize)
+  {
+    checkBlocking(inChannel);
+
+    final var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    buffer.limit(0);
+
+    return new BSSReaderReadableChannel(
+      null,
+      uri,
+      inName,
+      new Source(inChannel, buffer),
+      inSize
+    );
+  }
+
+  /**
+   * Check that the given channel is in blocking mode. Channel sources are
+   * read until they return {@code -1}, and so a non-blocking channel that
+   * has no data available would cause readers to spin.
+   *
+   * @param channel The channel
+   *
+   * @throws IllegalArgumentException If the channel is non-blocking
+   */
+
+  static void checkBlocking(
+    final ReadableByteChannel channel)
+  {
+    Objects.requireNonNull(channel, "channel");
+
+    if (channel instanceof final SelectableChannel selectable
+      && !selectable.isBlocking()) {
+      throw new IllegalArgumentException(
+        "Channel must be in blocking mode.");
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSReaderReadableChannel %s %s [absolute %s] [relative %s]]",
+      this.uri(),
+      this.path(),
+      Long.toUnsignedString(this.offsetCurrentAbsolute()),
+      Long.toUnsignedString(this.offsetCurrentRelative()));
+  }
+
+  private void checkLimit(
+    final String name,
+    final long requested)
+    throws EOFException
+  {
+    var current = this;
+    while (current != null) {
+      if (current.size.isPresent()) {
+        final var sizeLimit = current.size.getAsLong();
+        if (Long.compareUnsigned(
+          current.offsetCurrentRelative() + requested,
+          sizeLimit) > 0) {
+          final var attributes = new HashMap<String, String>(4);
+          attributes.put("Requested", Long.toUnsignedString(requested));
+          if (name != null) {
+            attributes.put("Field", name);
+          }
+          throw BSSExceptions.createEOF(
+            this,
+            "Attempting to read bytes would exceed the reader size limit.",
+            attributes);
+        }
+      }
+      current = current.parent;
+    }
+  }
+
+  private void checkNotShortRead(
+    final String name,
+    final long expected,
+    final long received)
+    throws IOException
+  {
+    if (expected != received) {
+      final var attributes = new HashMap<String, String>(4);
+      attributes.put("Expected (Octets)", Long.toUnsignedString(expected));
+      attributes.put("Received (Octets)", Long.toUnsignedString(received));
+      if (name != null) {
+        attributes.put("Field", name);
+      }
+      throw BSSExceptions.createIO(
+        this,
+        "Short read.",
+        attributes);
+    }
+  }
+
+  /**
+   * Prepare to decode a value of {@code octets} bytes. On return, the
+   * source buffer's position is at the start of the value.
+   */
+
+  private ByteBuffer prepare(
+    final String name,
+    final int octets,
+    final ByteOrder order)
+    throws IOException
+  {
+    this.checkNotClosed();
+    this.checkLimit(name, octets);
+
+    final var available = this.source.fill(octets);
+    if (available == 0) {
+      throw new EOFException();
+    }
+    this.checkNotShortRead(name, octets, Math.min(available, octets));
+
+    this.source.consumed += octets;
+    final var buffer = this.source.buffer;
+    buffer.order(order);
+    return buffer;
+  }
+
+  private int readS8p(final String name)
+    throws IOException
+  {
+    return this.prepare(name, 1, BIG_ENDIAN).get();
+  }
+
+  private int readU8p(final String name)
+    throws IOException
+  {
+    return (int) this.prepare(name, 1, BIG_ENDIAN).get() & 0xff;
+  }
+
+  private int readS16p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return this.prepare(name, 2, order).getShort();
+  }
+
+  private int readU16p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return this.prepare(name, 2, order).getChar();
+  }
+
+  private long readS32p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return this.prepare(name, 4, order).getInt();
+  }
+
+  private long readU32p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return (long) this.prepare(name, 4, order).getInt() & 0xffff_ffffL;
+  }
+
+  private long readS64p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return this.prepare(name, 8, order).getLong();
+  }
+
+  private float readF16p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return Binary16.unpackFloat(this.prepare(name, 2, order).getChar());
+  }
+
+  private float readF32p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return this.prepare(name, 4, order).getFloat();
+  }
+
+  private double readD64p(
+    final String name,
+    final ByteOrder order)
+    throws IOException
+  {
+    return this.prepare(name, 8, order).getDouble();
+  }
+
+  private int readBytesP(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    Objects.requireNonNull(buffer, "buffer");
+
+    this.checkNotClosed();
+    final var length = buffer.remaining();
+    this.checkLimit(name, Integer.toUnsignedLong(length));
+
+    final var r = this.source.readInto(buffer);
+    if (r == 0 && length > 0) {
+      throw new EOFException();
+    }
+    return r;
+  }
+
+  @Override
+  public void skip(final long skipSize)
+    throws IOException, EOFException
+  {
+    this.checkNotClosed();
+    this.checkLimit(null, skipSize);
+    final var r = this.source.skip(skipSize);
+    this.checkNotShortRead(null, skipSize, r);
+  }
+
+  @Override
+  public void align(final int alignment)
+    throws IOException, EOFException
+  {
+    final var diff = this.offsetCurrentAbsolute() % (long) alignment;
+    if (diff == 0L) {
+      return;
+    }
+
+    this.skip((long) alignment - diff);
+  }
+
+  @Override
+  public int readS8()
+    throws IOException
+  {
+    return this.readS8p(null);
+  }
+
+  @Override
+  public int readU8()
+    throws IOException
+  {
+    return this.readU8p(null);
+  }
+
+  @Override
+  public int readS16LE()
+    throws IOException, EOFException
+  {
+    return this.readS16p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int readU16LE()
+    throws IOException, EOFException
+  {
+    return this.readU16p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readS32LE()
+    throws IOException, EOFException
+  {
+    return this.readS32p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readU32LE()
+    throws IOException, EOFException
+  {
+    return this.readU32p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readS64LE()
+    throws IOException, EOFException
+  {
+    return this.readS64p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readU64LE()
+    throws IOException, EOFException
+  {
+    return this.readS64p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int readS16BE()
+    throws IOException, EOFException
+  {
+    return this.readS16p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public int readU16BE()
+    throws IOException, EOFException
+  {
+    return this.readU16p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public long readS32BE()
+    throws IOException, EOFException
+  {
+    return this.readS32p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public long readU32BE()
+    throws IOException, EOFException
+  {
+    return this.readU32p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public long readS64BE()
+    throws IOException, EOFException
+  {
+    return this.readS64p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public long readU64BE()
+    throws IOException, EOFException
+  {
+    return this.readS64p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public float readF16BE()
+    throws IOException, EOFException
+  {
+    return this.readF16p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public float readF16LE()
+    throws IOException, EOFException
+  {
+    return this.readF16p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public float readF16BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readF16p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public float readF16LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readF16p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public float readF32BE()
+    throws IOException, EOFException
+  {
+    return this.readF32p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public float readF32LE()
+    throws IOException, EOFException
+  {
+    return this.readF32p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public double readD64BE()
+    throws IOException, EOFException
+  {
+    return this.readD64p(null, BIG_ENDIAN);
+  }
+
+  @Override
+  public double readD64LE()
+    throws IOException, EOFException
+  {
+    return this.readD64p(null, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int readS8(final String name)
+    throws IOException
+  {
+    return this.readS8p(Objects.requireNonNull(name, "name"));
+  }
+
+  @Override
+  public int readU8(final String name)
+    throws IOException
+  {
+    return this.readU8p(Objects.requireNonNull(name, "name"));
+  }
+
+  @Override
+  public int readS16LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS16p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int readU16LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readU16p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readS32LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS32p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readU32LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readU32p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readS64LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS64p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long readU64LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS64p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int readS16BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS16p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public int readU16BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readU16p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public long readS32BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS32p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public long readU32BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readU32p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public long readS64BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS64p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public long readU64BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readS64p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public float readF32BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readF32p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public float readF32LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readF32p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public double readD64BE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readD64p(Objects.requireNonNull(name, "name"), BIG_ENDIAN);
+  }
+
+  @Override
+  public double readD64LE(final String name)
+    throws IOException, EOFException
+  {
+    return this.readD64p(Objects.requireNonNull(name, "name"), LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int readBytes(
+    final String name,
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(
+      Objects.requireNonNull(name, "name"),
+      ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public int readBytes(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(null, ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public int readBytes(
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(null, buffer);
+  }
+
+  @Override
+  public int readBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(Objects.requireNonNull(name, "name"), buffer);
+  }
+
+  @Override
+  public OptionalLong bytesRemaining()
+  {
+    return this.size.stream()
+      .map(s -> s - this.offsetCurrentRelative())
+      .findFirst();
+  }
+
+  @Override
+  public long offsetCurrentAbsolute()
+  {
+    return this.source.consumed;
+  }
+
+  @Override
+  public long offsetCurrentRelative()
+  {
+    return this.source.consumed - this.start;
+  }
+
+  @Override
+  public URI uri()
+  {
+    return this.uri;
+  }
+
+  @Override
+  public String path()
+  {
+    return this.path;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      if (this.parent == null) {
+        this.source.channel.close();
+      }
+    }
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    final var parentRef = this.parent;
+    if (parentRef != null) {
+      return parentRef.isClosed() || this.closed.get();
+    }
+    return this.closed.get();
+  }
+
+  @Override
+  public Optional<BSSReaderSequentialType> parentReader()
+  {
+    return Optional.ofNullable(this.parent);
+  }
+
+  @Override
+  public BSSReaderSequentialType createSubReader(final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+    this.checkNotClosed();
+
+    final var newName =
+      new StringBuilder(this.path.length() + name.length() + 2)
+        .append(this.path)
+        .append(PATH_SEPARATOR)
+        .append(name)
+        .toString();
+
+    return new BSSReaderReadableChannel(
+      this,
+      this.uri,
+      newName,
+      this.source,
+      this.size);
+  }
+
+  @Override
+  public BSSReaderSequentialType createSubReaderBounded(
+    final String name,
+    final long newSize)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+    this.checkNotClosed();
+
+    if (this.size.isPresent()) {
+      final var currentSize = this.size.getAsLong();
+      if (Long.compareUnsigned(newSize, currentSize) > 0) {
+        final var attributes = new HashMap<String, String>(4);
+        attributes.put("Size limit", Long.toUnsignedString(currentSize));
+        attributes.put("Requested size limit", Long.toUnsignedString(newSize));
+        throw BSSExceptions.createIO(
+          this,
+          "Sub-reader bounds cannot exceed the bounds of this reader.",
+          attributes);
+      }
+    }
+
+    final var newName =
+      new StringBuilder(this.path.length() + name.length() + 2)
+        .append(this.path)
+        .append(PATH_SEPARATOR)
+        .append(name)
+        .toString();
+
+    return new BSSReaderReadableChannel(
+      this,
+      this.uri,
+      newName,
+      this.source,
+      OptionalLong.of(newSize));
+  }
+
+  @Override
+  public <E extends Exception> E createException(
+    final String message,
+    final Map<String, String> attributes,
+    final Function<String, E> constructor)
+  {
+    return BSSExceptions.create(
+      this,
+      message,
+      attributes,
+      constructor
+    );
+  }
+
+  /**
+   * The channel and buffer shared between a reader and all of its
+   * sub-readers. The buffer is always kept in "read" mode: The bytes
+   * between the position and the limit are the buffered, unconsumed bytes.
+   */
+
+  private static final class Source
+  {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ByteBuffer[] scatter;
+    private long consumed;
+
+    Source(
+      final ReadableByteChannel inChannel,
+      final ByteBuffer inBuffer)
+    {
+      this.channel =
+        Objects.requireNonNull(inChannel, "channel");
+      this.buffer =
+        Objects.requireNonNull(inBuffer, "buffer");
+      this.scatter =
+        new ByteBuffer[2];
+    }
+
+    /**
+     * Try to ensure that at least {@code octets} bytes are buffered.
+     *
+     * @return The number of bytes buffered, which may be less than
+     * {@code octets} if the channel reached EOF
+     */
+
+    int fill(
+      final int octets)
+      throws IOException
+    {
+      if (this.buffer.remaining() >= octets) {
+        return this.buffer.remaining();
+      }
+
+      this.buffer.compact();
+      try {
+        while (this.buffer.position() < octets) {
+          if (this.channel.read(this.buffer) == -1) {
+            break;
+          }
+        }
+      } finally {
+        this.buffer.flip();
+      }
+      return this.buffer.remaining();
+    }
+
+    /**
+     * Read as many bytes as possible (up to EOF) into the given buffer.
+     *
+     * @return The number of bytes read
+     */
+
+    int readInto(
+      final ByteBuffer target)
+      throws IOException
+    {
+      final var startPosition = target.position();
+      final var buffered = Math.min(this.buffer.remaining(), target.remaining());
+      if (buffered > 0) {
+        target.put(
+          target.position(),
+          this.buffer,
+          this.buffer.position(),
+          buffered);
+        target.position(target.position() + buffered);
+        this.buffer.position(this.buffer.position() + buffered);
+      }
+
+      if (target.hasRemaining()) {
+        if (this.channel instanceof final ScatteringByteChannel scattering) {
+          this.readIntoScattering(target, scattering);
+        } else {
+          this.readIntoDirect(target);
+        }
+      }
+
+      final var count = target.position() - startPosition;
+      this.consumed += count;
+      return count;
+    }
+
+    private void readIntoDirect(
+      final ByteBuffer target)
+      throws IOException
+    {
+      /*
+       * Small remainders are served from the buffer so that the buffer
+       * can absorb read-ahead for subsequent primitive reads.
+       */
+
+      while (target.hasRemaining()) {
+        if (target.remaining() < this.buffer.capacity()) {
+          final var available = this.fill(target.remaining());
+          if (available == 0) {
+            return;
+          }
+          final var count = Math.min(available, target.remaining());
+          target.put(
+            target.position(),
+            this.buffer,
+            this.buffer.position(),
+            count);
+          target.position(target.position() + count);
+          this.buffer.position(this.buffer.position() + count);
+        } else if (this.channel.read(target) == -1) {
+          return;
+        }
+      }
+    }
+
+    private void readIntoScattering(
+      final ByteBuffer target,
+      final ScatteringByteChannel scattering)
+      throws IOException
+    {
+      /*
+       * The buffer is empty at this point. Read directly into the target
+       * and refill the buffer in the same operation.
+       */
+
+      this.buffer.clear();
+      this.scatter[0] = target;
+      this.scatter[1] = this.buffer;
+
+      try {
+        while (target.hasRemaining()) {
+          if (scattering.read(this.scatter) == -1) {
+            break;
+          }
+        }
+      } finally {
+        this.scatter[0] = null;
+        this.scatter[1] = null;
+        this.buffer.flip();
+      }
+    }
+
+    /**
+     * Skip up to {@code octets} bytes.
+     *
+     * @return The number of bytes skipped
+     */
+
+    long skip(
+      final long octets)
+      throws IOException
+    {
+      var remaining = octets;
+      while (remaining > 0L) {
+        if (!this.buffer.hasRemaining()) {
+          this.buffer.clear();
+          final var r = this.channel.read(this.buffer);
+          this.buffer.flip();
+          if (r == -1) {
+            break;
+          }
+        }
+
+        final var count =
+          (int) Math.min(remaining, this.buffer.remaining());
+        this.buffer.position(this.buffer.position() + count);
+        remaining -= count;
+      }
+
+      final var skipped = octets - remaining;
+      this.consumed += skipped;
+      return skipped;
+    }
+  }
+}
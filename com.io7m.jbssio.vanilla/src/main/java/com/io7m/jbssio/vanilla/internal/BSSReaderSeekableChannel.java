@@ -17,19 +17,23 @@
 package com.io7m.jbssio.vanilla.internal;
 
 import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSBufferPoolType;
 import com.io7m.jbssio.api.BSSReaderRandomAccessType;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.Callable;
 
-import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
 import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 
@@ -41,8 +45,26 @@ public final class BSSReaderSeekableChannel
   extends BSSRandomAccess<BSSReaderRandomAccessType> implements
   BSSReaderRandomAccessType
 {
+  /**
+   * The largest number of octets fetched by a single coalesced read.
+   */
+
+  private static final long RUN_OCTETS_MAXIMUM = 1L << 24;
+
+  /**
+   * The size of the buffer used to transfer data from channels that are not
+   * file channels.
+   */
+
+  private static final int TRANSFER_BUFFER_SIZE = 1 << 16;
+
   private final SeekableByteChannel channel;
-  private final ByteBuffer buffer;
+  private final PositionalReadType positional;
+  private final BSSBlockCache cache;
+  private final BSSBufferPoolType pool;
+  private final BSSReadAhead readAhead;
+  private BSSReadAheadWindow window;
+  private ByteBuffer buffer;
 
   private BSSReaderSeekableChannel(
     final BSSReaderSeekableChannel inParent,
@@ -50,15 +72,49 @@ public final class BSSReaderSeekableChannel
     final BSSRangeHalfOpen inRange,
     final String inName,
     final SeekableByteChannel inChannel,
-    final ByteBuffer inBuffer,
+    final BSSBlockCache inCache,
+    final BSSBufferPoolType inPool,
+    final BSSReadAhead inReadAhead,
     final Callable<Void> inOnClose)
   {
     super(inParent, inRange, inOnClose, inURI, inName);
 
     this.channel =
       Objects.requireNonNull(inChannel, "channel");
-    this.buffer =
-      Objects.requireNonNull(inBuffer, "buffer");
+    this.positional =
+      positionalReadOf(inChannel);
+    this.cache = inCache;
+    this.pool = inPool;
+    this.readAhead = inReadAhead;
+  }
+
+  /**
+   * A read at a given position that neither uses nor modifies the position
+   * of a channel.
+   */
+
+  @FunctionalInterface
+  private interface PositionalReadType
+  {
+    int read(
+      ByteBuffer target,
+      long position)
+      throws IOException;
+  }
+
+  private static PositionalReadType positionalReadOf(
+    final SeekableByteChannel channel)
+  {
+    if (channel instanceof final FileChannel fileChannel) {
+      return fileChannel::read;
+    }
+    if (channel instanceof final BSSRangeSourceChannel rangeChannel) {
+      return rangeChannel::read;
+    }
+    if (channel instanceof final BSSOverlayChannel overlayChannel) {
+      return overlayChannel::read;
+    }
+    return null;
   }
 
   /**
@@ -78,15 +134,45 @@ public final class BSSReaderSeekableChannel
     final String name,
     final OptionalLong size)
   {
-    final var buffer = ByteBuffer.allocateDirect(8);
+    return createFromChannelConfigured(
+      uri, channel, name, size, null, null, null);
+  }
+
+  /**
+   * Create a random access reader based on a seekable byte channel, reading
+   * through the given block cache or with the given read-ahead policy, and
+   * drawing buffers from the given pool. If both a cache and a read-ahead
+   * policy are given, the cache takes precedence.
+   *
+   * @param uri       The source URI
+   * @param channel   The source channel
+   * @param name      The name
+   * @param size      The size
+   * @param cache     The block cache, if any
+   * @param pool      The buffer pool, if any
+   * @param readAhead The read-ahead policy, if any
+   *
+   * @return A random access reader
+   */
 
+  public static BSSReaderRandomAccessType createFromChannelConfigured(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSBlockCache cache,
+    final BSSBufferPoolType pool,
+    final BSSReadAhead readAhead)
+  {
     return new BSSReaderSeekableChannel(
       null,
       uri,
       new BSSRangeHalfOpen(0L, size),
       name,
       channel,
-      buffer,
+      cache,
+      pool,
+      readAhead,
       () -> {
         channel.close();
         return null;
@@ -99,6 +185,41 @@ public final class BSSReaderSeekableChannel
     return Optional.ofNullable((BSSReaderRandomAccessType) super.parent());
   }
 
+  /**
+   * Create a random access reader over a range of a seekable byte channel
+   * that is owned by something else, such as a writer. Closing the reader
+   * does not close the channel.
+   *
+   * @param uri     The source URI
+   * @param channel The source channel
+   * @param name    The name
+   * @param offset  The absolute offset of the start of the range
+   * @param size    The size of the range
+   * @param pool    The buffer pool, if any
+   *
+   * @return A random access reader
+   */
+
+  public static BSSReaderRandomAccessType createFromChannelView(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final long offset,
+    final long size,
+    final BSSBufferPoolType pool)
+  {
+    return new BSSReaderSeekableChannel(
+      null,
+      uri,
+      new BSSRangeHalfOpen(offset, OptionalLong.of(offset + size)),
+      name,
+      channel,
+      null,
+      pool,
+      null,
+      ON_CLOSE_NOTHING);
+  }
+
   @Override
   public BSSReaderRandomAccessType createSubReaderAt(
     final String inName,
@@ -108,21 +229,16 @@ public final class BSSReaderSeekableChannel
     Objects.requireNonNull(inName, "path");
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path)
-        .append(PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
     return new BSSReaderSeekableChannel(
       this,
       this.uri,
       this.createOffsetSubRange(offset),
-      newName,
+      inName,
       this.channel,
-      this.buffer,
-      () -> null);
+      this.cache,
+      this.pool,
+      this.readAhead,
+      ON_CLOSE_NOTHING);
   }
 
   @Override
@@ -136,21 +252,158 @@ public final class BSSReaderSeekableChannel
 
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path)
-        .append(PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
     return new BSSReaderSeekableChannel(
       this,
       this.uri,
       this.createSubRange(offset, size),
-      newName,
+      inName,
       this.channel,
-      this.buffer,
-      () -> null);
+      this.cache,
+      this.pool,
+      this.readAhead,
+      ON_CLOSE_NOTHING);
+  }
+
+  @Override
+  public void prefetch(
+    final long offset,
+    final long length)
+    throws IOException
+  {
+    this.checkNotClosed();
+
+    if (this.cache == null) {
+      return;
+    }
+
+    final var clamped = this.clampedLength(offset, length);
+    if (clamped == 0L) {
+      return;
+    }
+
+    final var blockSize = (long) this.cache.blockSize();
+    final var start = this.toAbsolute(offset);
+    final var first = start / blockSize;
+
+    /*
+     * Blocks beyond the capacity of the cache would only evict the blocks
+     * prefetched before them, and so the span is clamped to the capacity.
+     */
+
+    final var blocksMaximum =
+      Math.max(1L, this.cache.capacity() / blockSize);
+    final var last =
+      Math.min((start + clamped - 1L) / blockSize, first + blocksMaximum - 1L);
+    final var runMaximum =
+      Math.min(this.runBlocksMaximum(), this.cache.retainedRunMaximum());
+
+    /*
+     * Each run of adjacent blocks that are not resident is fetched with a
+     * single read. Runs are limited to the number of blocks that the cache
+     * will retain, so that a single run never evicts its own blocks.
+     */
+
+    var index = first;
+    while (index <= last) {
+      if (this.cache.contains(this.uri, index)) {
+        ++index;
+        continue;
+      }
+
+      final var runFirst = index;
+      while (index <= last
+        && index - runFirst < runMaximum
+        && !this.cache.contains(this.uri, index)) {
+        ++index;
+      }
+
+      final var runCount = (int) (index - runFirst);
+      BSSPrefetch.schedule(() -> {
+        final var claimed =
+          this.cache.claimRun(this.uri, runFirst, runCount);
+        if (claimed > 0) {
+          this.loadClaimedP(runFirst, claimed);
+        }
+      });
+    }
+  }
+
+  /**
+   * Copy {@code length} bytes starting at the given relative offset to the
+   * target channel, without using or modifying the current offset of this
+   * reader. File channels are copied with
+   * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which
+   * allows the operating system to copy the data without passing it through
+   * the Java heap. Other channels are copied through a buffer. The block
+   * cache, if any, is bypassed.
+   *
+   * @param offset The relative offset
+   * @param length The number of bytes
+   * @param target The target channel
+   *
+   * @throws IOException On I/O errors, or if the range is not within the
+   *                     bounds of this reader
+   */
+
+  public void transferTo(
+    final long offset,
+    final long length,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    Objects.requireNonNull(target, "target");
+    this.checkNotClosed();
+
+    if (length <= 0L) {
+      return;
+    }
+    if (offset < 0L || this.clampedLength(offset, length) < length) {
+      throw new EOFException(
+        "Range [%d, %d) is not within the bounds of the reader."
+          .formatted(Long.valueOf(offset), Long.valueOf(offset + length)));
+    }
+
+    final var start = this.toAbsolute(offset);
+    if (this.channel instanceof final FileChannel fileChannel) {
+      transferFileP(fileChannel, start, length, target);
+      return;
+    }
+
+    final var copy =
+      ByteBuffer.allocate((int) Math.min(length, TRANSFER_BUFFER_SIZE));
+
+    var done = 0L;
+    while (done < length) {
+      copy.clear();
+      copy.limit((int) Math.min(copy.capacity(), length - done));
+      this.readChannelAtP(start + done, copy);
+      if (copy.position() == 0) {
+        throw new EOFException("Unexpected end of channel.");
+      }
+      copy.flip();
+      done += copy.remaining();
+      while (copy.hasRemaining()) {
+        target.write(copy);
+      }
+    }
+  }
+
+  private static void transferFileP(
+    final FileChannel fileChannel,
+    final long start,
+    final long length,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    var done = 0L;
+    while (done < length) {
+      final var count =
+        fileChannel.transferTo(start + done, length - done, target);
+      if (count == 0L && start + done >= fileChannel.size()) {
+        throw new EOFException("Unexpected end of channel.");
+      }
+      done += count;
+    }
   }
 
   @Override
@@ -172,13 +425,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(1L);
 
-    this.buffer.position(0);
-    this.buffer.limit(1);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(1);
-    return this.buffer.get(0);
+    final var data = this.readAtP(position, 1, BIG_ENDIAN);
+    return data.get(0);
   }
 
   private int readU8p(final String name)
@@ -189,13 +437,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(1L);
 
-    this.buffer.position(0);
-    this.buffer.limit(1);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(1);
-    return (int) this.buffer.get(0) & 0xff;
+    final var data = this.readAtP(position, 1, BIG_ENDIAN);
+    return (int) data.get(0) & 0xff;
   }
 
   private int readS16LEp(final String name)
@@ -206,14 +449,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    return this.buffer.getShort(0);
+    final var data = this.readAtP(position, 2, LITTLE_ENDIAN);
+    return data.getShort(0);
   }
 
   private int readU16LEp(final String name)
@@ -224,14 +461,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    return this.buffer.getChar(0);
+    final var data = this.readAtP(position, 2, LITTLE_ENDIAN);
+    return data.getChar(0);
   }
 
   private long readS32LEp(final String name)
@@ -242,14 +473,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    return this.buffer.getInt(0);
+    final var data = this.readAtP(position, 4, LITTLE_ENDIAN);
+    return data.getInt(0);
   }
 
   private long readU32LEp(final String name)
@@ -260,14 +485,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    return (long) this.buffer.getInt(0) & 0xffff_ffffL;
+    final var data = this.readAtP(position, 4, LITTLE_ENDIAN);
+    return (long) data.getInt(0) & 0xffff_ffffL;
   }
 
   private long readS64LEp(final String name)
@@ -278,14 +497,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    return this.buffer.getLong(0);
+    final var data = this.readAtP(position, 8, LITTLE_ENDIAN);
+    return data.getLong(0);
   }
 
   private long readU64LEp(final String name)
@@ -296,14 +509,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    return this.buffer.getLong(0);
+    final var data = this.readAtP(position, 8, LITTLE_ENDIAN);
+    return data.getLong(0);
   }
 
   private int readS16BEp(final String name)
@@ -314,14 +521,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    return this.buffer.getShort(0);
+    final var data = this.readAtP(position, 2, BIG_ENDIAN);
+    return data.getShort(0);
   }
 
   private int readU16BEp(final String name)
@@ -332,14 +533,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    return this.buffer.getChar(0);
+    final var data = this.readAtP(position, 2, BIG_ENDIAN);
+    return data.getChar(0);
   }
 
   private long readS32BEp(final String name)
@@ -350,14 +545,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    return this.buffer.getInt(0);
+    final var data = this.readAtP(position, 4, BIG_ENDIAN);
+    return data.getInt(0);
   }
 
   private long readU32BEp(final String name)
@@ -368,14 +557,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    return (long) this.buffer.getInt(0) & 0xffff_ffffL;
+    final var data = this.readAtP(position, 4, BIG_ENDIAN);
+    return (long) data.getInt(0) & 0xffff_ffffL;
   }
 
   private long readS64BEp(final String name)
@@ -386,14 +569,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    return this.buffer.getLong(0);
+    final var data = this.readAtP(position, 8, BIG_ENDIAN);
+    return data.getLong(0);
   }
 
   private long readU64BEp(final String name)
@@ -404,14 +581,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    return this.buffer.getLong(0);
+    final var data = this.readAtP(position, 8, BIG_ENDIAN);
+    return data.getLong(0);
   }
 
   private float readF32BEp(final String name)
@@ -422,14 +593,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    return this.buffer.getFloat(0);
+    final var data = this.readAtP(position, 4, BIG_ENDIAN);
+    return data.getFloat(0);
   }
 
   private float readF32LEp(final String name)
@@ -440,14 +605,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(4L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(4);
-    return this.buffer.getFloat(0);
+    final var data = this.readAtP(position, 4, LITTLE_ENDIAN);
+    return data.getFloat(0);
   }
 
   private double readD64BEp(final String name)
@@ -458,14 +617,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    return this.buffer.getDouble(0);
+    final var data = this.readAtP(position, 8, BIG_ENDIAN);
+    return data.getDouble(0);
   }
 
   private double readD64LEp(final String name)
@@ -476,14 +629,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(8L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(8);
-    return this.buffer.getDouble(0);
+    final var data = this.readAtP(position, 8, LITTLE_ENDIAN);
+    return data.getDouble(0);
   }
 
   private float readF16BEp(final String name)
@@ -494,14 +641,8 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
 
-    this.buffer.order(BIG_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    return Binary16.unpackFloat(this.buffer.getChar(0));
+    final var data = this.readAtP(position, 2, BIG_ENDIAN);
+    return Binary16.unpackFloat(data.getChar(0));
   }
 
   private float readF16LEp(final String name)
@@ -512,31 +653,203 @@ public final class BSSReaderSeekableChannel
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(2L);
 
-    this.buffer.order(LITTLE_ENDIAN);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    this.channel.position(position);
-    this.channel.read(this.buffer);
-    this.buffer.position(0);
-    this.buffer.limit(2);
-    return Binary16.unpackFloat(this.buffer.getChar(0));
+    final var data = this.readAtP(position, 2, LITTLE_ENDIAN);
+    return Binary16.unpackFloat(data.getChar(0));
   }
 
   private int readBytesP(
     final String name,
-    final byte[] inBuffer,
-    final int length)
+    final ByteBuffer target)
     throws IOException
   {
+    Objects.requireNonNull(target, "buffer");
     this.checkNotClosed();
+    final var length = target.remaining();
     final var llength = Integer.toUnsignedLong(length);
     this.checkHasBytesRemaining(name, llength);
     final var position = this.offsetCurrentAbsolute();
     this.increaseOffsetRelative(llength);
 
-    final var wrapper = ByteBuffer.wrap(inBuffer);
-    this.channel.position(position);
-    return this.channel.read(wrapper);
+    this.readFullyAtP(position, target);
+    return length - target.remaining();
+  }
+
+  /**
+   * Read {@code size} octets at the given absolute position into this
+   * reader's private buffer. Each reader owns its own buffer, so sub-readers
+   * that share a channel can be used concurrently from different threads.
+   */
+
+  private ByteBuffer readAtP(
+    final long position,
+    final int size,
+    final ByteOrder order)
+    throws IOException
+  {
+    var data = this.buffer;
+    if (data == null) {
+      data = this.pool != null ? this.pool.acquire(8) : ByteBuffer.allocate(8);
+      this.buffer = data;
+    }
+
+    data.order(order);
+    data.position(0);
+    data.limit(size);
+    this.readFullyAtP(position, data);
+    data.position(0);
+    data.limit(size);
+    return data;
+  }
+
+  /**
+   * Read into the target buffer at the given absolute position, consulting
+   * the block cache or the read-ahead window first if there is one.
+   */
+
+  private void readFullyAtP(
+    final long position,
+    final ByteBuffer target)
+    throws IOException
+  {
+    if (this.cache != null) {
+      this.readCachedAtP(position, target);
+    } else if (this.readAhead != null) {
+      this.readAheadAtP(position, target);
+    } else {
+      this.readChannelAtP(position, target);
+    }
+  }
+
+  private void readCachedAtP(
+    final long position,
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var blockSize = (long) this.cache.blockSize();
+    final var last = (position + target.remaining() - 1L) / blockSize;
+    final var runMaximum = this.runBlocksMaximum();
+
+    var offset = position;
+    while (target.hasRemaining()) {
+      final var index = offset / blockSize;
+      var data = this.cache.lookupOrClaim(this.uri, index);
+      if (data == null) {
+        final var following =
+          (int) Math.min(last - index, runMaximum - 1L);
+        final var claimed =
+          this.cache.claimRun(this.uri, index + 1L, following);
+        data = this.loadClaimedP(index, 1 + claimed);
+      }
+
+      final var within = (int) (offset - (index * blockSize));
+      final var available = data.length - within;
+      if (available <= 0) {
+        break;
+      }
+      final var count = Math.min(available, target.remaining());
+      target.put(data, within, count);
+      offset += count;
+    }
+  }
+
+  private void readAheadAtP(
+    final long position,
+    final ByteBuffer target)
+    throws IOException
+  {
+    var current = this.window;
+    if (current == null) {
+      current = new BSSReadAheadWindow(
+        this.readAhead, this.pool, this::readChannelAtP);
+      this.window = current;
+    }
+    current.read(position, target);
+  }
+
+  private long runBlocksMaximum()
+  {
+    return Math.max(1L, RUN_OCTETS_MAXIMUM / this.cache.blockSize());
+  }
+
+  /**
+   * Load the {@code count} blocks starting at block {@code first}, all of
+   * which the caller has claimed, with a single read. Sources such as range
+   * sources pay a fixed cost per read, and so reading a run of blocks at
+   * once is far cheaper than reading each block separately. Only as many
+   * blocks as the cache will retain are inserted into the cache; the data
+   * of the entire run is returned so that the caller can copy the rest
+   * directly, rather than reading blocks that the cache has already evicted
+   * a second time.
+   */
+
+  private byte[] loadClaimedP(
+    final long first,
+    final int count)
+    throws IOException
+  {
+    final var blockSize = this.cache.blockSize();
+    final var data = new byte[count * blockSize];
+    final var target = ByteBuffer.wrap(data);
+
+    try {
+      this.readChannelAtP(first * blockSize, target);
+    } catch (final IOException e) {
+      for (int index = 0; index < count; ++index) {
+        this.cache.fail(this.uri, first + index, e);
+      }
+      throw e;
+    }
+
+    final var loaded = target.position();
+    final var retained = this.cache.retainedRunMaximum();
+    for (int index = 0; index < count; ++index) {
+      final var from = Math.min(index * blockSize, loaded);
+      final var to = Math.min(from + blockSize, loaded);
+      this.cache.complete(
+        this.uri, first + index, data, from, to, index < retained);
+    }
+
+    if (loaded == data.length) {
+      return data;
+    }
+    return Arrays.copyOf(data, loaded);
+  }
+
+  /**
+   * Read into the target buffer at the given absolute position. File
+   * channels and range source channels support positional reads that
+   * neither use nor modify the position of the channel, and so any number
+   * of readers can read concurrently without locking. For other channels,
+   * the position of the channel is shared between all readers created from
+   * the same root reader, and so the seek and the subsequent reads must be
+   * performed atomically with respect to other readers.
+   */
+
+  private void readChannelAtP(
+    final long position,
+    final ByteBuffer target)
+    throws IOException
+  {
+    if (this.positional != null) {
+      var offset = position;
+      while (target.hasRemaining()) {
+        final var r = this.positional.read(target, offset);
+        if (r == -1) {
+          break;
+        }
+        offset += r;
+      }
+      return;
+    }
+
+    synchronized (this.channel) {
+      this.channel.position(position);
+      while (target.hasRemaining()) {
+        if (this.channel.read(target) == -1) {
+          break;
+        }
+      }
+    }
   }
 
   @Override
@@ -826,7 +1139,7 @@ public final class BSSReaderSeekableChannel
     final int length)
     throws IOException, EOFException
   {
-    return this.readBytesP(null, inBuffer, length);
+    return this.readBytesP(null, ByteBuffer.wrap(inBuffer, offset, length));
   }
 
   @Override
@@ -839,8 +1152,39 @@ public final class BSSReaderSeekableChannel
   {
     return this.readBytesP(
       Objects.requireNonNull(name, "name"),
-      inBuffer,
-      length);
+      ByteBuffer.wrap(inBuffer, offset, length));
+  }
+
+  @Override
+  public int readBytes(
+    final ByteBuffer inBuffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(null, inBuffer);
+  }
+
+  @Override
+  public int readBytes(
+    final String name,
+    final ByteBuffer inBuffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(Objects.requireNonNull(name, "name"), inBuffer);
+  }
+
+  @Override
+  protected void releaseResources()
+  {
+    final var current = this.window;
+    if (current != null) {
+      current.release();
+    }
+
+    final var data = this.buffer;
+    if (data != null && this.pool != null) {
+      this.buffer = null;
+      this.pool.release(data);
+    }
   }
 
   @Override
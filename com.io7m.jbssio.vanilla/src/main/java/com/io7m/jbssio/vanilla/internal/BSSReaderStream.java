@@ -49,6 +49,8 @@ public final class BSSReaderStream implements BSSReaderSequentialType
   private static final Logger LOG =
     LoggerFactory.getLogger(BSSReaderStream.class);
 
+  private static final int TRANSFER_SIZE = 8192;
+
   private final BSSReaderStream parent;
   private final String path;
   private final CountingInputStream stream;
@@ -61,6 +63,7 @@ public final class BSSReaderStream implements BSSReaderSequentialType
   private final ByteBuffer buffer4w;
   private final ByteBuffer buffer2w;
   private final URI uri;
+  private byte[] transfer;
 
   private BSSReaderStream(
     final BSSReaderStream inParent,
@@ -728,6 +731,71 @@ public final class BSSReaderStream implements BSSReaderSequentialType
     return r;
   }
 
+  private int readBytesP(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    Objects.requireNonNull(buffer, "buffer");
+
+    final var length = buffer.remaining();
+    this.checkLimit(name, Integer.toUnsignedLong(length));
+
+    if (buffer.hasArray()) {
+      final var position = buffer.position();
+      final var r =
+        this.stream.read(buffer.array(), buffer.arrayOffset() + position, length);
+      checkEOF(r);
+      buffer.position(position + r);
+      return r;
+    }
+
+    /*
+     * Direct buffers are filled through a transfer array, one chunk at a
+     * time, stopping early if the stream returns less than a full chunk.
+     */
+
+    if (this.transfer == null) {
+      this.transfer = new byte[TRANSFER_SIZE];
+    }
+
+    var total = 0;
+    while (buffer.hasRemaining()) {
+      final var want = Math.min(buffer.remaining(), this.transfer.length);
+      final var r = this.stream.read(this.transfer, 0, want);
+      if (r == -1) {
+        break;
+      }
+      buffer.put(this.transfer, 0, r);
+      total += r;
+      if (r < want) {
+        break;
+      }
+    }
+
+    if (total == 0 && length > 0) {
+      throw new EOFException();
+    }
+    return total;
+  }
+
+  @Override
+  public int readBytes(
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(null, buffer);
+  }
+
+  @Override
+  public int readBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException, EOFException
+  {
+    return this.readBytesP(Objects.requireNonNull(name, "name"), buffer);
+  }
+
   @Override
   public OptionalLong bytesRemaining()
   {
@@ -0,0 +1,366 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A read-only seekable channel that presents an ordered list of segments as
+ * a single address space, the segments being laid out end to end.
+ *
+ * The start offsets of the segments are held in a sorted array, so the
+ * segment containing an offset is located with a binary search. Reads that
+ * cross segment boundaries are split across the segments. Segments given as
+ * paths are opened lazily when first read, and at most a fixed number of
+ * them are held open at once; the least recently read segment is closed
+ * when the limit would otherwise be exceeded. Segments given as channels
+ * are already open, and remain open until the channel is closed.
+ */
+
+public final class BSSSegmentedChannel implements SeekableByteChannel
+{
+  private final Path[] paths;
+  private final SeekableByteChannel[] channels;
+  private final long[] starts;
+  private final int openMaximum;
+  private final LinkedHashMap<Integer, SeekableByteChannel> opened;
+  private long position;
+  private boolean open;
+
+  private BSSSegmentedChannel(
+    final Path[] inPaths,
+    final SeekableByteChannel[] inChannels,
+    final long[] inStarts,
+    final int inOpenMaximum)
+  {
+    this.paths = inPaths;
+    this.channels = inChannels;
+    this.starts = inStarts;
+    this.openMaximum = inOpenMaximum;
+    this.opened = new LinkedHashMap<>(16, 0.75f, true);
+    this.open = true;
+  }
+
+  /**
+   * Create a channel over the given segment files. The sizes of the files
+   * are read when the channel is created, and the files must not change
+   * size while the channel is open.
+   *
+   * @param segments    The segment files, in order
+   * @param openMaximum The maximum number of segment files held open
+   *
+   * @return A channel
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BSSSegmentedChannel fromPaths(
+    final List<Path> segments,
+    final int openMaximum)
+    throws IOException
+  {
+    Objects.requireNonNull(segments, "segments");
+
+    if (openMaximum <= 0) {
+      throw new IllegalArgumentException(
+        "Maximum open segment count must be positive.");
+    }
+
+    final var count = segments.size();
+    final var paths = new Path[count];
+    final var starts = new long[count + 1];
+    for (int index = 0; index < count; ++index) {
+      paths[index] = Objects.requireNonNull(segments.get(index), "segment");
+      starts[index + 1] = starts[index] + Files.size(paths[index]);
+    }
+    return new BSSSegmentedChannel(
+      paths, new SeekableByteChannel[count], starts, openMaximum);
+  }
+
+  /**
+   * Create a channel over the given segment channels. The sizes of the
+   * channels are read when the channel is created, and the channels must
+   * not change size while the channel is open. Closing the channel closes
+   * the segment channels.
+   *
+   * @param segments The segment channels, in order
+   *
+   * @return A channel
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BSSSegmentedChannel fromChannels(
+    final List<? extends SeekableByteChannel> segments)
+    throws IOException
+  {
+    Objects.requireNonNull(segments, "segments");
+
+    final var count = segments.size();
+    final var channels = new SeekableByteChannel[count];
+    final var starts = new long[count + 1];
+    for (int index = 0; index < count; ++index) {
+      channels[index] =
+        Objects.requireNonNull(segments.get(index), "segment");
+      starts[index + 1] = starts[index] + channels[index].size();
+    }
+    return new BSSSegmentedChannel(
+      new Path[count], channels, starts, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return The index of the non-empty segment containing the given offset,
+   * which must be less than the total size
+   */
+
+  private int segmentOf(
+    final long offset)
+  {
+    var index = Arrays.binarySearch(this.starts, offset);
+    if (index < 0) {
+      return -index - 2;
+    }
+
+    /*
+     * Empty segments share their start offset with the following segment.
+     */
+
+    while (this.starts[index + 1] == offset) {
+      ++index;
+    }
+    return index;
+  }
+
+  @Override
+  public synchronized int read(
+    final ByteBuffer target)
+    throws IOException
+  {
+    this.checkOpen();
+
+    final var size = this.starts[this.starts.length - 1];
+    if (this.position >= size) {
+      return -1;
+    }
+
+    final var limit = target.limit();
+    var total = 0;
+    try {
+      while (target.hasRemaining() && this.position < size) {
+        final var index = this.segmentOf(this.position);
+        final var segmentEnd = this.starts[index + 1];
+        final var want =
+          (int) Math.min(target.remaining(), segmentEnd - this.position);
+
+        target.limit(target.position() + want);
+        this.readSegment(index, this.position - this.starts[index], target);
+        target.limit(limit);
+
+        this.position += want;
+        total += want;
+      }
+    } finally {
+      target.limit(limit);
+    }
+    return total;
+  }
+
+  private void readSegment(
+    final int index,
+    final long offset,
+    final ByteBuffer target)
+    throws IOException
+  {
+    final var channel = this.channelOf(index);
+    if (channel instanceof final FileChannel fileChannel) {
+      var current = offset;
+      while (target.hasRemaining()) {
+        final var r = fileChannel.read(target, current);
+        if (r == -1) {
+          throw this.truncated(index);
+        }
+        current += r;
+      }
+      return;
+    }
+
+    channel.position(offset);
+    while (target.hasRemaining()) {
+      if (channel.read(target) == -1) {
+        throw this.truncated(index);
+      }
+    }
+  }
+
+  private EOFException truncated(
+    final int index)
+  {
+    return new EOFException(
+      "Segment %d is shorter than its size when the reader was created."
+        .formatted(Integer.valueOf(index)));
+  }
+
+  private SeekableByteChannel channelOf(
+    final int index)
+    throws IOException
+  {
+    final var existing = this.channels[index];
+    if (existing != null) {
+      return existing;
+    }
+
+    final var key = Integer.valueOf(index);
+    final var cached = this.opened.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    if (this.opened.size() >= this.openMaximum) {
+      final var eldest = this.opened.entrySet().iterator().next();
+      this.opened.remove(eldest.getKey());
+      eldest.getValue().close();
+    }
+
+    final var channel =
+      FileChannel.open(this.paths[index], StandardOpenOption.READ);
+    this.opened.put(key, channel);
+    return channel;
+  }
+
+  /**
+   * @return The number of segment files currently held open
+   */
+
+  public synchronized int openCount()
+  {
+    return this.opened.size();
+  }
+
+  @Override
+  public int write(
+    final ByteBuffer source)
+  {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized long position()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(
+    final long newPosition)
+    throws IOException
+  {
+    this.checkOpen();
+    if (newPosition < 0L) {
+      throw new IllegalArgumentException("Position must be non-negative.");
+    }
+    this.position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size()
+    throws IOException
+  {
+    this.checkOpen();
+    return this.starts[this.starts.length - 1];
+  }
+
+  @Override
+  public SeekableByteChannel truncate(
+    final long size)
+  {
+    throw new NonWritableChannelException();
+  }
+
+  private void checkOpen()
+    throws ClosedChannelException
+  {
+    if (!this.open) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  @Override
+  public synchronized boolean isOpen()
+  {
+    return this.open;
+  }
+
+  @Override
+  public synchronized void close()
+    throws IOException
+  {
+    if (!this.open) {
+      return;
+    }
+    this.open = false;
+
+    IOException exception = null;
+    for (final var channel : this.channels) {
+      exception = closeCollecting(channel, exception);
+    }
+    for (final var channel : this.opened.values()) {
+      exception = closeCollecting(channel, exception);
+    }
+    this.opened.clear();
+
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private static IOException closeCollecting(
+    final SeekableByteChannel channel,
+    final IOException exception)
+  {
+    if (channel == null) {
+      return exception;
+    }
+
+    try {
+      channel.close();
+      return exception;
+    } catch (final IOException e) {
+      if (exception == null) {
+        return e;
+      }
+      exception.addSuppressed(e);
+      return exception;
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jbssio.vanilla.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A double-buffered write-behind queue. Writers copy data into the
+ * current buffer while a virtual thread drains the other buffer to the
+ * underlying storage. Each buffer holds a single contiguous run of data;
+ * a write that does not continue the current run, or that does not fit
+ * into the remaining space, hands the current buffer to the background
+ * thread (first waiting for the previous drain to complete) and starts a
+ * new run in the other buffer. Drains therefore complete in the order in
+ * which the data was written, and later writes to overlapping positions
+ * always land after earlier ones.
+ *
+ * A failure in the background thread is recorded, and is raised by the
+ * next write, flush, or close. Once a failure has occurred, every
+ * subsequent operation fails.
+ *
+ * Closing the queue flushes it and then hands both buffers back to the
+ * caller, so that buffers drawn from a pool can be returned to it.
+ */
+
+final class BSSWriteBehind
+{
+  private final DrainType drain;
+  private ByteBuffer current;
+  private ByteBuffer other;
+  private long runStart;
+  private Thread inFlight;
+  private boolean closed;
+  private volatile Throwable failure;
+
+  BSSWriteBehind(
+    final DrainType inDrain,
+    final ByteBuffer inBuffer0,
+    final ByteBuffer inBuffer1)
+  {
+    this.drain =
+      Objects.requireNonNull(inDrain, "drain");
+    this.current =
+      Objects.requireNonNull(inBuffer0, "buffer0").clear();
+    this.other =
+      Objects.requireNonNull(inBuffer1, "buffer1").clear();
+  }
+
+  /**
+   * A function that writes data to the underlying storage.
+   */
+
+  @FunctionalInterface
+  interface DrainType
+  {
+    /**
+     * Write all the remaining bytes of {@code data} at the given absolute
+     * position.
+     *
+     * @param position The position
+     * @param data     The data
+     *
+     * @throws IOException On errors
+     */
+
+    void drain(
+      long position,
+      ByteBuffer data)
+      throws IOException;
+  }
+
+  /**
+   * Queue all the remaining bytes of {@code data} for writing at the given
+   * absolute position. Data larger than a buffer is written directly, after
+   * all previously queued data.
+   *
+   * @param position The position
+   * @param data     The data
+   *
+   * @throws IOException If this or any earlier background write failed
+   */
+
+  synchronized void write(
+    final long position,
+    final ByteBuffer data)
+    throws IOException
+  {
+    this.checkFailure();
+
+    final var count = data.remaining();
+    final var runLength = this.current.position();
+    if (runLength > 0) {
+      final var continues = position == this.runStart + runLength;
+      if (!continues || count > this.current.remaining()) {
+        this.handOff();
+      }
+    }
+
+    if (count > this.current.capacity()) {
+      this.await();
+      this.drain.drain(position, data);
+      return;
+    }
+
+    if (this.current.position() == 0) {
+      this.runStart = position;
+    }
+    this.current.put(data);
+  }
+
+  /**
+   * Write all queued data, and wait for it to be written.
+   *
+   * @throws IOException If this or any earlier background write failed
+   */
+
+  synchronized void flush()
+    throws IOException
+  {
+    this.checkFailure();
+    if (this.current.position() > 0) {
+      this.handOff();
+    }
+    this.await();
+  }
+
+  /**
+   * Write all queued data, wait for it to be written, and then pass both
+   * buffers to {@code onRelease}. The buffers are released even if the
+   * final flush fails, but only once no background write is using them.
+   * Any subsequent operation fails.
+   *
+   * @param onRelease A function that receives each buffer
+   *
+   * @throws IOException If this or any earlier background write failed
+   */
+
+  synchronized void close(
+    final Consumer<ByteBuffer> onRelease)
+    throws IOException
+  {
+    Objects.requireNonNull(onRelease, "onRelease");
+
+    if (this.closed) {
+      return;
+    }
+
+    try {
+      this.flush();
+    } finally {
+      this.awaitUninterruptibly();
+      this.closed = true;
+      onRelease.accept(this.current);
+      onRelease.accept(this.other);
+    }
+  }
+
+  private void awaitUninterruptibly()
+  {
+    final var thread = this.inFlight;
+    if (thread == null) {
+      return;
+    }
+
+    var interrupted = false;
+    while (true) {
+      try {
+        thread.join();
+        break;
+      } catch (final InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    this.inFlight = null;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handOff()
+    throws IOException
+  {
+    this.await();
+
+    final var full = this.current.flip();
+    final var position = this.runStart;
+    this.current = this.other;
+    this.other = full;
+
+    this.inFlight = Thread.ofVirtual()
+      .name("com.io7m.jbssio.write-behind")
+      .start(() -> {
+        try {
+          this.drain.drain(position, full);
+        } catch (final Throwable e) {
+          this.failure = e;
+        } finally {
+          full.clear();
+        }
+      });
+  }
+
+  private void await()
+    throws IOException
+  {
+    final var thread = this.inFlight;
+    if (thread != null) {
+      try {
+        thread.join();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        final var ex = new InterruptedIOException(e.getMessage());
+        ex.initCause(e);
+        throw ex;
+      }
+      this.inFlight = null;
+    }
+    this.checkFailure();
+  }
+
+  private void checkFailure()
+    throws IOException
+  {
+    if (this.closed) {
+      throw new ClosedChannelException();
+    }
+    final var error = this.failure;
+    if (error != null) {
+      throw new IOException("A background write failed.", error);
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package com.io7m.jbssio.vanilla.internal;
 
 import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
 import com.io7m.jbssio.api.BSSWriterRandomAccessType;
 
 import java.io.IOException;
@@ -27,7 +28,18 @@ import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.concurrent.Callable;
 
-import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.CHAR_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.CHAR_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.DOUBLE_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.DOUBLE_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.FLOAT_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.FLOAT_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.INT_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.INT_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.LONG_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.LONG_LE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.SHORT_BE;
+import static com.io7m.jbssio.vanilla.internal.BSSByteBufferViews.SHORT_LE;
 import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 
@@ -86,7 +98,7 @@ public final class BSSWriterByteBuffer
         OptionalLong.of(Integer.toUnsignedLong(buffer.capacity()))),
       name,
       buffer,
-      () -> null);
+      ON_CLOSE_NOTHING);
   }
 
   private static int longPositionTo2GBLimitedByteBufferPosition(final long position)
@@ -104,20 +116,13 @@ public final class BSSWriterByteBuffer
 
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path())
-        .append(PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
     return new BSSWriterByteBuffer(
       this,
       this.uri,
       this.createOffsetSubRange(offset),
-      newName,
+      inName,
       this.map,
-      () -> null);
+      ON_CLOSE_NOTHING);
   }
 
   @Override
@@ -131,20 +136,39 @@ public final class BSSWriterByteBuffer
 
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path())
-        .append(PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
     return new BSSWriterByteBuffer(
       this,
       this.uri,
       this.createSubRange(offset, size),
-      newName,
+      inName,
       this.map,
-      () -> null);
+      ON_CLOSE_NOTHING);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The reader reads from a slice of the writer's buffer, and so shares its
+   * storage.
+   */
+
+  @Override
+  public BSSReaderRandomAccessType asReader(
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+    this.checkNotClosed();
+
+    final var start =
+      longPositionTo2GBLimitedByteBufferPosition(this.toAbsolute(0L));
+    final var length =
+      longPositionTo2GBLimitedByteBufferPosition(this.offsetWritten());
+
+    return BSSReaderByteBuffer.createFromByteBuffer(
+      this.uri,
+      this.map.slice(start, length),
+      name);
   }
 
   @Override
@@ -167,7 +191,7 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 1L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(1L);
+    this.increaseOffsetRelativeWritten(1L);
     this.map.put(
       longPositionTo2GBLimitedByteBufferPosition(position),
       (byte) b);
@@ -181,7 +205,7 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 1L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(1L);
+    this.increaseOffsetRelativeWritten(1L);
     this.map.put(
       longPositionTo2GBLimitedByteBufferPosition(position),
       (byte) (b & 0xff));
@@ -227,9 +251,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
-    this.map.order(LITTLE_ENDIAN);
-    this.map.putShort(
+    this.increaseOffsetRelativeWritten(2L);
+    SHORT_LE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (short) b);
   }
@@ -242,9 +266,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
-    this.map.order(LITTLE_ENDIAN);
-    this.map.putChar(
+    this.increaseOffsetRelativeWritten(2L);
+    CHAR_LE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (char) (b & 0xffff));
   }
@@ -257,9 +281,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
-    this.map.order(BIG_ENDIAN);
-    this.map.putShort(
+    this.increaseOffsetRelativeWritten(2L);
+    SHORT_BE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (short) b);
   }
@@ -272,9 +296,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
-    this.map.order(BIG_ENDIAN);
-    this.map.putChar(
+    this.increaseOffsetRelativeWritten(2L);
+    CHAR_BE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (char) (b & 0xffff));
   }
@@ -351,9 +375,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
-    this.map.order(LITTLE_ENDIAN);
-    this.map.putInt(
+    this.increaseOffsetRelativeWritten(4L);
+    INT_LE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (int) b);
   }
@@ -366,9 +390,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
-    this.map.order(LITTLE_ENDIAN);
-    this.map.putInt(
+    this.increaseOffsetRelativeWritten(4L);
+    INT_LE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (int) (b & 0xffff_ffffL));
   }
@@ -381,9 +405,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
-    this.map.order(BIG_ENDIAN);
-    this.map.putInt(
+    this.increaseOffsetRelativeWritten(4L);
+    INT_BE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (int) b);
   }
@@ -396,9 +420,9 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
-    this.map.order(BIG_ENDIAN);
-    this.map.putInt(
+    this.increaseOffsetRelativeWritten(4L);
+    INT_BE.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (int) (b & 0xffff_ffffL));
   }
@@ -475,9 +499,11 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
-    this.map.order(LITTLE_ENDIAN);
-    this.map.putLong(longPositionTo2GBLimitedByteBufferPosition(position), b);
+    this.increaseOffsetRelativeWritten(8L);
+    LONG_LE.set(
+      this.map,
+      longPositionTo2GBLimitedByteBufferPosition(position),
+      b);
   }
 
   private void writeU64LEp(
@@ -488,9 +514,11 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
-    this.map.order(LITTLE_ENDIAN);
-    this.map.putLong(longPositionTo2GBLimitedByteBufferPosition(position), b);
+    this.increaseOffsetRelativeWritten(8L);
+    LONG_LE.set(
+      this.map,
+      longPositionTo2GBLimitedByteBufferPosition(position),
+      b);
   }
 
   private void writeS64BEp(
@@ -501,9 +529,11 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
-    this.map.order(BIG_ENDIAN);
-    this.map.putLong(longPositionTo2GBLimitedByteBufferPosition(position), b);
+    this.increaseOffsetRelativeWritten(8L);
+    LONG_BE.set(
+      this.map,
+      longPositionTo2GBLimitedByteBufferPosition(position),
+      b);
   }
 
   private void writeU64BEp(
@@ -514,9 +544,11 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
-    this.map.order(BIG_ENDIAN);
-    this.map.putLong(longPositionTo2GBLimitedByteBufferPosition(position), b);
+    this.increaseOffsetRelativeWritten(8L);
+    LONG_BE.set(
+      this.map,
+      longPositionTo2GBLimitedByteBufferPosition(position),
+      b);
   }
 
   @Override
@@ -585,19 +617,23 @@ public final class BSSWriterByteBuffer
 
   private void writeBytesP(
     final String name,
-    final byte[] buffer,
-    final int offset,
-    final int length)
+    final ByteBuffer buffer)
     throws IOException
   {
     Objects.requireNonNull(buffer, "buffer");
     this.checkNotClosed();
+    final var length = buffer.remaining();
     final var llength = Integer.toUnsignedLong(length);
     this.checkHasBytesRemaining(name, llength);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(llength);
-    this.map.position(longPositionTo2GBLimitedByteBufferPosition(position));
-    this.map.put(buffer, offset, length);
+    this.increaseOffsetRelativeWritten(llength);
+    final var source = buffer.position();
+    this.map.put(
+      longPositionTo2GBLimitedByteBufferPosition(position),
+      buffer,
+      source,
+      length);
+    buffer.position(source + length);
   }
 
   @Override
@@ -608,9 +644,7 @@ public final class BSSWriterByteBuffer
   {
     this.writeBytesP(
       Objects.requireNonNull(name, "name"),
-      buffer,
-      0,
-      buffer.length);
+      ByteBuffer.wrap(buffer));
   }
 
   @Override
@@ -621,14 +655,14 @@ public final class BSSWriterByteBuffer
     final int length)
     throws IOException
   {
-    this.writeBytesP(name, buffer, offset, length);
+    this.writeBytesP(name, ByteBuffer.wrap(buffer, offset, length));
   }
 
   @Override
   public void writeBytes(final byte[] buffer)
     throws IOException
   {
-    this.writeBytesP(null, buffer, 0, buffer.length);
+    this.writeBytesP(null, ByteBuffer.wrap(buffer));
   }
 
   @Override
@@ -638,7 +672,23 @@ public final class BSSWriterByteBuffer
     final int length)
     throws IOException
   {
-    this.writeBytesP(null, buffer, offset, length);
+    this.writeBytesP(null, ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(Objects.requireNonNull(name, "name"), buffer);
+  }
+
+  @Override
+  public void writeBytes(final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(null, buffer);
   }
 
   private void writeF64p(
@@ -650,9 +700,12 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
-    this.map.order(order);
-    this.map.putDouble(longPositionTo2GBLimitedByteBufferPosition(position), b);
+    this.increaseOffsetRelativeWritten(8L);
+    final var handle = order == BIG_ENDIAN ? DOUBLE_BE : DOUBLE_LE;
+    handle.set(
+      this.map,
+      longPositionTo2GBLimitedByteBufferPosition(position),
+      b);
   }
 
   private void writeF32p(
@@ -664,9 +717,10 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
-    this.map.order(order);
-    this.map.putFloat(
+    this.increaseOffsetRelativeWritten(4L);
+    final var handle = order == BIG_ENDIAN ? FLOAT_BE : FLOAT_LE;
+    handle.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       (float) b);
   }
@@ -680,9 +734,10 @@ public final class BSSWriterByteBuffer
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
-    this.map.order(order);
-    this.map.putChar(
+    this.increaseOffsetRelativeWritten(2L);
+    final var handle = order == BIG_ENDIAN ? CHAR_BE : CHAR_LE;
+    handle.set(
+      this.map,
       longPositionTo2GBLimitedByteBufferPosition(position),
       Binary16.packDouble(b));
   }
@@ -17,12 +17,15 @@
 package com.io7m.jbssio.vanilla.internal;
 
 import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSBufferPoolType;
+import com.io7m.jbssio.api.BSSReaderRandomAccessType;
 import com.io7m.jbssio.api.BSSWriterRandomAccessType;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.util.Objects;
 import java.util.OptionalLong;
@@ -49,7 +52,11 @@ public final class BSSWriterSeekableChannel
     new BSSRangeHalfOpen(0L, OptionalLong.empty());
 
   private final SeekableByteChannel channel;
-  private final ByteBuffer writeBuffer;
+  private final FileChannel fileChannel;
+  private final BSSBufferPoolType pool;
+  private final BSSWriteBehind writeBehind;
+  private final BSSDurabilitySync durability;
+  private ByteBuffer writeBuffer;
 
   private BSSWriterSeekableChannel(
     final BSSWriterSeekableChannel inParent,
@@ -57,15 +64,20 @@ public final class BSSWriterSeekableChannel
     final BSSRangeHalfOpen inParentRangeRelative,
     final String inName,
     final SeekableByteChannel inChannel,
-    final ByteBuffer inBuffer,
+    final BSSBufferPoolType inPool,
+    final BSSWriteBehind inWriteBehind,
+    final BSSDurabilitySync inDurability,
     final Callable<Void> inOnClose)
   {
     super(inParent, inParentRangeRelative, inOnClose, inURI, inName);
 
     this.channel =
       Objects.requireNonNull(inChannel, "channel");
-    this.writeBuffer =
-      Objects.requireNonNull(inBuffer, "inBuffer");
+    this.fileChannel =
+      inChannel instanceof final FileChannel fc ? fc : null;
+    this.pool = inPool;
+    this.writeBehind = inWriteBehind;
+    this.durability = inDurability;
   }
 
   /**
@@ -85,20 +97,157 @@ public final class BSSWriterSeekableChannel
     final String name,
     final OptionalLong size)
   {
-    final var buffer = ByteBuffer.allocateDirect(8);
+    return createFromChannelConfigured(uri, channel, name, size, null);
+  }
+
+  /**
+   * Create a writer that draws buffers from the given pool.
+   *
+   * @param uri     The target URI
+   * @param channel The target channel
+   * @param name    The name
+   * @param size    The size
+   * @param pool    The buffer pool, if any
+   *
+   * @return A writer
+   */
+
+  public static BSSWriterRandomAccessType createFromChannelConfigured(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSBufferPoolType pool)
+  {
     return new BSSWriterSeekableChannel(
       null,
       uri,
       new BSSRangeHalfOpen(0L, size),
       name,
       channel,
-      buffer,
+      pool,
+      null,
+      null,
       () -> {
         channel.close();
         return null;
       });
   }
 
+  /**
+   * Create a writer that writes to the channel from a background thread.
+   * Data is encoded into one of two buffers of {@code bufferSize} octets
+   * while the other is written to the channel. Errors raised by the channel
+   * are reported by the next write, flush, or close. If a pool is given,
+   * both buffers are acquired from it and are returned to it when the
+   * writer is closed, after the final flush.
+   *
+   * @param uri        The target URI
+   * @param channel    The target channel
+   * @param name       The name
+   * @param size       The size
+   * @param pool       The buffer pool, if any
+   * @param bufferSize The size of each buffer
+   *
+   * @return A writer
+   */
+
+  public static BSSWriterRandomAccessType createFromChannelWriteBehind(
+    final URI uri,
+    final SeekableByteChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSBufferPoolType pool,
+    final int bufferSize)
+  {
+    Objects.requireNonNull(channel, "channel");
+
+    final var fileChannel =
+      channel instanceof final FileChannel fc ? fc : null;
+    final var writeBehind =
+      new BSSWriteBehind(
+        (position, data) -> {
+          writeChannelAtP(channel, fileChannel, position, data);
+        },
+        writeBehindBufferOf(pool, bufferSize),
+        writeBehindBufferOf(pool, bufferSize));
+
+    return new BSSWriterSeekableChannel(
+      null,
+      uri,
+      new BSSRangeHalfOpen(0L, size),
+      name,
+      channel,
+      pool,
+      writeBehind,
+      null,
+      () -> {
+        try {
+          writeBehind.close(data -> {
+            if (pool != null) {
+              pool.release(data);
+            }
+          });
+        } finally {
+          channel.close();
+        }
+        return null;
+      });
+  }
+
+  private static ByteBuffer writeBehindBufferOf(
+    final BSSBufferPoolType pool,
+    final int bufferSize)
+  {
+    if (pool != null) {
+      return pool.acquire(bufferSize);
+    }
+    return ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  /**
+   * Create a writer that forces the channel to storage as required by the
+   * given durability policy.
+   *
+   * @param uri        The target URI
+   * @param channel    The target channel
+   * @param name       The name
+   * @param size       The size
+   * @param pool       The buffer pool, if any
+   * @param durability The durability policy
+   *
+   * @return A writer
+   */
+
+  public static BSSWriterRandomAccessType createFromChannelDurable(
+    final URI uri,
+    final FileChannel channel,
+    final String name,
+    final OptionalLong size,
+    final BSSBufferPoolType pool,
+    final BSSDurability durability)
+  {
+    final var sync = new BSSDurabilitySync(durability, channel);
+
+    return new BSSWriterSeekableChannel(
+      null,
+      uri,
+      new BSSRangeHalfOpen(0L, size),
+      name,
+      channel,
+      pool,
+      null,
+      sync,
+      () -> {
+        try {
+          sync.closing();
+        } finally {
+          channel.close();
+        }
+        return null;
+      });
+  }
+
   @Override
   public BSSWriterRandomAccessType createSubWriterAt(
     final String inName,
@@ -109,21 +258,16 @@ public final class BSSWriterSeekableChannel
 
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path())
-        .append(BSSPaths.PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
     return new BSSWriterSeekableChannel(
       this,
       this.uri,
       this.createOffsetSubRange(offset),
-      newName,
+      inName,
       this.channel,
-      this.writeBuffer,
-      () -> null);
+      this.pool,
+      this.writeBehind,
+      this.durability,
+      ON_CLOSE_NOTHING);
   }
 
   @Override
@@ -137,21 +281,40 @@ public final class BSSWriterSeekableChannel
 
     this.checkNotClosed();
 
-    final var newName =
-      new StringBuilder(32)
-        .append(this.path())
-        .append(BSSPaths.PATH_SEPARATOR)
-        .append(inName)
-        .toString();
-
     return new BSSWriterSeekableChannel(
       this,
       this.uri,
       this.createSubRange(offset, size),
-      newName,
+      inName,
+      this.channel,
+      this.pool,
+      this.writeBehind,
+      this.durability,
+      ON_CLOSE_NOTHING);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The reader reads from the writer's channel, after any pending
+   * write-behind writes have completed.
+   */
+
+  @Override
+  public BSSReaderRandomAccessType asReader(
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+    this.flush();
+
+    return BSSReaderSeekableChannel.createFromChannelView(
+      this.uri,
       this.channel,
-      this.writeBuffer,
-      () -> null);
+      name,
+      this.toAbsolute(0L),
+      this.offsetWritten(),
+      this.pool);
   }
 
   @Override
@@ -174,20 +337,88 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 1L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(1L);
+    this.increaseOffsetRelativeWritten(1L);
+
+    final var data = this.stageP(1, BIG_ENDIAN);
+    data.put(0, (byte) b);
+    this.writeAllAtP(position, data);
+  }
+
+  /**
+   * Prepare this writer's private staging buffer to hold {@code size}
+   * octets. Each writer owns its own buffer, so sub-writers that share a
+   * channel can be used concurrently from different threads.
+   */
+
+  private ByteBuffer stageP(
+    final int size,
+    final ByteOrder order)
+  {
+    var data = this.writeBuffer;
+    if (data == null) {
+      data = this.pool != null ? this.pool.acquire(8) : ByteBuffer.allocate(8);
+      this.writeBuffer = data;
+    }
 
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.limit(1);
-    this.writeBuffer.put(0, (byte) b);
-    this.writeAll();
+    data.order(order);
+    data.position(0);
+    data.limit(size);
+    return data;
   }
 
-  private void writeAll()
+  /**
+   * Write the source buffer at the given absolute position, or queue it for
+   * writing if this writer writes from a background thread. Writes are
+   * accounted against the durability policy, if there is one.
+   */
+
+  private void writeAllAtP(
+    final long position,
+    final ByteBuffer source)
     throws IOException
   {
-    while (this.writeBuffer.hasRemaining()) {
-      this.channel.write(this.writeBuffer);
+    if (this.writeBehind != null) {
+      this.writeBehind.write(position, source);
+      return;
+    }
+
+    final var octets = source.remaining();
+    writeChannelAtP(this.channel, this.fileChannel, position, source);
+    if (this.durability != null) {
+      this.durability.written(octets);
+    }
+  }
+
+  /**
+   * Write the source buffer at the given absolute position. File channels
+   * support positional writes that neither use nor modify the position of
+   * the channel, and so any number of writers can write concurrently without
+   * locking. For other channels, the position of the channel is shared
+   * between all writers created from the same root writer, and so the seek
+   * and the subsequent writes must be performed atomically with respect to
+   * other writers.
+   */
+
+  private static void writeChannelAtP(
+    final SeekableByteChannel channel,
+    final FileChannel fileChannel,
+    final long position,
+    final ByteBuffer source)
+    throws IOException
+  {
+    if (fileChannel != null) {
+      var offset = position;
+      while (source.hasRemaining()) {
+        offset += fileChannel.write(source, offset);
+      }
+      return;
+    }
+
+    synchronized (channel) {
+      channel.position(position);
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
     }
   }
 
@@ -199,13 +430,11 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 1L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(1L);
+    this.increaseOffsetRelativeWritten(1L);
 
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.limit(1);
-    this.writeBuffer.put(0, (byte) (b & 0xff));
-    this.writeAll();
+    final var data = this.stageP(1, BIG_ENDIAN);
+    data.put(0, (byte) (b & 0xff));
+    this.writeAllAtP(position, data);
   }
 
   @Override
@@ -246,12 +475,9 @@ public final class BSSWriterSeekableChannel
     final ByteOrder order)
     throws IOException
   {
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(2);
-    this.writeBuffer.putShort(0, b);
-    this.writeAll();
+    final var data = this.stageP(2, order);
+    data.putShort(0, b);
+    this.writeAllAtP(position, data);
   }
 
   private void writeU16(
@@ -260,12 +486,9 @@ public final class BSSWriterSeekableChannel
     final ByteOrder order)
     throws IOException
   {
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(2);
-    this.writeBuffer.putChar(0, (char) (b & 0xffff));
-    this.writeAll();
+    final var data = this.stageP(2, order);
+    data.putChar(0, (char) (b & 0xffff));
+    this.writeAllAtP(position, data);
   }
 
   private void writeS16LEp(
@@ -276,7 +499,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
+    this.increaseOffsetRelativeWritten(2L);
     this.writeS16((short) b, position, LITTLE_ENDIAN);
   }
 
@@ -288,7 +511,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
+    this.increaseOffsetRelativeWritten(2L);
     this.writeU16(b, position, LITTLE_ENDIAN);
   }
 
@@ -300,7 +523,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
+    this.increaseOffsetRelativeWritten(2L);
     this.writeS16((short) b, position, BIG_ENDIAN);
   }
 
@@ -312,7 +535,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
+    this.increaseOffsetRelativeWritten(2L);
     this.writeU16(b, position, BIG_ENDIAN);
   }
 
@@ -386,12 +609,9 @@ public final class BSSWriterSeekableChannel
     final ByteOrder order)
     throws IOException
   {
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(4);
-    this.writeBuffer.putInt(0, b);
-    this.writeAll();
+    final var data = this.stageP(4, order);
+    data.putInt(0, b);
+    this.writeAllAtP(position, data);
   }
 
   private void writeS32LEp(
@@ -402,7 +622,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
+    this.increaseOffsetRelativeWritten(4L);
     this.writeInt((int) b, position, LITTLE_ENDIAN);
   }
 
@@ -414,7 +634,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
+    this.increaseOffsetRelativeWritten(4L);
     this.writeInt((int) (b & 0xffff_ffffL), position, LITTLE_ENDIAN);
   }
 
@@ -426,7 +646,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
+    this.increaseOffsetRelativeWritten(4L);
     this.writeInt((int) b, position, BIG_ENDIAN);
   }
 
@@ -438,7 +658,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
+    this.increaseOffsetRelativeWritten(4L);
     this.writeInt((int) (b & 0xffff_ffffL), position, BIG_ENDIAN);
   }
 
@@ -512,12 +732,9 @@ public final class BSSWriterSeekableChannel
     final ByteOrder order)
     throws IOException
   {
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(8);
-    this.writeBuffer.putLong(0, b);
-    this.writeAll();
+    final var data = this.stageP(8, order);
+    data.putLong(0, b);
+    this.writeAllAtP(position, data);
   }
 
   private void writeS64LEp(
@@ -528,7 +745,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
+    this.increaseOffsetRelativeWritten(8L);
     this.writeLong(b, position, LITTLE_ENDIAN);
   }
 
@@ -540,7 +757,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
+    this.increaseOffsetRelativeWritten(8L);
     this.writeLong(b, position, LITTLE_ENDIAN);
   }
 
@@ -552,7 +769,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
+    this.increaseOffsetRelativeWritten(8L);
     this.writeLong(b, position, BIG_ENDIAN);
   }
 
@@ -564,7 +781,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
+    this.increaseOffsetRelativeWritten(8L);
     this.writeLong(b, position, BIG_ENDIAN);
   }
 
@@ -634,23 +851,17 @@ public final class BSSWriterSeekableChannel
 
   private void writeBytesP(
     final String name,
-    final byte[] buffer,
-    final int offset,
-    final int length)
+    final ByteBuffer source)
     throws IOException
   {
-    Objects.requireNonNull(buffer, "writeBuffer");
+    Objects.requireNonNull(source, "writeBuffer");
     this.checkNotClosed();
-    final var llength = Integer.toUnsignedLong(length);
+    final var llength = Integer.toUnsignedLong(source.remaining());
     this.checkHasBytesRemaining(name, llength);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(llength);
+    this.increaseOffsetRelativeWritten(llength);
 
-    final var wrapper = ByteBuffer.wrap(buffer, offset, length);
-    this.channel.position(position);
-    while (wrapper.hasRemaining()) {
-      this.channel.write(wrapper);
-    }
+    this.writeAllAtP(position, source);
   }
 
   @Override
@@ -661,9 +872,7 @@ public final class BSSWriterSeekableChannel
   {
     this.writeBytesP(
       Objects.requireNonNull(name, "name"),
-      buffer,
-      0,
-      buffer.length);
+      ByteBuffer.wrap(buffer));
   }
 
   @Override
@@ -674,14 +883,14 @@ public final class BSSWriterSeekableChannel
     final int length)
     throws IOException
   {
-    this.writeBytesP(name, buffer, offset, length);
+    this.writeBytesP(name, ByteBuffer.wrap(buffer, offset, length));
   }
 
   @Override
   public void writeBytes(final byte[] buffer)
     throws IOException
   {
-    this.writeBytesP(null, buffer, 0, buffer.length);
+    this.writeBytesP(null, ByteBuffer.wrap(buffer));
   }
 
   @Override
@@ -691,7 +900,23 @@ public final class BSSWriterSeekableChannel
     final int length)
     throws IOException
   {
-    this.writeBytesP(null, buffer, offset, length);
+    this.writeBytesP(null, ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(Objects.requireNonNull(name, "name"), buffer);
+  }
+
+  @Override
+  public void writeBytes(final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(null, buffer);
   }
 
   private void writeF64(
@@ -703,7 +928,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 8L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(8L);
+    this.increaseOffsetRelativeWritten(8L);
     this.writeDouble(x, position, order);
   }
 
@@ -716,7 +941,7 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 4L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(4L);
+    this.increaseOffsetRelativeWritten(4L);
     this.writeFloat(x, position, order);
   }
 
@@ -729,14 +954,11 @@ public final class BSSWriterSeekableChannel
     this.checkNotClosed();
     this.checkHasBytesRemaining(name, 2L);
     final var position = this.offsetCurrentAbsolute();
-    this.increaseOffsetRelative(2L);
+    this.increaseOffsetRelativeWritten(2L);
 
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(2);
-    this.writeBuffer.putChar(0, Binary16.packDouble(x));
-    this.writeAll();
+    final var data = this.stageP(2, order);
+    data.putChar(0, Binary16.packDouble(x));
+    this.writeAllAtP(position, data);
   }
 
   private void writeDouble(
@@ -745,12 +967,9 @@ public final class BSSWriterSeekableChannel
     final ByteOrder order)
     throws IOException
   {
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(8);
-    this.writeBuffer.putDouble(0, x);
-    this.writeAll();
+    final var data = this.stageP(8, order);
+    data.putDouble(0, x);
+    this.writeAllAtP(position, data);
   }
 
   private void writeFloat(
@@ -759,12 +978,9 @@ public final class BSSWriterSeekableChannel
     final ByteOrder order)
     throws IOException
   {
-    this.channel.position(position);
-    this.writeBuffer.position(0);
-    this.writeBuffer.order(order);
-    this.writeBuffer.limit(4);
-    this.writeBuffer.putFloat(0, (float) x);
-    this.writeAll();
+    final var data = this.stageP(4, order);
+    data.putFloat(0, (float) x);
+    this.writeAllAtP(position, data);
   }
 
   @Override
@@ -863,6 +1079,45 @@ public final class BSSWriterSeekableChannel
     this.writeF32(null, LITTLE_ENDIAN, b);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * Writes to file channels are positional, and do not move the position
+   * of the channel. Flushing sets the position of a file channel to the
+   * end of the furthest write made through the root writer or any of its
+   * descendants.
+   */
+
+  @Override
+  public void flush()
+    throws IOException
+  {
+    this.checkNotClosed();
+    if (this.writeBehind != null) {
+      this.writeBehind.flush();
+    }
+    if (this.fileChannel != null) {
+      var root = (BSSRandomAccess<BSSWriterRandomAccessType>) this;
+      while (root.parent() != null) {
+        root = root.parent();
+      }
+      this.fileChannel.position(root.toAbsolute(root.offsetWritten()));
+    }
+    if (this.durability != null) {
+      this.durability.flushed();
+    }
+  }
+
+  @Override
+  protected void releaseResources()
+  {
+    final var data = this.writeBuffer;
+    if (data != null && this.pool != null) {
+      this.writeBuffer = null;
+      this.pool.release(data);
+    }
+  }
+
   @Override
   protected BSSRangeHalfOpen physicalSourceAbsoluteBounds()
   {
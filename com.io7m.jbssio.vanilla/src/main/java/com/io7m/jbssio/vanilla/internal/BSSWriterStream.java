@@ -46,6 +46,8 @@ import static java.nio.ByteOrder.LITTLE_ENDIAN;
 
 public final class BSSWriterStream implements BSSWriterSequentialType
 {
+  private static final int TRANSFER_SIZE = 8192;
+
   private final BSSWriterStream parent;
   private final String path;
   private final CountingOutputStream stream;
@@ -59,6 +61,7 @@ public final class BSSWriterStream implements BSSWriterSequentialType
   private final ByteBuffer buffer2w;
   private final URI uri;
   private final long start;
+  private byte[] transfer;
 
   private BSSWriterStream(
     final BSSWriterStream inParent,
@@ -105,6 +108,36 @@ public final class BSSWriterStream implements BSSWriterSequentialType
     return new BSSWriterStream(null, uri, inName, wrappedStream, 0L, inSize);
   }
 
+  /**
+   * Create a stream writer that writes to the stream from a background
+   * thread. Data is encoded into one of two buffers of {@code bufferSize}
+   * octets while the other is written to the stream. Errors raised by the
+   * stream are reported by the next write, flush, or close.
+   *
+   * @param uri        The target URI
+   * @param inStream   The output stream
+   * @param inName     The name
+   * @param inSize     The size
+   * @param bufferSize The size of each buffer
+   *
+   * @return A stream writer
+   */
+
+  public static BSSWriterStream createWriteBehind(
+    final URI uri,
+    final OutputStream inStream,
+    final String inName,
+    final OptionalLong inSize,
+    final int bufferSize)
+  {
+    Objects.requireNonNull(inStream, "inStream");
+    return create(
+      uri,
+      new WriteBehindOutputStream(inStream, bufferSize),
+      inName,
+      inSize);
+  }
+
   private IOException outOfBounds(
     final String name,
     final long targetPosition)
@@ -618,6 +651,51 @@ public final class BSSWriterStream implements BSSWriterSequentialType
     this.writeBytesP(null, buffer, offset, length);
   }
 
+  private void writeBytesP(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    Objects.requireNonNull(buffer, "buffer");
+    this.checkNotClosed();
+
+    final var length = buffer.remaining();
+    this.checkHasBytesRemaining(length, name);
+
+    if (buffer.hasArray()) {
+      final var position = buffer.position();
+      this.stream.write(buffer.array(), buffer.arrayOffset() + position, length);
+      buffer.position(position + length);
+      return;
+    }
+
+    if (this.transfer == null) {
+      this.transfer = new byte[TRANSFER_SIZE];
+    }
+
+    while (buffer.hasRemaining()) {
+      final var count = Math.min(buffer.remaining(), this.transfer.length);
+      buffer.get(this.transfer, 0, count);
+      this.stream.write(this.transfer, 0, count);
+    }
+  }
+
+  @Override
+  public void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(Objects.requireNonNull(name, "name"), buffer);
+  }
+
+  @Override
+  public void writeBytes(final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(null, buffer);
+  }
+
   private void writeF64p(
     final String name,
     final double b,
@@ -792,6 +870,14 @@ public final class BSSWriterStream implements BSSWriterSequentialType
     return this.path;
   }
 
+  @Override
+  public void flush()
+    throws IOException
+  {
+    this.checkNotClosed();
+    this.stream.flush();
+  }
+
   @Override
   public void close()
     throws IOException
@@ -957,4 +1043,74 @@ public final class BSSWriterStream implements BSSWriterSequentialType
       constructor
     );
   }
+
+  /**
+   * An output stream that queues data in a write-behind queue. Positions
+   * are ignored by the drain, as the data is always sequential.
+   */
+
+  private static final class WriteBehindOutputStream extends OutputStream
+  {
+    private final OutputStream output;
+    private final BSSWriteBehind queue;
+    private final byte[] single;
+    private long written;
+
+    WriteBehindOutputStream(
+      final OutputStream inOutput,
+      final int bufferSize)
+    {
+      this.output = inOutput;
+      this.queue = new BSSWriteBehind(
+        (position, data) -> {
+          inOutput.write(
+            data.array(),
+            data.arrayOffset() + data.position(),
+            data.remaining());
+          data.position(data.limit());
+        },
+        ByteBuffer.allocate(bufferSize),
+        ByteBuffer.allocate(bufferSize));
+      this.single = new byte[1];
+    }
+
+    @Override
+    public void write(
+      final int b)
+      throws IOException
+    {
+      this.single[0] = (byte) b;
+      this.write(this.single, 0, 1);
+    }
+
+    @Override
+    public void write(
+      final byte[] b,
+      final int off,
+      final int len)
+      throws IOException
+    {
+      this.queue.write(this.written, ByteBuffer.wrap(b, off, len));
+      this.written += len;
+    }
+
+    @Override
+    public void flush()
+      throws IOException
+    {
+      this.queue.flush();
+      this.output.flush();
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      try {
+        this.queue.flush();
+      } finally {
+        this.output.close();
+      }
+    }
+  }
 }
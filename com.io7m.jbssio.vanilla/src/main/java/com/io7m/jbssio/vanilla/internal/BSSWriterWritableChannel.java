@@ -0,0 +1,1036 @@
+/*
+ * Copyright © 2019 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jbssio.vanilla.internal;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jbssio.api.BSSWriterSequentialType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.io7m.jbssio.vanilla.internal.BSSPaths.PATH_SEPARATOR;
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * A sequential writer based on a (non-seekable) writable byte channel.
+ *
+ * Values are encoded into a reusable direct buffer that is written to the
+ * channel when full, when the writer is flushed, or when the root writer is
+ * closed. Byte arrays and byte buffers that do not fit into the buffer are not
+ * copied; they are written alongside the buffered data using a gathering
+ * write when the channel supports it.
+ */
+
+public final class BSSWriterWritableChannel implements BSSWriterSequentialType
+{
+  private static final int BUFFER_SIZE = 65536;
+
+  private final BSSWriterWritableChannel parent;
+  private final Sink sink;
+  private final String path;
+  private final AtomicBoolean closed;
+  private final OptionalLong size;
+  private final URI uri;
+  private final long start;
+
+  private BSSWriterWritableChannel(
+    final BSSWriterWritableChannel inParent,
+    final URI inURI,
+    final String inName,
+    final Sink inSink,
+    final OptionalLong inSize)
+  {
+    this.parent = inParent;
+
+    this.uri =
+      Objects.requireNonNull(inURI, "uri");
+    this.path =
+      Objects.requireNonNull(inName, "path");
+    this.sink =
+      Objects.requireNonNull(inSink, "inSink");
+    this.size =
+      Objects.requireNonNull(inSize, "inSize");
+
+    this.closed = new AtomicBoolean(false);
+    this.start = inSink.written;
+  }
+
+  /**
+   * Create a writer based on the given channel.
+   *
+   * @param uri       The target URI
+   * @param inChannel The target channel
+   * @param inName    The name
+   * @param inSize    The size
+   *
+   * @return A writer
+   */
+
+  public static BSSWriterWritableChannel create(
+    final URI uri,
+    final WritableByteChannel inChannel,
+    final String inName,
+    final OptionalLong inSize)
+  {
+    Objects.requireNonNull(inChannel, "channel");
+
+    return new BSSWriterWritableChannel(
+      null,
+      uri,
+      inName,
+      new Sink(inChannel, ByteBuffer.allocateDirect(BUFFER_SIZE)),
+      inSize
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[BSSWriterWritableChannel %s %s [absolute %s] [relative %s]]",
+      this.uri(),
+      this.path(),
+      Long.toUnsignedString(this.offsetCurrentAbsolute()),
+      Long.toUnsignedString(this.offsetCurrentRelative()));
+  }
+
+  private IOException outOfBounds(
+    final String name,
+    final long targetPosition)
+  {
+    final var attributes = new HashMap<String, String>(4);
+    if (name != null) {
+      attributes.put("Field", name);
+    }
+    attributes.put(
+      "Target Offset (Absolute)",
+      "0x" + Long.toUnsignedString(targetPosition, 16));
+    if (this.size.isPresent()) {
+      final var bounds = new BSSRangeHalfOpen(this.start, this.size);
+      attributes.put("Bounds (Absolute)", bounds.toString());
+    }
+    return BSSExceptions.createIO(this, "Out of bounds.", attributes);
+  }
+
+  private void checkHasBytesRemaining(
+    final long count,
+    final String name)
+    throws IOException
+  {
+    var current = this;
+    while (current != null) {
+      if (current.size.isPresent()) {
+        final var sizeLimit = current.size.getAsLong();
+        final var targetPosition = current.offsetCurrentRelative() + count;
+        if (Long.compareUnsigned(targetPosition, sizeLimit) > 0) {
+          throw this.outOfBounds(name, this.sink.written + count);
+        }
+      }
+      current = current.parent;
+    }
+  }
+
+  /**
+   * Prepare to encode a value of {@code octets} bytes. On return, the
+   * sink buffer has at least {@code octets} bytes of space remaining.
+   */
+
+  private ByteBuffer prepare(
+    final String name,
+    final int octets,
+    final ByteOrder order)
+    throws IOException
+  {
+    this.checkNotClosed();
+    this.checkHasBytesRemaining(octets, name);
+
+    final var buffer = this.sink.reserve(octets);
+    buffer.order(order);
+    return buffer;
+  }
+
+  @Override
+  public void skip(final long skipSize)
+    throws IOException, EOFException
+  {
+    this.checkNotClosed();
+    this.checkHasBytesRemaining(skipSize, null);
+    this.sink.fill(skipSize, (byte) 0);
+  }
+
+  @Override
+  public void align(final int alignment)
+    throws IOException, EOFException
+  {
+    this.checkNotClosed();
+
+    final var diff = this.offsetCurrentAbsolute() % (long) alignment;
+    if (diff == 0L) {
+      return;
+    }
+
+    this.skip((long) alignment - diff);
+  }
+
+  @Override
+  public OptionalLong bytesRemaining()
+  {
+    return this.size.stream()
+      .map(s -> s - this.offsetCurrentRelative())
+      .findFirst();
+  }
+
+  private void writeS8p(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.prepare(name, 1, BIG_ENDIAN).put((byte) b);
+  }
+
+  private void writeU8p(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.prepare(name, 1, BIG_ENDIAN).put((byte) (b & 0xff));
+  }
+
+  @Override
+  public void writeS8(final int b)
+    throws IOException
+  {
+    this.writeS8p(null, b);
+  }
+
+  @Override
+  public void writeU8(final int b)
+    throws IOException
+  {
+    this.writeU8p(null, b);
+  }
+
+  @Override
+  public void writeS8(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.writeS8p(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU8(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.writeU8p(Objects.requireNonNull(name, "name"), b);
+  }
+
+  private void writeS16LEp(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.prepare(name, 2, LITTLE_ENDIAN).putShort((short) b);
+  }
+
+  private void writeS16BEp(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.prepare(name, 2, BIG_ENDIAN).putShort((short) b);
+  }
+
+  private void writeU16LEp(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.prepare(name, 2, LITTLE_ENDIAN).putChar((char) b);
+  }
+
+  private void writeU16BEp(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.prepare(name, 2, BIG_ENDIAN).putChar((char) b);
+  }
+
+  @Override
+  public void writeS16LE(final int b)
+    throws IOException
+  {
+    this.writeS16LEp(null, b);
+  }
+
+  @Override
+  public void writeS16BE(final int b)
+    throws IOException
+  {
+    this.writeS16BEp(null, b);
+  }
+
+  @Override
+  public void writeU16LE(final int b)
+    throws IOException
+  {
+    this.writeU16LEp(null, b);
+  }
+
+  @Override
+  public void writeU16BE(final int b)
+    throws IOException
+  {
+    this.writeU16BEp(null, b);
+  }
+
+  @Override
+  public void writeS16LE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.writeS16LEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeS16BE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.writeS16BEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU16LE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.writeU16LEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU16BE(
+    final String name,
+    final int b)
+    throws IOException
+  {
+    this.writeU16BEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  private void writeS32LEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 4, LITTLE_ENDIAN).putInt((int) b);
+  }
+
+  private void writeS32BEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 4, BIG_ENDIAN).putInt((int) b);
+  }
+
+  private void writeU32LEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 4, LITTLE_ENDIAN).putInt((int) (b & 0xffff_ffffL));
+  }
+
+  private void writeU32BEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 4, BIG_ENDIAN).putInt((int) (b & 0xffff_ffffL));
+  }
+
+  @Override
+  public void writeS32LE(final long b)
+    throws IOException
+  {
+    this.writeS32LEp(null, b);
+  }
+
+  @Override
+  public void writeS32BE(final long b)
+    throws IOException
+  {
+    this.writeS32BEp(null, b);
+  }
+
+  @Override
+  public void writeU32LE(final long b)
+    throws IOException
+  {
+    this.writeU32LEp(null, b);
+  }
+
+  @Override
+  public void writeU32BE(final long b)
+    throws IOException
+  {
+    this.writeU32BEp(null, b);
+  }
+
+  @Override
+  public void writeS32LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeS32LEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeS32BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeS32BEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU32LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeU32LEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU32BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeU32BEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  private void writeS64LEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 8, LITTLE_ENDIAN).putLong(b);
+  }
+
+  private void writeS64BEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 8, BIG_ENDIAN).putLong(b);
+  }
+
+  private void writeU64LEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 8, LITTLE_ENDIAN).putLong(b);
+  }
+
+  private void writeU64BEp(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.prepare(name, 8, BIG_ENDIAN).putLong(b);
+  }
+
+  @Override
+  public void writeS64LE(final long b)
+    throws IOException
+  {
+    this.writeS64LEp(null, b);
+  }
+
+  @Override
+  public void writeS64BE(final long b)
+    throws IOException
+  {
+    this.writeS64BEp(null, b);
+  }
+
+  @Override
+  public void writeU64LE(final long b)
+    throws IOException
+  {
+    this.writeU64LEp(null, b);
+  }
+
+  @Override
+  public void writeU64BE(final long b)
+    throws IOException
+  {
+    this.writeU64BEp(null, b);
+  }
+
+  @Override
+  public void writeS64LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeS64LEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeS64BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeS64BEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU64LE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeU64LEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  @Override
+  public void writeU64BE(
+    final String name,
+    final long b)
+    throws IOException
+  {
+    this.writeU64BEp(Objects.requireNonNull(name, "name"), b);
+  }
+
+  private void writeBytesP(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    Objects.requireNonNull(buffer, "buffer");
+
+    this.checkNotClosed();
+    this.checkHasBytesRemaining(Integer.toUnsignedLong(buffer.remaining()), name);
+    this.sink.write(buffer);
+  }
+
+  @Override
+  public void writeBytes(
+    final String name,
+    final byte[] buffer)
+    throws IOException
+  {
+    this.writeBytesP(
+      Objects.requireNonNull(name, "name"),
+      ByteBuffer.wrap(buffer));
+  }
+
+  @Override
+  public void writeBytes(
+    final String name,
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    this.writeBytesP(
+      Objects.requireNonNull(name, "name"),
+      ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public void writeBytes(final byte[] buffer)
+    throws IOException
+  {
+    this.writeBytesP(null, ByteBuffer.wrap(buffer));
+  }
+
+  @Override
+  public void writeBytes(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    this.writeBytesP(null, ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public void writeBytes(
+    final String name,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(Objects.requireNonNull(name, "name"), buffer);
+  }
+
+  @Override
+  public void writeBytes(final ByteBuffer buffer)
+    throws IOException
+  {
+    this.writeBytesP(null, buffer);
+  }
+
+  private void writeF64p(
+    final String name,
+    final double b,
+    final ByteOrder order)
+    throws IOException
+  {
+    this.prepare(name, 8, order).putDouble(b);
+  }
+
+  private void writeF32p(
+    final String name,
+    final double b,
+    final ByteOrder order)
+    throws IOException
+  {
+    this.prepare(name, 4, order).putFloat((float) b);
+  }
+
+  private void writeF16p(
+    final String name,
+    final double b,
+    final ByteOrder order)
+    throws IOException
+  {
+    this.prepare(name, 2, order).putChar(Binary16.packDouble(b));
+  }
+
+  @Override
+  public void writeF16BE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    this.writeF16p(Objects.requireNonNull(name, "name"), b, BIG_ENDIAN);
+  }
+
+  @Override
+  public void writeF16BE(final double b)
+    throws IOException
+  {
+    this.writeF16p(null, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public void writeF16LE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    this.writeF16p(Objects.requireNonNull(name, "name"), b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public void writeF16LE(final double b)
+    throws IOException
+  {
+    this.writeF16p(null, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public void writeF32BE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    this.writeF32p(Objects.requireNonNull(name, "name"), b, BIG_ENDIAN);
+  }
+
+  @Override
+  public void writeF32BE(final double b)
+    throws IOException
+  {
+    this.writeF32p(null, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public void writeF32LE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    this.writeF32p(Objects.requireNonNull(name, "name"), b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public void writeF32LE(final double b)
+    throws IOException
+  {
+    this.writeF32p(null, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public void writeF64BE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    this.writeF64p(Objects.requireNonNull(name, "name"), b, BIG_ENDIAN);
+  }
+
+  @Override
+  public void writeF64BE(final double b)
+    throws IOException
+  {
+    this.writeF64p(null, b, BIG_ENDIAN);
+  }
+
+  @Override
+  public void writeF64LE(
+    final String name,
+    final double b)
+    throws IOException
+  {
+    this.writeF64p(Objects.requireNonNull(name, "name"), b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public void writeF64LE(final double b)
+    throws IOException
+  {
+    this.writeF64p(null, b, LITTLE_ENDIAN);
+  }
+
+  @Override
+  public long offsetCurrentAbsolute()
+  {
+    return this.sink.written;
+  }
+
+  @Override
+  public long offsetCurrentRelative()
+  {
+    return this.sink.written - this.start;
+  }
+
+  @Override
+  public URI uri()
+  {
+    return this.uri;
+  }
+
+  @Override
+  public String path()
+  {
+    return this.path;
+  }
+
+  @Override
+  public void flush()
+    throws IOException
+  {
+    this.checkNotClosed();
+    this.sink.flush();
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      if (this.parent == null) {
+        try {
+          this.sink.flush();
+        } finally {
+          this.sink.channel.close();
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    final var parentRef = this.parent;
+    if (parentRef != null) {
+      return parentRef.isClosed() || this.closed.get();
+    }
+    return this.closed.get();
+  }
+
+  private EOFException streamPositionExceeded(
+    final long targetOffset)
+  {
+    final var attributes = new HashMap<String, String>(4);
+    attributes.put(
+      "Target Offset (Relative)",
+      "0x" + Long.toUnsignedString(targetOffset, 16));
+    return BSSExceptions.createEOF(
+      this,
+      "Stream position has already exceeded the specified offset.",
+      attributes);
+  }
+
+  private String subPath(
+    final String name)
+  {
+    return new StringBuilder(this.path.length() + name.length() + 2)
+      .append(this.path)
+      .append(PATH_SEPARATOR)
+      .append(name)
+      .toString();
+  }
+
+  @Override
+  public BSSWriterSequentialType createSubWriterAt(
+    final String name,
+    final long targetOffset)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+
+    final var seek = targetOffset - this.offsetCurrentRelative();
+    if (seek < 0L) {
+      throw this.streamPositionExceeded(targetOffset);
+    }
+
+    this.skip(seek);
+
+    return new BSSWriterWritableChannel(
+      this,
+      this.uri,
+      this.subPath(name),
+      this.sink,
+      OptionalLong.empty());
+  }
+
+  @Override
+  public BSSWriterSequentialType createSubWriterAtBounded(
+    final String name,
+    final long targetOffset,
+    final long newSize)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "name");
+
+    if (this.size.isPresent()) {
+      final var currentSize = this.size.getAsLong();
+      if (Long.compareUnsigned(newSize, currentSize) > 0) {
+        final var attributes = new HashMap<String, String>(4);
+        attributes.put("Size limit", Long.toUnsignedString(currentSize));
+        attributes.put("Requested size limit", Long.toUnsignedString(newSize));
+        throw BSSExceptions.createIO(
+          this,
+          "Sub-writer bounds cannot exceed the bounds of this writer.",
+          attributes);
+      }
+    }
+
+    final var seek = targetOffset - this.offsetCurrentRelative();
+    if (seek < 0L) {
+      throw this.streamPositionExceeded(targetOffset);
+    }
+
+    this.skip(seek);
+
+    return new BSSWriterWritableChannel(
+      this,
+      this.uri,
+      this.subPath(name),
+      this.sink,
+      OptionalLong.of(newSize));
+  }
+
+  @Override
+  public long padTo(
+    final long offset,
+    final byte value)
+    throws IOException
+  {
+    final var diff = Math.max(0L, offset - this.offsetCurrentRelative());
+    if (diff == 0L) {
+      return 0L;
+    }
+
+    this.checkNotClosed();
+    this.checkHasBytesRemaining(diff, null);
+    this.sink.fill(diff, value);
+    return diff;
+  }
+
+  @Override
+  public <E extends Exception> E createException(
+    final String message,
+    final Map<String, String> attributes,
+    final Function<String, E> constructor)
+  {
+    return BSSExceptions.create(
+      this,
+      message,
+      attributes,
+      constructor
+    );
+  }
+
+  /**
+   * The channel and buffer shared between a writer and all of its
+   * sub-writers. The buffer is always kept in "write" mode: The bytes
+   * between zero and the position are the buffered, unwritten bytes.
+   */
+
+  private static final class Sink
+  {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ByteBuffer[] gather;
+    private long written;
+
+    Sink(
+      final WritableByteChannel inChannel,
+      final ByteBuffer inBuffer)
+    {
+      this.channel =
+        Objects.requireNonNull(inChannel, "channel");
+      this.buffer =
+        Objects.requireNonNull(inBuffer, "buffer");
+      this.gather =
+        new ByteBuffer[2];
+    }
+
+    /**
+     * Ensure that there is space in the buffer for {@code octets} bytes,
+     * and account for the bytes that the caller is about to put into it.
+     */
+
+    ByteBuffer reserve(
+      final int octets)
+      throws IOException
+    {
+      if (this.buffer.remaining() < octets) {
+        this.flush();
+      }
+      this.written += octets;
+      return this.buffer;
+    }
+
+    /**
+     * Write {@code octets} copies of {@code value}.
+     */
+
+    void fill(
+      final long octets,
+      final byte value)
+      throws IOException
+    {
+      var remaining = octets;
+      while (remaining > 0L) {
+        if (!this.buffer.hasRemaining()) {
+          this.flush();
+        }
+
+        final var count =
+          (int) Math.min(remaining, this.buffer.remaining());
+        final var position = this.buffer.position();
+        for (var index = 0; index < count; ++index) {
+          this.buffer.put(position + index, value);
+        }
+        this.buffer.position(position + count);
+        this.written += count;
+        remaining -= count;
+      }
+    }
+
+    /**
+     * Write all the remaining bytes of {@code data}. Data that fits into the
+     * buffer is copied; anything larger is written directly, after (and in
+     * the same gathering write as) any buffered data.
+     */
+
+    void write(
+      final ByteBuffer data)
+      throws IOException
+    {
+      final var count = data.remaining();
+      if (count <= this.buffer.remaining()) {
+        this.buffer.put(data);
+        this.written += count;
+        return;
+      }
+
+      this.buffer.flip();
+      try {
+        if (this.channel instanceof final GatheringByteChannel gathering) {
+          this.gather[0] = this.buffer;
+          this.gather[1] = data;
+          try {
+            while (data.hasRemaining()) {
+              gathering.write(this.gather);
+            }
+          } finally {
+            this.gather[0] = null;
+            this.gather[1] = null;
+          }
+        } else {
+          this.writeAll(this.buffer);
+          this.writeAll(data);
+        }
+      } finally {
+        this.buffer.compact();
+      }
+      this.written += count;
+    }
+
+    void flush()
+      throws IOException
+    {
+      this.buffer.flip();
+      try {
+        this.writeAll(this.buffer);
+      } finally {
+        this.buffer.compact();
+      }
+    }
+
+    private void writeAll(
+      final ByteBuffer data)
+      throws IOException
+    {
+      while (data.hasRemaining()) {
+        this.channel.write(data);
+      }
+    }
+  }
+}